@@ -41,11 +41,22 @@ public class AsyncLineageSubmission implements ComputeLineageSubmission {
     private final StandardLineageResult result;
 
     public AsyncLineageSubmission(final LineageComputationType computationType, final Long eventId, final Collection<String> lineageFlowFileUuids, final int numSteps, final String submitterId) {
+        this(computationType, eventId, lineageFlowFileUuids, lineageFlowFileUuids, numSteps, submitterId);
+    }
+
+    /**
+     * Creates a submission whose lineage graph may include FlowFiles other than those that the lineage was requested for
+     *
+     * @param graphFlowFileUuids the UUIDs of the FlowFiles for which the lineage graph creates FlowFile nodes. This collection may
+     *            continue to grow while the lineage is being computed, so it must be safe for concurrent access.
+     */
+    public AsyncLineageSubmission(final LineageComputationType computationType, final Long eventId, final Collection<String> lineageFlowFileUuids,
+                                  final Collection<String> graphFlowFileUuids, final int numSteps, final String submitterId) {
         this.computationType = computationType;
         this.eventId = eventId;
         this.lineageFlowFileUuids = lineageFlowFileUuids;
         this.submitterId = submitterId;
-        this.result = new StandardLineageResult(numSteps, lineageFlowFileUuids);
+        this.result = new StandardLineageResult(numSteps, graphFlowFileUuids);
     }
 
     @Override
@@ -63,6 +63,7 @@ public class StandardLineageResult implements ComputeLineageResult, ProgressiveR
     private int numCompletedSteps = 0;
 
     private volatile boolean canceled = false;
+    private volatile boolean incomplete = false;
     private final Object completionMonitor = new Object();
 
     public StandardLineageResult(final int numSteps, final Collection<String> flowFileUuids) {
@@ -102,6 +103,18 @@ public class StandardLineageResult implements ComputeLineageResult, ProgressiveR
         }
     }
 
+    /**
+     * @return <code>true</code> if the repository did not record all of the events of some of the FlowFiles in the lineage,
+     *         so that the lineage may be missing events
+     */
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    public void setIncomplete(final boolean incomplete) {
+        this.incomplete = incomplete;
+    }
+
     @Override
     public Date getExpiration() {
         readLock.lock();
@@ -189,10 +202,33 @@ public class StandardLineageResult implements ComputeLineageResult, ProgressiveR
         }
     }
 
+    /**
+     * Adds the given records to the result and rebuilds the lineage graph from all of the records that have been
+     * provided so far, so that a partial graph can be retrieved while the computation is still running. Unlike
+     * {@link #update(Collection, long)}, this does not complete a step of the computation.
+     *
+     * @param records the newly discovered records
+     */
+    public void publish(final Collection<ProvenanceEventRecord> records) {
+        writeLock.lock();
+        try {
+            if (numCompletedSteps >= numSteps || canceled || error != null) {
+                return;
+            }
+
+            relevantRecords.addAll(records);
+            updateExpiration();
+            computeLineage();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     /**
      * Computes the lineage from the relevant Provenance Event Records. This
      * method must be called with the write lock held and is only going to be
-     * useful after all of the records have been successfully obtained
+     * useful after all of the records have been successfully obtained, or when
+     * publishing a partial graph
      */
     private void computeLineage() {
         logger.debug("Computing lineage with the following events: {}", relevantRecords);
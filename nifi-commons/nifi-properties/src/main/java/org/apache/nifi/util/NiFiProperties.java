@@ -81,6 +81,15 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String REMOTE_CONTENTS_CACHE_EXPIRATION = "nifi.remote.contents.cache.expiration";
     public static final String ADMINISTRATIVE_YIELD_DURATION = "nifi.administrative.yield.duration";
     public static final String BORED_YIELD_DURATION = "nifi.bored.yield.duration";
+    public static final String BORED_YIELD_WORK_AWARE = "nifi.bored.yield.work.aware";
+    public static final String BORED_YIELD_MAX_DURATION = "nifi.bored.yield.max.duration";
+    public static final String VIRTUAL_THREAD_PROCESSOR_TYPES = "nifi.virtual.thread.processor.types";
+    public static final String VIRTUAL_THREAD_MAX_CONCURRENT_TASKS = "nifi.virtual.thread.max.concurrent.tasks";
+    public static final String PROCESS_GROUP_MAX_THREADS_PREFIX = "nifi.process.group.max.threads.";
+    public static final String ADAPTIVE_CONCURRENT_TASKS_ENABLED = "nifi.processor.adaptive.concurrent.tasks.enabled";
+    public static final String ADAPTIVE_CONCURRENT_TASKS_MIN = "nifi.processor.adaptive.concurrent.tasks.min";
+    public static final String ADAPTIVE_CONCURRENT_TASKS_INTERVAL = "nifi.processor.adaptive.concurrent.tasks.interval";
+    public static final String PROCESSOR_MICRO_BATCH_SIZE = "nifi.processor.micro.batch.size";
     public static final String PROCESSOR_SCHEDULING_TIMEOUT = "nifi.processor.scheduling.timeout";
     public static final String BACKPRESSURE_COUNT = "nifi.queue.backpressure.count";
     public static final String BACKPRESSURE_SIZE = "nifi.queue.backpressure.size";
@@ -96,12 +105,20 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String CONTENT_ARCHIVE_BACK_PRESSURE_PERCENTAGE = "nifi.content.repository.archive.backpressure.percentage";
     public static final String CONTENT_ARCHIVE_ENABLED = "nifi.content.repository.archive.enabled";
     public static final String CONTENT_ARCHIVE_CLEANUP_FREQUENCY = "nifi.content.repository.archive.cleanup.frequency";
+    public static final String CONTENT_REPOSITORY_DEDUPLICATION_ENABLED = "nifi.content.repository.deduplication.enabled";
+    public static final String CONTENT_REPOSITORY_DEDUPLICATION_MIN_SIZE = "nifi.content.repository.deduplication.min.size";
+    public static final String CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES = "nifi.content.repository.deduplication.max.entries";
+    public static final String REPOSITORY_CONTENT_COLD_PREFIX = "nifi.content.repository.cold.directory.";
+    public static final String CONTENT_REPOSITORY_COLD_AGE_THRESHOLD = "nifi.content.repository.cold.age.threshold";
+    public static final String CONTENT_REPOSITORY_COLD_HOT_MAX_USAGE_PERCENTAGE = "nifi.content.repository.cold.hot.max.usage.percentage";
 
     // flowfile repository properties
     public static final String FLOWFILE_REPOSITORY_IMPLEMENTATION = "nifi.flowfile.repository.implementation";
     public static final String FLOWFILE_REPOSITORY_ALWAYS_SYNC = "nifi.flowfile.repository.always.sync";
     public static final String FLOWFILE_REPOSITORY_DIRECTORY = "nifi.flowfile.repository.directory";
     public static final String FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL = "nifi.flowfile.repository.checkpoint.interval";
+    public static final String FLOWFILE_REPOSITORY_RECOVERY_THREADS = "nifi.flowfile.repository.recovery.threads";
+    public static final String FLOWFILE_REPOSITORY_INLINE_CONTENT_MAX_SIZE = "nifi.flowfile.repository.inline.content.max.size";
     public static final String FLOWFILE_SWAP_MANAGER_IMPLEMENTATION = "nifi.swap.manager.implementation";
     public static final String QUEUE_SWAP_THRESHOLD = "nifi.queue.swap.threshold";
 
@@ -365,14 +382,27 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String DEFAULT_NAR_LIBRARY_DIR = "./lib";
     public static final String DEFAULT_NAR_LIBRARY_AUTOLOAD_DIR = "./extensions";
     public static final String DEFAULT_FLOWFILE_CHECKPOINT_INTERVAL = "20 secs";
+    public static final int DEFAULT_FLOWFILE_REPOSITORY_RECOVERY_THREADS = 1;
     public static final String DEFAULT_MAX_APPENDABLE_CLAIM_SIZE = "50 KB";
+    public static final String DEFAULT_FLOWFILE_REPOSITORY_INLINE_CONTENT_MAX_SIZE = "0 B";
     public static final String DEFAULT_CONTENT_CLAIM_TRUNCATION_ENABLED = "true";
+    public static final String DEFAULT_CONTENT_REPOSITORY_DEDUPLICATION_MIN_SIZE = "1 MB";
+    public static final int DEFAULT_CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES = 100_000;
+    public static final String DEFAULT_CONTENT_REPOSITORY_COLD_AGE_THRESHOLD = "1 hour";
+    public static final String DEFAULT_CONTENT_REPOSITORY_COLD_HOT_MAX_USAGE_PERCENTAGE = "80%";
     public static final int DEFAULT_QUEUE_SWAP_THRESHOLD = 20000;
     public static final long DEFAULT_BACKPRESSURE_COUNT = 10_000L;
     public static final String DEFAULT_BACKPRESSURE_SIZE = "1 GB";
     public static final String DEFAULT_ADMINISTRATIVE_YIELD_DURATION = "30 sec";
     public static final String DEFAULT_COMPONENT_STATUS_SNAPSHOT_FREQUENCY = "5 mins";
     public static final String DEFAULT_BORED_YIELD_DURATION = "10 millis";
+    public static final boolean DEFAULT_BORED_YIELD_WORK_AWARE = false;
+    public static final String DEFAULT_BORED_YIELD_MAX_DURATION = "1 sec";
+    public static final int DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENT_TASKS = 256;
+    public static final boolean DEFAULT_ADAPTIVE_CONCURRENT_TASKS_ENABLED = false;
+    public static final int DEFAULT_ADAPTIVE_CONCURRENT_TASKS_MIN = 1;
+    public static final String DEFAULT_ADAPTIVE_CONCURRENT_TASKS_INTERVAL = "10 secs";
+    public static final int DEFAULT_PROCESSOR_MICRO_BATCH_SIZE = 1;
     public static final String DEFAULT_ZOOKEEPER_CONNECT_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_SESSION_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_ROOT_NODE = "/nifi";
@@ -629,6 +659,30 @@ public class NiFiProperties extends ApplicationProperties {
         return getProperty(FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL, DEFAULT_FLOWFILE_CHECKPOINT_INTERVAL);
     }
 
+    /**
+     * Returns the number of threads to use when recovering the FlowFile Repository
+     * and its swap files on startup. Defaults to {@link #DEFAULT_FLOWFILE_REPOSITORY_RECOVERY_THREADS},
+     * because more than one thread causes the snapshot to be written in a format that earlier versions cannot read.
+     *
+     * @return the number of recovery threads
+     */
+    public int getFlowFileRepositoryRecoveryThreads() {
+        final int recoveryThreads = getIntegerProperty(FLOWFILE_REPOSITORY_RECOVERY_THREADS, DEFAULT_FLOWFILE_REPOSITORY_RECOVERY_THREADS);
+        return Math.max(1, recoveryThreads);
+    }
+
+    /**
+     * Returns the maximum size of content that is held in the FlowFile record itself rather than in the Content Repository.
+     * A value of 0 disables inline content.
+     * <p>
+     * Default is {@link #DEFAULT_FLOWFILE_REPOSITORY_INLINE_CONTENT_MAX_SIZE}
+     *
+     * @return the maximum inline content size
+     */
+    public String getFlowFileRepositoryInlineContentMaxSize() {
+        return getProperty(FLOWFILE_REPOSITORY_INLINE_CONTENT_MAX_SIZE, DEFAULT_FLOWFILE_REPOSITORY_INLINE_CONTENT_MAX_SIZE);
+    }
+
     /**
      * @return the restore directory or null if not configured
      */
@@ -1398,6 +1452,26 @@ public class NiFiProperties extends ApplicationProperties {
         return contentRepositoryPaths;
     }
 
+    /**
+     * Returns the cold tier paths of the content repository. This method returns a mapping of
+     * content repository container name to the path of the slower volume that content of that
+     * container is moved to once it is no longer hot. It simply returns the values configured.
+     * No directories will be created as a result of this operation.
+     *
+     * @return the configured cold tier paths, keyed by content repository container name
+     */
+    public Map<String, Path> getContentRepositoryColdPaths() {
+        final Map<String, Path> coldPaths = new HashMap<>();
+
+        for (String propertyName : getPropertyKeys()) {
+            if (StringUtils.startsWith(propertyName, REPOSITORY_CONTENT_COLD_PREFIX)) {
+                final String key = StringUtils.substringAfter(propertyName, REPOSITORY_CONTENT_COLD_PREFIX);
+                coldPaths.put(key, Paths.get(getProperty(propertyName)));
+            }
+        }
+        return coldPaths;
+    }
+
     /**
      * Returns the provenance repository paths. This method returns a mapping of
      * file repository name to file repository paths. It simply returns the
@@ -1440,6 +1514,54 @@ public class NiFiProperties extends ApplicationProperties {
         return Boolean.parseBoolean(getProperty(CONTENT_CLAIM_TRUNCATION_ENABLED, DEFAULT_CONTENT_CLAIM_TRUNCATION_ENABLED));
     }
 
+    /**
+     * Returns whether the Content Repository should hash content as it is written and let FlowFiles with identical content share a single Content Claim.
+     *
+     * @return <code>true</code> if content deduplication is enabled, <code>false</code> otherwise
+     */
+    public boolean isContentRepositoryDeduplicationEnabled() {
+        return Boolean.parseBoolean(getProperty(CONTENT_REPOSITORY_DEDUPLICATION_ENABLED, "false"));
+    }
+
+    /**
+     * Returns the minimum size of content that the Content Repository will deduplicate. Default is {@link #DEFAULT_CONTENT_REPOSITORY_DEDUPLICATION_MIN_SIZE}
+     *
+     * @return the minimum size of content to deduplicate, as a data size
+     */
+    public String getContentRepositoryDeduplicationMinSize() {
+        return getProperty(CONTENT_REPOSITORY_DEDUPLICATION_MIN_SIZE, DEFAULT_CONTENT_REPOSITORY_DEDUPLICATION_MIN_SIZE);
+    }
+
+    /**
+     * Returns the maximum number of content digests that the Content Repository keeps in memory in order to find duplicate content.
+     * Default is {@link #DEFAULT_CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES}
+     *
+     * @return the maximum number of content digests to keep
+     */
+    public int getContentRepositoryDeduplicationMaxEntries() {
+        return Math.max(1, getIntegerProperty(CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES, DEFAULT_CONTENT_REPOSITORY_DEDUPLICATION_MAX_ENTRIES));
+    }
+
+    /**
+     * Returns how old content must be before the Content Repository moves it to the cold tier.
+     * Default is {@link #DEFAULT_CONTENT_REPOSITORY_COLD_AGE_THRESHOLD}
+     *
+     * @return the age threshold for moving content to the cold tier, as a time period
+     */
+    public String getContentRepositoryColdAgeThreshold() {
+        return getProperty(CONTENT_REPOSITORY_COLD_AGE_THRESHOLD, DEFAULT_CONTENT_REPOSITORY_COLD_AGE_THRESHOLD);
+    }
+
+    /**
+     * Returns the disk usage of a hot content repository container above which the oldest content is moved to the cold tier,
+     * regardless of its age. Default is {@link #DEFAULT_CONTENT_REPOSITORY_COLD_HOT_MAX_USAGE_PERCENTAGE}
+     *
+     * @return the maximum usage of the hot tier, as a percentage
+     */
+    public String getContentRepositoryColdHotMaxUsagePercentage() {
+        return getProperty(CONTENT_REPOSITORY_COLD_HOT_MAX_USAGE_PERCENTAGE, DEFAULT_CONTENT_REPOSITORY_COLD_HOT_MAX_USAGE_PERCENTAGE);
+    }
+
     @Override
     public String getProperty(final String key, final String defaultValue) {
         final String value = getProperty(key);
@@ -1450,6 +1572,117 @@ public class NiFiProperties extends ApplicationProperties {
         return getProperty(BORED_YIELD_DURATION, DEFAULT_BORED_YIELD_DURATION);
     }
 
+    /**
+     * Returns whether a component that has no work to do should wait for a signal that work is available, such as
+     * data being queued for it or back pressure being released, rather than checking again after the bored yield duration.
+     *
+     * @return <code>true</code> if bored components wait for work signals, <code>false</code> otherwise
+     */
+    public boolean isBoredYieldWorkAware() {
+        return Boolean.parseBoolean(getProperty(BORED_YIELD_WORK_AWARE, String.valueOf(DEFAULT_BORED_YIELD_WORK_AWARE)));
+    }
+
+    /**
+     * Returns the longest amount of time that a component waiting for a work signal will wait before checking for work anyway.
+     *
+     * @return the maximum bored yield duration
+     */
+    public String getBoredYieldMaxDuration() {
+        return getProperty(BORED_YIELD_MAX_DURATION, DEFAULT_BORED_YIELD_MAX_DURATION);
+    }
+
+    /**
+     * Returns the types of Processor whose Timer-Driven tasks run on virtual threads rather than on the Timer-Driven thread pool.
+     * Each type may be given as a fully qualified or simple class name.
+     *
+     * @return the configured Processor types, or an empty set if no Processor runs on virtual threads
+     */
+    public Set<String> getVirtualThreadProcessorTypes() {
+        final String types = getProperty(VIRTUAL_THREAD_PROCESSOR_TYPES, "");
+        return Arrays.stream(types.split(","))
+            .map(String::trim)
+            .filter(type -> !type.isEmpty())
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the maximum number of tasks that may run concurrently on virtual threads, across all Processors that run on virtual threads.
+     *
+     * @return the maximum number of concurrent virtual thread tasks
+     */
+    public int getVirtualThreadMaxConcurrentTasks() {
+        return Math.max(1, getIntegerProperty(VIRTUAL_THREAD_MAX_CONCURRENT_TASKS, DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENT_TASKS));
+    }
+
+    /**
+     * Returns the maximum number of Timer-Driven threads that a Process Group, together with all of its descendant groups, may use at once.
+     * Each budget is configured with a property whose key is the prefix {@link #PROCESS_GROUP_MAX_THREADS_PREFIX} followed by the Process Group identifier.
+     * Entries that are blank or not a positive integer are ignored.
+     *
+     * @return a map of Process Group identifier to maximum number of threads, or an empty map if no budget is configured
+     */
+    public Map<String, Integer> getProcessGroupMaxThreads() {
+        final Map<String, Integer> maxThreads = new HashMap<>();
+        for (final Map.Entry<String, String> entry : getPropertiesWithPrefix(PROCESS_GROUP_MAX_THREADS_PREFIX).entrySet()) {
+            final String groupId = entry.getKey().substring(PROCESS_GROUP_MAX_THREADS_PREFIX.length()).trim();
+            final String value = entry.getValue();
+            if (groupId.isEmpty() || value == null || value.isBlank()) {
+                continue;
+            }
+
+            try {
+                final int threads = Integer.parseInt(value.trim());
+                if (threads > 0) {
+                    maxThreads.put(groupId, threads);
+                } else {
+                    logger.warn("Configured value for property {} in nifi.properties must be a positive integer; ignoring", entry.getKey());
+                }
+            } catch (final NumberFormatException e) {
+                logger.warn("Configured value for property {} in nifi.properties is invalid; ignoring", entry.getKey(), e);
+            }
+        }
+
+        return maxThreads;
+    }
+
+    /**
+     * Returns whether the framework adapts the number of concurrent tasks of each Timer-Driven Processor to its workload, treating the
+     * Processor's configured Concurrent Tasks as the upper bound.
+     *
+     * @return <code>true</code> if adaptive concurrent tasks are enabled
+     */
+    public boolean isAdaptiveConcurrentTasksEnabled() {
+        return Boolean.parseBoolean(getProperty(ADAPTIVE_CONCURRENT_TASKS_ENABLED, String.valueOf(DEFAULT_ADAPTIVE_CONCURRENT_TASKS_ENABLED)));
+    }
+
+    /**
+     * Returns the fewest concurrent tasks to which the framework may lower a Processor when adaptive concurrent tasks are enabled.
+     *
+     * @return the minimum number of concurrent tasks
+     */
+    public int getAdaptiveConcurrentTasksMin() {
+        return Math.max(1, getIntegerProperty(ADAPTIVE_CONCURRENT_TASKS_MIN, DEFAULT_ADAPTIVE_CONCURRENT_TASKS_MIN));
+    }
+
+    /**
+     * Returns how often the framework reconsiders the number of concurrent tasks of each Processor when adaptive concurrent tasks are enabled.
+     *
+     * @return the evaluation interval as a time duration
+     */
+    public String getAdaptiveConcurrentTasksInterval() {
+        return getProperty(ADAPTIVE_CONCURRENT_TASKS_INTERVAL, DEFAULT_ADAPTIVE_CONCURRENT_TASKS_INTERVAL);
+    }
+
+    /**
+     * Returns the maximum number of consecutive triggers of a Processor that supports batching and has a Run Duration of 0 whose
+     * session updates are combined into a single commit. A value of 1 commits every trigger on its own.
+     *
+     * @return the maximum number of triggers per micro-batch
+     */
+    public int getProcessorMicroBatchSize() {
+        return Math.max(1, getIntegerProperty(PROCESSOR_MICRO_BATCH_SIZE, DEFAULT_PROCESSOR_MICRO_BATCH_SIZE));
+    }
+
     public File getStateManagementConfigFile() {
         return new File(getProperty(STATE_MANAGEMENT_CONFIG_FILE, DEFAULT_STATE_MANAGEMENT_CONFIG_FILE));
     }
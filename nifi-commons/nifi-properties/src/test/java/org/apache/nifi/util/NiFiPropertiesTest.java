@@ -436,4 +436,34 @@ public class NiFiPropertiesTest {
         assertTrue(result.contains("war"));
         assertTrue(result.contains("jetty"));
     }
+
+    @Test
+    public void testGetVirtualThreadProcessorTypes() {
+        final NiFiProperties properties = NiFiProperties.createBasicNiFiProperties(null, Map.of(
+                NiFiProperties.VIRTUAL_THREAD_PROCESSOR_TYPES, "org.apache.nifi.processors.standard.InvokeHTTP, PutSFTP,,"
+        ));
+
+        assertEquals(Set.of("org.apache.nifi.processors.standard.InvokeHTTP", "PutSFTP"), properties.getVirtualThreadProcessorTypes());
+        assertEquals(NiFiProperties.DEFAULT_VIRTUAL_THREAD_MAX_CONCURRENT_TASKS, properties.getVirtualThreadMaxConcurrentTasks());
+    }
+
+    @Test
+    public void testGetVirtualThreadProcessorTypesNotConfigured() {
+        final NiFiProperties properties = NiFiProperties.createBasicNiFiProperties(null, new HashMap<>());
+
+        assertTrue(properties.getVirtualThreadProcessorTypes().isEmpty());
+    }
+
+    @Test
+    public void testGetProcessGroupMaxThreads() {
+        final NiFiProperties properties = NiFiProperties.createBasicNiFiProperties(null, Map.of(
+                NiFiProperties.PROCESS_GROUP_MAX_THREADS_PREFIX + "group-1", "4",
+                NiFiProperties.PROCESS_GROUP_MAX_THREADS_PREFIX + "group-2", " 2 ",
+                NiFiProperties.PROCESS_GROUP_MAX_THREADS_PREFIX + "group-3", "0",
+                NiFiProperties.PROCESS_GROUP_MAX_THREADS_PREFIX + "group-4", "many",
+                NiFiProperties.PROCESS_GROUP_MAX_THREADS_PREFIX + "group-5", ""
+        ));
+
+        assertEquals(Map.of("group-1", 4, "group-2", 2), properties.getProcessGroupMaxThreads());
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * Coalesces the fsync requests of concurrent writers so that a single call to {@link WriteAheadJournal#fsync()}
+ * makes durable every transaction that had been written to the journal when the sync began.
+ * </p>
+ *
+ * <p>
+ * A writer that requires a sync calls {@link #beginWrite()} before writing to the journal and {@link #writeComplete()}
+ * once the transaction has been written. It then calls {@link #sync(long, WriteAheadJournal)} with the sequence number
+ * that it was given. If a sync that started after the write completed has already finished, the call returns immediately.
+ * Otherwise, the writer becomes the leader and syncs the journal on behalf of every writer that is waiting. A leader may
+ * optionally wait a short period of time for other writers that are still in the middle of writing to the journal so that
+ * their transactions are included in the same sync.
+ * </p>
+ */
+class GroupCommitSynchronizer {
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50L);
+
+    private final long maxWaitNanos;
+    private final int maxBatchSize;
+    private final Lock syncLock = new ReentrantLock();
+    private final AtomicLong writtenSequence = new AtomicLong(0L);
+    private final AtomicInteger writesInProgress = new AtomicInteger(0);
+    private volatile long syncedSequence = 0L;
+
+    /**
+     * @param maxWait the maximum amount of time that a leader will wait for in-progress writes before syncing. A value of 0 disables waiting,
+     *                in which case only writers that finish while another sync is in progress are coalesced.
+     * @param timeUnit the unit of the maxWait argument
+     * @param maxBatchSize the number of unsynced transactions at which a leader stops waiting and syncs immediately
+     */
+    GroupCommitSynchronizer(final long maxWait, final TimeUnit timeUnit, final int maxBatchSize) {
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("Max Wait cannot be negative");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max Batch Size must be at least 1");
+        }
+
+        this.maxWaitNanos = timeUnit.toNanos(maxWait);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Indicates that a writer that will require a sync is about to write to the journal
+     */
+    void beginWrite() {
+        writesInProgress.incrementAndGet();
+    }
+
+    /**
+     * Indicates that a writer that called {@link #beginWrite()} failed to write to the journal and will not request a sync
+     */
+    void writeFailed() {
+        writesInProgress.decrementAndGet();
+    }
+
+    /**
+     * Indicates that a writer that called {@link #beginWrite()} has finished writing its transaction to the journal
+     *
+     * @return the sequence number to provide to {@link #sync(long, WriteAheadJournal)}
+     */
+    long writeComplete() {
+        // Increment the sequence before decrementing the number of in-progress writes so that a waiting leader never
+        // observes zero in-progress writes without also observing this write's sequence number.
+        final long sequence = writtenSequence.incrementAndGet();
+        writesInProgress.decrementAndGet();
+        return sequence;
+    }
+
+    /**
+     * Ensures that the transaction identified by the given sequence number has been synced to disk
+     *
+     * @param sequence the sequence number returned by {@link #writeComplete()}
+     * @param journal the journal that the transaction was written to
+     * @return <code>true</code> if this call performed the sync, <code>false</code> if the transaction had already been synced by another caller
+     * @throws IOException if unable to sync the journal
+     */
+    boolean sync(final long sequence, final WriteAheadJournal<?> journal) throws IOException {
+        if (syncedSequence >= sequence) {
+            return false;
+        }
+
+        syncLock.lock();
+        try {
+            if (syncedSequence >= sequence) {
+                return false;
+            }
+
+            awaitInProgressWrites();
+
+            final long syncThrough = writtenSequence.get();
+            journal.fsync();
+            if (!journal.isHealthy()) {
+                throw new IOException("Failed to sync Write-Ahead Log journal to disk");
+            }
+
+            syncedSequence = syncThrough;
+            return true;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Marks every transaction that has been written so far as synced. This is called when the journal is synced outside
+     * of this synchronizer, such as when the Write-Ahead Log is checkpointed.
+     */
+    void markAllSynced() {
+        syncLock.lock();
+        try {
+            syncedSequence = writtenSequence.get();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void awaitInProgressWrites() {
+        if (maxWaitNanos == 0L) {
+            return;
+        }
+
+        final long deadline = System.nanoTime() + maxWaitNanos;
+        while (writesInProgress.get() > 0
+                && writtenSequence.get() - syncedSequence < maxBatchSize
+                && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
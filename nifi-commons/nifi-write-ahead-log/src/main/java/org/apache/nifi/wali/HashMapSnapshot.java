@@ -25,6 +25,8 @@ import org.wali.UpdateType;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -32,29 +34,67 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A snapshot that keeps all active records in a map on the heap and writes them to a single file when checkpointed.
+ * </p>
+ *
+ * <p>
+ * Beginning with version 2 of the encoding, records are written in length-delimited blocks, each of which can be
+ * deserialized independently of the others. This allows the snapshot to be recovered by several threads, provided
+ * that the {@link SerDeFactory} creates a new {@link SerDe} for each call to {@link SerDeFactory#createSerDe(String)}.
+ * The snapshot holds at most one version of each record, so the blocks may be restored in any order. The block encoding
+ * is only written when more than one recovery thread is configured, so that a snapshot written by a single-threaded
+ * repository can still be read by earlier versions.
+ * </p>
+ */
 public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T> {
     private static final Logger logger = LoggerFactory.getLogger(HashMapSnapshot.class);
-    private static final int ENCODING_VERSION = 1;
+    private static final int ENCODING_VERSION = 2;
+    private static final int SEQUENTIAL_ENCODING_VERSION = 1;
+    private static final int BLOCK_ENCODING_VERSION = 2;
+    private static final int RECORDS_PER_BLOCK = 1024;
+    private static final int BLOCK_BUFFER_SIZE = 256 * 1024;
 
     private final ConcurrentMap<Object, T> recordMap = new ConcurrentHashMap<>();
     private final SerDeFactory<T> serdeFactory;
     private final Set<String> swapLocations = Collections.synchronizedSet(new HashSet<>());
     private final File storageDirectory;
+    private final int recoveryThreads;
 
     public HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory) {
+        this(storageDirectory, serdeFactory, 1);
+    }
+
+    /**
+     * @param storageDirectory the directory in which to store the snapshot
+     * @param serdeFactory the factory for the serializer/deserializer of records
+     * @param recoveryThreads the number of threads to use for deserializing records when the snapshot is recovered
+     */
+    public HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final int recoveryThreads) {
         this.serdeFactory = serdeFactory;
         this.storageDirectory = storageDirectory;
+        this.recoveryThreads = Math.max(1, recoveryThreads);
     }
 
     private SnapshotHeader validateHeader(final DataInputStream dataIn) throws IOException {
@@ -85,13 +125,26 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         logger.debug("Number of Records for Snapshot at {} is {}", storageDirectory, numRecords);
 
         final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
-        serde.readHeader(dataIn);
+        final byte[] serdeHeader;
+        if (snapshotVersion < BLOCK_ENCODING_VERSION) {
+            serdeHeader = null;
+            serde.readHeader(dataIn);
+        } else {
+            // The SerDe header is length-delimited so that it can be provided to a separate SerDe for each block of records.
+            serdeHeader = new byte[dataIn.readInt()];
+            dataIn.readFully(serdeHeader);
+            serde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+        }
 
-        return new SnapshotHeader(serde, serdeVersion, maxTransactionId, numRecords);
+        return new SnapshotHeader(serde, serdeEncoding, serdeHeader, snapshotVersion, serdeVersion, maxTransactionId, numRecords);
     }
 
     @Override
     public SnapshotRecovery<T> recover() throws IOException {
+        if (MappedSnapshot.exists(storageDirectory)) {
+            throw new IOException("Write-Ahead Log at " + storageDirectory + " was last checkpointed using a memory-mapped Snapshot; cannot restore using " + getClass().getName());
+        }
+
         final File partialFile = getPartialFile();
         final File snapshotFile = getSnapshotFile();
         final boolean partialExists = partialFile.exists();
@@ -131,20 +184,19 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
             final long maxTransactionId = header.getMaxTransactionId();
 
             // Read all of the records that we expect to receive.
-            for (int i = 0; i < numRecords; i++) {
-                final T record = serde.deserializeRecord(dataIn, serdeVersion);
-                if (record == null) {
-                    throw new EOFException();
+            if (header.getSnapshotVersion() < BLOCK_ENCODING_VERSION) {
+                for (int i = 0; i < numRecords; i++) {
+                    restoreRecord(serde, serde.deserializeRecord(dataIn, serdeVersion));
                 }
-
-                final UpdateType updateType = serde.getUpdateType(record);
-                if (updateType == UpdateType.DELETE) {
-                    logger.warn("While recovering from snapshot, found record with type 'DELETE'; this record will not be restored");
-                    continue;
+            } else if (isParallelRecoveryPossible(header)) {
+                recoverBlocks(header, dataIn);
+            } else {
+                final BlockContentInputStream blockContentIn = new BlockContentInputStream(dataIn);
+                final DataInputStream recordIn = new DataInputStream(blockContentIn);
+                for (int i = 0; i < numRecords; i++) {
+                    restoreRecord(serde, serde.deserializeRecord(recordIn, serdeVersion));
                 }
-
-                logger.trace("Recovered from snapshot: {}", record);
-                recordMap.put(serde.getRecordIdentifier(record), record);
+                blockContentIn.skipRemainingBlocks();
             }
 
             // Determine the location of any swap files.
@@ -161,6 +213,88 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         }
     }
 
+    private void restoreRecord(final SerDe<T> serde, final T record) throws EOFException {
+        if (record == null) {
+            throw new EOFException();
+        }
+
+        final UpdateType updateType = serde.getUpdateType(record);
+        if (updateType == UpdateType.DELETE) {
+            logger.warn("While recovering from snapshot, found record with type 'DELETE'; this record will not be restored");
+            return;
+        }
+
+        logger.trace("Recovered from snapshot: {}", record);
+        recordMap.put(serde.getRecordIdentifier(record), record);
+    }
+
+    private boolean isParallelRecoveryPossible(final SnapshotHeader header) {
+        // A SerDe is not thread-safe, so each block must be deserialized by a SerDe of its own
+        return recoveryThreads > 1 && serdeFactory.createSerDe(header.getSerDeEncoding()) != header.getSerDe();
+    }
+
+    /**
+     * Reads each block of records from the given stream and deserializes the blocks in parallel. The number of blocks that have been read
+     * but not yet deserialized is bounded so that the entire snapshot is not buffered in memory when deserialization cannot keep up.
+     */
+    private void recoverBlocks(final SnapshotHeader header, final DataInputStream dataIn) throws IOException {
+        final AtomicInteger threadCounter = new AtomicInteger(0);
+        final ExecutorService executor = Executors.newFixedThreadPool(recoveryThreads, runnable -> {
+            final Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("Recover Write-Ahead Log Snapshot-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final Semaphore blockPermits = new Semaphore(recoveryThreads * 2);
+        final List<Future<?>> futures = new ArrayList<>();
+        try {
+            int recordCount;
+            while ((recordCount = dataIn.readInt()) > 0) {
+                final byte[] block = new byte[dataIn.readInt()];
+                dataIn.readFully(block);
+
+                blockPermits.acquire();
+                final int blockRecordCount = recordCount;
+                futures.add(executor.submit(() -> {
+                    try {
+                        recoverBlock(header, block, blockRecordCount);
+                        return null;
+                    } finally {
+                        blockPermits.release();
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while recovering Write-Ahead Log Snapshot at " + storageDirectory, e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to recover Write-Ahead Log Snapshot at " + storageDirectory, cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.debug("Recovered {} blocks of records from Snapshot at {} using {} threads", futures.size(), storageDirectory, recoveryThreads);
+    }
+
+    private void recoverBlock(final SnapshotHeader header, final byte[] block, final int recordCount) throws IOException {
+        final SerDe<T> serde = serdeFactory.createSerDe(header.getSerDeEncoding());
+        serde.readHeader(new DataInputStream(new ByteArrayInputStream(header.getSerDeHeader())));
+
+        final DataInputStream blockIn = new DataInputStream(new ByteArrayInputStream(block));
+        for (int i = 0; i < recordCount; i++) {
+            restoreRecord(serde, serde.deserializeRecord(blockIn, header.getSerDeVersion()));
+        }
+    }
+
     @Override
     public void update(final Collection<T> records) {
         // This implementation of Snapshot keeps a ConcurrentHashMap of all 'active' records
@@ -245,6 +379,10 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         return ENCODING_VERSION;
     }
 
+    private int getWriteVersion() {
+        return recoveryThreads > 1 ? BLOCK_ENCODING_VERSION : SEQUENTIAL_ENCODING_VERSION;
+    }
+
     private File getPartialFile() {
         return new File(storageDirectory, "checkpoint.partial");
     }
@@ -284,18 +422,24 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
             final DataOutputStream dataOut = new DataOutputStream(bufferedOut)) {
 
             // Write out the header
+            final int writeVersion = getWriteVersion();
             dataOut.writeUTF(HashMapSnapshot.class.getName());
-            dataOut.writeInt(getVersion());
+            dataOut.writeInt(writeVersion);
             dataOut.writeUTF(serde.getClass().getName());
             dataOut.writeInt(serde.getVersion());
             dataOut.writeLong(snapshot.getMaxTransactionId());
             dataOut.writeInt(snapshot.getRecords().size());
-            serde.writeHeader(dataOut);
 
-            // Serialize each record
-            for (final T record : snapshot.getRecords().values()) {
-                logger.trace("Checkpointing {}", record);
-                serde.serializeRecord(record, dataOut);
+            if (writeVersion < BLOCK_ENCODING_VERSION) {
+                serde.writeHeader(dataOut);
+
+                // Serialize each record
+                for (final T record : snapshot.getRecords().values()) {
+                    logger.trace("Checkpointing {}", record);
+                    serde.serializeRecord(record, dataOut);
+                }
+            } else {
+                writeBlocks(snapshot, serde, dataOut);
             }
 
             // Write out the number of swap locations, followed by the swap locations themselves.
@@ -324,6 +468,43 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         }
     }
 
+    private void writeBlocks(final SnapshotCapture<T> snapshot, final SerDe<T> serde, final DataOutputStream dataOut) throws IOException {
+        final ByteArrayDataOutputStream headerOut = new ByteArrayDataOutputStream(1024);
+        serde.writeHeader(headerOut.getDataOutputStream());
+        dataOut.writeInt(headerOut.getByteArrayOutputStream().size());
+        headerOut.getByteArrayOutputStream().writeTo(dataOut);
+
+        // Serialize each record, in blocks that can be deserialized independently of one another.
+        final ByteArrayDataOutputStream blockOut = new ByteArrayDataOutputStream(BLOCK_BUFFER_SIZE);
+        int blockRecordCount = 0;
+        for (final T record : snapshot.getRecords().values()) {
+            logger.trace("Checkpointing {}", record);
+            serde.serializeRecord(record, blockOut.getDataOutputStream());
+
+            if (++blockRecordCount == RECORDS_PER_BLOCK) {
+                writeBlock(blockOut, blockRecordCount, dataOut);
+                blockRecordCount = 0;
+            }
+        }
+
+        if (blockRecordCount > 0) {
+            writeBlock(blockOut, blockRecordCount, dataOut);
+        }
+
+        // A block with no records indicates that there are no more blocks.
+        dataOut.writeInt(0);
+    }
+
+    private void writeBlock(final ByteArrayDataOutputStream blockOut, final int recordCount, final DataOutputStream dataOut) throws IOException {
+        blockOut.getDataOutputStream().flush();
+        final ByteArrayOutputStream blockBytes = blockOut.getByteArrayOutputStream();
+
+        dataOut.writeInt(recordCount);
+        dataOut.writeInt(blockBytes.size());
+        blockBytes.writeTo(dataOut);
+        blockBytes.reset();
+    }
+
     public class Snapshot implements SnapshotCapture<T> {
         private final Map<Object, T> records;
         private final long maxTransactionId;
@@ -353,12 +534,19 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
 
     private class SnapshotHeader {
         private final SerDe<T> serde;
+        private final String serdeEncoding;
+        private final byte[] serdeHeader;
+        private final int snapshotVersion;
         private final int serdeVersion;
         private final int numRecords;
         private final long maxTransactionId;
 
-        public SnapshotHeader(final SerDe<T> serde, final int serdeVersion, final long maxTransactionId, final int numRecords) {
+        public SnapshotHeader(final SerDe<T> serde, final String serdeEncoding, final byte[] serdeHeader, final int snapshotVersion, final int serdeVersion,
+                              final long maxTransactionId, final int numRecords) {
             this.serde = serde;
+            this.serdeEncoding = serdeEncoding;
+            this.serdeHeader = serdeHeader;
+            this.snapshotVersion = snapshotVersion;
             this.serdeVersion = serdeVersion;
             this.maxTransactionId = maxTransactionId;
             this.numRecords = numRecords;
@@ -368,6 +556,18 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
             return serde;
         }
 
+        public String getSerDeEncoding() {
+            return serdeEncoding;
+        }
+
+        public byte[] getSerDeHeader() {
+            return serdeHeader;
+        }
+
+        public int getSnapshotVersion() {
+            return snapshotVersion;
+        }
+
         public int getSerDeVersion() {
             return serdeVersion;
         }
@@ -381,4 +581,79 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         }
     }
 
+    /**
+     * Presents the contents of consecutive blocks of records as a single stream so that a snapshot can be recovered
+     * by a single SerDe, as if the records had not been written in blocks.
+     */
+    private static class BlockContentInputStream extends InputStream {
+        private final DataInputStream in;
+        private int remainingInBlock = 0;
+        private boolean finished = false;
+
+        BlockContentInputStream(final DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextBlockIfNecessary()) {
+                return -1;
+            }
+
+            final int value = in.read();
+            if (value < 0) {
+                throw new EOFException();
+            }
+
+            remainingInBlock--;
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextBlockIfNecessary()) {
+                return -1;
+            }
+
+            final int bytesRead = in.read(b, off, Math.min(len, remainingInBlock));
+            if (bytesRead < 0) {
+                throw new EOFException();
+            }
+
+            remainingInBlock -= bytesRead;
+            return bytesRead;
+        }
+
+        /**
+         * Consumes any data that has not been read, up to and including the marker that indicates the end of the blocks
+         */
+        void skipRemainingBlocks() throws IOException {
+            while (nextBlockIfNecessary()) {
+                in.skipNBytes(remainingInBlock);
+                remainingInBlock = 0;
+            }
+        }
+
+        private boolean nextBlockIfNecessary() throws IOException {
+            while (remainingInBlock == 0) {
+                if (finished) {
+                    return false;
+                }
+
+                final int recordCount = in.readInt();
+                if (recordCount == 0) {
+                    finished = true;
+                    return false;
+                }
+
+                remainingInBlock = in.readInt();
+            }
+
+            return true;
+        }
+    }
+
 }
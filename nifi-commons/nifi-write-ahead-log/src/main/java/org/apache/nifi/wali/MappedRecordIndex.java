@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * An open-addressing hash table that maps a <code>long</code> key to a <code>long</code> value and is stored in a memory-mapped file
+ * rather than on the Java heap. Each slot is 16 bytes: the key followed by the value. A value of 0 indicates that the slot is empty and
+ * a value of -1 indicates that the slot previously held a key that has since been removed, so values are stored offset by one.
+ * </p>
+ *
+ * <p>
+ * A single mapping cannot exceed 2 GB, so a large index file is mapped as a series of segments of up to {@link #SEGMENT_SLOTS} slots each.
+ * </p>
+ *
+ * <p>
+ * The table never grows in place. Callers are expected to check {@link #hasCapacityFor(long)} and create a larger table when necessary.
+ * This class is not thread-safe with respect to concurrent modification, but {@link #get(long)} may be called concurrently with a single
+ * modifying thread, in which case the result for a key that is being modified is undefined.
+ * </p>
+ */
+class MappedRecordIndex {
+    static final long MAX_CAPACITY = 1L << 34;
+    static final int MIN_CAPACITY = 1 << 16;
+    static final int SEGMENT_SLOTS = 1 << 26;
+
+    private static final int SLOT_SIZE = 16;
+    private static final long EMPTY = 0L;
+    private static final long REMOVED = -1L;
+    private static final double MAX_LOAD_FACTOR = 0.7D;
+
+    private final File file;
+    private final MappedByteBuffer[] segments;
+    private final int segmentShift;
+    private final long segmentMask;
+    private final long capacity;
+    private final long mask;
+    private long size;
+    private long removedSlots;
+
+    private MappedRecordIndex(final File file, final MappedByteBuffer[] segments, final int segmentSlots, final long capacity) {
+        this.file = file;
+        this.segments = segments;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentSlots);
+        this.segmentMask = segmentSlots - 1;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Creates a new, empty index with at least the given capacity
+     *
+     * @param file the file to store the index in; any existing file is overwritten
+     * @param minimumCapacity the minimum number of slots
+     * @return the new index
+     * @throws IOException if unable to create or map the file
+     */
+    static MappedRecordIndex create(final File file, final long minimumCapacity) throws IOException {
+        return create(file, minimumCapacity, SEGMENT_SLOTS);
+    }
+
+    // Visible for testing
+    static MappedRecordIndex create(final File file, final long minimumCapacity, final int maxSegmentSlots) throws IOException {
+        if (minimumCapacity > MAX_CAPACITY) {
+            throw new IOException("Cannot create index with capacity of " + minimumCapacity + " slots because the maximum capacity is " + MAX_CAPACITY);
+        }
+
+        final long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(1L, minimumCapacity - 1)) << 1);
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return map(file, channel, capacity, maxSegmentSlots);
+        }
+    }
+
+    /**
+     * Maps an existing index file into memory
+     *
+     * @param file the index file
+     * @return the index
+     * @throws IOException if the file cannot be mapped or is not a valid index file
+     */
+    static MappedRecordIndex open(final File file) throws IOException {
+        return open(file, SEGMENT_SLOTS);
+    }
+
+    // Visible for testing
+    static MappedRecordIndex open(final File file, final int maxSegmentSlots) throws IOException {
+        final long length = file.length();
+        final long capacity = length / SLOT_SIZE;
+        if (length % SLOT_SIZE != 0 || capacity < MIN_CAPACITY || capacity > MAX_CAPACITY || Long.bitCount(capacity) != 1) {
+            throw new IOException("Index file " + file + " has a length of " + length + " bytes, which is not valid for an index file");
+        }
+
+        final MappedRecordIndex index;
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            index = map(file, channel, capacity, maxSegmentSlots);
+        }
+
+        for (long slot = 0; slot < capacity; slot++) {
+            final long value = index.getValue(slot);
+            if (value == REMOVED) {
+                index.removedSlots++;
+            } else if (value != EMPTY) {
+                index.size++;
+            }
+        }
+
+        return index;
+    }
+
+    private static MappedRecordIndex map(final File file, final FileChannel channel, final long capacity, final int maxSegmentSlots) throws IOException {
+        // Both the capacity and the maximum segment size are powers of two, so every segment is the same size
+        final int segmentSlots = (int) Math.min(capacity, maxSegmentSlots);
+        final long segmentBytes = (long) segmentSlots * SLOT_SIZE;
+        final MappedByteBuffer[] segments = new MappedByteBuffer[(int) (capacity / segmentSlots)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * segmentBytes, segmentBytes);
+        }
+
+        return new MappedRecordIndex(file, segments, segmentSlots, capacity);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+    int getSegmentCount() {
+        return segments.length;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * @param additionalKeys the number of keys that may be added
+     * @return <code>true</code> if the given number of keys can be added without exceeding the maximum load factor
+     */
+    boolean hasCapacityFor(final long additionalKeys) {
+        return size + removedSlots + additionalKeys <= (long) (capacity * MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * @param key the key
+     * @return the value associated with the key, or -1 if the key is not present
+     */
+    long get(final long key) {
+        long slot = slotFor(key);
+        for (long i = 0; i < capacity; i++) {
+            final long value = getValue(slot);
+            if (value == EMPTY) {
+                return -1L;
+            }
+            if (value != REMOVED && getKey(slot) == key) {
+                return value - 1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1L;
+    }
+
+    /**
+     * Associates the given non-negative value with the given key
+     *
+     * @param key the key
+     * @param value the value, which must not be negative
+     * @return the value that was previously associated with the key, or -1 if the key was not present
+     */
+    long put(final long key, final long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value cannot be negative");
+        }
+
+        long slot = slotFor(key);
+        long firstRemovedSlot = -1L;
+        for (long i = 0; i < capacity; i++) {
+            final long existing = getValue(slot);
+            if (existing == EMPTY) {
+                break;
+            }
+            if (existing == REMOVED) {
+                if (firstRemovedSlot < 0) {
+                    firstRemovedSlot = slot;
+                }
+            } else if (getKey(slot) == key) {
+                setValue(slot, value + 1);
+                return existing - 1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        if (firstRemovedSlot >= 0) {
+            slot = firstRemovedSlot;
+            removedSlots--;
+        } else if (getValue(slot) != EMPTY || !hasCapacityFor(1)) {
+            throw new IllegalStateException("Index " + file + " is full");
+        }
+
+        // Write the key before the value, because a non-empty value is what marks the slot as occupied
+        segmentFor(slot).putLong(offsetOf(slot), key);
+        setValue(slot, value + 1);
+        size++;
+        return -1L;
+    }
+
+    /**
+     * Removes the given key from the index
+     *
+     * @param key the key
+     * @return the value that was associated with the key, or -1 if the key was not present
+     */
+    long remove(final long key) {
+        long slot = slotFor(key);
+        for (long i = 0; i < capacity; i++) {
+            final long value = getValue(slot);
+            if (value == EMPTY) {
+                return -1L;
+            }
+            if (value != REMOVED && getKey(slot) == key) {
+                setValue(slot, REMOVED);
+                size--;
+                removedSlots++;
+                return value - 1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1L;
+    }
+
+    /**
+     * @param slot the slot
+     * @return <code>true</code> if the slot currently holds a key
+     */
+    boolean isOccupied(final long slot) {
+        final long value = getValue(slot);
+        return value != EMPTY && value != REMOVED;
+    }
+
+    long getKey(final long slot) {
+        return segmentFor(slot).getLong(offsetOf(slot));
+    }
+
+    /**
+     * @param slot the slot
+     * @return the value held in the slot; only meaningful if {@link #isOccupied(long)} returns <code>true</code>
+     */
+    long getSlotValue(final long slot) {
+        return getValue(slot) - 1;
+    }
+
+    void force() {
+        for (final MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    private long getValue(final long slot) {
+        return segmentFor(slot).getLong(offsetOf(slot) + 8);
+    }
+
+    private void setValue(final long slot, final long value) {
+        segmentFor(slot).putLong(offsetOf(slot) + 8, value);
+    }
+
+    private MappedByteBuffer segmentFor(final long slot) {
+        return segments[(int) (slot >>> segmentShift)];
+    }
+
+    private int offsetOf(final long slot) {
+        return (int) (slot & segmentMask) * SLOT_SIZE;
+    }
+
+    private long slotFor(final long key) {
+        // Finalization step of MurmurHash3 in order to spread sequential identifiers across the table
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash & mask;
+    }
+}
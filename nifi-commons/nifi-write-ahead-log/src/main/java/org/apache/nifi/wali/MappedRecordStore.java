@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>
+ * An append-only store of serialized records that is backed by a series of memory-mapped segment files. Each entry consists of a 4-byte
+ * length followed by the serialized record. An entry is addressed by a location, which encodes the index of the segment in the upper
+ * 32 bits and the offset of the entry within the segment in the lower 32 bits.
+ * </p>
+ *
+ * <p>
+ * Entries are never overwritten, so an entry may be read concurrently with a single thread that is appending to the store. Once a store
+ * has been re-opened, entries are always appended to a new segment so that any data that was written to the final segment after the store
+ * was last synced is never overwritten.
+ * </p>
+ */
+class MappedRecordStore {
+    private static final int LENGTH_SIZE = 4;
+
+    private final File directory;
+    private final String filenamePrefix;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+
+    private MappedByteBuffer appendSegment;
+    private int appendPosition;
+    private long bytesWritten;
+
+    private MappedRecordStore(final File directory, final String filenamePrefix, final int segmentSize) {
+        this.directory = directory;
+        this.filenamePrefix = filenamePrefix;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Creates a new, empty store
+     *
+     * @param directory the directory to create segment files in
+     * @param filenamePrefix the prefix for the names of the segment files
+     * @param segmentSize the size of each segment file, in bytes
+     * @return the new store
+     */
+    static MappedRecordStore create(final File directory, final String filenamePrefix, final int segmentSize) {
+        return new MappedRecordStore(directory, filenamePrefix, segmentSize);
+    }
+
+    /**
+     * Maps all existing segment files for the given prefix into memory
+     *
+     * @param directory the directory that contains the segment files
+     * @param filenamePrefix the prefix for the names of the segment files
+     * @param segmentSize the size of any new segment file, in bytes
+     * @return the store
+     * @throws IOException if unable to map a segment file
+     */
+    static MappedRecordStore open(final File directory, final String filenamePrefix, final int segmentSize) throws IOException {
+        final MappedRecordStore store = new MappedRecordStore(directory, filenamePrefix, segmentSize);
+
+        final List<MappedByteBuffer> existingSegments = new ArrayList<>();
+        File segmentFile = store.getSegmentFile(0);
+        while (segmentFile.exists()) {
+            try (final FileChannel channel = FileChannel.open(segmentFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                existingSegments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            }
+            store.bytesWritten += segmentFile.length();
+            segmentFile = store.getSegmentFile(existingSegments.size());
+        }
+
+        store.segments.addAll(existingSegments);
+        return store;
+    }
+
+    /**
+     * Appends the given serialized record to the store
+     *
+     * @param data the buffer holding the serialized record
+     * @param length the number of bytes in the buffer to write
+     * @return the location of the new entry
+     * @throws IOException if unable to create a new segment file
+     */
+    long append(final byte[] data, final int length) throws IOException {
+        final int entrySize = LENGTH_SIZE + length;
+        if (appendSegment == null || appendSegment.capacity() - appendPosition < entrySize) {
+            appendSegment = createSegment(Math.max(segmentSize, entrySize));
+            appendPosition = 0;
+        }
+
+        final long location = ((long) (segments.size() - 1) << 32) | appendPosition;
+        appendSegment.putInt(appendPosition, length);
+        appendSegment.put(appendPosition + LENGTH_SIZE, data, 0, length);
+        appendPosition += entrySize;
+        return location;
+    }
+
+    /**
+     * @param location the location of an entry
+     * @return the serialized record held by the entry
+     */
+    byte[] read(final long location) {
+        final MappedByteBuffer segment = segments.get((int) (location >>> 32));
+        final int position = (int) location;
+        final int length = segment.getInt(position);
+        final byte[] data = new byte[length];
+        segment.get(position + LENGTH_SIZE, data);
+        return data;
+    }
+
+    /**
+     * @param location the location of an entry
+     * @return the number of bytes used by the entry
+     */
+    int getEntrySize(final long location) {
+        final MappedByteBuffer segment = segments.get((int) (location >>> 32));
+        return LENGTH_SIZE + segment.getInt((int) location);
+    }
+
+    /**
+     * @return the total size of all segment files, in bytes
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Ensures that all data that has been appended is written to disk
+     */
+    void force() {
+        for (final MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    File getSegmentFile(final int segmentIndex) {
+        return new File(directory, filenamePrefix + "." + segmentIndex + ".data");
+    }
+
+    private MappedByteBuffer createSegment(final int size) throws IOException {
+        final File segmentFile = getSegmentFile(segments.size());
+        final MappedByteBuffer segment;
+        try (final FileChannel channel = FileChannel.open(segmentFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        segments.add(segment);
+        bytesWritten += size;
+        return segment;
+    }
+}
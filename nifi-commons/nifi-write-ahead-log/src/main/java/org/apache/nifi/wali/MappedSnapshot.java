@@ -0,0 +1,904 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wali.SerDe;
+import org.wali.SerDeFactory;
+import org.wali.UpdateType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>
+ * A {@link WriteAheadSnapshot} that keeps records off of the Java heap. Each record that has been checkpointed is stored in serialized form in a
+ * series of memory-mapped segment files, and the location of each record is held in a memory-mapped hash index that is keyed by the record's
+ * identifier. Only the records that have been updated since the last checkpoint are held on the heap. As a result, heap usage is proportional
+ * to the rate at which records are updated rather than to the number of records in the repository.
+ * </p>
+ *
+ * <p>
+ * Checkpoints are incremental: the records that changed since the previous checkpoint are appended to the segment files and the index is updated
+ * in place, rather than rewriting every record. Periodically, when the index becomes too full or too much of the segment files is occupied by
+ * obsolete records, a new generation of files is written that contains only the live records. On restart, the index and segment files are simply
+ * mapped back into memory, and records are deserialized only when they are accessed.
+ * </p>
+ *
+ * <p>
+ * Because the index is updated in place, a crash while a checkpoint is being written can leave the files reflecting some of the updates that
+ * occurred after the last completed checkpoint. All of those updates are still present in the journals, so they are applied again on recovery.
+ * This requires that {@link SerDe#deserializeEdit(DataInputStream, Map, int)} return the complete state of each record rather than a delta, which is
+ * the case for the FlowFile Repository. Record identifiers must be numeric.
+ * </p>
+ *
+ * <p>
+ * If no memory-mapped snapshot exists but a snapshot written by {@link HashMapSnapshot} does, records are recovered from that snapshot and the
+ * {@link HashMapSnapshot} files are removed once the first memory-mapped snapshot has been written.
+ * </p>
+ */
+public class MappedSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T> {
+    private static final Logger logger = LoggerFactory.getLogger(MappedSnapshot.class);
+    private static final int ENCODING_VERSION = 1;
+    private static final String SNAPSHOT_DIRECTORY_NAME = "mapped-snapshot";
+    private static final String HEADER_FILENAME = "snapshot";
+    private static final String PARTIAL_HEADER_FILENAME = "snapshot.partial";
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_READER_POOL_SIZE = 64;
+    private static final Object REMOVED = new Object();
+
+    private final File storageDirectory;
+    private final File snapshotDirectory;
+    private final SerDeFactory<T> serdeFactory;
+    private final int segmentSize;
+    private final Set<String> swapLocations = Collections.synchronizedSet(new HashSet<>());
+
+    // Updates hold the read lock so that the set of active changes can be swapped atomically when a snapshot is prepared
+    private final ReadWriteLock changeLock = new ReentrantReadWriteLock();
+    private volatile ConcurrentMap<Object, Object> activeChanges = new ConcurrentHashMap<>();
+    private volatile Map<Object, Object> pendingChanges = Collections.emptyMap();
+    private volatile Generation generation;
+
+    public MappedSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory) {
+        this(storageDirectory, serdeFactory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    MappedSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final int segmentSize) {
+        this.storageDirectory = storageDirectory;
+        this.snapshotDirectory = new File(storageDirectory, SNAPSHOT_DIRECTORY_NAME);
+        this.serdeFactory = serdeFactory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @param storageDirectory the storage directory of a Write-Ahead Log
+     * @return <code>true</code> if a memory-mapped snapshot has been written to the given storage directory
+     */
+    static boolean exists(final File storageDirectory) {
+        return new File(new File(storageDirectory, SNAPSHOT_DIRECTORY_NAME), HEADER_FILENAME).exists();
+    }
+
+    @Override
+    public SnapshotRecovery<T> recover() throws IOException {
+        Files.createDirectories(snapshotDirectory.toPath());
+
+        // The header is always replaced atomically, so a partial header was never committed and can be ignored.
+        Files.deleteIfExists(getPartialHeaderFile().toPath());
+
+        final File headerFile = getHeaderFile();
+        if (!headerFile.exists()) {
+            deleteGenerationFiles(-1L);
+            return recoverHashMapSnapshot();
+        }
+
+        final long maxTransactionId;
+        final Set<String> recoveredSwapLocations = new HashSet<>();
+        final Generation recovered;
+        try (final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(new FileInputStream(headerFile)))) {
+            final String snapshotClass = dataIn.readUTF();
+            if (!snapshotClass.equals(MappedSnapshot.class.getName())) {
+                throw new IOException("Write-Ahead Log Snapshot located at " + headerFile + " was written using the "
+                    + snapshotClass + " class; cannot restore using " + getClass().getName());
+            }
+
+            final int snapshotVersion = dataIn.readInt();
+            if (snapshotVersion > ENCODING_VERSION) {
+                throw new IOException("Write-Ahead Log Snapshot located at " + headerFile + " was written using version "
+                    + snapshotVersion + " of the " + snapshotClass + " class; cannot restore using Version " + ENCODING_VERSION);
+            }
+
+            maxTransactionId = dataIn.readLong();
+            final long generationId = dataIn.readLong();
+            final String serdeEncoding = dataIn.readUTF();
+            final int serdeVersion = dataIn.readInt();
+            final byte[] serdeHeader = new byte[dataIn.readInt()];
+            dataIn.readFully(serdeHeader);
+            final long liveBytes = dataIn.readLong();
+
+            final int numSwapLocations = dataIn.readInt();
+            for (int i = 0; i < numSwapLocations; i++) {
+                recoveredSwapLocations.add(dataIn.readUTF());
+            }
+
+            final MappedRecordIndex index = MappedRecordIndex.open(getIndexFile(generationId));
+            final MappedRecordStore store = MappedRecordStore.open(snapshotDirectory, String.valueOf(generationId), segmentSize);
+            recovered = new Generation(generationId, index, store, serdeEncoding, serdeVersion, serdeHeader);
+            recovered.liveBytes = liveBytes;
+        }
+
+        // Remove any files that were left behind by a generation that was being written when NiFi was stopped
+        deleteGenerationFiles(recovered.id);
+
+        generation = recovered;
+        swapLocations.addAll(recoveredSwapLocations);
+
+        logger.info("{} mapped {} Records and {} Swap Files from Snapshot, ending with Transaction ID {}",
+            this, recovered.index.size(), recoveredSwapLocations.size(), maxTransactionId);
+
+        return new StandardSnapshotRecovery<>(new RecordMap(List.of(), true), recoveredSwapLocations, headerFile, maxTransactionId);
+    }
+
+    private SnapshotRecovery<T> recoverHashMapSnapshot() throws IOException {
+        final SnapshotRecovery<T> hashMapRecovery = new HashMapSnapshot<>(storageDirectory, serdeFactory).recover();
+        if (hashMapRecovery.getRecoveryFile() != null) {
+            logger.info("{} found no memory-mapped Snapshot but found Snapshot {}; will recover {} Records from it and convert it to a memory-mapped Snapshot at next checkpoint",
+                this, hashMapRecovery.getRecoveryFile(), hashMapRecovery.getRecords().size());
+        }
+
+        activeChanges.putAll(hashMapRecovery.getRecords());
+        swapLocations.addAll(hashMapRecovery.getRecoveredSwapLocations());
+
+        return new StandardSnapshotRecovery<>(new RecordMap(List.of(), true), hashMapRecovery.getRecoveredSwapLocations(),
+            hashMapRecovery.getRecoveryFile(), hashMapRecovery.getMaxTransactionId());
+    }
+
+    @Override
+    public void update(final Collection<T> records) {
+        final String logMessage = "Received Record (ID={}) with UpdateType of {} but no indicator of where the Record is to be {}; these records may be {} when the repository is restored!";
+
+        changeLock.readLock().lock();
+        try {
+            final ConcurrentMap<Object, Object> changes = activeChanges;
+
+            for (final T record : records) {
+                final Object recordId = serdeFactory.getRecordIdentifier(record);
+                final UpdateType updateType = serdeFactory.getUpdateType(record);
+
+                switch (updateType) {
+                    case DELETE:
+                        changes.put(recordId, REMOVED);
+                        break;
+                    case SWAP_OUT:
+                        final String location = serdeFactory.getLocation(record);
+                        if (location == null) {
+                            logger.error(logMessage, recordId, UpdateType.SWAP_OUT, "Swapped Out to", "lost");
+                        } else {
+                            changes.put(recordId, REMOVED);
+                            this.swapLocations.add(location);
+                        }
+                        break;
+                    case SWAP_IN:
+                        final String swapLocation = serdeFactory.getLocation(record);
+                        if (swapLocation == null) {
+                            logger.error(logMessage, recordId, UpdateType.SWAP_IN, "Swapped In from", "duplicated");
+                        } else {
+                            swapLocations.remove(swapLocation);
+                        }
+                        changes.put(recordId, record);
+                        break;
+                    case SWAP_FILE_DELETED:
+                        final String deletedSwapLocation = serdeFactory.getLocation(record);
+                        if (deletedSwapLocation != null) {
+                            swapLocations.remove(deletedSwapLocation);
+                        }
+                        break;
+                    case SWAP_FILE_RENAMED:
+                        final String originalLocation = serdeFactory.getOriginalLocation(record);
+                        final String newLocation = serdeFactory.getLocation(record);
+                        if (originalLocation != null) {
+                            swapLocations.remove(originalLocation);
+                        }
+                        if (newLocation != null) {
+                            swapLocations.add(newLocation);
+                        }
+                        break;
+                    default:
+                        changes.put(recordId, record);
+                        break;
+                }
+            }
+        } finally {
+            changeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of records in the snapshot. While a snapshot is being written, the value returned may not reflect
+     * all updates that are concurrently being applied.
+     */
+    @Override
+    public int getRecordCount() {
+        return countRecords(List.of(activeChanges, pendingChanges));
+    }
+
+    @Override
+    public T lookup(final Object recordId) {
+        if (recordId == null) {
+            return null;
+        }
+
+        final Object change = getChange(List.of(activeChanges, pendingChanges), recordId);
+        if (change != null) {
+            return toRecord(change);
+        }
+
+        return lookupPersisted(generation, recordId);
+    }
+
+    @Override
+    public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId) {
+        return prepareSnapshot(maxTransactionId, this.swapLocations);
+    }
+
+    @Override
+    public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId, final Set<String> swapFileLocations) {
+        final Map<Object, Object> changes;
+
+        changeLock.writeLock().lock();
+        try {
+            final Map<Object, Object> pending = pendingChanges;
+            if (pending.isEmpty()) {
+                changes = activeChanges;
+            } else {
+                // A previous snapshot has not yet been written, so its changes must be included in this snapshot as well.
+                final ConcurrentMap<Object, Object> combined = new ConcurrentHashMap<>(pending);
+                combined.putAll(activeChanges);
+                changes = combined;
+            }
+
+            pendingChanges = changes;
+            activeChanges = new ConcurrentHashMap<>();
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+
+        final Set<String> swapLocationCopy;
+        synchronized (swapFileLocations) {
+            swapLocationCopy = new HashSet<>(swapFileLocations);
+        }
+
+        return new Snapshot(changes, swapLocationCopy, maxTransactionId);
+    }
+
+    @Override
+    public synchronized void writeSnapshot(final SnapshotCapture<T> snapshotCapture) throws IOException {
+        if (!(snapshotCapture instanceof MappedSnapshot<?>.Snapshot)) {
+            throw new IllegalArgumentException("Cannot write Snapshot of type " + snapshotCapture.getClass().getName() + " using " + getClass().getName());
+        }
+
+        Files.createDirectories(snapshotDirectory.toPath());
+
+        final Map<Object, Object> changes = ((Snapshot) snapshotCapture).getChanges();
+        final SerDe<T> serde = serdeFactory.createSerDe(null);
+        final byte[] serdeHeader = getSerDeHeader(serde);
+
+        final Generation previous = generation;
+        final Generation updated;
+        if (isRebuildRequired(previous, serde, serdeHeader, changes.size())) {
+            updated = rebuild(previous, changes, serde, serdeHeader);
+        } else {
+            merge(previous, changes, serde);
+            updated = previous;
+        }
+
+        writeHeader(updated, snapshotCapture);
+
+        generation = updated;
+        changeLock.writeLock().lock();
+        try {
+            if (pendingChanges == changes) {
+                pendingChanges = Collections.emptyMap();
+            }
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+
+        if (previous != null && previous != updated) {
+            deleteGenerationFiles(updated.id);
+        }
+
+        // Now that the memory-mapped snapshot is authoritative, remove any snapshot written by HashMapSnapshot so that it cannot be restored by mistake
+        Files.deleteIfExists(new File(storageDirectory, "checkpoint").toPath());
+        Files.deleteIfExists(new File(storageDirectory, "checkpoint.partial").toPath());
+    }
+
+    private boolean isRebuildRequired(final Generation current, final SerDe<T> serde, final byte[] serdeHeader, final int changeCount) {
+        if (current == null || !current.isEncodedWith(serde, serdeHeader)) {
+            return true;
+        }
+
+        if (!current.index.hasCapacityFor(changeCount)) {
+            return true;
+        }
+
+        final long obsoleteBytes = current.store.getBytesWritten() - current.liveBytes;
+        return obsoleteBytes > segmentSize && obsoleteBytes > current.liveBytes;
+    }
+
+    private void merge(final Generation current, final Map<Object, Object> changes, final SerDe<T> serde) throws IOException {
+        final ByteArrayDataOutputStream serialized = new ByteArrayDataOutputStream(4096);
+
+        for (final Map.Entry<Object, Object> entry : changes.entrySet()) {
+            final long key = toIndexKey(entry.getKey());
+            final Object change = entry.getValue();
+
+            final long previousLocation;
+            if (change == REMOVED) {
+                previousLocation = current.index.remove(key);
+            } else {
+                final long location = current.append(toRecord(change), serde, serialized);
+                previousLocation = current.index.put(key, location);
+                current.liveBytes += current.store.getEntrySize(location);
+            }
+
+            if (previousLocation >= 0) {
+                current.liveBytes -= current.store.getEntrySize(previousLocation);
+            }
+        }
+
+        // The operating system may write the dirty pages of either mapping back to disk in any order, so a crash before both have been
+        // forced can leave index entries that reference records that never reached disk. Every entry changed here belongs to an update
+        // that was made after the last committed header, and the journals holding those updates are not removed until the new header
+        // has been committed, so any such entry is overwritten when the journals are replayed on recovery.
+        current.store.force();
+        current.index.force();
+    }
+
+    private Generation rebuild(final Generation previous, final Map<Object, Object> changes, final SerDe<T> serde, final byte[] serdeHeader) throws IOException {
+        final long generationId = (previous == null) ? 1L : previous.id + 1;
+        final long persistedCount = (previous == null) ? 0L : previous.index.size();
+        final long requiredCapacity = 2L * (persistedCount + changes.size());
+        if (requiredCapacity > MappedRecordIndex.MAX_CAPACITY) {
+            throw new IOException("Cannot write memory-mapped Snapshot to " + snapshotDirectory + " because it would contain more than the maximum of "
+                + MappedRecordIndex.MAX_CAPACITY / 2 + " records");
+        }
+
+        // Remove anything left behind by an earlier attempt to write this generation
+        deleteGenerationFiles(previous == null ? -1L : previous.id);
+        final MappedRecordIndex index = MappedRecordIndex.create(getIndexFile(generationId), requiredCapacity);
+        final MappedRecordStore store = MappedRecordStore.create(snapshotDirectory, String.valueOf(generationId), segmentSize);
+        final Generation rebuilt = new Generation(generationId, index, store, serde.getClass().getName(), serde.getVersion(), serdeHeader);
+        final ByteArrayDataOutputStream serialized = new ByteArrayDataOutputStream(4096);
+
+        if (previous != null) {
+            final Set<Long> changedKeys = new HashSet<>();
+            for (final Object recordId : changes.keySet()) {
+                changedKeys.add(toIndexKey(recordId));
+            }
+
+            // Records that are encoded the same way can be copied without being deserialized.
+            final boolean copyEncoded = previous.isEncodedWith(serde, serdeHeader);
+            final long capacity = previous.index.getCapacity();
+            for (long slot = 0; slot < capacity; slot++) {
+                if (!previous.index.isOccupied(slot)) {
+                    continue;
+                }
+
+                final long key = previous.index.getKey(slot);
+                if (changedKeys.contains(key)) {
+                    continue;
+                }
+
+                final long previousLocation = previous.index.getSlotValue(slot);
+                final long location;
+                if (copyEncoded) {
+                    final byte[] encoded = previous.store.read(previousLocation);
+                    location = store.append(encoded, encoded.length);
+                } else {
+                    location = rebuilt.append(previous.read(previousLocation), serde, serialized);
+                }
+
+                index.put(key, location);
+                rebuilt.liveBytes += store.getEntrySize(location);
+            }
+        }
+
+        for (final Map.Entry<Object, Object> entry : changes.entrySet()) {
+            if (entry.getValue() == REMOVED) {
+                continue;
+            }
+
+            final long location = rebuilt.append(toRecord(entry.getValue()), serde, serialized);
+            index.put(toIndexKey(entry.getKey()), location);
+            rebuilt.liveBytes += store.getEntrySize(location);
+        }
+
+        store.force();
+        index.force();
+
+        logger.info("{} wrote generation {} of memory-mapped Snapshot with {} Records in {} segment files", this, generationId, index.size(), store.getSegmentCount());
+        return rebuilt;
+    }
+
+    private void writeHeader(final Generation current, final SnapshotCapture<T> snapshotCapture) throws IOException {
+        final File partialFile = getPartialHeaderFile();
+
+        try (final FileOutputStream fileOut = new FileOutputStream(partialFile);
+             final DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+
+            dataOut.writeUTF(MappedSnapshot.class.getName());
+            dataOut.writeInt(ENCODING_VERSION);
+            dataOut.writeLong(snapshotCapture.getMaxTransactionId());
+            dataOut.writeLong(current.id);
+            dataOut.writeUTF(current.serdeEncoding);
+            dataOut.writeInt(current.serdeVersion);
+            dataOut.writeInt(current.serdeHeader.length);
+            dataOut.write(current.serdeHeader);
+            dataOut.writeLong(current.liveBytes);
+
+            dataOut.writeInt(snapshotCapture.getSwapLocations().size());
+            for (final String swapLocation : snapshotCapture.getSwapLocations()) {
+                dataOut.writeUTF(swapLocation);
+            }
+
+            dataOut.flush();
+            fileOut.getChannel().force(false);
+        }
+
+        Files.move(partialFile.toPath(), getHeaderFile().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private byte[] getSerDeHeader(final SerDe<T> serde) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final DataOutputStream dataOut = new DataOutputStream(baos)) {
+            serde.writeHeader(dataOut);
+        }
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Deletes the files of every generation other than those provided
+     */
+    private void deleteGenerationFiles(final long... retainedGenerations) throws IOException {
+        final File[] files = snapshotDirectory.listFiles();
+        if (files == null) {
+            throw new IOException("Cannot access the list of files in directory " + snapshotDirectory + "; please ensure that appropriate file permissions are set.");
+        }
+
+        for (final File file : files) {
+            final String filename = file.getName();
+            if (filename.equals(HEADER_FILENAME) || filename.equals(PARTIAL_HEADER_FILENAME)) {
+                continue;
+            }
+
+            final String generationName = filename.substring(0, Math.max(0, filename.indexOf('.')));
+            final boolean retained = Arrays.stream(retainedGenerations).anyMatch(retainedGeneration -> String.valueOf(retainedGeneration).equals(generationName));
+            if (!retained && !file.delete()) {
+                logger.warn("Unable to delete obsolete Snapshot file {}", file);
+            }
+        }
+    }
+
+    private Object getChange(final List<Map<Object, Object>> changeLayers, final Object recordId) {
+        for (final Map<Object, Object> changes : changeLayers) {
+            final Object change = changes.get(recordId);
+            if (change != null) {
+                return change;
+            }
+        }
+
+        return null;
+    }
+
+    private T lookupPersisted(final Generation current, final Object recordId) {
+        if (current == null) {
+            return null;
+        }
+
+        final long location = current.index.get(toIndexKey(recordId));
+        if (location < 0) {
+            return null;
+        }
+
+        try {
+            return current.read(location);
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Failed to read Record with ID " + recordId + " from memory-mapped Snapshot at " + snapshotDirectory, ioe);
+        }
+    }
+
+    private boolean isPersisted(final Generation current, final Object recordId) {
+        return current != null && current.index.get(toIndexKey(recordId)) >= 0;
+    }
+
+    private int countRecords(final List<Map<Object, Object>> changeLayers) {
+        final Generation current = generation;
+        long count = (current == null) ? 0L : current.index.size();
+
+        for (int i = 0; i < changeLayers.size(); i++) {
+            for (final Map.Entry<Object, Object> entry : changeLayers.get(i).entrySet()) {
+                final Object recordId = entry.getKey();
+                if (isShadowed(changeLayers, i, recordId)) {
+                    continue;
+                }
+
+                if (entry.getValue() != REMOVED) {
+                    count++;
+                }
+                if (isPersisted(current, recordId)) {
+                    count--;
+                }
+            }
+        }
+
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    private boolean isShadowed(final List<Map<Object, Object>> changeLayers, final int layer, final Object recordId) {
+        for (int i = 0; i < layer; i++) {
+            if (changeLayers.get(i).containsKey(recordId)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T toRecord(final Object change) {
+        return change == REMOVED ? null : (T) change;
+    }
+
+    private static long toIndexKey(final Object recordId) {
+        if (recordId instanceof Number number) {
+            return number.longValue();
+        }
+
+        if (recordId instanceof String identifier) {
+            try {
+                return Long.parseLong(identifier);
+            } catch (final NumberFormatException ignored) {
+                // fall through to the exception below
+            }
+        }
+
+        throw new IllegalArgumentException("Cannot store Record with ID " + recordId + " in a memory-mapped Snapshot because its identifier is not numeric");
+    }
+
+    private File getIndexFile(final long generationId) {
+        return new File(snapshotDirectory, generationId + ".index");
+    }
+
+    private File getHeaderFile() {
+        return new File(snapshotDirectory, HEADER_FILENAME);
+    }
+
+    private File getPartialHeaderFile() {
+        return new File(snapshotDirectory, PARTIAL_HEADER_FILENAME);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedSnapshot[" + snapshotDirectory + "]";
+    }
+
+    /**
+     * The index and segment files that make up one complete copy of the persisted records
+     */
+    private class Generation {
+        private final long id;
+        private final MappedRecordIndex index;
+        private final MappedRecordStore store;
+        private final String serdeEncoding;
+        private final int serdeVersion;
+        private final byte[] serdeHeader;
+        private final ObjectPool<SerDe<T>> readerPool;
+        private long liveBytes;
+
+        Generation(final long id, final MappedRecordIndex index, final MappedRecordStore store, final String serdeEncoding, final int serdeVersion, final byte[] serdeHeader) {
+            this.id = id;
+            this.index = index;
+            this.store = store;
+            this.serdeEncoding = serdeEncoding;
+            this.serdeVersion = serdeVersion;
+            this.serdeHeader = serdeHeader;
+            this.readerPool = new BlockingQueuePool<>(MAX_READER_POOL_SIZE, this::createReader, serde -> true, serde -> { });
+        }
+
+        boolean isEncodedWith(final SerDe<T> serde, final byte[] header) {
+            return serdeEncoding.equals(serde.getClass().getName()) && serdeVersion == serde.getVersion() && Arrays.equals(serdeHeader, header);
+        }
+
+        long append(final T record, final SerDe<T> serde, final ByteArrayDataOutputStream serialized) throws IOException {
+            serialized.getByteArrayOutputStream().reset();
+            serde.serializeRecord(record, serialized.getDataOutputStream());
+            serialized.getDataOutputStream().flush();
+
+            final ByteArrayOutputStream baos = serialized.getByteArrayOutputStream();
+            return store.append(baos.toByteArray(), baos.size());
+        }
+
+        T read(final long location) throws IOException {
+            final byte[] encoded = store.read(location);
+            final SerDe<T> serde = readerPool.borrowObject();
+
+            final T record;
+            try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+                record = serde.deserializeRecord(in, serdeVersion);
+            }
+
+            // Only return the SerDe to the pool if it read the record successfully, as it may otherwise be left in an unknown state
+            readerPool.returnObject(serde);
+            if (record == null) {
+                throw new EOFException("Record at location " + location + " of memory-mapped Snapshot at " + snapshotDirectory + " is truncated");
+            }
+
+            return record;
+        }
+
+        private SerDe<T> createReader() {
+            try {
+                final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
+                serde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+                return serde;
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException("Failed to create SerDe for reading memory-mapped Snapshot at " + snapshotDirectory, ioe);
+            }
+        }
+    }
+
+    /**
+     * A view of the records in this snapshot. The records that are persisted in the current generation are overlaid with the given layers of
+     * changes, in order of precedence. If the map is live, the active and pending changes of the snapshot are used instead, and the map may be
+     * modified, with modifications recorded as active changes. To avoid deserializing records unnecessarily, {@link #put(Object, Object)} and
+     * {@link #remove(Object)} always return <code>null</code>.
+     */
+    private class RecordMap extends AbstractMap<Object, T> {
+        private final List<Map<Object, Object>> changeLayers;
+        private final boolean live;
+
+        RecordMap(final List<Map<Object, Object>> changeLayers, final boolean live) {
+            this.changeLayers = changeLayers;
+            this.live = live;
+        }
+
+        private List<Map<Object, Object>> getChangeLayers() {
+            return live ? List.of(activeChanges, pendingChanges) : changeLayers;
+        }
+
+        @Override
+        public T get(final Object key) {
+            final Object change = getChange(getChangeLayers(), key);
+            if (change != null) {
+                return toRecord(change);
+            }
+
+            return lookupPersisted(generation, key);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            final Object change = getChange(getChangeLayers(), key);
+            if (change != null) {
+                return change != REMOVED;
+            }
+
+            return isPersisted(generation, key);
+        }
+
+        @Override
+        public T put(final Object key, final T value) {
+            if (!live) {
+                throw new UnsupportedOperationException();
+            }
+
+            changeLock.readLock().lock();
+            try {
+                activeChanges.put(key, value);
+            } finally {
+                changeLock.readLock().unlock();
+            }
+            return null;
+        }
+
+        @Override
+        public T remove(final Object key) {
+            if (!live) {
+                throw new UnsupportedOperationException();
+            }
+
+            changeLock.readLock().lock();
+            try {
+                activeChanges.put(key, REMOVED);
+            } finally {
+                changeLock.readLock().unlock();
+            }
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return countRecords(getChangeLayers());
+        }
+
+        @Override
+        public Set<Entry<Object, T>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Object, T>> iterator() {
+                    return new RecordIterator(getChangeLayers(), generation);
+                }
+
+                @Override
+                public int size() {
+                    return RecordMap.this.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterates over the records in each layer of changes, followed by the persisted records that have not been changed
+     */
+    private class RecordIterator implements Iterator<Map.Entry<Object, T>> {
+        private final List<Map<Object, Object>> changeLayers;
+        private final Generation current;
+        private final Set<Long> changedKeys = new HashSet<>();
+        private int layer = 0;
+        private Iterator<Map.Entry<Object, Object>> layerIterator;
+        private long slot = 0L;
+        private Map.Entry<Object, T> next;
+
+        RecordIterator(final List<Map<Object, Object>> changeLayers, final Generation current) {
+            this.changeLayers = changeLayers;
+            this.current = current;
+
+            if (current != null) {
+                for (final Map<Object, Object> changes : changeLayers) {
+                    for (final Object recordId : changes.keySet()) {
+                        changedKeys.add(toIndexKey(recordId));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<Object, T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Map.Entry<Object, T> entry = next;
+            next = null;
+            return entry;
+        }
+
+        private Map.Entry<Object, T> advance() {
+            while (layer < changeLayers.size()) {
+                if (layerIterator == null) {
+                    layerIterator = changeLayers.get(layer).entrySet().iterator();
+                }
+
+                while (layerIterator.hasNext()) {
+                    final Map.Entry<Object, Object> entry = layerIterator.next();
+                    if (entry.getValue() != REMOVED && !isShadowed(changeLayers, layer, entry.getKey())) {
+                        return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), toRecord(entry.getValue()));
+                    }
+                }
+
+                layer++;
+                layerIterator = null;
+            }
+
+            if (current == null) {
+                return null;
+            }
+
+            final long capacity = current.index.getCapacity();
+            while (slot < capacity) {
+                final long currentSlot = slot++;
+                if (!current.index.isOccupied(currentSlot) || changedKeys.contains(current.index.getKey(currentSlot))) {
+                    continue;
+                }
+
+                try {
+                    final T record = current.read(current.index.getSlotValue(currentSlot));
+                    return new AbstractMap.SimpleImmutableEntry<>(serdeFactory.getRecordIdentifier(record), record);
+                } catch (final IOException ioe) {
+                    throw new UncheckedIOException("Failed to read Record from memory-mapped Snapshot at " + snapshotDirectory, ioe);
+                }
+            }
+
+            return null;
+        }
+    }
+
+    public class Snapshot implements SnapshotCapture<T> {
+        private final Map<Object, Object> changes;
+        private final Map<Object, T> records;
+        private final long maxTransactionId;
+        private final Set<String> swapLocations;
+
+        Snapshot(final Map<Object, Object> changes, final Set<String> swapLocations, final long maxTransactionId) {
+            this.changes = changes;
+            this.records = new RecordMap(List.of(changes), false);
+            this.swapLocations = swapLocations;
+            this.maxTransactionId = maxTransactionId;
+        }
+
+        Map<Object, Object> getChanges() {
+            return changes;
+        }
+
+        /**
+         * @return a view of the records in the snapshot. Records are deserialized as they are accessed.
+         */
+        @Override
+        public final Map<Object, T> getRecords() {
+            return records;
+        }
+
+        @Override
+        public long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+
+        @Override
+        public Set<String> getSwapLocations() {
+            return swapLocations;
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
@@ -53,6 +54,14 @@ import java.util.regex.Pattern;
  * that records are recovered correctly if two threads simultaneously update the write-ahead log
  * with updates for the same record.
  * </p>
+ *
+ * <p>
+ * When an update requires that the journal be synced to disk, concurrent updates are committed as a group:
+ * a single fsync makes durable all transactions that were written to the journal before the sync began,
+ * so threads that finish writing while another thread is syncing do not each pay for a sync of their own.
+ * The repository may also be configured to have the syncing thread wait briefly for other in-progress
+ * updates, trading a bounded amount of latency for fewer syncs.
+ * </p>
  */
 public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T> {
     private static final int PARTITION_INDEX = 0;
@@ -60,6 +69,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     private static final Pattern JOURNAL_FILENAME_PATTERN = Pattern.compile("\\d+\\.journal");
     private static final int MAX_BUFFERS = 64;
     private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE = 1000;
 
     private final File storageDirectory;
     private final File journalsDirectory;
@@ -77,6 +87,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
     private final WriteAheadSnapshot<T> snapshot;
     private final RecordLookup<T> recordLookup;
+    private final GroupCommitSynchronizer groupCommitSynchronizer;
     private SnapshotRecovery<T> snapshotRecovery;
 
     private volatile boolean recovered = false;
@@ -88,6 +99,14 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     }
 
     public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
+        this(new Builder<T>().storageDirectory(storageDirectory).serdeFactory(serdeFactory).syncListener(syncListener));
+    }
+
+    private SequentialAccessWriteAheadLog(final Builder<T> builder) throws IOException {
+        final File storageDirectory = builder.storageDirectory;
+        final SerDeFactory<T> serdeFactory = builder.serdeFactory;
+        final SyncListener syncListener = builder.syncListener;
+
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new IOException("Directory " + storageDirectory + " does not exist and cannot be created");
         }
@@ -95,9 +114,15 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             throw new IOException("File " + storageDirectory + " is a regular file and not a directory");
         }
 
-        final HashMapSnapshot<T> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
-        this.snapshot = hashMapSnapshot;
-        this.recordLookup = hashMapSnapshot;
+        if (builder.memoryMappedSnapshot) {
+            final MappedSnapshot<T> mappedSnapshot = new MappedSnapshot<>(storageDirectory, serdeFactory);
+            this.snapshot = mappedSnapshot;
+            this.recordLookup = mappedSnapshot;
+        } else {
+            final HashMapSnapshot<T> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, builder.recoveryThreads);
+            this.snapshot = hashMapSnapshot;
+            this.recordLookup = hashMapSnapshot;
+        }
 
         this.storageDirectory = storageDirectory;
         this.journalsDirectory = new File(storageDirectory, "journals");
@@ -109,6 +134,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
         this.serdeFactory = serdeFactory;
         this.syncListener = (syncListener == null) ? SyncListener.NOP_SYNC_LISTENER : syncListener;
+        this.groupCommitSynchronizer = new GroupCommitSynchronizer(builder.groupCommitMaxWait, builder.groupCommitTimeUnit, builder.groupCommitMaxBatchSize);
     }
 
     @Override
@@ -119,11 +145,20 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
         journalReadLock.lock();
         try {
-            journal.update(records, recordLookup);
-
             if (forceSync) {
-                journal.fsync();
-                syncListener.onSync(PARTITION_INDEX);
+                groupCommitSynchronizer.beginWrite();
+                try {
+                    journal.update(records, recordLookup);
+                } catch (final Throwable t) {
+                    groupCommitSynchronizer.writeFailed();
+                    throw t;
+                }
+                final long sequence = groupCommitSynchronizer.writeComplete();
+                if (groupCommitSynchronizer.sync(sequence, journal)) {
+                    syncListener.onSync(PARTITION_INDEX);
+                }
+            } else {
+                journal.update(records, recordLookup);
             }
 
             snapshot.update(records);
@@ -174,6 +209,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
         });
 
         final long snapshotTransactionId = snapshotRecovery.getMaxTransactionId();
+        final long journalRecoveryStart = System.nanoTime();
 
         int totalUpdates = 0;
         int journalFilesRecovered = 0;
@@ -207,9 +243,11 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             totalUpdates, journalFilesRecovered, journalFilesSkipped);
         this.nextTransactionId = maxTransactionId + 1;
 
+        final long journalRecoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - journalRecoveryStart);
         final long recoverNanos = System.nanoTime() - recoverStart;
         final long recoveryMillis = TimeUnit.MILLISECONDS.convert(recoverNanos, TimeUnit.NANOSECONDS);
-        logger.info("Successfully recovered {} records in {} milliseconds. Now checkpointing to ensure that Write-Ahead Log is in a consistent state", recoveredRecords.size(), recoveryMillis);
+        logger.info("Successfully recovered {} records in {} milliseconds (Snapshot = {} milliseconds, {} Journals = {} milliseconds). Now checkpointing to ensure that Write-Ahead Log is in a "
+            + "consistent state", recoveredRecords.size(), recoveryMillis, snapshotRecoveryMillis, journalFilesRecovered, journalRecoveryMillis);
 
         this.recoveredSwapLocations.addAll(swapLocations);
 
@@ -268,6 +306,9 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
                 try {
                     journal.fsync();
+                    if (journal.isHealthy()) {
+                        groupCommitSynchronizer.markAllSynced();
+                    }
                 } catch (final Exception e) {
                     logger.error("Failed to synch Write-Ahead Log's journal to disk at {}", storageDirectory, e);
                 }
@@ -337,4 +378,97 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             journalWriteLock.unlock();
         }
     }
+
+    /**
+     * Builder to create instances of SequentialAccessWriteAheadLog. The storage directory and SerDe Factory are required; all other settings
+     * have defaults that match those of the public constructors.
+     */
+    public static class Builder<T> {
+        private File storageDirectory;
+        private SerDeFactory<T> serdeFactory;
+        private SyncListener syncListener = SyncListener.NOP_SYNC_LISTENER;
+        private long groupCommitMaxWait = 0L;
+        private TimeUnit groupCommitTimeUnit = TimeUnit.MILLISECONDS;
+        private int groupCommitMaxBatchSize = DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE;
+        private boolean memoryMappedSnapshot = false;
+        private int recoveryThreads = 1;
+
+        /**
+         * @param storageDirectory the directory in which to store the snapshot and journals
+         * @return this Builder
+         */
+        public Builder<T> storageDirectory(final File storageDirectory) {
+            this.storageDirectory = storageDirectory;
+            return this;
+        }
+
+        /**
+         * @param serdeFactory the factory for the serializer/deserializer of records
+         * @return this Builder
+         */
+        public Builder<T> serdeFactory(final SerDeFactory<T> serdeFactory) {
+            this.serdeFactory = serdeFactory;
+            return this;
+        }
+
+        /**
+         * @param syncListener the listener to notify when the journal is synced to disk
+         * @return this Builder
+         */
+        public Builder<T> syncListener(final SyncListener syncListener) {
+            this.syncListener = syncListener;
+            return this;
+        }
+
+        /**
+         * @param maxWait the maximum amount of time that an update that requires a sync will wait for other in-progress updates
+         *                so that they can share a single sync. A value of 0 means that the update never waits.
+         * @param timeUnit the unit of the maxWait argument
+         * @return this Builder
+         */
+        public Builder<T> groupCommitMaxWait(final long maxWait, final TimeUnit timeUnit) {
+            this.groupCommitMaxWait = maxWait;
+            this.groupCommitTimeUnit = timeUnit;
+            return this;
+        }
+
+        /**
+         * @param maxBatchSize the number of unsynced transactions after which a sync is performed without waiting any longer
+         * @return this Builder
+         */
+        public Builder<T> groupCommitMaxBatchSize(final int maxBatchSize) {
+            this.groupCommitMaxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * @param memoryMappedSnapshot whether to keep the snapshot in memory-mapped files by using a {@link MappedSnapshot} rather than on the heap
+         *                             by using a {@link HashMapSnapshot}
+         * @return this Builder
+         */
+        public Builder<T> memoryMappedSnapshot(final boolean memoryMappedSnapshot) {
+            this.memoryMappedSnapshot = memoryMappedSnapshot;
+            return this;
+        }
+
+        /**
+         * @param recoveryThreads the number of threads to use for deserializing the records of a {@link HashMapSnapshot} on recovery. Journals are
+         *                        always replayed by a single thread, in order of Transaction ID.
+         * @return this Builder
+         */
+        public Builder<T> recoveryThreads(final int recoveryThreads) {
+            this.recoveryThreads = recoveryThreads;
+            return this;
+        }
+
+        /**
+         * @return a new Write-Ahead Log with the configured settings
+         * @throws IOException if unable to create the storage directory
+         */
+        public SequentialAccessWriteAheadLog<T> build() throws IOException {
+            Objects.requireNonNull(storageDirectory, "Storage Directory required");
+            Objects.requireNonNull(serdeFactory, "SerDe Factory required");
+            return new SequentialAccessWriteAheadLog<>(this);
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestGroupCommitSynchronizer {
+
+    @Test
+    public void testSingleSyncCoversEarlierWrites() throws IOException {
+        final WriteAheadJournal<?> journal = mock(WriteAheadJournal.class);
+        when(journal.isHealthy()).thenReturn(true);
+
+        final GroupCommitSynchronizer synchronizer = new GroupCommitSynchronizer(0, TimeUnit.MILLISECONDS, 1000);
+
+        synchronizer.beginWrite();
+        final long firstSequence = synchronizer.writeComplete();
+        synchronizer.beginWrite();
+        final long secondSequence = synchronizer.writeComplete();
+
+        assertTrue(synchronizer.sync(secondSequence, journal));
+        assertFalse(synchronizer.sync(firstSequence, journal));
+        verify(journal, times(1)).fsync();
+    }
+
+    @Test
+    public void testWriteAfterSyncRequiresNewSync() throws IOException {
+        final WriteAheadJournal<?> journal = mock(WriteAheadJournal.class);
+        when(journal.isHealthy()).thenReturn(true);
+
+        final GroupCommitSynchronizer synchronizer = new GroupCommitSynchronizer(0, TimeUnit.MILLISECONDS, 1000);
+
+        synchronizer.beginWrite();
+        assertTrue(synchronizer.sync(synchronizer.writeComplete(), journal));
+
+        synchronizer.beginWrite();
+        assertTrue(synchronizer.sync(synchronizer.writeComplete(), journal));
+        verify(journal, times(2)).fsync();
+    }
+
+    @Test
+    public void testMarkAllSynced() throws IOException {
+        final WriteAheadJournal<?> journal = mock(WriteAheadJournal.class);
+
+        final GroupCommitSynchronizer synchronizer = new GroupCommitSynchronizer(0, TimeUnit.MILLISECONDS, 1000);
+        synchronizer.beginWrite();
+        final long sequence = synchronizer.writeComplete();
+        synchronizer.markAllSynced();
+
+        assertFalse(synchronizer.sync(sequence, journal));
+        verify(journal, never()).fsync();
+    }
+
+    @Test
+    public void testWaitBoundedByMaxWait() throws IOException {
+        final WriteAheadJournal<?> journal = mock(WriteAheadJournal.class);
+        when(journal.isHealthy()).thenReturn(true);
+
+        final GroupCommitSynchronizer synchronizer = new GroupCommitSynchronizer(20, TimeUnit.MILLISECONDS, 1000);
+
+        // A write that never completes must not prevent the sync from happening
+        synchronizer.beginWrite();
+        synchronizer.beginWrite();
+        final long sequence = synchronizer.writeComplete();
+
+        assertTrue(synchronizer.sync(sequence, journal));
+        verify(journal, times(1)).fsync();
+    }
+
+    @Test
+    public void testUnhealthyJournal() throws IOException {
+        final WriteAheadJournal<?> journal = mock(WriteAheadJournal.class);
+        when(journal.isHealthy()).thenReturn(false);
+
+        final GroupCommitSynchronizer synchronizer = new GroupCommitSynchronizer(0, TimeUnit.MILLISECONDS, 1000);
+        synchronizer.beginWrite();
+        final long sequence = synchronizer.writeComplete();
+
+        assertThrows(IOException.class, () -> synchronizer.sync(sequence, journal));
+
+        // Because the sync failed, the transaction must not be considered synced
+        when(journal.isHealthy()).thenReturn(true);
+        assertTrue(synchronizer.sync(sequence, journal));
+        verify(journal, times(2)).fsync();
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitSynchronizer(-1, TimeUnit.MILLISECONDS, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitSynchronizer(0, TimeUnit.MILLISECONDS, 0));
+        assertEquals(1L, new GroupCommitSynchronizer(0, TimeUnit.MILLISECONDS, 1).writeComplete());
+    }
+}
@@ -21,11 +21,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.wali.DummyRecord;
 import org.wali.DummyRecordSerde;
+import org.wali.SerDe;
 import org.wali.SerDeFactory;
 import org.wali.SingletonSerDeFactory;
 import org.wali.UpdateType;
 
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Collections;
@@ -115,6 +118,97 @@ public class TestHashMapSnapshot {
         assertEquals(records, recoveredRecords);
     }
 
+    @Test
+    public void testRoundTripWithMultipleBlocks() throws IOException {
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, 4);
+        final Map<Object, DummyRecord> records = writeSnapshotWithRecords(snapshot, 5000);
+
+        final SnapshotRecovery<DummyRecord> recovery = new HashMapSnapshot<>(storageDirectory, serdeFactory, 4).recover();
+        assertEquals(200L, recovery.getMaxTransactionId());
+        assertEquals(Collections.singleton("swapFile-1"), recovery.getRecoveredSwapLocations());
+        assertEquals(records, recovery.getRecords());
+    }
+
+    @Test
+    public void testParallelRecovery() throws IOException {
+        final SerDeFactory<DummyRecord> newSerDePerCallFactory = new SerDeFactory<>() {
+            @Override
+            public SerDe<DummyRecord> createSerDe(final String encodingName) {
+                return new DummyRecordSerde();
+            }
+
+            @Override
+            public Object getRecordIdentifier(final DummyRecord record) {
+                return serde.getRecordIdentifier(record);
+            }
+
+            @Override
+            public UpdateType getUpdateType(final DummyRecord record) {
+                return serde.getUpdateType(record);
+            }
+
+            @Override
+            public String getLocation(final DummyRecord record) {
+                return serde.getLocation(record);
+            }
+        };
+
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, newSerDePerCallFactory, 4);
+        final Map<Object, DummyRecord> records = writeSnapshotWithRecords(snapshot, 5000);
+
+        final SnapshotRecovery<DummyRecord> recovery = new HashMapSnapshot<>(storageDirectory, newSerDePerCallFactory, 4).recover();
+        assertEquals(200L, recovery.getMaxTransactionId());
+        assertEquals(Collections.singleton("swapFile-1"), recovery.getRecoveredSwapLocations());
+        assertEquals(records, recovery.getRecords());
+    }
+
+    @Test
+    public void testSingleRecoveryThreadWritesSequentialEncoding() throws IOException {
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, 1);
+        final Map<Object, DummyRecord> records = writeSnapshotWithRecords(snapshot, 5000);
+        assertEquals(1, readSnapshotVersion());
+
+        // A snapshot that was written sequentially must still be recoverable when more recovery threads are configured
+        final SnapshotRecovery<DummyRecord> recovery = new HashMapSnapshot<>(storageDirectory, serdeFactory, 4).recover();
+        assertEquals(200L, recovery.getMaxTransactionId());
+        assertEquals(Collections.singleton("swapFile-1"), recovery.getRecoveredSwapLocations());
+        assertEquals(records, recovery.getRecords());
+    }
+
+    @Test
+    public void testMultipleRecoveryThreadsWriteBlockEncoding() throws IOException {
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, 4);
+        final Map<Object, DummyRecord> records = writeSnapshotWithRecords(snapshot, 5000);
+        assertEquals(2, readSnapshotVersion());
+
+        final SnapshotRecovery<DummyRecord> recovery = new HashMapSnapshot<>(storageDirectory, serdeFactory, 1).recover();
+        assertEquals(records, recovery.getRecords());
+    }
+
+    private int readSnapshotVersion() throws IOException {
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(new File(storageDirectory, "checkpoint")))) {
+            in.readUTF();
+            return in.readInt();
+        }
+    }
+
+    private Map<Object, DummyRecord> writeSnapshotWithRecords(final HashMapSnapshot<DummyRecord> snapshot, final int recordCount) throws IOException {
+        for (int i = 0; i < recordCount; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperty("key", String.valueOf(i));
+            snapshot.update(Collections.singleton(record));
+        }
+
+        final DummyRecord swapOutRecord = new DummyRecord("1", UpdateType.SWAP_OUT);
+        swapOutRecord.setSwapLocation("swapFile-1");
+        snapshot.update(Collections.singleton(swapOutRecord));
+
+        final SnapshotCapture<DummyRecord> capture = snapshot.prepareSnapshot(200L);
+        assertEquals(recordCount - 1, capture.getRecords().size());
+        snapshot.writeSnapshot(capture);
+        return capture.getRecords();
+    }
+
     @Test
     public void testOOMEWhenWritingResultsInPreviousSnapshotStillRecoverable() throws IOException {
         final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
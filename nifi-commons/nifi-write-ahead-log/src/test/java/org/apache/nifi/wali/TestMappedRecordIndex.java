@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.wali;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestMappedRecordIndex {
+    private static final int SMALL_SEGMENT_SLOTS = 1 << 12;
+
+    @TempDir
+    private File storageDirectory;
+
+    @Test
+    public void testFullIndexAcrossSegments() throws IOException {
+        final File indexFile = new File(storageDirectory, "records.index");
+        final MappedRecordIndex index = MappedRecordIndex.create(indexFile, MappedRecordIndex.MIN_CAPACITY, SMALL_SEGMENT_SLOTS);
+        assertEquals(MappedRecordIndex.MIN_CAPACITY, index.getCapacity());
+        assertEquals(MappedRecordIndex.MIN_CAPACITY / SMALL_SEGMENT_SLOTS, index.getSegmentCount());
+
+        // Fill the index up to its load factor so that probe sequences run across segment boundaries and wrap around the end of the table
+        long keyCount = 0;
+        while (index.hasCapacityFor(1)) {
+            assertEquals(-1L, index.put(keyCount, keyCount * 2));
+            keyCount++;
+        }
+        assertEquals(keyCount, index.size());
+
+        final long rejectedKey = keyCount;
+        assertThrows(IllegalStateException.class, () -> index.put(rejectedKey, 0L));
+
+        for (long key = 0; key < keyCount; key += 2) {
+            assertEquals(key * 2, index.remove(key));
+        }
+        index.force();
+
+        final MappedRecordIndex reopened = MappedRecordIndex.open(indexFile, SMALL_SEGMENT_SLOTS);
+        assertEquals(keyCount / 2, reopened.size());
+        for (long key = 0; key < keyCount; key++) {
+            assertEquals(key % 2 == 0 ? -1L : key * 2, reopened.get(key));
+        }
+        assertFalse(reopened.hasCapacityFor(1));
+    }
+
+    @Test
+    public void testCapacityBeyondSingleMapping() throws IOException {
+        // More slots than a single mapping can hold; the file is sparse, so only the pages that are written use any disk space
+        final File indexFile = new File(storageDirectory, "large.index");
+        final long capacity = 2L * MappedRecordIndex.SEGMENT_SLOTS;
+        final MappedRecordIndex index = MappedRecordIndex.create(indexFile, capacity);
+
+        assertEquals(capacity, index.getCapacity());
+        assertEquals(2, index.getSegmentCount());
+        assertEquals(capacity * 16, indexFile.length());
+        assertTrue(index.hasCapacityFor(MappedRecordIndex.SEGMENT_SLOTS));
+
+        for (long key = 0; key < 1000; key++) {
+            index.put(key, key);
+        }
+        for (long key = 0; key < 1000; key++) {
+            assertEquals(key, index.get(key));
+        }
+        assertEquals(1000L, index.size());
+    }
+
+    @Test
+    public void testCapacityAboveMaximumRejected() {
+        final File indexFile = new File(storageDirectory, "records.index");
+        assertThrows(IOException.class, () -> MappedRecordIndex.create(indexFile, MappedRecordIndex.MAX_CAPACITY + 1));
+        assertFalse(indexFile.exists());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wali.DummyRecord;
+import org.wali.DummyRecordSerde;
+import org.wali.SerDeFactory;
+import org.wali.SingletonSerDeFactory;
+import org.wali.UpdateType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestMappedSnapshot {
+
+    @TempDir
+    private File storageDirectory;
+
+    private DummyRecordSerde serde;
+    private SerDeFactory<DummyRecord> serdeFactory;
+
+    @BeforeEach
+    public void setup() {
+        serde = new DummyRecordSerde();
+        serdeFactory = new SingletonSerDeFactory<>(serde);
+    }
+
+    @Test
+    public void testSuccessfulRoundTrip() throws IOException {
+        final MappedSnapshot<DummyRecord> snapshot = createSnapshot();
+
+        for (int i = 0; i < 10; i++) {
+            snapshot.update(Collections.singleton(createRecord(i, UpdateType.CREATE)));
+        }
+
+        for (int i = 2; i < 10; i += 2) {
+            snapshot.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.DELETE)));
+        }
+
+        for (int i = 1; i < 10; i += 2) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.SWAP_OUT);
+            record.setSwapLocation("swapFile-" + i);
+            snapshot.update(Collections.singleton(record));
+        }
+
+        final DummyRecord swapIn7 = new DummyRecord("7", UpdateType.SWAP_IN);
+        swapIn7.setSwapLocation("swapFile-7");
+        snapshot.update(Collections.singleton(swapIn7));
+
+        final Set<String> swappedOutLocations = Set.of("swapFile-1", "swapFile-3", "swapFile-5", "swapFile-9");
+
+        final SnapshotCapture<DummyRecord> capture = snapshot.prepareSnapshot(180L);
+        assertEquals(180L, capture.getMaxTransactionId());
+        assertEquals(swappedOutLocations, capture.getSwapLocations());
+
+        final Map<Object, DummyRecord> records = new HashMap<>(capture.getRecords());
+        assertEquals(2, records.size());
+        assertTrue(records.containsKey("0"));
+        assertTrue(records.containsKey("7"));
+
+        snapshot.writeSnapshot(capture);
+
+        final SnapshotRecovery<DummyRecord> recovery = createSnapshot().recover();
+        assertEquals(180L, recovery.getMaxTransactionId());
+        assertEquals(swappedOutLocations, recovery.getRecoveredSwapLocations());
+        assertEquals(records, new HashMap<>(recovery.getRecords()));
+    }
+
+    @Test
+    public void testIncrementalCheckpoint() throws IOException {
+        final MappedSnapshot<DummyRecord> snapshot = createSnapshot();
+        for (int i = 0; i < 100; i++) {
+            snapshot.update(Collections.singleton(createRecord(i, UpdateType.CREATE)));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(10L));
+
+        final DummyRecord updated = new DummyRecord("5", UpdateType.UPDATE);
+        updated.setProperty("key", "updated");
+        snapshot.update(Collections.singleton(updated));
+        snapshot.update(Collections.singleton(new DummyRecord("6", UpdateType.DELETE)));
+        snapshot.update(Collections.singleton(createRecord(100, UpdateType.CREATE)));
+        assertEquals(100, snapshot.getRecordCount());
+
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(20L));
+        assertEquals(100, snapshot.getRecordCount());
+        assertEquals("updated", snapshot.lookup("5").getProperties().get("key"));
+        assertNull(snapshot.lookup("6"));
+
+        // The existing generation should have been updated in place rather than rewritten
+        final File snapshotDirectory = new File(storageDirectory, "mapped-snapshot");
+        assertTrue(new File(snapshotDirectory, "1.index").exists());
+        assertFalse(new File(snapshotDirectory, "2.index").exists());
+
+        final MappedSnapshot<DummyRecord> recoveredSnapshot = createSnapshot();
+        final SnapshotRecovery<DummyRecord> recovery = recoveredSnapshot.recover();
+        assertEquals(20L, recovery.getMaxTransactionId());
+
+        final Map<Object, DummyRecord> recordMap = recovery.getRecords();
+        assertEquals(100, recordMap.size());
+        assertFalse(recordMap.containsKey("6"));
+        assertEquals("updated", recordMap.get("5").getProperties().get("key"));
+        assertEquals("100", recordMap.get("100").getProperties().get("key"));
+
+        int iterated = 0;
+        for (final Map.Entry<Object, DummyRecord> entry : recordMap.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue().getId());
+            iterated++;
+        }
+        assertEquals(100, iterated);
+    }
+
+    @Test
+    public void testObsoleteRecordsAreCompacted() throws IOException {
+        final MappedSnapshot<DummyRecord> snapshot = new MappedSnapshot<>(storageDirectory, serdeFactory, 1024);
+        for (int i = 0; i < 20; i++) {
+            snapshot.update(Collections.singleton(createRecord(i, UpdateType.CREATE)));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(1L));
+
+        for (int checkpoint = 2; checkpoint < 20; checkpoint++) {
+            for (int i = 0; i < 20; i++) {
+                final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.UPDATE);
+                record.setProperty("key", "checkpoint-" + checkpoint);
+                snapshot.update(Collections.singleton(record));
+            }
+            snapshot.writeSnapshot(snapshot.prepareSnapshot(checkpoint));
+        }
+
+        final File snapshotDirectory = new File(storageDirectory, "mapped-snapshot");
+        assertFalse(new File(snapshotDirectory, "1.index").exists());
+
+        final SnapshotRecovery<DummyRecord> recovery = createSnapshot().recover();
+        final Map<Object, DummyRecord> recordMap = recovery.getRecords();
+        assertEquals(20, recordMap.size());
+        for (final DummyRecord record : recordMap.values()) {
+            assertEquals("checkpoint-19", record.getProperties().get("key"));
+        }
+    }
+
+    @Test
+    public void testFailedWriteRetainsChanges() throws IOException {
+        final MappedSnapshot<DummyRecord> snapshot = createSnapshot();
+        for (int i = 0; i < 10; i++) {
+            snapshot.update(Collections.singleton(createRecord(i, UpdateType.CREATE)));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(25L));
+
+        for (int i = 10; i < 20; i++) {
+            snapshot.update(Collections.singleton(createRecord(i, UpdateType.CREATE)));
+        }
+
+        serde.setThrowIOEAfterNSerializeEdits(3);
+        assertThrows(IOException.class, () -> snapshot.writeSnapshot(snapshot.prepareSnapshot(150L)));
+        assertEquals(20, snapshot.getRecordCount());
+
+        snapshot.update(Collections.singleton(createRecord(20, UpdateType.CREATE)));
+        serde.setThrowIOEAfterNSerializeEdits(-1);
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(160L));
+
+        final SnapshotRecovery<DummyRecord> recovery = createSnapshot().recover();
+        assertEquals(160L, recovery.getMaxTransactionId());
+        final Map<Object, DummyRecord> recordMap = recovery.getRecords();
+        assertEquals(21, recordMap.size());
+        for (int i = 0; i <= 20; i++) {
+            assertEquals(String.valueOf(i), recordMap.get(String.valueOf(i)).getProperties().get("key"));
+        }
+    }
+
+    @Test
+    public void testRecoverFromHashMapSnapshot() throws IOException {
+        final HashMapSnapshot<DummyRecord> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        for (int i = 0; i < 10; i++) {
+            hashMapSnapshot.update(Collections.singleton(createRecord(i, UpdateType.CREATE)));
+        }
+        final DummyRecord swapOut = new DummyRecord("9", UpdateType.SWAP_OUT);
+        swapOut.setSwapLocation("swapFile-9");
+        hashMapSnapshot.update(Collections.singleton(swapOut));
+        hashMapSnapshot.writeSnapshot(hashMapSnapshot.prepareSnapshot(40L));
+
+        final MappedSnapshot<DummyRecord> snapshot = createSnapshot();
+        final SnapshotRecovery<DummyRecord> recovery = snapshot.recover();
+        assertEquals(40L, recovery.getMaxTransactionId());
+        assertEquals(9, recovery.getRecords().size());
+        assertEquals(Set.of("swapFile-9"), recovery.getRecoveredSwapLocations());
+
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(40L));
+        assertFalse(new File(storageDirectory, "checkpoint").exists());
+        assertThrows(IOException.class, () -> new HashMapSnapshot<>(storageDirectory, serdeFactory).recover());
+
+        final SnapshotRecovery<DummyRecord> mappedRecovery = createSnapshot().recover();
+        assertEquals(new HashSet<>(recovery.getRecords().keySet()), new HashSet<>(mappedRecovery.getRecords().keySet()));
+        assertEquals(Set.of("swapFile-9"), mappedRecovery.getRecoveredSwapLocations());
+    }
+
+    private MappedSnapshot<DummyRecord> createSnapshot() {
+        return new MappedSnapshot<>(storageDirectory, serdeFactory);
+    }
+
+    private DummyRecord createRecord(final int id, final UpdateType updateType) {
+        final DummyRecord record = new DummyRecord(String.valueOf(id), updateType);
+        record.setProperty("key", String.valueOf(id));
+        return record;
+    }
+}
@@ -187,6 +187,47 @@ public class TestSequentialAccessWriteAheadLog {
         assertEquals(expected, new HashSet<>(recovered));
     }
 
+    @Test
+    public void testUpdateThenRecoverWithMappedSnapshot(TestInfo testInfo) throws IOException {
+        final File storageDir = new File("target", testInfo.getTestMethod().get().getName());
+        deleteRecursively(storageDir);
+        assertTrue(storageDir.mkdirs());
+
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = createMappedSnapshotRepo(storageDir);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final List<DummyRecord> creations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            creations.add(new DummyRecord(String.valueOf(i), UpdateType.CREATE));
+        }
+        repo.update(creations, false);
+        assertEquals(10, repo.checkpoint());
+
+        final DummyRecord updateRecord = new DummyRecord("4", UpdateType.UPDATE);
+        updateRecord.setProperties(Collections.singletonMap("updated", "true"));
+        repo.update(List.of(updateRecord, new DummyRecord("5", UpdateType.DELETE)), false);
+        repo.shutdown();
+
+        final SequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = createMappedSnapshotRepo(storageDir);
+        final Map<String, DummyRecord> recordMap = recoveryRepo.recoverRecords().stream()
+            .collect(Collectors.toMap(DummyRecord::getId, Function.identity()));
+
+        assertEquals(9, recordMap.size());
+        assertFalse(recordMap.containsKey("5"));
+        assertEquals("true", recordMap.get("4").getProperties().get("updated"));
+
+        recoveryRepo.shutdown();
+    }
+
+    private SequentialAccessWriteAheadLog<DummyRecord> createMappedSnapshotRepo(final File storageDir) throws IOException {
+        final SerDeFactory<DummyRecord> serdeFactory = new SingletonSerDeFactory<>(new DummyRecordSerde());
+        return new SequentialAccessWriteAheadLog.Builder<DummyRecord>()
+            .storageDirectory(storageDir)
+            .serdeFactory(serdeFactory)
+            .memoryMappedSnapshot(true)
+            .build();
+    }
+
     private SequentialAccessWriteAheadLog<DummyRecord> createRecoveryRepo(TestInfo testInfo) throws IOException {
         final File targetDir = new File("target");
         final File storageDir = new File(targetDir, testInfo.getTestMethod().get().getName());
@@ -154,6 +154,17 @@ public interface FlowFileQueue {
      */
     void putAll(Collection<FlowFileRecord> files);
 
+    /**
+     * Returns FlowFiles that were polled from this queue but were not processed, such as when a session is rolled back, so that they are
+     * processed ahead of FlowFiles that were queued after them. The FlowFiles must still be acknowledged, just as if they had been processed.
+     * The default implementation places the FlowFiles into the queue as though they were newly queued.
+     *
+     * @param files the FlowFiles to return to the queue, in the order in which they were polled
+     */
+    default void requeue(Collection<FlowFileRecord> files) {
+        putAll(files);
+    }
+
     /**
      * @param expiredRecords expired records
      * @param pollStrategy strategy of polling
@@ -39,4 +39,20 @@ public interface LocalQueuePartitionDiagnostics {
      * @return the total QueueSize across all swap files (count and total content size)
      */
     QueueSize getTotalSwapFileQueueSize();
+
+    /**
+     * @return the number of swap files that have been swapped in
+     */
+    long getSwapInCount();
+
+    /**
+     * @return the number of times that FlowFiles had to be swapped in while waiting on a swap file to be read or written, rather than
+     *         using FlowFiles that had already been read in the background
+     */
+    long getSwapInStallCount();
+
+    /**
+     * @return the total amount of time, in nanoseconds, that has been spent swapping in swap files
+     */
+    long getSwapInNanos();
 }
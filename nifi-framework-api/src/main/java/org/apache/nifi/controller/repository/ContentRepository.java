@@ -22,6 +22,8 @@ import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
 import java.util.Set;
 
@@ -215,6 +217,29 @@ public interface ContentRepository {
      */
     long exportTo(ContentClaim claim, OutputStream destination, long offset, long length) throws IOException;
 
+    /**
+     * Transfers a subset of the content of the given claim, starting at offset
+     * and copying at most length bytes, to the given channel. Repositories that
+     * store content in files may transfer the bytes straight from the file to
+     * the channel, so that the operating system can send them to a socket or
+     * another file without copying them through the heap. The default
+     * implementation copies the content through {@link #exportTo(ContentClaim, OutputStream, long, long)}.
+     *
+     * @param claim to transfer from
+     * @param offset the offset into the claim at which the transfer should begin
+     * @param length the maximum number of bytes to transfer
+     * @param destination the blocking channel to transfer the content to
+     * @return the number of bytes transferred
+     * @throws IOException if unable to read the content or to write to the channel
+     */
+    default long transferTo(ContentClaim claim, long offset, long length, WritableByteChannel destination) throws IOException {
+        if (claim == null) {
+            return 0L;
+        }
+
+        return exportTo(claim, Channels.newOutputStream(destination), offset, length);
+    }
+
     /**
      * @param claim to get size of
      * @return size in bytes of content for given claim
@@ -229,6 +254,19 @@ public interface ContentRepository {
      */
     long size(ResourceClaim claim) throws IOException;
 
+    /**
+     * Finds a Content Claim that holds the same content as the given, newly written claim, so that FlowFiles can reference that claim
+     * instead and the content of the given claim need not be kept. If such a claim is returned, its claimant count has already been
+     * incremented on behalf of the caller, who remains responsible for the claimant count of the given claim. If no such claim is known,
+     * the given claim is returned, and it may be returned for other claims with the same content that are written later.
+     *
+     * @param claim the claim whose content has been written
+     * @return a Content Claim with the same content as the given claim, or the given claim itself
+     */
+    default ContentClaim deduplicate(ContentClaim claim) {
+        return claim;
+    }
+
     /**
      * Provides access to the input stream for the given claim
      *
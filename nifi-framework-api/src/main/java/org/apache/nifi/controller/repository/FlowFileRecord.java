@@ -45,4 +45,16 @@ public interface FlowFileRecord extends FlowFile {
      * {@link org.apache.nifi.controller.repository.ContentRepository ContentRepository}
      */
     long getContentClaimOffset();
+
+    /**
+     * @return the FlowFile's content, if the content is small enough that it is held in the
+     * FlowFile record itself rather than in the Content Repository, or <code>null</code> if the
+     * content is held in the {@link ContentClaim} (or the FlowFile has no content). When this
+     * method returns a non-null value, {@link #getContentClaim()} returns <code>null</code> and
+     * {@link #getSize()} is equal to the length of the returned array. The returned array must not
+     * be modified.
+     */
+    default byte[] getInlineContent() {
+        return null;
+    }
 }
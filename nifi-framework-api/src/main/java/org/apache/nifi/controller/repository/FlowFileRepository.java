@@ -101,6 +101,14 @@ public interface FlowFileRepository extends Closeable {
      */
     boolean isVolatile();
 
+    /**
+     * @return <code>true</code> if this repository is able to hold the content of a FlowFile in the FlowFile record itself
+     * (see {@link FlowFileRecord#getInlineContent()}), <code>false</code> otherwise
+     */
+    default boolean isInlineContentSupported() {
+        return false;
+    }
+
     /**
      * @return the next ID in sequence for creating <code>FlowFile</code>s.
      */
@@ -21,6 +21,7 @@ import org.apache.nifi.controller.queue.FlowFileQueue;
 import java.io.IOException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Defines a mechanism by which FlowFiles can be move into external storage or
@@ -80,6 +81,54 @@ public interface FlowFileSwapManager {
      */
     SwapContents swapIn(String swapLocation, FlowFileQueue flowFileQueue) throws IncompleteSwapFileException, IOException;
 
+    /**
+     * Swaps in FlowFiles whose contents have already been read from the swap file at the given location, either by
+     * {@link #prefetch(String, FlowFileQueue)} or because they were retained in memory when the swap file was written.
+     * The FlowFile Repository is updated and the swap file is permanently removed from the external storage, exactly as
+     * with {@link #swapIn(String, FlowFileQueue)}, but the swap file need not be read again.
+     *
+     * @param swapLocation the location of the swap file
+     * @param flowFileQueue the queue to which the FlowFiles belong
+     * @param swapContents the contents of the swap file, or <code>null</code> if the contents must be read from the swap file
+     *
+     * @return a SwapContents that includes FlowFiles that are stored in the given location
+     *
+     * @throws IOException if unable to recover the FlowFiles from the given location or update the
+     *             FlowFileRepository
+     */
+    default SwapContents swapIn(String swapLocation, FlowFileQueue flowFileQueue, SwapContents swapContents) throws IncompleteSwapFileException, IOException {
+        return swapIn(swapLocation, flowFileQueue);
+    }
+
+    /**
+     * Begins reading the FlowFiles from the swap file at the given location in the background, so that the
+     * FlowFiles can later be swapped in via {@link #swapIn(String, FlowFileQueue, SwapContents)} without the caller
+     * waiting on the swap file to be read. As with {@link #peek(String, FlowFileQueue)}, the swap file remains in place
+     * and the FlowFile Repository is not updated.
+     *
+     * @param swapLocation the location of the swap file
+     * @param flowFileQueue the queue that the FlowFiles belong to
+     * @return a future that is completed with the contents of the swap file, or <code>null</code> if this Swap Manager
+     *         does not read swap files in the background
+     */
+    default CompletableFuture<SwapContents> prefetch(String swapLocation, FlowFileQueue flowFileQueue) {
+        return null;
+    }
+
+    /**
+     * Swaps out the given FlowFiles in the background, as with {@link #swapOut(List, FlowFileQueue, String)}. The
+     * given List must not be modified until the returned future has completed.
+     *
+     * @param flowFiles the FlowFiles to swap out to external storage
+     * @param flowFileQueue the queue that the FlowFiles belong to
+     * @param partitionName the name of the partition within the queue, or <code>null</code> if the queue is not partitioned
+     * @return a future that is completed with the location of the swap file, or <code>null</code> if this Swap Manager
+     *         does not write swap files in the background
+     */
+    default CompletableFuture<String> swapOutAsync(List<FlowFileRecord> flowFiles, FlowFileQueue flowFileQueue, String partitionName) {
+        return null;
+    }
+
     /**
      * Determines swap files that exist for the given FlowFileQueue
      *
@@ -89,6 +89,29 @@ public interface ResourceClaimManager {
      */
     int incrementClaimantCount(ResourceClaim claim, boolean newClaim);
 
+    /**
+     * Increases by 1 the count of how many FlowFiles hold a claim to a
+     * particular piece of FlowFile content, but only if at least one FlowFile
+     * currently holds a claim to it. A claim whose count has dropped to 0 may
+     * already be on its way to being destroyed, so it cannot safely be
+     * referenced again.
+     *
+     * The default implementation checks the count and then increments it,
+     * which is not atomic. Implementations that may destroy claims
+     * concurrently should override it.
+     *
+     * @param claim to increment
+     * @return new claimant count, or 0 if the claim was not referenced and so
+     *         was not incremented
+     */
+    default int incrementClaimantCountIfReferenced(ResourceClaim claim) {
+        if (getClaimantCount(claim) < 1) {
+            return 0;
+        }
+
+        return incrementClaimantCount(claim);
+    }
+
     /**
      * Indicates that the given ResourceClaim can now be destroyed by the
      * appropriate Content Repository. This should be done only after it is
@@ -158,6 +158,29 @@ public interface ProvenanceRepository extends ProvenanceEventRepository {
      */
     ComputeLineageSubmission submitLineageComputation(long eventId, NiFiUser user);
 
+    /**
+     * Submits a Lineage Computation for the FlowFile with the given UUID and all of its
+     * descendants, expanding the graph one generation at a time. The graph discovered so
+     * far is made available through the returned submission's result after each generation,
+     * so that very large lineages can be rendered before the computation has finished.
+     *
+     * The default implementation does not stream the lineage; it delegates to
+     * {@link #submitLineageComputation(String, NiFiUser)} and ignores the limits.
+     *
+     * @param flowFileUuid the UUID of the FlowFile for which the Lineage should
+     *            be calculated
+     * @param maxDepth the maximum number of generations of descendants to include
+     * @param maxNodes the maximum number of events to include
+     * @param user The NiFi User to authorize the events against.
+     *             It can be {@code null} if called by NiFi components internally where authorization is not required.
+     *
+     * @return a {@link ComputeLineageSubmission} object that can be used to
+     *         check if the computing is complete and to get the results computed so far
+     */
+    default ComputeLineageSubmission submitStreamingLineageComputation(String flowFileUuid, int maxDepth, int maxNodes, NiFiUser user) {
+        return submitLineageComputation(flowFileUuid, user);
+    }
+
     /**
      * @param lineageIdentifier identifier of lineage to compute
      * @param user The user who is retrieving the lineage submission.
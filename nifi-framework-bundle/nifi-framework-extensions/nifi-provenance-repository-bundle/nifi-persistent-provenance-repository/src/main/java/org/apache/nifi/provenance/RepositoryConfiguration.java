@@ -17,7 +17,11 @@
 package org.apache.nifi.provenance;
 
 import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.provenance.capture.CapturePolicy;
+import org.apache.nifi.provenance.capture.EventCaptureFilter;
+import org.apache.nifi.provenance.index.EventIndexImplementation;
 import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.provenance.serialization.EventFileCompression;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
@@ -28,10 +32,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 public class RepositoryConfiguration {
@@ -40,6 +47,10 @@ public class RepositoryConfiguration {
     public static final String CONCURRENT_MERGE_THREADS = "nifi.provenance.repository.concurrent.merge.threads";
     public static final String WARM_CACHE_FREQUENCY = "nifi.provenance.repository.warm.cache.frequency";
     public static final String MAINTENACE_FREQUENCY = "nifi.provenance.repository.maintenance.frequency";
+    public static final String COMPRESSION_FORMAT = "nifi.provenance.repository.compression.format";
+    public static final String INDEX_IMPLEMENTATION = "nifi.provenance.repository.index.implementation";
+    public static final String CAPTURE_POLICY_PREFIX = "nifi.provenance.repository.capture.policy.component.";
+    public static final String CAPTURE_POLICY_EVENT_TYPES = "nifi.provenance.repository.capture.policy.event.types";
 
     private final Map<String, File> storageDirectories = new LinkedHashMap<>();
     private long recordLifeMillis = TimeUnit.MILLISECONDS.convert(24, TimeUnit.HOURS);
@@ -57,12 +68,16 @@ public class RepositoryConfiguration {
     private List<SearchableField> searchableFields = new ArrayList<>();
     private List<SearchableField> searchableAttributes = new ArrayList<>();
     private boolean compress = true;
+    private EventFileCompression eventFileCompression = EventFileCompression.GZIP;
+    private EventIndexImplementation indexImplementation = EventIndexImplementation.LUCENE;
     private boolean alwaysSync = false;
     private int queryThreadPoolSize = 2;
     private int indexThreadPoolSize = 1;
     private boolean allowRollover = true;
     private int concurrentMergeThreads = 4;
     private Integer warmCacheFrequencyMinutes = null;
+    private final Map<String, CapturePolicy> capturePolicies = new HashMap<>();
+    private Set<ProvenanceEventType> capturePolicyEventTypes = EventCaptureFilter.DEFAULT_EVENT_TYPES;
 
     public void setAllowRollover(final boolean allow) {
         this.allowRollover = allow;
@@ -227,6 +242,63 @@ public class RepositoryConfiguration {
         this.compress = compress;
     }
 
+    /**
+     * @return the format that event files will be compressed in when they are rolled over
+     */
+    public EventFileCompression getEventFileCompression() {
+        return eventFileCompression;
+    }
+
+    /**
+     * @param eventFileCompression the format that event files will be compressed in when they are rolled over
+     */
+    public void setEventFileCompression(final EventFileCompression eventFileCompression) {
+        this.eventFileCompression = eventFileCompression;
+    }
+
+    /**
+     * @return the implementation of the Event Index that is used to index and query events
+     */
+    public EventIndexImplementation getIndexImplementation() {
+        return indexImplementation;
+    }
+
+    /**
+     * @param indexImplementation the implementation of the Event Index that is used to index and query events
+     */
+    public void setIndexImplementation(final EventIndexImplementation indexImplementation) {
+        this.indexImplementation = indexImplementation;
+    }
+
+    /**
+     * @return the Capture Policy of each component whose Provenance Events are not all recorded, keyed by component ID
+     */
+    public Map<String, CapturePolicy> getCapturePolicies() {
+        return Collections.unmodifiableMap(capturePolicies);
+    }
+
+    /**
+     * @param componentId the ID of the component
+     * @param policy the policy that determines which of the component's Provenance Events are recorded
+     */
+    public void setCapturePolicy(final String componentId, final CapturePolicy policy) {
+        capturePolicies.put(componentId, policy);
+    }
+
+    /**
+     * @return the types of Provenance Events to which the Capture Policies apply; events of other types are always recorded
+     */
+    public Set<ProvenanceEventType> getCapturePolicyEventTypes() {
+        return capturePolicyEventTypes;
+    }
+
+    /**
+     * @param eventTypes the types of Provenance Events to which the Capture Policies apply
+     */
+    public void setCapturePolicyEventTypes(final Set<ProvenanceEventType> eventTypes) {
+        this.capturePolicyEventTypes = eventTypes;
+    }
+
     /**
      * @return the number of threads to use to query the repo
      */
@@ -402,6 +474,8 @@ public class RepositoryConfiguration {
         final long rolloverBytes = DataUnit.parseDataSize(rolloverSize, DataUnit.B).longValue();
 
         final boolean compressOnRollover = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.PROVENANCE_COMPRESS_ON_ROLLOVER));
+        final String compressionFormat = nifiProperties.getProperty(COMPRESSION_FORMAT, EventFileCompression.GZIP.name());
+        final String indexImplementation = nifiProperties.getProperty(INDEX_IMPLEMENTATION, EventIndexImplementation.LUCENE.name());
         final String indexedFieldString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS);
         final String indexedAttrString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES);
 
@@ -435,6 +509,8 @@ public class RepositoryConfiguration {
             config.addStorageDirectory(entry.getKey(), entry.getValue().toFile());
         }
         config.setCompressOnRollover(compressOnRollover);
+        config.setEventFileCompression(EventFileCompression.valueOf(compressionFormat.trim().toUpperCase()));
+        config.setIndexImplementation(EventIndexImplementation.valueOf(indexImplementation.trim().toUpperCase()));
         config.setSearchableFields(searchableFields);
         config.setSearchableAttributes(searchableAttributes);
         config.setMaxEventFileCapacity(rolloverBytes);
@@ -461,6 +537,24 @@ public class RepositoryConfiguration {
 
         config.setAlwaysSync(alwaysSync);
 
+        for (final String propertyName : nifiProperties.getPropertyKeys()) {
+            if (propertyName.startsWith(CAPTURE_POLICY_PREFIX)) {
+                final String componentId = propertyName.substring(CAPTURE_POLICY_PREFIX.length());
+                config.setCapturePolicy(componentId, CapturePolicy.parse(nifiProperties.getProperty(propertyName)));
+            }
+        }
+
+        final String capturePolicyEventTypes = nifiProperties.getProperty(CAPTURE_POLICY_EVENT_TYPES);
+        if (capturePolicyEventTypes != null && !capturePolicyEventTypes.isBlank()) {
+            final Set<ProvenanceEventType> eventTypes = EnumSet.noneOf(ProvenanceEventType.class);
+            for (final String eventType : capturePolicyEventTypes.split(",")) {
+                if (!eventType.isBlank()) {
+                    eventTypes.add(ProvenanceEventType.valueOf(eventType.trim().toUpperCase()));
+                }
+            }
+            config.setCapturePolicyEventTypes(eventTypes);
+        }
+
         config.setDebugFrequency(nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_REPO_DEBUG_FREQUENCY, config.getDebugFrequency()));
         return config;
     }
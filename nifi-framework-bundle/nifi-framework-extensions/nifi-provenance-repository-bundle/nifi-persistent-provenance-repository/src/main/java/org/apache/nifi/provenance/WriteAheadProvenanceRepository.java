@@ -24,9 +24,13 @@ import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.UserEventAuthorizer;
+import org.apache.nifi.provenance.capture.EventCaptureFilter;
 import org.apache.nifi.provenance.index.EventIndex;
+import org.apache.nifi.provenance.index.EventIndexImplementation;
+import org.apache.nifi.provenance.index.columnar.ColumnarEventIndex;
 import org.apache.nifi.provenance.index.lucene.LuceneEventIndex;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
+import org.apache.nifi.provenance.lineage.LineageNode;
 import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.StandardIndexManager;
 import org.apache.nifi.provenance.search.Query;
@@ -44,6 +48,7 @@ import org.apache.nifi.provenance.toc.StandardTocWriter;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.toc.TocWriter;
 import org.apache.nifi.provenance.util.CloseableUtil;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.reporting.Severity;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.util.file.FileUtils;
@@ -58,6 +63,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>
@@ -81,6 +89,17 @@ import java.util.Set;
  * </p>
  *
  * <p>
+ * Alternatively, the repository may be configured to use the {@link ColumnarEventIndex}, which stores the indexed fields in compact, immutable segments
+ * and holds only the metadata of each segment in memory. This reduces the heap and disk space required by the index, at the cost of slower ad-hoc queries.
+ * </p>
+ *
+ * <p>
+ * Components that generate a very high rate of trivial events may be given a {@link org.apache.nifi.provenance.capture.CapturePolicy Capture Policy}
+ * that records only a sample of their events, or that aggregates their events into periodic summary events, before the events reach the Event Store.
+ * The lineage of a FlowFile whose events were not all recorded is flagged as incomplete.
+ * </p>
+ *
+ * <p>
  * This Repositories supports the notion of 'partitions'. The repository can be configured to store data to one or more partitions. Each partition is typically
  * stored on a separate physical partition on disk. As a result, this allows striping of data across multiple partitions in order to achieve linear scalability
  * across disks for far greater performance.
@@ -99,6 +118,8 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
     private EventReporter eventReporter;
     private Authorizer authorizer;
     private ProvenanceAuthorizableFactory resourceFactory;
+    private EventCaptureFilter captureFilter;
+    private ScheduledExecutorService aggregationExecutor;
 
     /**
      * This constructor exists solely for the use of the Java Service Loader mechanism and should not be used.
@@ -144,8 +165,12 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
         eventStore = new PartitionedWriteAheadEventStore(config, recordWriterFactory, recordReaderFactory, eventReporter, fileManager);
 
-        final IndexManager indexManager = new StandardIndexManager(config);
-        eventIndex = new LuceneEventIndex(config, indexManager, eventReporter);
+        if (config.getIndexImplementation() == EventIndexImplementation.COLUMNAR) {
+            eventIndex = new ColumnarEventIndex(config, eventReporter);
+        } else {
+            final IndexManager indexManager = new StandardIndexManager(config);
+            eventIndex = new LuceneEventIndex(config, indexManager, eventReporter);
+        }
 
         this.eventReporter = eventReporter;
         this.authorizer = authorizer;
@@ -154,6 +179,18 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         eventStore.initialize();
         eventIndex.initialize(eventStore);
 
+        final EventCaptureFilter configuredCaptureFilter = new EventCaptureFilter(config.getCapturePolicies(), config.getCapturePolicyEventTypes());
+        if (configuredCaptureFilter.isActive()) {
+            captureFilter = configuredCaptureFilter;
+            logger.info("Provenance Events of types {} will be recorded according to the Capture Policies of {} components", config.getCapturePolicyEventTypes(),
+                config.getCapturePolicies().size());
+
+            if (captureFilter.isAggregating()) {
+                aggregationExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Provenance Event Aggregation", true));
+                aggregationExecutor.scheduleWithFixedDelay(() -> storeEvents(captureFilter.flushExpiredWindows(System.currentTimeMillis())), 1, 1, TimeUnit.SECONDS);
+            }
+        }
+
         if (eventIndex.isReindexNecessary()) {
             try {
                 eventStore.reindexLatestEvents(eventIndex);
@@ -178,6 +215,17 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void registerEvents(final Iterable<ProvenanceEventRecord> events) {
+        if (captureFilter == null) {
+            storeEvents(events);
+        } else {
+            final List<ProvenanceEventRecord> capturedEvents = captureFilter.filter(events);
+            if (!capturedEvents.isEmpty()) {
+                storeEvents(capturedEvents);
+            }
+        }
+    }
+
+    private void storeEvents(final Iterable<ProvenanceEventRecord> events) {
         final StorageResult storageResult;
 
         try {
@@ -211,6 +259,11 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void close() {
+        if (aggregationExecutor != null) {
+            aggregationExecutor.shutdown();
+            storeEvents(captureFilter.flushAllWindows());
+        }
+
         CloseableUtil.closeQuietly(eventStore, eventIndex);
     }
 
@@ -266,27 +319,49 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public ComputeLineageSubmission submitLineageComputation(final String flowFileUuid, final NiFiUser user) {
-        return eventIndex.submitLineageComputation(flowFileUuid, user, createEventAuthorizer(user));
+        return flagIncompleteLineage(eventIndex.submitLineageComputation(flowFileUuid, user, createEventAuthorizer(user)));
     }
 
     @Override
     public ComputeLineageSubmission submitLineageComputation(final long eventId, final NiFiUser user) {
-        return eventIndex.submitLineageComputation(eventId, user, createEventAuthorizer(user));
+        return flagIncompleteLineage(eventIndex.submitLineageComputation(eventId, user, createEventAuthorizer(user)));
+    }
+
+    @Override
+    public ComputeLineageSubmission submitStreamingLineageComputation(final String flowFileUuid, final int maxDepth, final int maxNodes, final NiFiUser user) {
+        return flagIncompleteLineage(eventIndex.submitStreamingLineageComputation(flowFileUuid, maxDepth, maxNodes, user, createEventAuthorizer(user)));
     }
 
     @Override
     public ComputeLineageSubmission retrieveLineageSubmission(final String lineageIdentifier, final NiFiUser user) {
-        return eventIndex.retrieveLineageSubmission(lineageIdentifier, user);
+        return flagIncompleteLineage(eventIndex.retrieveLineageSubmission(lineageIdentifier, user));
     }
 
     @Override
     public ComputeLineageSubmission submitExpandParents(final long eventId, final NiFiUser user) {
-        return eventIndex.submitExpandParents(eventId, user, createEventAuthorizer(user));
+        return flagIncompleteLineage(eventIndex.submitExpandParents(eventId, user, createEventAuthorizer(user)));
     }
 
     @Override
     public ComputeLineageSubmission submitExpandChildren(final long eventId, final NiFiUser user) {
-        return eventIndex.submitExpandChildren(eventId, user, createEventAuthorizer(user));
+        return flagIncompleteLineage(eventIndex.submitExpandChildren(eventId, user, createEventAuthorizer(user)));
+    }
+
+    /**
+     * Flags the lineage as incomplete if any of its FlowFiles had events that were not recorded because of a Capture Policy. The flag is
+     * re-evaluated each time the submission is retrieved, so that it reflects the nodes that have been computed so far.
+     */
+    private ComputeLineageSubmission flagIncompleteLineage(final ComputeLineageSubmission submission) {
+        if (captureFilter != null && submission.getResult() instanceof final StandardLineageResult result && !result.isIncomplete()) {
+            for (final LineageNode node : result.getNodes()) {
+                if (captureFilter.isLineageIncomplete(node.getFlowFileUuid())) {
+                    result.setIncomplete(true);
+                    break;
+                }
+            }
+        }
+
+        return submission;
     }
 
     @Override
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.capture;
+
+import org.apache.nifi.util.FormatUtils;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines how the Provenance Events of a component are recorded
+ *
+ * @param mode whether events are recorded in full, sampled or aggregated
+ * @param sampleRate when sampling, the events of 1 in every <code>sampleRate</code> FlowFiles are recorded
+ * @param aggregationMillis when aggregating, the length of the window whose events are combined into a single summary event
+ */
+public record CapturePolicy(Mode mode, int sampleRate, long aggregationMillis) {
+
+    public static final CapturePolicy FULL = new CapturePolicy(Mode.FULL, 1, 0L);
+
+    public enum Mode {
+        /**
+         * Every event is recorded
+         */
+        FULL,
+
+        /**
+         * Only the events of a deterministic subset of FlowFiles are recorded
+         */
+        SAMPLE,
+
+        /**
+         * Events are combined into a summary event for each window of time
+         */
+        AGGREGATE
+    }
+
+    public CapturePolicy {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1 but was " + sampleRate);
+        }
+        if (mode == Mode.AGGREGATE && aggregationMillis < 1) {
+            throw new IllegalArgumentException("Aggregation window must be at least 1 millisecond but was " + aggregationMillis);
+        }
+    }
+
+    public static CapturePolicy sample(final int sampleRate) {
+        return new CapturePolicy(Mode.SAMPLE, sampleRate, 0L);
+    }
+
+    public static CapturePolicy aggregate(final long window, final TimeUnit timeUnit) {
+        return new CapturePolicy(Mode.AGGREGATE, 1, timeUnit.toMillis(window));
+    }
+
+    /**
+     * Parses a policy of the form <code>FULL</code>, <code>SAMPLE &lt;N&gt;</code> or <code>AGGREGATE &lt;time period&gt;</code>,
+     * such as <code>SAMPLE 100</code> or <code>AGGREGATE 1 min</code>
+     *
+     * @param value the value to parse
+     * @return the policy that is described by the value
+     * @throws IllegalArgumentException if the value does not describe a valid policy
+     */
+    public static CapturePolicy parse(final String value) {
+        final String trimmed = value.trim();
+        final int separator = trimmed.indexOf(' ');
+        final String modeName = separator < 0 ? trimmed : trimmed.substring(0, separator);
+        final String argument = separator < 0 ? "" : trimmed.substring(separator + 1).trim();
+
+        final Mode mode;
+        try {
+            mode = Mode.valueOf(modeName.toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid Provenance capture policy [" + value + "]: must be one of FULL, SAMPLE <N> or AGGREGATE <time period>");
+        }
+
+        return switch (mode) {
+            case FULL -> FULL;
+            case SAMPLE -> {
+                try {
+                    yield sample(Integer.parseInt(argument));
+                } catch (final NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid Provenance capture policy [" + value + "]: SAMPLE must be followed by the number N of FlowFiles per sampled FlowFile");
+                }
+            }
+            case AGGREGATE -> aggregate(FormatUtils.getTimeDuration(argument, TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        };
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.capture;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * Applies the configured {@link CapturePolicy Capture Policies} to Provenance Events before they are written to the Event Store. Policies apply only
+ * to the configured event types, and never to the event types that create FlowFiles or connect them to one another, so that the lineage of the
+ * FlowFiles whose events are recorded remains intact.
+ * </p>
+ *
+ * <p>
+ * A sampling policy records the events of 1 in every N FlowFiles, chosen by the FlowFile's UUID. Because the choice depends only on the UUID,
+ * a sampled FlowFile's history through the component is complete rather than a random subset of events. An aggregating policy replaces the
+ * events of each component and event type with a single summary event per window of time that records the number of events, the number
+ * of bytes, and the first and last FlowFiles of the window.
+ * </p>
+ *
+ * <p>
+ * The FlowFiles whose events are not recorded are remembered so that {@link #isLineageIncomplete(String)} can report that the lineage
+ * of such a FlowFile is missing events.
+ * </p>
+ */
+public class EventCaptureFilter {
+    public static final Set<ProvenanceEventType> DEFAULT_EVENT_TYPES = Collections.unmodifiableSet(EnumSet.of(ProvenanceEventType.ROUTE, ProvenanceEventType.ATTRIBUTES_MODIFIED));
+    public static final Set<ProvenanceEventType> LINEAGE_EVENT_TYPES = Collections.unmodifiableSet(EnumSet.of(ProvenanceEventType.CREATE, ProvenanceEventType.RECEIVE,
+        ProvenanceEventType.FETCH, ProvenanceEventType.FORK, ProvenanceEventType.JOIN, ProvenanceEventType.CLONE, ProvenanceEventType.REPLAY));
+
+    private static final int UNCAPTURED_FLOWFILE_CAPACITY = 1_000_000;
+
+    private final Map<String, CapturePolicy> componentPolicies;
+    private final Set<ProvenanceEventType> eventTypes;
+    private final ConcurrentMap<WindowKey, AggregationWindow> windows = new ConcurrentHashMap<>();
+    private final UncapturedFlowFileFilter uncapturedFlowFiles = new UncapturedFlowFileFilter(UNCAPTURED_FLOWFILE_CAPACITY);
+
+    public EventCaptureFilter(final Map<String, CapturePolicy> componentPolicies, final Set<ProvenanceEventType> eventTypes) {
+        for (final ProvenanceEventType eventType : eventTypes) {
+            if (LINEAGE_EVENT_TYPES.contains(eventType)) {
+                throw new IllegalArgumentException("Provenance capture policies cannot be applied to " + eventType + " events because they are required in order to compute lineage");
+            }
+        }
+
+        this.componentPolicies = new HashMap<>(componentPolicies);
+        this.eventTypes = eventTypes.isEmpty() ? EnumSet.noneOf(ProvenanceEventType.class) : EnumSet.copyOf(eventTypes);
+    }
+
+    /**
+     * @return <code>true</code> if any component has a policy that does not record every event
+     */
+    public boolean isActive() {
+        return !eventTypes.isEmpty() && componentPolicies.values().stream().anyMatch(policy -> policy.mode() != CapturePolicy.Mode.FULL);
+    }
+
+    /**
+     * @return <code>true</code> if any component aggregates its events, in which case {@link #flushExpiredWindows(long)} must be called periodically
+     */
+    public boolean isAggregating() {
+        return !eventTypes.isEmpty() && componentPolicies.values().stream().anyMatch(policy -> policy.mode() == CapturePolicy.Mode.AGGREGATE);
+    }
+
+    /**
+     * Applies the capture policies to the given events
+     *
+     * @param events the events to filter
+     * @return the events that should be recorded, including the summary events of any aggregation windows that the given events have closed
+     */
+    public List<ProvenanceEventRecord> filter(final Iterable<ProvenanceEventRecord> events) {
+        final long now = System.currentTimeMillis();
+        final List<ProvenanceEventRecord> captured = new ArrayList<>();
+
+        for (final ProvenanceEventRecord event : events) {
+            final CapturePolicy policy = getPolicy(event);
+            switch (policy.mode()) {
+                case FULL -> captured.add(event);
+                case SAMPLE -> {
+                    if (isSampled(event.getFlowFileUuid(), policy.sampleRate())) {
+                        captured.add(event);
+                    } else {
+                        uncapturedFlowFiles.add(event.getFlowFileUuid());
+                    }
+                }
+                case AGGREGATE -> {
+                    windows.compute(new WindowKey(event.getComponentId(), event.getEventType()), (key, window) -> {
+                        AggregationWindow updated = window;
+                        if (updated != null && now >= updated.endTime) {
+                            captured.add(updated.createSummaryEvent());
+                            updated = null;
+                        }
+                        if (updated == null) {
+                            updated = new AggregationWindow(now + policy.aggregationMillis());
+                        }
+
+                        updated.add(event);
+                        return updated;
+                    });
+                    uncapturedFlowFiles.add(event.getFlowFileUuid());
+                }
+            }
+        }
+
+        return captured;
+    }
+
+    /**
+     * Closes the aggregation windows that ended before the given time
+     *
+     * @param now the current time
+     * @return the summary events of the closed windows
+     */
+    public List<ProvenanceEventRecord> flushExpiredWindows(final long now) {
+        final List<ProvenanceEventRecord> summaries = new ArrayList<>();
+        for (final WindowKey key : windows.keySet()) {
+            windows.computeIfPresent(key, (k, window) -> {
+                if (now >= window.endTime) {
+                    summaries.add(window.createSummaryEvent());
+                    return null;
+                }
+
+                return window;
+            });
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Closes all aggregation windows, regardless of whether or not they have ended
+     *
+     * @return the summary events of the closed windows
+     */
+    public List<ProvenanceEventRecord> flushAllWindows() {
+        return flushExpiredWindows(Long.MAX_VALUE);
+    }
+
+    /**
+     * Indicates whether some of the events of the FlowFile with the given UUID may not have been recorded. False positives are possible;
+     * false negatives are possible only for FlowFiles whose events were dropped long enough ago that they have been forgotten, or before
+     * NiFi was restarted.
+     *
+     * @param flowFileUuid the UUID of the FlowFile
+     * @return <code>true</code> if the FlowFile's lineage may be missing events
+     */
+    public boolean isLineageIncomplete(final String flowFileUuid) {
+        return flowFileUuid != null && uncapturedFlowFiles.mightContain(flowFileUuid);
+    }
+
+    private CapturePolicy getPolicy(final ProvenanceEventRecord event) {
+        if (!eventTypes.contains(event.getEventType())) {
+            return CapturePolicy.FULL;
+        }
+
+        return componentPolicies.getOrDefault(event.getComponentId(), CapturePolicy.FULL);
+    }
+
+    static boolean isSampled(final String flowFileUuid, final int sampleRate) {
+        if (sampleRate == 1) {
+            return true;
+        }
+
+        // Mix the bits of the hash code, as with the finalizer of MurmurHash3, because UUIDs that differ only in their last characters
+        // would otherwise produce hash codes that are too similar to be spread evenly across the sample rate
+        int hash = flowFileUuid.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, sampleRate) == 0;
+    }
+
+    private record WindowKey(String componentId, ProvenanceEventType eventType) {
+    }
+
+    /**
+     * Accumulates the events of a single component and event type; accessed only within {@link ConcurrentMap#compute} so that updates are serialized
+     */
+    private static final class AggregationWindow {
+        private final long endTime;
+        private ProvenanceEventRecord firstEvent;
+        private ProvenanceEventRecord lastEvent;
+        private long eventCount;
+        private long byteCount;
+
+        private AggregationWindow(final long endTime) {
+            this.endTime = endTime;
+        }
+
+        private void add(final ProvenanceEventRecord event) {
+            if (firstEvent == null) {
+                firstEvent = event;
+            }
+
+            lastEvent = event;
+            eventCount++;
+            byteCount += event.getFileSize();
+        }
+
+        private ProvenanceEventRecord createSummaryEvent() {
+            final String details = String.format("Aggregated %d %s events totaling %d bytes between %s and %s; first FlowFile %s, last FlowFile %s",
+                eventCount, lastEvent.getEventType(), byteCount, Instant.ofEpochMilli(firstEvent.getEventTime()), Instant.ofEpochMilli(lastEvent.getEventTime()),
+                firstEvent.getFlowFileUuid(), lastEvent.getFlowFileUuid());
+
+            return new StandardProvenanceEventRecord.Builder()
+                .fromEvent(lastEvent)
+                .setDetails(details)
+                .build();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.capture;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remembers the FlowFiles for which some Provenance Events were not recorded, so that their lineage can be flagged as incomplete.
+ * This is a pair of Bloom Filters: once the current filter holds its capacity it becomes the previous filter and the oldest FlowFiles
+ * are forgotten, which keeps the memory used and the false positive rate bounded regardless of the event rate.
+ */
+final class UncapturedFlowFileFilter {
+    private static final int BITS_PER_UUID = 10;
+    private static final int HASH_COUNT = 7;
+
+    private final int capacity;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    UncapturedFlowFileFilter(final int capacity) {
+        this.capacity = capacity;
+        this.current = new Generation(capacity);
+        this.previous = new Generation(1);
+    }
+
+    void add(final String flowFileUuid) {
+        final Generation generation = current;
+        generation.add(hash(flowFileUuid));
+        if (generation.count.incrementAndGet() >= capacity) {
+            rotate(generation);
+        }
+    }
+
+    boolean mightContain(final String flowFileUuid) {
+        final long hash = hash(flowFileUuid);
+        return current.mightContain(hash) || previous.mightContain(hash);
+    }
+
+    private synchronized void rotate(final Generation full) {
+        if (current == full) {
+            previous = full;
+            current = new Generation(capacity);
+        }
+    }
+
+    // 64-bit FNV-1a, followed by the finalizer of MurmurHash3 so that the upper and lower halves are independent
+    private static long hash(final String uuid) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : uuid.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Generation {
+        private final AtomicLongArray words;
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        private Generation(final int capacity) {
+            words = new AtomicLongArray((int) Math.max(1L, ((long) capacity * BITS_PER_UUID + 63) / 64));
+        }
+
+        private void add(final long hash) {
+            final long bitCount = (long) words.length() * 64;
+            for (int i = 0; i < HASH_COUNT; i++) {
+                final long bit = Math.floorMod(hash + i * (hash >>> 32), bitCount);
+                final long mask = 1L << bit;
+                words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+            }
+        }
+
+        private boolean mightContain(final long hash) {
+            final long bitCount = (long) words.length() * 64;
+            for (int i = 0; i < HASH_COUNT; i++) {
+                final long bit = Math.floorMod(hash + i * (hash >>> 32), bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index;
+
+import org.apache.nifi.authorization.AccessDeniedException;
+import org.apache.nifi.authorization.user.NiFiUser;
+import org.apache.nifi.provenance.AsyncLineageSubmission;
+import org.apache.nifi.provenance.AsyncQuerySubmission;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.StandardLineageResult;
+import org.apache.nifi.provenance.StandardQueryResult;
+import org.apache.nifi.provenance.authorization.EventAuthorizer;
+import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
+import org.apache.nifi.provenance.lineage.LineageComputationType;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QuerySubmission;
+import org.apache.nifi.provenance.store.EventStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for {@link EventIndex} implementations that keeps track of the Query and Lineage submissions and that resolves the lineage
+ * requests that begin with a Provenance Event into a lineage computation for a set of FlowFile UUIDs.
+ */
+public abstract class AbstractEventIndex implements EventIndex {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractEventIndex.class);
+
+    public static final int MAX_UNDELETED_QUERY_RESULTS = 10;
+    public static final int MAX_LINEAGE_NODES = 1000;
+    public static final int MAX_LINEAGE_UUIDS = 100;
+    public static final int MAX_STREAMING_LINEAGE_NODES = 100_000;
+
+    protected final ConcurrentMap<String, AsyncQuerySubmission> querySubmissionMap = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<String, AsyncLineageSubmission> lineageSubmissionMap = new ConcurrentHashMap<>();
+
+    /**
+     * @return the Event Store that was provided to {@link #initialize(EventStore)}
+     */
+    protected abstract EventStore getEventStore();
+
+    /**
+     * Asynchronously computes the lineage of the given FlowFiles, considering only those events that occurred within the given time range
+     *
+     * @param flowFileUuids the UUIDs of the FlowFiles whose lineage should be computed
+     * @param user the NiFi user on whose behalf the computing is being performed
+     * @param eventAuthorizer the authorizer to use in order to determine whether or not a particular event should be included in the result
+     * @param computationType the type of lineage computation being performed
+     * @param eventId the ID of the event that the computation began with, or <code>null</code> if the computation began with a FlowFile UUID
+     * @param startTimestamp the earliest time at which a relevant event may have occurred
+     * @param endTimestamp the latest time at which a relevant event may have occurred
+     * @return a ComputeLineageSubmission that can be used to retrieve the results later
+     */
+    protected abstract ComputeLineageSubmission submitLineageComputation(Collection<String> flowFileUuids, NiFiUser user, EventAuthorizer eventAuthorizer,
+        LineageComputationType computationType, Long eventId, long startTimestamp, long endTimestamp);
+
+    /**
+     * Synchronously retrieves the events that reference any of the given FlowFiles. This is used to expand one generation of a
+     * streaming lineage computation at a time.
+     *
+     * @param flowFileUuids the UUIDs of the FlowFiles whose events should be retrieved
+     * @param maxEvents the maximum number of events to retrieve
+     * @param eventAuthorizer the authorizer to use in order to determine whether or not a particular event should be included in the result
+     * @return the events that reference the given FlowFiles, with events that the user is not authorized to see replaced by placeholders
+     * @throws IOException if unable to query the index or read the events from the Event Store
+     */
+    protected abstract List<ProvenanceEventRecord> findLineageEvents(Collection<String> flowFileUuids, int maxEvents, EventAuthorizer eventAuthorizer) throws IOException;
+
+    /**
+     * @return the Executor Service on which queries and lineage computations are performed
+     */
+    protected abstract ExecutorService getQueryExecutor();
+
+    @Override
+    public ComputeLineageSubmission submitLineageComputation(final long eventId, final NiFiUser user, final EventAuthorizer eventAuthorizer) {
+        final Optional<ProvenanceEventRecord> eventOption;
+        try {
+            eventOption = getEventStore().getEvent(eventId);
+        } catch (final Exception e) {
+            logger.error("Failed to retrieve Provenance Event with ID {} to calculate data lineage", eventId, e);
+            final AsyncLineageSubmission result = new AsyncLineageSubmission(LineageComputationType.FLOWFILE_LINEAGE, eventId, Collections.emptySet(), 1, user == null ? null : user.getIdentity());
+            result.getResult().setError("Failed to retrieve Provenance Event with ID " + eventId + ". See logs for more information.");
+            return result;
+        }
+
+        if (!eventOption.isPresent()) {
+            final AsyncLineageSubmission result = new AsyncLineageSubmission(LineageComputationType.FLOWFILE_LINEAGE, eventId, Collections.emptySet(), 1, user == null ? null : user.getIdentity());
+            result.getResult().setError("Could not find Provenance Event with ID " + eventId);
+            lineageSubmissionMap.put(result.getLineageIdentifier(), result);
+            return result;
+        }
+
+        final ProvenanceEventRecord event = eventOption.get();
+        return submitLineageComputation(Collections.singleton(event.getFlowFileUuid()), user, eventAuthorizer, LineageComputationType.FLOWFILE_LINEAGE,
+            eventId, event.getLineageStartDate(), Long.MAX_VALUE);
+    }
+
+    @Override
+    public ComputeLineageSubmission submitLineageComputation(final String flowFileUuid, final NiFiUser user, final EventAuthorizer eventAuthorizer) {
+        return submitLineageComputation(Collections.singleton(flowFileUuid), user, eventAuthorizer, LineageComputationType.FLOWFILE_LINEAGE, null, 0L, Long.MAX_VALUE);
+    }
+
+    @Override
+    public ComputeLineageSubmission submitStreamingLineageComputation(final String flowFileUuid, final int maxDepth, final int maxNodes, final NiFiUser user,
+                                                                      final EventAuthorizer eventAuthorizer) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Lineage depth cannot be negative");
+        }
+        if (maxNodes < 1 || maxNodes > MAX_STREAMING_LINEAGE_NODES) {
+            throw new IllegalArgumentException(String.format("Lineage node limit must be between 1 and %s", MAX_STREAMING_LINEAGE_NODES));
+        }
+
+        // The lineage result creates FlowFile nodes only for the UUIDs in this collection, so it must grow as descendants are discovered
+        final Set<String> lineageUuids = ConcurrentHashMap.newKeySet();
+        lineageUuids.add(flowFileUuid);
+
+        final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.FLOWFILE_LINEAGE, null, Collections.singleton(flowFileUuid),
+            lineageUuids, 1, user == null ? null : user.getIdentity());
+        lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+
+        getQueryExecutor().submit(() -> {
+            try {
+                expandLineage(submission, lineageUuids, maxDepth, maxNodes, eventAuthorizer);
+            } catch (final Exception e) {
+                submission.getResult().setError("Failed to compute lineage; see logs for more details");
+                logger.error("Failed to compute streaming lineage for FlowFile {}", flowFileUuid, e);
+            }
+        });
+
+        // Some computations will complete very quickly. In this case, we don't want to wait
+        // for the client to submit a second query to obtain the result. Instead, we want to just
+        // wait some short period of time for the computation to complete before returning the submission.
+        try {
+            submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        return submission;
+    }
+
+    /**
+     * Expands the lineage breadth-first: each generation retrieves the events of the FlowFiles discovered by the previous one, in batches of
+     * at most {@link #MAX_LINEAGE_UUIDS} FlowFiles, and follows the child FlowFiles of the events that were performed on a FlowFile already in
+     * the lineage. Following only those events keeps the expansion from fanning out to the siblings and ancestors of the FlowFile of interest.
+     */
+    private void expandLineage(final AsyncLineageSubmission submission, final Set<String> lineageUuids, final int maxDepth, final int maxNodes,
+                               final EventAuthorizer eventAuthorizer) throws IOException {
+        final StandardLineageResult result = submission.getResult();
+        final Set<Long> eventIds = new HashSet<>();
+        List<String> frontier = new ArrayList<>(lineageUuids);
+
+        for (int depth = 0; depth <= maxDepth && !frontier.isEmpty(); depth++) {
+            final List<ProvenanceEventRecord> generation = new ArrayList<>();
+            for (int i = 0; i < frontier.size() && eventIds.size() < maxNodes; i += MAX_LINEAGE_UUIDS) {
+                if (submission.isCanceled()) {
+                    return;
+                }
+
+                final List<String> batch = frontier.subList(i, Math.min(frontier.size(), i + MAX_LINEAGE_UUIDS));
+                for (final ProvenanceEventRecord event : findLineageEvents(batch, maxNodes - eventIds.size(), eventAuthorizer)) {
+                    if (eventIds.size() < maxNodes && eventIds.add(event.getEventId())) {
+                        generation.add(event);
+                    }
+                }
+            }
+
+            final List<String> nextFrontier = new ArrayList<>();
+            if (depth < maxDepth) {
+                for (final ProvenanceEventRecord event : generation) {
+                    if (!lineageUuids.contains(event.getFlowFileUuid()) && event.getParentUuids().stream().noneMatch(lineageUuids::contains)) {
+                        continue;
+                    }
+
+                    for (final String childUuid : event.getChildUuids()) {
+                        if (lineageUuids.add(childUuid)) {
+                            nextFrontier.add(childUuid);
+                        }
+                    }
+                }
+            }
+
+            result.publish(generation);
+            logger.debug("Expanded generation {} of streaming lineage {}: found {} events and {} child FlowFiles", depth, submission.getLineageIdentifier(),
+                generation.size(), nextFrontier.size());
+
+            if (eventIds.size() >= maxNodes) {
+                logger.info("Streaming lineage {} reached the limit of {} events after {} generations; remaining descendants will not be included",
+                    submission.getLineageIdentifier(), maxNodes, depth + 1);
+                break;
+            }
+
+            frontier = nextFrontier;
+        }
+
+        result.update(Collections.emptyList(), eventIds.size());
+    }
+
+    @Override
+    public ComputeLineageSubmission submitExpandChildren(final long eventId, final NiFiUser user, final EventAuthorizer authorizer) {
+        final String userId = user == null ? null : user.getIdentity();
+
+        try {
+            final Optional<ProvenanceEventRecord> eventOption = getEventStore().getEvent(eventId);
+            if (!eventOption.isPresent()) {
+                final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_CHILDREN, eventId, Collections.emptyList(), 1, userId);
+                lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+                submission.getResult().update(Collections.emptyList(), 0L);
+                return submission;
+            }
+
+            final ProvenanceEventRecord event = eventOption.get();
+            switch (event.getEventType()) {
+                case CLONE:
+                case FORK:
+                case JOIN:
+                case REPLAY: {
+                    return submitLineageComputation(event.getChildUuids(), user, authorizer, LineageComputationType.EXPAND_CHILDREN,
+                        eventId, event.getEventTime(), Long.MAX_VALUE);
+                }
+                default: {
+                    final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_CHILDREN,
+                        eventId, Collections.emptyList(), 1, userId);
+
+                    lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+                    submission.getResult().setError("Event ID " + eventId + " indicates an event of type " + event.getEventType() + " so its children cannot be expanded");
+                    return submission;
+                }
+            }
+        } catch (final Exception e) {
+            final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_CHILDREN,
+                eventId, Collections.emptyList(), 1, userId);
+            lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+            submission.getResult().setError("Failed to expand children for lineage of event with ID " + eventId + " due to: " + e);
+            return submission;
+        }
+    }
+
+    @Override
+    public ComputeLineageSubmission submitExpandParents(final long eventId, final NiFiUser user, final EventAuthorizer authorizer) {
+        final String userId = user == null ? null : user.getIdentity();
+
+        try {
+            final Optional<ProvenanceEventRecord> eventOption = getEventStore().getEvent(eventId);
+            if (!eventOption.isPresent()) {
+                final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_PARENTS, eventId, Collections.emptyList(), 1, userId);
+                lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+                submission.getResult().update(Collections.emptyList(), 0L);
+                return submission;
+            }
+
+            final ProvenanceEventRecord event = eventOption.get();
+            switch (event.getEventType()) {
+                case JOIN:
+                case FORK:
+                case CLONE:
+                case REPLAY: {
+                    return submitLineageComputation(event.getParentUuids(), user, authorizer, LineageComputationType.EXPAND_PARENTS,
+                        eventId, event.getLineageStartDate(), event.getEventTime());
+                }
+                default: {
+                    final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_PARENTS,
+                        eventId, Collections.emptyList(), 1, userId);
+
+                    lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+                    submission.getResult().setError("Event ID " + eventId + " indicates an event of type " + event.getEventType() + " so its parents cannot be expanded");
+                    return submission;
+                }
+            }
+        } catch (final Exception e) {
+            final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_PARENTS,
+                eventId, Collections.emptyList(), 1, userId);
+            lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+
+            submission.getResult().setError("Failed to expand parents for lineage of event with ID " + eventId + " due to: " + e);
+            return submission;
+        }
+    }
+
+    @Override
+    public AsyncLineageSubmission retrieveLineageSubmission(final String lineageIdentifier, final NiFiUser user) {
+        final AsyncLineageSubmission submission = lineageSubmissionMap.get(lineageIdentifier);
+
+        if (submission == null) {
+            throw new AccessDeniedException("Cannot retrieve Provenance Lineage Submission. It has already been deleted or submitted to another NiFi node in the cluster.");
+        }
+
+        final String userId = submission.getSubmitterIdentity();
+
+        if (user == null && userId == null) {
+            return submission;
+        }
+
+        if (user == null) {
+            throw new AccessDeniedException("Cannot retrieve Provenance Lineage Submission because no user id was provided");
+        }
+
+        if (userId == null || userId.equals(user.getIdentity())) {
+            return submission;
+        }
+
+        throw new AccessDeniedException("Cannot retrieve Provenance Lineage Submission because " + user.getIdentity() + " is not the user who submitted the request");
+    }
+
+    @Override
+    public QuerySubmission retrieveQuerySubmission(final String queryIdentifier, final NiFiUser user) {
+        final QuerySubmission submission = querySubmissionMap.get(queryIdentifier);
+
+        final String userId = submission.getSubmitterIdentity();
+
+        if (user == null && userId == null) {
+            return submission;
+        }
+
+        if (user == null) {
+            throw new AccessDeniedException("Cannot retrieve Provenance Query Submission because no user id was provided");
+        }
+
+        if (userId == null || userId.equals(user.getIdentity())) {
+            return submission;
+        }
+
+        throw new AccessDeniedException("Cannot retrieve Provenance Query Submission because " + user.getIdentity() + " is not the user who submitted the request");
+    }
+
+    protected void validate(final Query query) {
+        final int numQueries = querySubmissionMap.size();
+        if (numQueries > MAX_UNDELETED_QUERY_RESULTS) {
+            purgeObsoleteQueries();
+            if (querySubmissionMap.size() > MAX_UNDELETED_QUERY_RESULTS) {
+                throw new IllegalStateException("Cannot process query because there are currently " + numQueries + " queries whose results have not "
+                    + "been deleted due to poorly behaving clients not issuing DELETE requests. Please try again later.");
+            }
+        }
+
+        if (query.getEndDate() != null && query.getStartDate() != null && query.getStartDate().getTime() > query.getEndDate().getTime()) {
+            throw new IllegalArgumentException("Query End Time cannot be before Query Start Time");
+        }
+    }
+
+    protected void purgeObsoleteQueries() {
+        try {
+            final Date now = new Date();
+
+            final Iterator<Map.Entry<String, AsyncQuerySubmission>> queryIterator = querySubmissionMap.entrySet().iterator();
+            while (queryIterator.hasNext()) {
+                final Map.Entry<String, AsyncQuerySubmission> entry = queryIterator.next();
+
+                final StandardQueryResult result = entry.getValue().getResult();
+                if (entry.getValue().isCanceled() || result.isFinished() && result.getExpiration().before(now)) {
+                    queryIterator.remove();
+                }
+            }
+
+            final Iterator<Map.Entry<String, AsyncLineageSubmission>> lineageIterator = lineageSubmissionMap.entrySet().iterator();
+            while (lineageIterator.hasNext()) {
+                final Map.Entry<String, AsyncLineageSubmission> entry = lineageIterator.next();
+
+                final StandardLineageResult result = entry.getValue().getResult();
+                if (entry.getValue().isCanceled() || result.isFinished() && result.getExpiration().before(now)) {
+                    lineageIterator.remove();
+                }
+            }
+        } catch (final Exception e) {
+            logger.error("Failed to expire Provenance Query Results", e);
+        }
+    }
+}
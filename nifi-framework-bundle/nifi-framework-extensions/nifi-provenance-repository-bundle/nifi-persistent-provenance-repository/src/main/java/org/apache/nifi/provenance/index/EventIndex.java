@@ -114,6 +114,21 @@ public interface EventIndex extends Closeable {
      */
     ComputeLineageSubmission submitLineageComputation(String flowFileUuid, NiFiUser user, EventAuthorizer authorizer);
 
+    /**
+     * Asynchronously computes the lineage for the FlowFile that has the given FlowFile UUID and all of its descendants, expanding the graph
+     * one generation at a time. The graph discovered so far is published to the submission's result after each generation, so that
+     * clients polling the submission can render a partial graph before the computation has finished.
+     *
+     * @param flowFileUuid the UUID of the FlowFile for which the lineage should be computed
+     * @param maxDepth the maximum number of generations of descendants to expand
+     * @param maxNodes the maximum number of events to include in the lineage
+     * @param user the NiFi user on whose behalf the computing is being performed
+     * @param authorizer the authorizer to use in order to determine whether or not a particular event should be included in the result
+     *
+     * @return a ComputeLineageSubmission that can be used to retrieve the results later
+     */
+    ComputeLineageSubmission submitStreamingLineageComputation(String flowFileUuid, int maxDepth, int maxNodes, NiFiUser user, EventAuthorizer authorizer);
+
     /**
      * Asynchronously computes the lineage that makes up the 'child FlowFiles' generated by the event with the given ID. This method is
      * valid only for Events that produce 'child FlowFiles' such as FORK, CLONE, REPLAY, etc.
@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.columnar;
+
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.lucene.LuceneUtil;
+import org.apache.nifi.provenance.search.SearchableField;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An Index Segment that is held in memory while events are added to it. Once the segment has reached its capacity, it is sealed so that
+ * no more events can be added, and it is then written to disk, at which point it is replaced by a {@link PersistedIndexSegment}.
+ */
+class ActiveIndexSegment implements IndexSegment {
+    private final String partitionName;
+    private final Set<SearchableField> searchableEventFields;
+    private final Set<SearchableField> searchableAttributeFields;
+
+    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+    private final Lock readLock = rwLock.readLock();
+    private final Lock writeLock = rwLock.writeLock();
+
+    private final Map<String, Map<String, RowList>> postings = new HashMap<>();
+    private long[] eventIds = new long[1024];
+    private long[] eventTimes = new long[1024];
+    private long[] fileSizes = new long[1024];
+    private int eventCount = 0;
+    private long minEventId = Long.MAX_VALUE;
+    private long maxEventId = -1L;
+    private long minEventTime = Long.MAX_VALUE;
+    private long maxEventTime = -1L;
+    private boolean sealed = false;
+
+    ActiveIndexSegment(final String partitionName, final Set<SearchableField> searchableEventFields, final Set<SearchableField> searchableAttributeFields) {
+        this.partitionName = partitionName;
+        this.searchableEventFields = searchableEventFields;
+        this.searchableAttributeFields = searchableAttributeFields;
+    }
+
+    /**
+     * Adds the given event to the segment
+     *
+     * @param event the event to add
+     * @param eventId the ID of the event
+     * @return the number of events in the segment after adding the event, or -1 if the segment has already been sealed
+     */
+    int add(final ProvenanceEventRecord event, final long eventId) {
+        writeLock.lock();
+        try {
+            if (sealed) {
+                return -1;
+            }
+
+            final int row = eventCount;
+            if (row == eventIds.length) {
+                final int newLength = row * 2;
+                eventIds = Arrays.copyOf(eventIds, newLength);
+                eventTimes = Arrays.copyOf(eventTimes, newLength);
+                fileSizes = Arrays.copyOf(fileSizes, newLength);
+            }
+
+            eventIds[row] = eventId;
+            eventTimes[row] = event.getEventTime();
+            fileSizes[row] = event.getFileSize();
+            eventCount++;
+
+            minEventId = Math.min(minEventId, eventId);
+            maxEventId = Math.max(maxEventId, eventId);
+            minEventTime = Math.min(minEventTime, event.getEventTime());
+            maxEventTime = Math.max(maxEventTime, event.getEventTime());
+
+            addFields(event, row);
+            return eventCount;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void addFields(final ProvenanceEventRecord record, final int row) {
+        addField(SearchableFields.FlowFileUUID, record.getFlowFileUuid(), row);
+        addField(SearchableFields.Filename, LuceneUtil.truncateIndexField(record.getAttribute(CoreAttributes.FILENAME.key())), row);
+        addField(SearchableFields.ComponentID, record.getComponentId(), row);
+        addField(SearchableFields.AlternateIdentifierURI, record.getAlternateIdentifierUri(), row);
+        addField(SearchableFields.EventType, record.getEventType().name(), row);
+        addField(SearchableFields.Relationship, record.getRelationship(), row);
+        addField(SearchableFields.Details, record.getDetails(), row);
+        addField(SearchableFields.ContentClaimSection, record.getContentClaimSection(), row);
+        addField(SearchableFields.ContentClaimContainer, record.getContentClaimContainer(), row);
+        addField(SearchableFields.ContentClaimIdentifier, record.getContentClaimIdentifier(), row);
+        addField(SearchableFields.SourceQueueIdentifier, record.getSourceQueueIdentifier(), row);
+        addField(SearchableFields.TransitURI, record.getTransitUri(), row);
+
+        for (final SearchableField searchableField : searchableAttributeFields) {
+            addField(searchableField, LuceneUtil.truncateIndexField(record.getAttribute(searchableField.getSearchableFieldName())), row);
+        }
+
+        // Index the related FlowFile UUIDs in the same way as the Lucene index so that lineage can be computed from the UUID column alone
+        final ProvenanceEventType eventType = record.getEventType();
+        if (eventType == ProvenanceEventType.FORK || eventType == ProvenanceEventType.CLONE || eventType == ProvenanceEventType.REPLAY) {
+            for (final String uuid : record.getChildUuids()) {
+                addField(SearchableFields.FlowFileUUID, uuid, row);
+            }
+        } else if (eventType == ProvenanceEventType.JOIN) {
+            for (final String uuid : record.getParentUuids()) {
+                addField(SearchableFields.FlowFileUUID, uuid, row);
+            }
+        } else if (eventType == ProvenanceEventType.RECEIVE && record.getSourceSystemFlowFileIdentifier() != null) {
+            final String sourceIdentifier = record.getSourceSystemFlowFileIdentifier();
+            final int lastColon = sourceIdentifier.lastIndexOf(":");
+            if (lastColon > -1 && lastColon < sourceIdentifier.length() - 2) {
+                addField(SearchableFields.FlowFileUUID, sourceIdentifier.substring(lastColon + 1), row);
+            }
+        }
+    }
+
+    private void addField(final SearchableField field, final String value, final int row) {
+        if (value == null || (!field.isAttribute() && !searchableEventFields.contains(field))) {
+            return;
+        }
+
+        final Map<String, RowList> column = postings.computeIfAbsent(field.getSearchableFieldName(), name -> new HashMap<>());
+        column.computeIfAbsent(value.toLowerCase(Locale.ROOT), key -> new RowList()).add(row);
+    }
+
+    /**
+     * Prevents any more events from being added to the segment
+     */
+    void seal() {
+        writeLock.lock();
+        try {
+            sealed = true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the columns of the segment to the given stream. The segment must be sealed before it is written.
+     *
+     * @param out the stream to write to
+     * @param columnOffsets the offset of each column, relative to the start of the stream, is added to this Map, keyed by the column name
+     * @throws IOException if unable to write to the stream
+     */
+    void writeColumns(final DataOutputStream out, final Map<String, long[]> columnOffsets) throws IOException {
+        readLock.lock();
+        try {
+            if (!sealed) {
+                throw new IllegalStateException("Cannot write Index Segment for Partition " + partitionName + " because it has not been sealed");
+            }
+
+            writeLongColumn(PersistedIndexSegment.EVENT_ID_COLUMN, eventIds, out, columnOffsets);
+            writeLongColumn(PersistedIndexSegment.EVENT_TIME_COLUMN, eventTimes, out, columnOffsets);
+            writeLongColumn(PersistedIndexSegment.FILE_SIZE_COLUMN, fileSizes, out, columnOffsets);
+
+            for (final Map.Entry<String, Map<String, RowList>> entry : postings.entrySet()) {
+                final long start = out.size();
+
+                // Sort the values so that the layout of a segment is deterministic
+                final Map<String, RowList> column = new TreeMap<>(entry.getValue());
+                final ByteArrayOutputStream rowBytes = new ByteArrayOutputStream();
+                final DataOutputStream rowOut = new DataOutputStream(rowBytes);
+                out.writeInt(column.size());
+                for (final Map.Entry<String, RowList> valueEntry : column.entrySet()) {
+                    final byte[] valueBytes = valueEntry.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(valueBytes.length);
+                    out.write(valueBytes);
+
+                    final RowList rows = valueEntry.getValue();
+                    out.writeInt(rows.size);
+
+                    // Write the length of the encoded rows so that readers can skip the rows of a value that does not match
+                    rowBytes.reset();
+                    ColumnEncoding.writeRows(rows.rows, rows.size, rowOut);
+                    out.writeInt(rowBytes.size());
+                    rowBytes.writeTo(out);
+                }
+
+                columnOffsets.put(entry.getKey(), new long[] {start, out.size() - start});
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void writeLongColumn(final String columnName, final long[] values, final DataOutputStream out, final Map<String, long[]> columnOffsets) throws IOException {
+        final long start = out.size();
+        ColumnEncoding.writeLongs(values, eventCount, out);
+        columnOffsets.put(columnName, new long[] {start, out.size() - start});
+    }
+
+    Set<String> getFlowFileUuids() {
+        readLock.lock();
+        try {
+            final Map<String, RowList> column = postings.get(SearchableFields.FlowFileUUID.getSearchableFieldName());
+            return column == null ? Set.of() : Set.copyOf(column.keySet());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String getPartitionName() {
+        return partitionName;
+    }
+
+    @Override
+    public int getEventCount() {
+        readLock.lock();
+        try {
+            return eventCount;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long getMinEventId() {
+        readLock.lock();
+        try {
+            return minEventId;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long getMaxEventId() {
+        readLock.lock();
+        try {
+            return maxEventId;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long getMinEventTime() {
+        readLock.lock();
+        try {
+            return minEventTime;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long getMaxEventTime() {
+        readLock.lock();
+        try {
+            return maxEventTime;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean mightContainFlowFile(final String flowFileUuid) {
+        return true;
+    }
+
+    @Override
+    public long getSize() {
+        return 0L;
+    }
+
+    @Override
+    public Columns openColumns() {
+        readLock.lock();
+        return new Columns() {
+            @Override
+            public long[] getEventIds() {
+                return eventIds;
+            }
+
+            @Override
+            public long[] getEventTimes() {
+                return eventTimes;
+            }
+
+            @Override
+            public long[] getFileSizes() {
+                return fileSizes;
+            }
+
+            @Override
+            public BitSet getRows(final String fieldName, final ValueFilter filter) {
+                final BitSet bitSet = new BitSet(eventCount);
+                final Map<String, RowList> column = postings.get(fieldName);
+                if (column == null) {
+                    return bitSet;
+                }
+
+                final Set<String> exactValues = filter.getExactValues();
+                if (exactValues == null) {
+                    for (final Map.Entry<String, RowList> entry : column.entrySet()) {
+                        if (filter.matches(entry.getKey())) {
+                            entry.getValue().addTo(bitSet);
+                        }
+                    }
+                } else {
+                    for (final String value : exactValues) {
+                        final RowList rows = column.get(value);
+                        if (rows != null) {
+                            rows.addTo(bitSet);
+                        }
+                    }
+                }
+
+                return bitSet;
+            }
+
+            @Override
+            public void close() {
+                readLock.unlock();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ActiveIndexSegment[partition=" + partitionName + ", events=" + getEventCount() + "]";
+    }
+
+    private static class RowList {
+        private int[] rows = new int[4];
+        private int size = 0;
+
+        void add(final int row) {
+            // A row may be added more than once for the same value, such as when a FORK event lists its own FlowFile as a child
+            if (size > 0 && rows[size - 1] == row) {
+                return;
+            }
+
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+
+            rows[size++] = row;
+        }
+
+        void addTo(final BitSet bitSet) {
+            for (int i = 0; i < size; i++) {
+                bitSet.set(rows[i]);
+            }
+        }
+    }
+}
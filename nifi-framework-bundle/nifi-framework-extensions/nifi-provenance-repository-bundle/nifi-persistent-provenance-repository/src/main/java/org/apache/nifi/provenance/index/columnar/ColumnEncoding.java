@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.columnar;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Encodes the columns of an Index Segment. Numeric columns and row lists are written as the differences between consecutive values,
+ * each as a variable-length integer, because Event IDs and Event Times within a segment are nearly sequential.
+ */
+final class ColumnEncoding {
+
+    private ColumnEncoding() {
+    }
+
+    static void writeLongs(final long[] values, final int count, final DataOutput out) throws IOException {
+        long previous = 0L;
+        for (int i = 0; i < count; i++) {
+            final long delta = values[i] - previous;
+            writeVarLong((delta << 1) ^ (delta >> 63), out);
+            previous = values[i];
+        }
+    }
+
+    static long[] readLongs(final int count, final DataInput in) throws IOException {
+        final long[] values = new long[count];
+        long previous = 0L;
+        for (int i = 0; i < count; i++) {
+            final long zigZag = readVarLong(in);
+            final long delta = (zigZag >>> 1) ^ -(zigZag & 1);
+            previous += delta;
+            values[i] = previous;
+        }
+
+        return values;
+    }
+
+    /**
+     * Writes the given rows, which must be in ascending order
+     */
+    static void writeRows(final int[] rows, final int count, final DataOutput out) throws IOException {
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarLong(rows[i] - previous, out);
+            previous = rows[i];
+        }
+    }
+
+    static void readRows(final int count, final DataInput in, final BitSet rows) throws IOException {
+        int row = 0;
+        for (int i = 0; i < count; i++) {
+            row += (int) readVarLong(in);
+            rows.set(row);
+        }
+    }
+
+    private static void writeVarLong(final long value, final DataOutput out) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+
+        out.writeByte((int) remaining);
+    }
+
+    private static long readVarLong(final DataInput in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Index Segment contains a malformed variable-length integer");
+    }
+}
@@ -0,0 +1,563 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.columnar;
+
+import org.apache.nifi.authorization.user.NiFiUser;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.AsyncLineageSubmission;
+import org.apache.nifi.provenance.AsyncQuerySubmission;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.RepositoryConfiguration;
+import org.apache.nifi.provenance.authorization.EventAuthorizer;
+import org.apache.nifi.provenance.authorization.EventTransformer;
+import org.apache.nifi.provenance.index.AbstractEventIndex;
+import org.apache.nifi.provenance.index.lucene.CachedQuery;
+import org.apache.nifi.provenance.index.lucene.LatestEventsPerProcessorQuery;
+import org.apache.nifi.provenance.index.lucene.LatestEventsQuery;
+import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
+import org.apache.nifi.provenance.lineage.LineageComputationType;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QuerySubmission;
+import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
+import org.apache.nifi.reporting.Severity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * An {@link org.apache.nifi.provenance.index.EventIndex EventIndex} that stores the indexed fields of Provenance Events in columnar Index Segments,
+ * rather than in Lucene. Each segment holds up to a fixed number of events. While a segment is being filled, it is held in memory. Once it is full,
+ * or once the index is committed, the segment is sealed and written to disk as an immutable file, after which only its metadata and a Bloom Filter
+ * of the FlowFile UUIDs that it references are kept in memory.
+ * </p>
+ *
+ * <p>
+ * A query is evaluated by skipping any segment whose time range does not overlap the query (or, for a lineage query, whose Bloom Filter rules out
+ * all of the FlowFiles of interest) and then combining the rows of each matching field value within the remaining segments. This trades the
+ * flexibility of Lucene for a much smaller footprint on the heap and on disk, which makes it well suited to high-volume flows that rarely issue
+ * ad-hoc queries.
+ * </p>
+ */
+public class ColumnarEventIndex extends AbstractEventIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarEventIndex.class);
+    private static final String EVENT_CATEGORY = "Provenance Repository";
+
+    public static final int DEFAULT_SEGMENT_EVENT_COUNT = 100_000;
+    static final String INDEX_DIRECTORY_NAME = "columnar-index";
+    private static final String SEGMENT_FILENAME_PREFIX = "segment-";
+
+    // Events are added to the index concurrently by many threads, so the event with the largest ID in a persisted segment may have been
+    // added before some events with smaller IDs. Upon restart, we re-index this many events prior to the largest persisted ID to account for that.
+    private static final int REINDEX_EVENT_MARGIN = 10_000;
+
+    private final RepositoryConfiguration config;
+    private final EventReporter eventReporter;
+    private final int segmentEventCount;
+    private final Set<SearchableField> searchableEventFields;
+    private final Set<SearchableField> searchableAttributeFields;
+
+    private final ConcurrentMap<String, ActiveIndexSegment> activeSegments = new ConcurrentHashMap<>();
+    private final List<IndexSegment> sealedSegments = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, Set<Long>> persistedEventIdsToSkip = new ConcurrentHashMap<>();
+    private final AtomicLong segmentSequence = new AtomicLong(0L);
+
+    private final ExecutorService queryExecutor;
+    private final ExecutorService persistExecutor;
+    private final List<CachedQuery> cachedQueries = new ArrayList<>();
+    private final LatestEventsPerProcessorQuery latestEventsPerProcessorQuery = new LatestEventsPerProcessorQuery();
+
+    private ScheduledExecutorService maintenanceExecutor; // effectively final
+    private EventStore eventStore;
+
+    public ColumnarEventIndex(final RepositoryConfiguration config, final EventReporter eventReporter) {
+        this(config, DEFAULT_SEGMENT_EVENT_COUNT, eventReporter);
+    }
+
+    public ColumnarEventIndex(final RepositoryConfiguration config, final int segmentEventCount, final EventReporter eventReporter) {
+        this.config = config;
+        this.eventReporter = eventReporter;
+        this.segmentEventCount = segmentEventCount;
+        this.searchableEventFields = Collections.unmodifiableSet(new HashSet<>(config.getSearchableFields()));
+        this.searchableAttributeFields = Collections.unmodifiableSet(new HashSet<>(config.getSearchableAttributes()));
+
+        queryExecutor = Executors.newFixedThreadPool(config.getQueryThreadPoolSize(), new NamedThreadFactory("Provenance Query"));
+        persistExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Persist Provenance Index Segment"));
+
+        cachedQueries.add(new LatestEventsQuery());
+        cachedQueries.add(latestEventsPerProcessorQuery);
+    }
+
+    @Override
+    public void initialize(final EventStore eventStore) {
+        this.eventStore = eventStore;
+
+        for (final File storageDirectory : config.getStorageDirectories().values()) {
+            loadSegments(new File(storageDirectory, INDEX_DIRECTORY_NAME));
+        }
+
+        maintenanceExecutor = Executors.newScheduledThreadPool(1, new NamedThreadFactory("Provenance Repository Maintenance"));
+        maintenanceExecutor.scheduleWithFixedDelay(this::performMaintenance, 1, 1, TimeUnit.MINUTES);
+        maintenanceExecutor.scheduleWithFixedDelay(this::purgeObsoleteQueries, 30, 30, TimeUnit.SECONDS);
+    }
+
+    private void loadSegments(final File indexDirectory) {
+        final File[] files = indexDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (final File file : files) {
+            final String filename = file.getName();
+            if (filename.endsWith(".tmp")) {
+                logger.info("Deleting partially written Index Segment {}", file);
+                if (!file.delete()) {
+                    logger.warn("Failed to delete partially written Index Segment {}", file);
+                }
+
+                continue;
+            }
+
+            if (!filename.startsWith(SEGMENT_FILENAME_PREFIX) || !filename.endsWith(PersistedIndexSegment.FILE_EXTENSION)) {
+                continue;
+            }
+
+            try {
+                final long sequence = Long.parseLong(filename.substring(SEGMENT_FILENAME_PREFIX.length(), filename.length() - PersistedIndexSegment.FILE_EXTENSION.length()));
+                segmentSequence.accumulateAndGet(sequence + 1, Math::max);
+
+                final PersistedIndexSegment segment = PersistedIndexSegment.load(file);
+                sealedSegments.add(segment);
+                logger.debug("Loaded {}", segment);
+            } catch (final Exception e) {
+                logger.warn("Failed to load Index Segment {}. The segment will be deleted, and the Provenance Events that it indexed will not be searchable.", file, e);
+                if (!file.delete()) {
+                    logger.warn("Failed to delete Index Segment {}", file);
+                }
+            }
+        }
+
+        logger.info("Loaded {} Provenance Index Segments from {}", sealedSegments.size(), indexDirectory);
+    }
+
+    @Override
+    protected EventStore getEventStore() {
+        return eventStore;
+    }
+
+    @Override
+    protected ExecutorService getQueryExecutor() {
+        return queryExecutor;
+    }
+
+    @Override
+    public void addEvents(final Map<ProvenanceEventRecord, StorageSummary> events) {
+        for (final Map.Entry<ProvenanceEventRecord, StorageSummary> entry : events.entrySet()) {
+            addEvent(entry.getKey(), entry.getValue());
+        }
+
+        for (final CachedQuery cachedQuery : cachedQueries) {
+            cachedQuery.update(events);
+        }
+    }
+
+    private void addEvent(final ProvenanceEventRecord event, final StorageSummary location) {
+        final String partitionName = location.getPartitionName().get();
+
+        while (true) {
+            final ActiveIndexSegment segment = activeSegments.computeIfAbsent(partitionName,
+                name -> new ActiveIndexSegment(name, searchableEventFields, searchableAttributeFields));
+
+            final int eventCount = segment.add(event, location.getEventId());
+            if (eventCount < 0) {
+                // The segment was sealed by another thread; add the event to the segment that replaced it.
+                continue;
+            }
+
+            if (eventCount >= segmentEventCount) {
+                rollover(segment);
+            }
+
+            return;
+        }
+    }
+
+    private void rollover(final ActiveIndexSegment segment) {
+        if (!activeSegments.remove(segment.getPartitionName(), segment)) {
+            return;
+        }
+
+        segment.seal();
+        if (segment.getEventCount() == 0) {
+            return;
+        }
+
+        // Keep the sealed segment searchable until it has been written to disk
+        sealedSegments.add(segment);
+        persistExecutor.submit(() -> persist(segment));
+    }
+
+    private void persist(final ActiveIndexSegment segment) {
+        final File indexDirectory = getIndexDirectory(segment.getPartitionName());
+        final File segmentFile = new File(indexDirectory, SEGMENT_FILENAME_PREFIX + segmentSequence.getAndIncrement() + PersistedIndexSegment.FILE_EXTENSION);
+
+        try {
+            if (!indexDirectory.exists() && !indexDirectory.mkdirs()) {
+                throw new IOException("Could not create directory " + indexDirectory);
+            }
+
+            final PersistedIndexSegment persisted = PersistedIndexSegment.write(segment, segmentFile);
+            sealedSegments.replaceAll(existing -> existing == segment ? persisted : existing);
+            logger.debug("Wrote {} events with IDs {} to {}", persisted.getEventCount(), persisted.getMinEventId() + "-" + persisted.getMaxEventId(), segmentFile);
+        } catch (final Exception e) {
+            logger.error("Failed to write Provenance Index Segment to {}; the events in the segment will remain searchable only until NiFi is restarted", segmentFile, e);
+            eventReporter.reportEvent(Severity.ERROR, EVENT_CATEGORY, "Failed to write Provenance Index Segment to " + segmentFile + ". See logs for more information.");
+        }
+    }
+
+    private File getIndexDirectory(final String partitionName) {
+        final Map<String, File> storageDirectories = config.getStorageDirectories();
+        final File storageDirectory = storageDirectories.containsKey(partitionName) ? storageDirectories.get(partitionName) : storageDirectories.values().iterator().next();
+        return new File(storageDirectory, INDEX_DIRECTORY_NAME);
+    }
+
+    @Override
+    public void commitChanges(final String partitionName) throws IOException {
+        final ActiveIndexSegment segment = activeSegments.get(partitionName);
+        if (segment != null) {
+            rollover(segment);
+        }
+
+        awaitPersistence();
+        persistedEventIdsToSkip.remove(partitionName);
+    }
+
+    private void awaitPersistence() throws IOException {
+        // Segments are persisted by a single thread, so once this task completes, all segments that were sealed before it have been written.
+        try {
+            persistExecutor.submit(() -> { }).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for Provenance Index Segments to be written", e);
+        } catch (final ExecutionException e) {
+            throw new IOException("Failed to wait for Provenance Index Segments to be written", e.getCause());
+        }
+    }
+
+    @Override
+    public boolean isReindexNecessary() {
+        return true;
+    }
+
+    @Override
+    public long getMinimumEventIdToReindex(final String partitionName) {
+        long maxEventId = -1L;
+        for (final IndexSegment segment : sealedSegments) {
+            if (partitionName.equals(segment.getPartitionName())) {
+                maxEventId = Math.max(maxEventId, segment.getMaxEventId());
+            }
+        }
+
+        final long minEventId = Math.max(0L, maxEventId - REINDEX_EVENT_MARGIN);
+
+        // Some of the events that will be re-indexed were already persisted. Keep track of them so that they are not indexed twice.
+        final Set<Long> persistedEventIds = new HashSet<>();
+        for (final IndexSegment segment : sealedSegments) {
+            if (!partitionName.equals(segment.getPartitionName()) || segment.getMaxEventId() < minEventId) {
+                continue;
+            }
+
+            try (final IndexSegment.Columns columns = segment.openColumns()) {
+                for (final long eventId : columns.getEventIds()) {
+                    if (eventId >= minEventId) {
+                        persistedEventIds.add(eventId);
+                    }
+                }
+            } catch (final IOException e) {
+                logger.warn("Failed to read Event IDs from {}; some Provenance Events may be returned twice by queries", segment, e);
+            }
+        }
+
+        persistedEventIdsToSkip.put(partitionName, persistedEventIds);
+        logger.info("Determined that Max Event ID indexed for Partition {} is {}", partitionName, maxEventId);
+        return minEventId;
+    }
+
+    @Override
+    public void reindexEvents(final Map<ProvenanceEventRecord, StorageSummary> events) {
+        for (final Map.Entry<ProvenanceEventRecord, StorageSummary> entry : events.entrySet()) {
+            final StorageSummary summary = entry.getValue();
+            final Set<Long> eventIdsToSkip = persistedEventIdsToSkip.get(summary.getPartitionName().get());
+            if (eventIdsToSkip == null || !eventIdsToSkip.contains(summary.getEventId())) {
+                addEvent(entry.getKey(), summary);
+            }
+        }
+
+        for (final CachedQuery cachedQuery : cachedQueries) {
+            cachedQuery.update(events);
+        }
+    }
+
+    @Override
+    public QuerySubmission submitQuery(final Query query, final EventAuthorizer authorizer, final String userId) {
+        validate(query);
+
+        final AsyncQuerySubmission submission = new AsyncQuerySubmission(query, 1, userId);
+        querySubmissionMap.put(query.getIdentifier(), submission);
+
+        // Check if we have any cached queries first that can give us the answer
+        List<Long> cachedEventIds = null;
+        for (final CachedQuery cachedQuery : cachedQueries) {
+            final Optional<List<Long>> eventIdListOption = cachedQuery.evaluate(query);
+            if (eventIdListOption.isPresent()) {
+                cachedEventIds = eventIdListOption.get();
+                logger.debug("Cached Query {} produced {} Event IDs for {}: {}", cachedQuery, cachedEventIds.size(), query, cachedEventIds);
+                break;
+            }
+        }
+
+        final List<Long> eventIdsFromCache = cachedEventIds;
+        queryExecutor.submit(() -> {
+            try {
+                final List<Long> eventIds;
+                final long totalHits;
+                if (eventIdsFromCache == null) {
+                    final SegmentQuery segmentQuery = SegmentQuery.fromQuery(query);
+                    final SearchHits hits = search(segmentQuery, query.getMaxResults(), false);
+                    eventIds = hits.eventIds();
+                    totalHits = hits.totalHits();
+                    logger.debug("{} produced {} hits for {}", segmentQuery, totalHits, query);
+                } else {
+                    eventIds = eventIdsFromCache;
+                    totalHits = eventIdsFromCache.size();
+                }
+
+                final List<ProvenanceEventRecord> events = eventStore.getEvents(eventIds, authorizer, EventTransformer.EMPTY_TRANSFORMER);
+                submission.getResult().update(events, totalHits);
+            } catch (final Exception e) {
+                submission.getResult().setError("Failed to query Provenance Events; see logs for more details");
+                logger.error("Failed to query Provenance Events for {}", query, e);
+            }
+        });
+
+        // There are some queries that are optimized and will complete very quickly. As a result,
+        // we don't want to wait for the client to issue a second request, so we will give the query
+        // up to 500 milliseconds to complete before running.
+        try {
+            submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return submission;
+    }
+
+    @Override
+    protected ComputeLineageSubmission submitLineageComputation(final Collection<String> flowFileUuids, final NiFiUser user, final EventAuthorizer eventAuthorizer,
+        final LineageComputationType computationType, final Long eventId, final long startTimestamp, final long endTimestamp) {
+
+        if (flowFileUuids.size() > MAX_LINEAGE_UUIDS) {
+            throw new IllegalArgumentException(String.format("Cannot compute lineage for more than %s FlowFiles. This lineage contains %s.", MAX_LINEAGE_UUIDS, flowFileUuids.size()));
+        }
+
+        final AsyncLineageSubmission submission = new AsyncLineageSubmission(computationType, eventId, flowFileUuids, 1, user == null ? null : user.getIdentity());
+        lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+
+        queryExecutor.submit(() -> {
+            try {
+                final SearchHits hits = search(SegmentQuery.forLineage(flowFileUuids, startTimestamp, endTimestamp), MAX_LINEAGE_NODES, true);
+                final List<ProvenanceEventRecord> events = eventStore.getEvents(hits.eventIds(), eventAuthorizer, EventTransformer.PLACEHOLDER_TRANSFORMER);
+                submission.getResult().update(events, hits.totalHits());
+            } catch (final Exception e) {
+                submission.getResult().setError("Failed to compute lineage; see logs for more details");
+                logger.error("Failed to compute lineage for FlowFiles {}", flowFileUuids, e);
+            }
+        });
+
+        // Some computations will complete very quickly. In this case, we don't want to wait
+        // for the client to submit a second query to obtain the result. Instead, we want to just
+        // wait some short period of time for the computation to complete before returning the submission.
+        try {
+            submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        return submission;
+    }
+
+    @Override
+    protected List<ProvenanceEventRecord> findLineageEvents(final Collection<String> flowFileUuids, final int maxEvents, final EventAuthorizer eventAuthorizer) throws IOException {
+        final SearchHits hits = search(SegmentQuery.forLineage(flowFileUuids, 0L, Long.MAX_VALUE), maxEvents, true);
+        return eventStore.getEvents(hits.eventIds(), eventAuthorizer, EventTransformer.PLACEHOLDER_TRANSFORMER);
+    }
+
+    /**
+     * Evaluates the given query against all segments, newest first
+     *
+     * @param segmentQuery the query to evaluate
+     * @param maxResults the maximum number of Event IDs to return. If more events match, the events with the largest IDs are returned.
+     * @param stopAtMaxResults whether to stop searching once <code>maxResults</code> events have been found, rather than counting all matching events
+     * @return the IDs of the matching events, in ascending order, along with the total number of matching events
+     */
+    private SearchHits search(final SegmentQuery segmentQuery, final int maxResults, final boolean stopAtMaxResults) {
+        final List<IndexSegment> segments = new ArrayList<>(sealedSegments);
+        segments.addAll(activeSegments.values());
+        segments.sort(Comparator.comparingLong(IndexSegment::getMaxEventId).reversed());
+
+        final TreeSet<Long> eventIds = new TreeSet<>();
+        final AtomicLong totalHits = new AtomicLong(0L);
+        for (final IndexSegment segment : segments) {
+            if (stopAtMaxResults && eventIds.size() >= maxResults) {
+                break;
+            }
+
+            if (!segmentQuery.isRelevant(segment)) {
+                continue;
+            }
+
+            try {
+                segmentQuery.evaluate(segment, id -> {
+                    totalHits.incrementAndGet();
+                    eventIds.add(id);
+                    if (eventIds.size() > maxResults) {
+                        eventIds.pollFirst();
+                    }
+
+                    return !stopAtMaxResults || eventIds.size() < maxResults;
+                });
+            } catch (final IOException e) {
+                // The segment may have been deleted because it expired while the query was running
+                logger.warn("Failed to search {}; Provenance Events indexed by this segment will not be included in the results of {}", segment, segmentQuery, e);
+            }
+        }
+
+        return new SearchHits(new ArrayList<>(eventIds), totalHits.get());
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getLatestCachedEvents(final String componentId, final int eventLimit) throws IOException {
+        final List<Long> eventIds = latestEventsPerProcessorQuery.getLatestEventIds(componentId);
+        if (eventIds.isEmpty()) {
+            logger.info("There are no recent Provenance Events cached for Component with ID {}", componentId);
+            return List.of();
+        }
+
+        final List<Long> filtered = eventIds.subList(0, Math.min(eventIds.size(), eventLimit));
+
+        final List<ProvenanceEventRecord> latestEvents = new ArrayList<>(filtered.size());
+        for (final Long eventId : filtered) {
+            final Optional<ProvenanceEventRecord> latestEvent = eventStore.getEvent(eventId);
+            latestEvent.ifPresent(latestEvents::add);
+        }
+
+        return latestEvents;
+    }
+
+    @Override
+    public long getSize() {
+        long total = 0L;
+        for (final IndexSegment segment : sealedSegments) {
+            total += segment.getSize();
+        }
+        return total;
+    }
+
+    void performMaintenance() {
+        try {
+            final List<ProvenanceEventRecord> firstEvents = eventStore.getEvents(0, 1);
+
+            final long earliestEventTime;
+            if (firstEvents.isEmpty()) {
+                earliestEventTime = System.currentTimeMillis();
+                logger.debug("Found no events in the Provenance Repository. In order to perform maintenance of the indices, "
+                    + "will assume that the first event time is now ({})", System.currentTimeMillis());
+            } else {
+                final ProvenanceEventRecord firstEvent = firstEvents.get(0);
+                earliestEventTime = firstEvent.getEventTime();
+                logger.debug("First Event Time is {} ({}) with Event ID {}; will delete any Index Segment that is older than this",
+                    earliestEventTime, new Date(earliestEventTime), firstEvent.getEventId());
+            }
+
+            for (final IndexSegment segment : sealedSegments) {
+                if (segment instanceof PersistedIndexSegment persisted && persisted.getMaxEventTime() < earliestEventTime) {
+                    sealedSegments.remove(persisted);
+
+                    if (persisted.getFile().delete()) {
+                        logger.info("Successfully removed expired Index Segment {}", persisted.getFile());
+                    } else {
+                        logger.warn("The Index Segment located at {} has expired and contains no Provenance Events that still exist in the repository. "
+                            + "However, the file could not be deleted.", persisted.getFile());
+                    }
+                }
+            }
+        } catch (final Exception e) {
+            logger.error("Failed to perform background maintenance procedures", e);
+            eventReporter.reportEvent(Severity.ERROR, EVENT_CATEGORY, "Failed to perform maintenance of Provenance Repository. See logs for more information.");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        queryExecutor.shutdownNow();
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdown();
+        }
+
+        for (final ActiveIndexSegment segment : new ArrayList<>(activeSegments.values())) {
+            rollover(segment);
+        }
+
+        persistExecutor.shutdown();
+        try {
+            if (!persistExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Timed out waiting for Provenance Index Segments to be written; the latest events will be re-indexed upon restart");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record SearchHits(List<Long> eventIds, long totalHits) {
+    }
+}
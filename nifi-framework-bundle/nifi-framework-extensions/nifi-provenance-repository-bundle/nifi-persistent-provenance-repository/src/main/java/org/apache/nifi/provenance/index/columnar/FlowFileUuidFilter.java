@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.columnar;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * A Bloom Filter of the FlowFile UUIDs that are referenced by the events in an Index Segment. This allows lineage queries to skip
+ * the segments that cannot contain any of the FlowFiles of interest without reading them from disk.
+ */
+final class FlowFileUuidFilter {
+    private static final int BITS_PER_UUID = 10;
+    private static final int HASH_COUNT = 7;
+    private static final int MAX_WORDS = 1 << 24;
+
+    private final long[] words;
+
+    private FlowFileUuidFilter(final long[] words) {
+        this.words = words;
+    }
+
+    static FlowFileUuidFilter create(final Collection<String> uuids) {
+        final long bitCount = Math.max(64L, (long) uuids.size() * BITS_PER_UUID);
+        final int wordCount = (int) Math.min(MAX_WORDS, (bitCount + 63) / 64);
+        final FlowFileUuidFilter filter = new FlowFileUuidFilter(new long[wordCount]);
+        for (final String uuid : uuids) {
+            filter.add(uuid);
+        }
+
+        return filter;
+    }
+
+    private void add(final String uuid) {
+        final long hash = hash(uuid);
+        final long bitCount = (long) words.length * 64;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final long bit = Math.floorMod(hash + i * (hash >>> 32), bitCount);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(final String uuid) {
+        final long hash = hash(uuid);
+        final long bitCount = (long) words.length * 64;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            final long bit = Math.floorMod(hash + i * (hash >>> 32), bitCount);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // 64-bit FNV-1a, followed by the finalizer of MurmurHash3 so that the upper and lower halves are independent
+    private static long hash(final String uuid) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : uuid.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    void write(final DataOutput out) throws IOException {
+        out.writeInt(words.length);
+        for (final long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static FlowFileUuidFilter read(final DataInput in) throws IOException {
+        final int wordCount = in.readInt();
+        if (wordCount < 1 || wordCount > MAX_WORDS) {
+            throw new IOException("Index Segment indicates that its FlowFile UUID filter contains " + wordCount + " words; the segment appears to be corrupt");
+        }
+
+        final long[] words = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = in.readLong();
+        }
+
+        return new FlowFileUuidFilter(words);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * A set of indexed Provenance Events, stored column by column. Each event occupies a row of the segment, and each indexed field is stored
+ * as a dictionary of the distinct values of that field, mapped to the rows that contain the value.
+ */
+interface IndexSegment {
+
+    String getPartitionName();
+
+    int getEventCount();
+
+    long getMinEventId();
+
+    long getMaxEventId();
+
+    long getMinEventTime();
+
+    long getMaxEventTime();
+
+    /**
+     * @param flowFileUuid the UUID of a FlowFile
+     * @return <code>false</code> if no event in this segment references the given FlowFile, <code>true</code> if an event may reference it
+     */
+    boolean mightContainFlowFile(String flowFileUuid);
+
+    /**
+     * @return the number of bytes that the segment occupies on disk, or 0 if the segment has not yet been persisted
+     */
+    long getSize();
+
+    /**
+     * Provides access to the columns of the segment. The returned Columns must be closed when they are no longer needed.
+     *
+     * @return the columns of the segment
+     * @throws IOException if unable to read the segment
+     */
+    Columns openColumns() throws IOException;
+
+    interface Columns extends Closeable {
+
+        long[] getEventIds() throws IOException;
+
+        long[] getEventTimes() throws IOException;
+
+        long[] getFileSizes() throws IOException;
+
+        /**
+         * Returns the rows whose value for the given field matches the given filter
+         *
+         * @param fieldName the name of the field
+         * @param filter the filter to apply to each distinct value of the field
+         * @return the matching rows
+         * @throws IOException if unable to read the segment
+         */
+        BitSet getRows(String fieldName, ValueFilter filter) throws IOException;
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.columnar;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * An Index Segment that has been written to disk. Only the metadata of the segment and its FlowFile UUID filter are held in memory;
+ * the columns are read from disk as queries require them.
+ * </p>
+ *
+ * <p>
+ * A segment file consists of its columns, followed by a footer and finally by an 8-byte offset of the footer. The footer holds the
+ * metadata of the segment, its FlowFile UUID filter, and the offset and length of each column. The Event ID, Event Time, and File Size
+ * columns are encoded by {@link ColumnEncoding#writeLongs}. Every other column holds the distinct values of an indexed field, each
+ * followed by the number of rows that contain the value, the length of the encoded rows, and the rows themselves.
+ * </p>
+ */
+class PersistedIndexSegment implements IndexSegment {
+    static final String FILE_EXTENSION = ".idx";
+    static final String EVENT_ID_COLUMN = "$EventId";
+    static final String EVENT_TIME_COLUMN = "$EventTime";
+    static final String FILE_SIZE_COLUMN = "$FileSize";
+
+    private static final String FORMAT_NAME = "ColumnarProvenanceIndexSegment";
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private final String partitionName;
+    private final int eventCount;
+    private final long minEventId;
+    private final long maxEventId;
+    private final long minEventTime;
+    private final long maxEventTime;
+    private final FlowFileUuidFilter uuidFilter;
+    private final Map<String, long[]> columnOffsets;
+
+    private PersistedIndexSegment(final File file, final String partitionName, final int eventCount, final long minEventId, final long maxEventId,
+                                  final long minEventTime, final long maxEventTime, final FlowFileUuidFilter uuidFilter, final Map<String, long[]> columnOffsets) {
+        this.file = file;
+        this.partitionName = partitionName;
+        this.eventCount = eventCount;
+        this.minEventId = minEventId;
+        this.maxEventId = maxEventId;
+        this.minEventTime = minEventTime;
+        this.maxEventTime = maxEventTime;
+        this.uuidFilter = uuidFilter;
+        this.columnOffsets = columnOffsets;
+    }
+
+    /**
+     * Writes the given sealed segment to the given file. The segment is first written to a temporary file, which is then renamed,
+     * so that a partially written segment is never loaded.
+     *
+     * @param segment the segment to write
+     * @param file the file to write to
+     * @return a PersistedIndexSegment that provides access to the file
+     * @throws IOException if unable to write the file
+     */
+    static PersistedIndexSegment write(final ActiveIndexSegment segment, final File file) throws IOException {
+        final File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        final Map<String, long[]> columnOffsets = new HashMap<>();
+        final FlowFileUuidFilter uuidFilter = FlowFileUuidFilter.create(segment.getFlowFileUuids());
+
+        try (final FileOutputStream fos = new FileOutputStream(tmpFile);
+             final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 65536))) {
+
+            segment.writeColumns(out, columnOffsets);
+
+            final long footerOffset = out.size();
+            out.writeUTF(FORMAT_NAME);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(segment.getPartitionName());
+            out.writeInt(segment.getEventCount());
+            out.writeLong(segment.getMinEventId());
+            out.writeLong(segment.getMaxEventId());
+            out.writeLong(segment.getMinEventTime());
+            out.writeLong(segment.getMaxEventTime());
+            uuidFilter.write(out);
+
+            out.writeInt(columnOffsets.size());
+            for (final Map.Entry<String, long[]> entry : columnOffsets.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue()[0]);
+                out.writeLong(entry.getValue()[1]);
+            }
+
+            out.writeLong(footerOffset);
+            out.flush();
+            fos.getFD().sync();
+        }
+
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new PersistedIndexSegment(file, segment.getPartitionName(), segment.getEventCount(), segment.getMinEventId(), segment.getMaxEventId(),
+            segment.getMinEventTime(), segment.getMaxEventTime(), uuidFilter, columnOffsets);
+    }
+
+    static PersistedIndexSegment load(final File file) throws IOException {
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final long fileLength = raf.length();
+            if (fileLength < 8) {
+                throw new IOException("Index Segment " + file + " is truncated");
+            }
+
+            raf.seek(fileLength - 8);
+            final long footerOffset = raf.readLong();
+            if (footerOffset < 0 || footerOffset >= fileLength - 8) {
+                throw new IOException("Index Segment " + file + " indicates that its footer begins at offset " + footerOffset + "; the segment appears to be corrupt");
+            }
+
+            final byte[] footer = new byte[(int) (fileLength - 8 - footerOffset)];
+            raf.seek(footerOffset);
+            raf.readFully(footer);
+
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(footer));
+            final String formatName = in.readUTF();
+            if (!FORMAT_NAME.equals(formatName)) {
+                throw new IOException("File " + file + " is not a Columnar Provenance Index Segment");
+            }
+
+            final int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Index Segment " + file + " was written using version " + version + " of the format, but only version " + FORMAT_VERSION + " is supported");
+            }
+
+            final String partitionName = in.readUTF();
+            final int eventCount = in.readInt();
+            final long minEventId = in.readLong();
+            final long maxEventId = in.readLong();
+            final long minEventTime = in.readLong();
+            final long maxEventTime = in.readLong();
+            final FlowFileUuidFilter uuidFilter = FlowFileUuidFilter.read(in);
+
+            final int columnCount = in.readInt();
+            final Map<String, long[]> columnOffsets = new HashMap<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                final String columnName = in.readUTF();
+                final long offset = in.readLong();
+                final long length = in.readLong();
+                if (offset < 0 || length < 0 || offset + length > footerOffset) {
+                    throw new IOException("Index Segment " + file + " indicates that column " + columnName + " lies outside of the segment; the segment appears to be corrupt");
+                }
+
+                columnOffsets.put(columnName, new long[] {offset, length});
+            }
+
+            return new PersistedIndexSegment(file, partitionName, eventCount, minEventId, maxEventId, minEventTime, maxEventTime, uuidFilter, columnOffsets);
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public String getPartitionName() {
+        return partitionName;
+    }
+
+    @Override
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    @Override
+    public long getMinEventId() {
+        return minEventId;
+    }
+
+    @Override
+    public long getMaxEventId() {
+        return maxEventId;
+    }
+
+    @Override
+    public long getMinEventTime() {
+        return minEventTime;
+    }
+
+    @Override
+    public long getMaxEventTime() {
+        return maxEventTime;
+    }
+
+    @Override
+    public boolean mightContainFlowFile(final String flowFileUuid) {
+        return uuidFilter.mightContain(flowFileUuid);
+    }
+
+    @Override
+    public long getSize() {
+        return file.length();
+    }
+
+    @Override
+    public Columns openColumns() throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        return new Columns() {
+            private long[] eventIds;
+            private long[] eventTimes;
+            private long[] fileSizes;
+
+            @Override
+            public long[] getEventIds() throws IOException {
+                if (eventIds == null) {
+                    eventIds = ColumnEncoding.readLongs(eventCount, readColumn(raf, EVENT_ID_COLUMN));
+                }
+
+                return eventIds;
+            }
+
+            @Override
+            public long[] getEventTimes() throws IOException {
+                if (eventTimes == null) {
+                    eventTimes = ColumnEncoding.readLongs(eventCount, readColumn(raf, EVENT_TIME_COLUMN));
+                }
+
+                return eventTimes;
+            }
+
+            @Override
+            public long[] getFileSizes() throws IOException {
+                if (fileSizes == null) {
+                    fileSizes = ColumnEncoding.readLongs(eventCount, readColumn(raf, FILE_SIZE_COLUMN));
+                }
+
+                return fileSizes;
+            }
+
+            @Override
+            public BitSet getRows(final String fieldName, final ValueFilter filter) throws IOException {
+                final BitSet rows = new BitSet(eventCount);
+                if (!columnOffsets.containsKey(fieldName)) {
+                    return rows;
+                }
+
+                final DataInputStream in = readColumn(raf, fieldName);
+                final int valueCount = in.readInt();
+                for (int i = 0; i < valueCount; i++) {
+                    final byte[] valueBytes = new byte[in.readInt()];
+                    in.readFully(valueBytes);
+                    final int rowCount = in.readInt();
+                    final int encodedLength = in.readInt();
+
+                    if (filter.matches(new String(valueBytes, StandardCharsets.UTF_8))) {
+                        ColumnEncoding.readRows(rowCount, in, rows);
+                    } else {
+                        in.skipBytes(encodedLength);
+                    }
+                }
+
+                return rows;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    raf.close();
+                } catch (final IOException ignored) {
+                    // The file was only opened for reading, so there is nothing that could have been lost
+                }
+            }
+        };
+    }
+
+    private DataInputStream readColumn(final RandomAccessFile raf, final String columnName) throws IOException {
+        final long[] offsetAndLength = columnOffsets.get(columnName);
+        if (offsetAndLength == null) {
+            throw new IOException("Index Segment " + file + " does not contain column " + columnName);
+        }
+
+        final byte[] column = new byte[(int) offsetAndLength[1]];
+        raf.seek(offsetAndLength[0]);
+        raf.readFully(column);
+        return new DataInputStream(new ByteArrayInputStream(column));
+    }
+
+    @Override
+    public String toString() {
+        return "PersistedIndexSegment[file=" + file + ", events=" + eventCount + "]";
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.columnar;
+
+import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.SearchTerm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * A query against the Index Segments. Each Search Term becomes a clause that selects the rows whose value for the field matches; the rows
+ * selected by the clauses are intersected, the rows selected by inverted clauses are removed, and the remaining rows are then filtered by
+ * Event Time and File Size.
+ */
+final class SegmentQuery {
+    private final List<Clause> clauses;
+    private final long minEventTime;
+    private final long maxEventTime;
+    private final long minFileSize;
+    private final long maxFileSize;
+    private final boolean filterRowsByTime;
+
+    private SegmentQuery(final List<Clause> clauses, final long minEventTime, final long maxEventTime, final long minFileSize, final long maxFileSize,
+                         final boolean filterRowsByTime) {
+        this.clauses = clauses;
+        this.minEventTime = minEventTime;
+        this.maxEventTime = maxEventTime;
+        this.minFileSize = minFileSize;
+        this.maxFileSize = maxFileSize;
+        this.filterRowsByTime = filterRowsByTime;
+    }
+
+    static SegmentQuery fromQuery(final Query query) {
+        final List<Clause> clauses = new ArrayList<>();
+        for (final SearchTerm searchTerm : query.getSearchTerms()) {
+            final String searchValue = searchTerm.getValue();
+            if (searchValue == null) {
+                throw new IllegalArgumentException("Empty search value not allowed (for term '" + searchTerm.getSearchableField().getFriendlyName() + "')");
+            }
+
+            final boolean inverted = Boolean.TRUE.equals(searchTerm.isInverted());
+            clauses.add(new Clause(searchTerm.getSearchableField().getSearchableFieldName(), ValueFilter.forSearchValue(searchValue), inverted));
+        }
+
+        final long minFileSize = query.getMinFileSize() == null ? 0L : DataUnit.parseDataSize(query.getMinFileSize(), DataUnit.B).longValue();
+        final long maxFileSize = query.getMaxFileSize() == null ? Long.MAX_VALUE : DataUnit.parseDataSize(query.getMaxFileSize(), DataUnit.B).longValue();
+        final long minEventTime = query.getStartDate() == null ? 0L : query.getStartDate().getTime();
+        final long maxEventTime = query.getEndDate() == null ? Long.MAX_VALUE : query.getEndDate().getTime();
+
+        return new SegmentQuery(clauses, minEventTime, maxEventTime, minFileSize, maxFileSize, true);
+    }
+
+    /**
+     * Creates a query for all events that reference any of the given FlowFiles. As with the Lucene index, the time range is used only to
+     * determine which segments must be searched; events within those segments are not filtered by time.
+     */
+    static SegmentQuery forLineage(final Collection<String> flowFileUuids, final long startTimestamp, final long endTimestamp) {
+        final Clause clause = new Clause(SearchableFields.FlowFileUUID.getSearchableFieldName(), ValueFilter.forValues(flowFileUuids), false);
+        return new SegmentQuery(Collections.singletonList(clause), startTimestamp, endTimestamp, 0L, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Determines whether or not the given segment may contain any event that matches this query, without reading the segment's columns
+     *
+     * @param segment the segment
+     * @return <code>false</code> if the segment cannot contain a matching event, <code>true</code> otherwise
+     */
+    boolean isRelevant(final IndexSegment segment) {
+        if (segment.getEventCount() == 0 || segment.getMaxEventTime() < minEventTime || segment.getMinEventTime() > maxEventTime) {
+            return false;
+        }
+
+        for (final Clause clause : clauses) {
+            if (clause.inverted || !clause.fieldName.equals(SearchableFields.FlowFileUUID.getSearchableFieldName())) {
+                continue;
+            }
+
+            final Set<String> uuids = clause.filter.getExactValues();
+            if (uuids != null && uuids.stream().noneMatch(segment::mightContainFlowFile)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Evaluates this query against the given segment, providing the ID of each matching event to the given consumer, starting with
+     * the most recently added event. Evaluation stops once the consumer returns <code>false</code>.
+     *
+     * @param segment the segment to evaluate
+     * @param eventIdConsumer the consumer of the matching Event IDs
+     * @throws IOException if unable to read the segment
+     */
+    void evaluate(final IndexSegment segment, final LongPredicate eventIdConsumer) throws IOException {
+        try (final IndexSegment.Columns columns = segment.openColumns()) {
+            final int rowCount = segment.getEventCount();
+
+            BitSet matches = null;
+            for (final Clause clause : clauses) {
+                if (clause.inverted) {
+                    continue;
+                }
+
+                final BitSet rows = columns.getRows(clause.fieldName, clause.filter);
+                if (matches == null) {
+                    matches = rows;
+                } else {
+                    matches.and(rows);
+                }
+
+                if (matches.isEmpty()) {
+                    return;
+                }
+            }
+
+            if (matches == null) {
+                matches = new BitSet(rowCount);
+                matches.set(0, rowCount);
+            }
+
+            for (final Clause clause : clauses) {
+                if (clause.inverted) {
+                    matches.andNot(columns.getRows(clause.fieldName, clause.filter));
+                }
+            }
+
+            final boolean filterTime = filterRowsByTime && (minEventTime > segment.getMinEventTime() || maxEventTime < segment.getMaxEventTime());
+            final boolean filterSize = minFileSize > 0L || maxFileSize < Long.MAX_VALUE;
+            final long[] eventTimes = filterTime ? columns.getEventTimes() : null;
+            final long[] fileSizes = filterSize ? columns.getFileSizes() : null;
+            final long[] eventIds = columns.getEventIds();
+
+            for (int row = matches.previousSetBit(rowCount - 1); row >= 0; row = matches.previousSetBit(row - 1)) {
+                if (filterTime && (eventTimes[row] < minEventTime || eventTimes[row] > maxEventTime)) {
+                    continue;
+                }
+
+                if (filterSize && (fileSizes[row] < minFileSize || fileSizes[row] > maxFileSize)) {
+                    continue;
+                }
+
+                if (!eventIdConsumer.test(eventIds[row])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentQuery[clauses=" + clauses + ", eventTime=[" + minEventTime + ", " + maxEventTime + "], fileSize=[" + minFileSize + ", " + maxFileSize + "]]";
+    }
+
+    private static final class Clause {
+        private final String fieldName;
+        private final ValueFilter filter;
+        private final boolean inverted;
+
+        private Clause(final String fieldName, final ValueFilter filter, final boolean inverted) {
+            this.fieldName = fieldName;
+            this.filter = filter;
+            this.inverted = inverted;
+        }
+
+        @Override
+        public String toString() {
+            return (inverted ? "NOT " : "") + fieldName + "=" + filter;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.columnar;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Determines whether or not a value of an indexed field matches a Search Term. As with the Lucene index, values are compared in lowercase,
+ * and a Search Term that contains a <code>*</code> or a <code>?</code> is treated as a wildcard.
+ */
+final class ValueFilter {
+    private final Set<String> values;
+    private final Pattern pattern;
+
+    private ValueFilter(final Set<String> values, final Pattern pattern) {
+        this.values = values;
+        this.pattern = pattern;
+    }
+
+    static ValueFilter forSearchValue(final String searchValue) {
+        final String lowerCase = searchValue.toLowerCase(Locale.ROOT);
+        if (!lowerCase.contains("*") && !lowerCase.contains("?")) {
+            return new ValueFilter(Set.of(lowerCase), null);
+        }
+
+        final StringBuilder regex = new StringBuilder();
+        final StringBuilder literal = new StringBuilder();
+        for (final char c : lowerCase.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+
+        return new ValueFilter(null, Pattern.compile(regex.toString(), Pattern.DOTALL));
+    }
+
+    static ValueFilter forValues(final Collection<String> values) {
+        final Set<String> lowerCase = new HashSet<>(values.size());
+        for (final String value : values) {
+            lowerCase.add(value.toLowerCase(Locale.ROOT));
+        }
+
+        return new ValueFilter(lowerCase, null);
+    }
+
+    /**
+     * @return the exact values that this filter matches, or <code>null</code> if this filter is a wildcard
+     */
+    Set<String> getExactValues() {
+        return values;
+    }
+
+    boolean matches(final String value) {
+        if (values != null) {
+            return values.contains(value);
+        }
+
+        return pattern.matcher(value).matches();
+    }
+
+    @Override
+    public String toString() {
+        return values == null ? pattern.pattern() : values.toString();
+    }
+}
@@ -24,19 +24,17 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.TermQuery;
-import org.apache.nifi.authorization.AccessDeniedException;
 import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.AsyncLineageSubmission;
 import org.apache.nifi.provenance.AsyncQuerySubmission;
+import org.apache.nifi.provenance.ProgressiveResult;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.SearchableFields;
-import org.apache.nifi.provenance.StandardLineageResult;
-import org.apache.nifi.provenance.StandardQueryResult;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.EventTransformer;
-import org.apache.nifi.provenance.index.EventIndex;
+import org.apache.nifi.provenance.index.AbstractEventIndex;
 import org.apache.nifi.provenance.index.EventIndexSearcher;
 import org.apache.nifi.provenance.index.EventIndexWriter;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
@@ -64,13 +62,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -80,18 +75,13 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
-public class LuceneEventIndex implements EventIndex {
+public class LuceneEventIndex extends AbstractEventIndex {
     private static final Logger logger = LoggerFactory.getLogger(LuceneEventIndex.class);
     private static final String EVENT_CATEGORY = "Provenance Repository";
 
-    public static final int MAX_UNDELETED_QUERY_RESULTS = 10;
     public static final int MAX_DELETE_INDEX_WAIT_SECONDS = 30;
-    public static final int MAX_LINEAGE_NODES = 1000;
     public static final int MAX_INDEX_THREADS = 100;
-    public static final int MAX_LINEAGE_UUIDS = 100;
 
-    private final ConcurrentMap<String, AsyncQuerySubmission> querySubmissionMap = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, AsyncLineageSubmission> lineageSubmissionMap = new ConcurrentHashMap<>();
     private final BlockingQueue<StoredDocument> documentQueue = new LinkedBlockingQueue<>(1000);
     private final List<EventIndexTask> indexTasks = Collections.synchronizedList(new ArrayList<>());
     private final ExecutorService queryExecutor;
@@ -283,6 +273,16 @@ public class LuceneEventIndex implements EventIndex {
         return Math.max(0, getMaxEventId(partitionName) - EventIndexTask.MAX_DOCUMENTS_PER_THREAD * MAX_INDEX_THREADS);
     }
 
+    @Override
+    protected EventStore getEventStore() {
+        return eventStore;
+    }
+
+    @Override
+    protected ExecutorService getQueryExecutor() {
+        return queryExecutor;
+    }
+
     protected IndexDirectoryManager getDirectoryManager() {
         return directoryManager;
     }
@@ -490,30 +490,7 @@ public class LuceneEventIndex implements EventIndex {
     }
 
     @Override
-    public ComputeLineageSubmission submitLineageComputation(final long eventId, final NiFiUser user, final EventAuthorizer eventAuthorizer) {
-        final Optional<ProvenanceEventRecord> eventOption;
-        try {
-            eventOption = eventStore.getEvent(eventId);
-        } catch (final Exception e) {
-            logger.error("Failed to retrieve Provenance Event with ID {} to calculate data lineage", eventId, e);
-            final AsyncLineageSubmission result = new AsyncLineageSubmission(LineageComputationType.FLOWFILE_LINEAGE, eventId, Collections.emptySet(), 1, user == null ? null : user.getIdentity());
-            result.getResult().setError("Failed to retrieve Provenance Event with ID " + eventId + ". See logs for more information.");
-            return result;
-        }
-
-        if (!eventOption.isPresent()) {
-            final AsyncLineageSubmission result = new AsyncLineageSubmission(LineageComputationType.FLOWFILE_LINEAGE, eventId, Collections.emptySet(), 1, user == null ? null : user.getIdentity());
-            result.getResult().setError("Could not find Provenance Event with ID " + eventId);
-            lineageSubmissionMap.put(result.getLineageIdentifier(), result);
-            return result;
-        }
-
-        final ProvenanceEventRecord event = eventOption.get();
-        return submitLineageComputation(Collections.singleton(event.getFlowFileUuid()), user, eventAuthorizer, LineageComputationType.FLOWFILE_LINEAGE,
-            eventId, event.getLineageStartDate(), Long.MAX_VALUE);
-    }
-
-    private ComputeLineageSubmission submitLineageComputation(final Collection<String> flowFileUuids, final NiFiUser user, final EventAuthorizer eventAuthorizer,
+    protected ComputeLineageSubmission submitLineageComputation(final Collection<String> flowFileUuids, final NiFiUser user, final EventAuthorizer eventAuthorizer,
         final LineageComputationType computationType, final Long eventId, final long startTimestamp, final long endTimestamp) {
 
         if (flowFileUuids.size() > MAX_LINEAGE_UUIDS) {
@@ -549,6 +526,23 @@ public class LuceneEventIndex implements EventIndex {
         return submission;
     }
 
+    @Override
+    protected List<ProvenanceEventRecord> findLineageEvents(final Collection<String> flowFileUuids, final int maxEvents, final EventAuthorizer eventAuthorizer) throws IOException {
+        final BooleanQuery lineageQuery = buildLineageQuery(flowFileUuids);
+        final List<File> indexDirectories = directoryManager.getDirectories(0L, Long.MAX_VALUE);
+        indexDirectories.sort(DirectoryUtils.OLDEST_INDEX_FIRST);
+
+        final LineageEventCollector collector = new LineageEventCollector();
+        for (final File indexDir : indexDirectories) {
+            new QueryTask(lineageQuery, collector, maxEvents, indexManager, indexDir, eventStore, eventAuthorizer, EventTransformer.PLACEHOLDER_TRANSFORMER).run();
+            if (collector.error != null) {
+                throw new IOException(collector.error);
+            }
+        }
+
+        return collector.events;
+    }
+
     private BooleanQuery buildLineageQuery(final Collection<String> flowFileUuids) {
         // Create a query for all Events related to the FlowFiles of interest. We do this by adding all ID's as
         // "SHOULD" clauses and then setting the minimum required to 1.
@@ -668,138 +662,6 @@ public class LuceneEventIndex implements EventIndex {
         return latestEvents;
     }
 
-    @Override
-    public ComputeLineageSubmission submitLineageComputation(final String flowFileUuid, final NiFiUser user, final EventAuthorizer eventAuthorizer) {
-        return submitLineageComputation(Collections.singleton(flowFileUuid), user, eventAuthorizer, LineageComputationType.FLOWFILE_LINEAGE, null, 0L, Long.MAX_VALUE);
-    }
-
-    @Override
-    public ComputeLineageSubmission submitExpandChildren(final long eventId, final NiFiUser user, final EventAuthorizer authorizer) {
-        final String userId = user == null ? null : user.getIdentity();
-
-        try {
-            final Optional<ProvenanceEventRecord> eventOption = eventStore.getEvent(eventId);
-            if (!eventOption.isPresent()) {
-                final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_CHILDREN, eventId, Collections.emptyList(), 1, userId);
-                lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
-                submission.getResult().update(Collections.emptyList(), 0L);
-                return submission;
-            }
-
-            final ProvenanceEventRecord event = eventOption.get();
-            switch (event.getEventType()) {
-                case CLONE:
-                case FORK:
-                case JOIN:
-                case REPLAY: {
-                    return submitLineageComputation(event.getChildUuids(), user, authorizer, LineageComputationType.EXPAND_CHILDREN,
-                        eventId, event.getEventTime(), Long.MAX_VALUE);
-                }
-                default: {
-                    final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_CHILDREN,
-                        eventId, Collections.emptyList(), 1, userId);
-
-                    lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
-                    submission.getResult().setError("Event ID " + eventId + " indicates an event of type " + event.getEventType() + " so its children cannot be expanded");
-                    return submission;
-                }
-            }
-        } catch (final Exception e) {
-            final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_CHILDREN,
-                eventId, Collections.emptyList(), 1, userId);
-            lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
-            submission.getResult().setError("Failed to expand children for lineage of event with ID " + eventId + " due to: " + e);
-            return submission;
-        }
-    }
-
-    @Override
-    public ComputeLineageSubmission submitExpandParents(final long eventId, final NiFiUser user, final EventAuthorizer authorizer) {
-        final String userId = user == null ? null : user.getIdentity();
-
-        try {
-            final Optional<ProvenanceEventRecord> eventOption = eventStore.getEvent(eventId);
-            if (!eventOption.isPresent()) {
-                final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_PARENTS, eventId, Collections.emptyList(), 1, userId);
-                lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
-                submission.getResult().update(Collections.emptyList(), 0L);
-                return submission;
-            }
-
-            final ProvenanceEventRecord event = eventOption.get();
-            switch (event.getEventType()) {
-                case JOIN:
-                case FORK:
-                case CLONE:
-                case REPLAY: {
-                    return submitLineageComputation(event.getParentUuids(), user, authorizer, LineageComputationType.EXPAND_PARENTS,
-                        eventId, event.getLineageStartDate(), event.getEventTime());
-                }
-                default: {
-                    final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_PARENTS,
-                        eventId, Collections.emptyList(), 1, userId);
-
-                    lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
-                    submission.getResult().setError("Event ID " + eventId + " indicates an event of type " + event.getEventType() + " so its parents cannot be expanded");
-                    return submission;
-                }
-            }
-        } catch (final Exception e) {
-            final AsyncLineageSubmission submission = new AsyncLineageSubmission(LineageComputationType.EXPAND_PARENTS,
-                eventId, Collections.emptyList(), 1, userId);
-            lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
-
-            submission.getResult().setError("Failed to expand parents for lineage of event with ID " + eventId + " due to: " + e);
-            return submission;
-        }
-    }
-
-    @Override
-    public AsyncLineageSubmission retrieveLineageSubmission(final String lineageIdentifier, final NiFiUser user) {
-        final AsyncLineageSubmission submission = lineageSubmissionMap.get(lineageIdentifier);
-
-        if (submission == null) {
-            throw new AccessDeniedException("Cannot retrieve Provenance Lineage Submission. It has already been deleted or submitted to another NiFi node in the cluster.");
-        }
-
-        final String userId = submission.getSubmitterIdentity();
-
-        if (user == null && userId == null) {
-            return submission;
-        }
-
-        if (user == null) {
-            throw new AccessDeniedException("Cannot retrieve Provenance Lineage Submission because no user id was provided");
-        }
-
-        if (userId == null || userId.equals(user.getIdentity())) {
-            return submission;
-        }
-
-        throw new AccessDeniedException("Cannot retrieve Provenance Lineage Submission because " + user.getIdentity() + " is not the user who submitted the request");
-    }
-
-    @Override
-    public QuerySubmission retrieveQuerySubmission(final String queryIdentifier, final NiFiUser user) {
-        final QuerySubmission submission = querySubmissionMap.get(queryIdentifier);
-
-        final String userId = submission.getSubmitterIdentity();
-
-        if (user == null && userId == null) {
-            return submission;
-        }
-
-        if (user == null) {
-            throw new AccessDeniedException("Cannot retrieve Provenance Query Submission because no user id was provided");
-        }
-
-        if (userId == null || userId.equals(user.getIdentity())) {
-            return submission;
-        }
-
-        throw new AccessDeniedException("Cannot retrieve Provenance Query Submission because " + user.getIdentity() + " is not the user who submitted the request");
-    }
-
     @Override
     public long getSize() {
         long total = 0;
@@ -809,21 +671,6 @@ public class LuceneEventIndex implements EventIndex {
         return total;
     }
 
-    private void validate(final Query query) {
-        final int numQueries = querySubmissionMap.size();
-        if (numQueries > MAX_UNDELETED_QUERY_RESULTS) {
-            purgeObsoleteQueries();
-            if (querySubmissionMap.size() > MAX_UNDELETED_QUERY_RESULTS) {
-                throw new IllegalStateException("Cannot process query because there are currently " + numQueries + " queries whose results have not "
-                    + "been deleted due to poorly behaving clients not issuing DELETE requests. Please try again later.");
-            }
-        }
-
-        if (query.getEndDate() != null && query.getStartDate() != null && query.getStartDate().getTime() > query.getEndDate().getTime()) {
-            throw new IllegalArgumentException("Query End Time cannot be before Query Start Time");
-        }
-    }
-
     void performMaintenance() {
         try {
             final List<ProvenanceEventRecord> firstEvents = eventStore.getEvents(0, 1);
@@ -889,31 +736,31 @@ public class LuceneEventIndex implements EventIndex {
         return removed;
     }
 
-    private void purgeObsoleteQueries() {
-        try {
-            final Date now = new Date();
+    /**
+     * Collects the events that are found by {@link QueryTask}s that are run synchronously, one index directory at a time
+     */
+    private static class LineageEventCollector implements ProgressiveResult {
+        private final List<ProvenanceEventRecord> events = new ArrayList<>();
+        private String error;
 
-            final Iterator<Map.Entry<String, AsyncQuerySubmission>> queryIterator = querySubmissionMap.entrySet().iterator();
-            while (queryIterator.hasNext()) {
-                final Map.Entry<String, AsyncQuerySubmission> entry = queryIterator.next();
+        @Override
+        public void update(final Collection<ProvenanceEventRecord> records, final long totalHitCount) {
+            events.addAll(records);
+        }
 
-                final StandardQueryResult result = entry.getValue().getResult();
-                if (entry.getValue().isCanceled() || result.isFinished() && result.getExpiration().before(now)) {
-                    queryIterator.remove();
-                }
-            }
+        @Override
+        public void setError(final String error) {
+            this.error = error;
+        }
 
-            final Iterator<Map.Entry<String, AsyncLineageSubmission>> lineageIterator = lineageSubmissionMap.entrySet().iterator();
-            while (lineageIterator.hasNext()) {
-                final Map.Entry<String, AsyncLineageSubmission> entry = lineageIterator.next();
+        @Override
+        public long getTotalHitCount() {
+            return events.size();
+        }
 
-                final StandardLineageResult result = entry.getValue().getResult();
-                if (entry.getValue().isCanceled() || result.isFinished() && result.getExpiration().before(now)) {
-                    lineageIterator.remove();
-                }
-            }
-        } catch (final Exception e) {
-            logger.error("Failed to expire Provenance Query Results", e);
+        @Override
+        public boolean isFinished() {
+            return false;
         }
     }
 }
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses the blocks of a compressed Provenance Event File
+ */
+interface BlockDecompressor extends Closeable {
+
+    /**
+     * Returns a stream of the decompressed contents of a block. A stream that was previously returned by this BlockDecompressor
+     * may no longer be used once this method has been called again.
+     *
+     * @param in the compressed contents of the block
+     * @return the decompressed contents of the block
+     * @throws IOException if unable to read from the given stream
+     */
+    InputStream decompress(InputStream in) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -33,7 +33,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
-import java.util.zip.GZIPInputStream;
 
 public abstract class CompressableRecordReader implements RecordReader {
     private static final Logger logger = LoggerFactory.getLogger(CompressableRecordReader.class);
@@ -41,7 +40,7 @@ public abstract class CompressableRecordReader implements RecordReader {
     private final ByteCountingInputStream rawInputStream;
     private final String filename;
     private final int serializationVersion;
-    private final boolean compressed;
+    private final BlockDecompressor decompressor;
     private final TocReader tocReader;
     private final int headerLength;
     private final int maxAttributeChars;
@@ -60,39 +59,52 @@ public abstract class CompressableRecordReader implements RecordReader {
         rawInputStream = new ByteCountingInputStream(in);
         this.maxAttributeChars = maxAttributeChars;
 
-        final InputStream limitedStream;
-        if (tocReader == null) {
-            limitedStream = rawInputStream;
-        } else {
-            final long offset1 = tocReader.getBlockOffset(1);
-            if (offset1 < 0) {
+        final EventFileCompression compression = EventFileCompression.fromFilename(filename);
+        decompressor = compression == null ? null : compression.openDecompressor(rawInputStream);
+
+        try {
+            final InputStream limitedStream;
+            if (tocReader == null) {
                 limitedStream = rawInputStream;
             } else {
-                limitedStream = new LimitingInputStream(rawInputStream, offset1 - rawInputStream.getBytesConsumed());
+                final long offset1 = tocReader.getBlockOffset(1);
+                if (offset1 < 0) {
+                    limitedStream = rawInputStream;
+                } else {
+                    limitedStream = new LimitingInputStream(rawInputStream, offset1 - rawInputStream.getBytesConsumed());
+                }
             }
-        }
 
-        final InputStream readableStream;
-        if (filename.endsWith(".gz")) {
-            readableStream = new BufferedInputStream(new GZIPInputStream(limitedStream));
-            compressed = true;
-        } else {
-            readableStream = new BufferedInputStream(limitedStream);
-            compressed = false;
-        }
+            final InputStream readableStream;
+            if (decompressor == null) {
+                readableStream = new BufferedInputStream(limitedStream);
+            } else {
+                readableStream = new BufferedInputStream(decompressor.decompress(limitedStream));
+            }
 
-        byteCountingIn = new ByteCountingInputStream(readableStream);
-        dis = new DataInputStream(byteCountingIn);
+            byteCountingIn = new ByteCountingInputStream(readableStream);
+            dis = new DataInputStream(byteCountingIn);
+
+            final String repoClassName = dis.readUTF();
+            final int serializationVersion = dis.readInt();
+            headerLength = repoClassName.getBytes(StandardCharsets.UTF_8).length + 2 + 4; // 2 bytes for string length, 4 for integer.
 
-        final String repoClassName = dis.readUTF();
-        final int serializationVersion = dis.readInt();
-        headerLength = repoClassName.getBytes(StandardCharsets.UTF_8).length + 2 + 4; // 2 bytes for string length, 4 for integer.
+            this.serializationVersion = serializationVersion;
+            this.filename = filename;
+            this.tocReader = tocReader;
 
-        this.serializationVersion = serializationVersion;
-        this.filename = filename;
-        this.tocReader = tocReader;
+            readHeader(dis, serializationVersion);
+        } catch (final IOException | RuntimeException e) {
+            if (decompressor != null) {
+                try {
+                    decompressor.close();
+                } catch (final IOException inner) {
+                    e.addSuppressed(inner);
+                }
+            }
 
-        readHeader(dis, serializationVersion);
+            throw e;
+        }
     }
 
     @Override
@@ -145,10 +157,10 @@ public abstract class CompressableRecordReader implements RecordReader {
         }
 
         final InputStream readableStream;
-        if (compressed) {
-            readableStream = new BufferedInputStream(new GZIPInputStream(limitedStream));
-        } else {
+        if (decompressor == null) {
             readableStream = new BufferedInputStream(limitedStream);
+        } else {
+            readableStream = new BufferedInputStream(decompressor.decompress(limitedStream));
         }
 
         byteCountingIn = new ByteCountingInputStream(readableStream, rawInputStream.getBytesConsumed());
@@ -236,8 +248,14 @@ public abstract class CompressableRecordReader implements RecordReader {
             try {
                 rawInputStream.close();
             } finally {
-                if (tocReader != null) {
-                    tocReader.close();
+                try {
+                    if (decompressor != null) {
+                        decompressor.close();
+                    }
+                } finally {
+                    if (tocReader != null) {
+                        tocReader.close();
+                    }
                 }
             }
         }
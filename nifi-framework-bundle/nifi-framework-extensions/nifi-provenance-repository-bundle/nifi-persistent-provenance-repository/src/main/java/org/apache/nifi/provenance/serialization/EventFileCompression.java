@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The formats that Provenance Event Files can be compressed with by the {@link EventFileCompressor}. In every format, each block
+ * of the Event File, as recorded in its Table of Contents, is compressed independently of the others, so that an event can be read
+ * by decompressing only the block that contains it.
+ */
+public enum EventFileCompression {
+
+    /**
+     * Each block is written as a separate GZIP member.
+     */
+    GZIP(".gz") {
+        @Override
+        BlockDecompressor openDecompressor(final InputStream in) {
+            return GZIPInputStream::new;
+        }
+    },
+
+    /**
+     * Each block is written as a separate Zstandard frame. The file begins with a Zstandard dictionary that was trained on the events
+     * in the file and that is used to compress every block, which allows small blocks to be compressed nearly as well as the file as a whole.
+     * Zstandard is also considerably faster to decompress than GZIP.
+     */
+    ZSTD(".zst") {
+        @Override
+        BlockDecompressor openDecompressor(final InputStream in) throws IOException {
+            return new ZstdBlockDecompressor(ZstdBlockDecompressor.readDictionary(in));
+        }
+    };
+
+    private final String extension;
+
+    EventFileCompression(final String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return the extension that is appended to the name of an Event File when it is compressed in this format
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Reads anything that precedes the first block of an Event File that is compressed in this format and returns a BlockDecompressor
+     * that can be used to decompress the blocks of the file.
+     *
+     * @param in the contents of the Event File, positioned at the start of the file
+     * @return a BlockDecompressor for the blocks of the file
+     * @throws IOException if unable to read from the given stream
+     */
+    abstract BlockDecompressor openDecompressor(InputStream in) throws IOException;
+
+    /**
+     * Determines the format that an Event File is compressed in from its name
+     *
+     * @param filename the name of the Event File
+     * @return the format that the file is compressed in, or <code>null</code> if the file is not compressed
+     */
+    public static EventFileCompression fromFilename(final String filename) {
+        for (final EventFileCompression compression : values()) {
+            if (filename.endsWith(compression.getExtension())) {
+                return compression;
+            }
+        }
+
+        return null;
+    }
+}
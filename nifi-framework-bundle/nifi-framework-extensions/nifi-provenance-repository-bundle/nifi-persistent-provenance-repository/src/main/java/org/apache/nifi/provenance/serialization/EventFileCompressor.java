@@ -17,6 +17,9 @@
 
 package org.apache.nifi.provenance.serialization;
 
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdException;
 import org.apache.nifi.provenance.store.EventFileManager;
 import org.apache.nifi.provenance.toc.StandardTocReader;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
@@ -40,6 +43,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -53,16 +58,32 @@ import java.util.concurrent.TimeUnit;
  * task will wait for the other thread to finish reading the data before deleting the file. This synchronization of the File is handled
  * via the {@link EventFileManager Event File Manager}.
  * </p>
+ *
+ * <p>
+ * Each block of the file is compressed independently, in the configured {@link EventFileCompression format}, and the Table of Contents
+ * is rewritten to point to the compressed blocks.
+ * </p>
  */
 public class EventFileCompressor implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(EventFileCompressor.class);
+
+    private static final int ZSTD_COMPRESSION_LEVEL = 3;
+    private static final int ZSTD_DICTIONARY_LENGTH = 64 * 1024;
+    private static final int ZSTD_MAX_SAMPLE_BYTES = 4 * 1024 * 1024;
+
     private final BlockingQueue<File> filesToCompress;
     private final EventFileManager eventFileManager;
+    private final EventFileCompression compression;
     private volatile boolean shutdown = false;
 
     public EventFileCompressor(final BlockingQueue<File> filesToCompress, final EventFileManager eventFileManager) {
+        this(filesToCompress, eventFileManager, EventFileCompression.GZIP);
+    }
+
+    public EventFileCompressor(final BlockingQueue<File> filesToCompress, final EventFileManager eventFileManager, final EventFileCompression compression) {
         this.filesToCompress = filesToCompress;
         this.eventFileManager = eventFileManager;
+        this.compression = compression;
     }
 
     public void shutdown() {
@@ -108,11 +129,14 @@ public class EventFileCompressor implements Runnable {
                     bytesBefore = uncompressedEventFile.length();
 
                     try {
-                        outputFile = new File(uncompressedEventFile.getParentFile(), uncompressedEventFile.getName() + ".gz");
+                        outputFile = new File(uncompressedEventFile.getParentFile(), uncompressedEventFile.getName() + compression.getExtension());
                         try {
                             tmpTocFile = new File(tocFile.getParentFile(), tocFile.getName() + ".tmp");
                             tocWriter = new StandardTocWriter(tmpTocFile, true, false);
-                            compress(uncompressedEventFile, tocReader, outputFile, tocWriter);
+                            switch (compression) {
+                                case GZIP -> compress(uncompressedEventFile, tocReader, outputFile, tocWriter);
+                                case ZSTD -> compressZstd(uncompressedEventFile, tocReader, outputFile, tocWriter);
+                            }
                             tocWriter.close();
                         } catch (final IOException ioe) {
                             logger.error("Failed to compress {} on rollover", uncompressedEventFile, ioe);
@@ -194,4 +218,98 @@ public class EventFileCompressor implements Runnable {
         // Close the TOC Reader and TOC Writer
         CloseableUtil.closeQuietly(tocReader, tocWriter);
     }
+
+    private static void compressZstd(final File input, final TocReader tocReader, final File output, final TocWriter tocWriter) throws IOException {
+        try (final InputStream fis = new FileInputStream(input);
+            final OutputStream fos = new FileOutputStream(output);
+            final ByteCountingOutputStream byteCountingOut = new ByteCountingOutputStream(fos);
+            final ZstdCompressCtx compressCtx = new ZstdCompressCtx()) {
+
+            // The first blocks of the file, up to ZSTD_MAX_SAMPLE_BYTES, are held in memory so that the same copies are used to train the
+            // dictionary and are then compressed, rather than being read from disk a second time.
+            final List<byte[]> sampleBlocks = new ArrayList<>();
+            long sampleBytes = 0L;
+            int blockIndex = 0;
+            byte[] block;
+            while ((block = readBlock(fis, tocReader, blockIndex, input)) != null && sampleBytes + block.length <= ZSTD_MAX_SAMPLE_BYTES) {
+                sampleBlocks.add(block);
+                sampleBytes += block.length;
+                blockIndex++;
+            }
+
+            final byte[] dictionary = trainDictionary(input, sampleBlocks, sampleBytes);
+
+            compressCtx.setLevel(ZSTD_COMPRESSION_LEVEL);
+            if (dictionary != null) {
+                compressCtx.loadDict(dictionary);
+            }
+
+            ZstdBlockDecompressor.writeDictionary(dictionary, byteCountingOut);
+
+            int compressedBlockIndex = 0;
+            for (final byte[] sampleBlock : sampleBlocks) {
+                compressBlock(compressCtx, sampleBlock, compressedBlockIndex++, tocReader, tocWriter, byteCountingOut);
+            }
+            sampleBlocks.clear();
+
+            // The block that did not fit within the samples, if any, has already been read and is compressed before the rest of the file
+            while (block != null) {
+                compressBlock(compressCtx, block, compressedBlockIndex++, tocReader, tocWriter, byteCountingOut);
+                block = readBlock(fis, tocReader, compressedBlockIndex, input);
+            }
+        }
+
+        // Close the TOC Reader and TOC Writer
+        CloseableUtil.closeQuietly(tocReader, tocWriter);
+    }
+
+    private static void compressBlock(final ZstdCompressCtx compressCtx, final byte[] block, final int blockIndex, final TocReader tocReader, final TocWriter tocWriter,
+                                      final ByteCountingOutputStream byteCountingOut) throws IOException {
+        final long firstEventId = tocReader.getFirstEventIdForBlock(blockIndex);
+        final long blockStartOffset = byteCountingOut.getBytesWritten();
+
+        byteCountingOut.write(compressCtx.compress(block));
+
+        tocWriter.addBlockOffset(blockStartOffset, firstEventId);
+    }
+
+    /**
+     * Trains a Zstandard dictionary using the first blocks of the given Event File as samples. Because the blocks of an Event File are
+     * compressed independently, a dictionary of the field names, component identifiers, and attributes that the events have in common
+     * can considerably improve how well each block is compressed.
+     *
+     * @return the dictionary, or <code>null</code> if there is not enough data in the file to train a dictionary
+     */
+    private static byte[] trainDictionary(final File input, final List<byte[]> samples, final long sampleBytes) {
+        // The dictionary should be far smaller than the samples that it is trained on in order to be of any use.
+        if (sampleBytes < 10L * ZSTD_DICTIONARY_LENGTH) {
+            return null;
+        }
+
+        final ZstdDictTrainer trainer = new ZstdDictTrainer((int) sampleBytes, ZSTD_DICTIONARY_LENGTH);
+        samples.forEach(trainer::addSample);
+
+        try {
+            return trainer.trainSamples();
+        } catch (final ZstdException e) {
+            logger.debug("Unable to train dictionary for compressing {}; will compress without a dictionary", input, e);
+            return null;
+        }
+    }
+
+    private static byte[] readBlock(final InputStream in, final TocReader tocReader, final int blockIndex, final File input) throws IOException {
+        final long blockStart = tocReader.getBlockOffset(blockIndex);
+        if (blockStart == -1) {
+            return null;
+        }
+
+        long blockEnd = tocReader.getBlockOffset(blockIndex + 1);
+        if (blockEnd < 0) {
+            blockEnd = input.length();
+        }
+
+        final byte[] block = new byte[(int) (blockEnd - blockStart)];
+        StreamUtils.fillBuffer(in, block);
+        return block;
+    }
 }
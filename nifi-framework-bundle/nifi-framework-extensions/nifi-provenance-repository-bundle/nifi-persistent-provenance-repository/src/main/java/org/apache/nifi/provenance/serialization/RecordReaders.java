@@ -35,9 +35,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.zip.GZIPInputStream;
 
 public class RecordReaders {
+    // Large enough to hold the dictionary of a ZSTD-compressed file along with the data that the decompressor reads ahead
+    private static final int SERIALIZATION_NAME_MARK_LIMIT = 2 * 1024 * 1024;
+
     /**
      * Creates a new Record Reader that is capable of reading Provenance Event Journals
      *
@@ -80,11 +82,11 @@ public class RecordReaders {
                 final File dir = file.getParentFile();
                 final String baseName = LuceneUtil.substringBefore(file.getName(), ".prov");
 
-                // depending on which rollover actions have occurred, we could have 2 possibilities for the
-                // filename that we need. The majority of the time, we will use the extension ".prov.gz"
+                // depending on which rollover actions have occurred, we could have several possibilities for the
+                // filename that we need. The majority of the time, we will use a compressed extension such as ".prov.gz"
                 // because most often we are compressing on rollover and most often we have already finished
                 // compressing by the time that we are querying the data.
-                for (final String extension : new String[]{".prov.gz", ".prov"}) {
+                for (final String extension : new String[]{".prov.gz", ".prov.zst", ".prov"}) {
                     file = new File(dir, baseName + extension);
                     if (file.exists()) {
                         try {
@@ -112,10 +114,15 @@ public class RecordReaders {
             final InputStream bufferedInStream = new BufferedInputStream(fis);
             final String serializationName;
             try {
-                bufferedInStream.mark(4096);
-                final InputStream in = filename.endsWith(".gz") ? new GZIPInputStream(bufferedInStream) : bufferedInStream;
-                final DataInputStream dis = new DataInputStream(in);
-                serializationName = dis.readUTF();
+                bufferedInStream.mark(SERIALIZATION_NAME_MARK_LIMIT);
+                final EventFileCompression compression = EventFileCompression.fromFilename(filename);
+                if (compression == null) {
+                    serializationName = new DataInputStream(bufferedInStream).readUTF();
+                } else {
+                    try (final BlockDecompressor decompressor = compression.openDecompressor(bufferedInStream)) {
+                        serializationName = new DataInputStream(decompressor.decompress(bufferedInStream)).readUTF();
+                    }
+                }
                 bufferedInStream.reset();
             } catch (final EOFException eof) {
                 fis.close();
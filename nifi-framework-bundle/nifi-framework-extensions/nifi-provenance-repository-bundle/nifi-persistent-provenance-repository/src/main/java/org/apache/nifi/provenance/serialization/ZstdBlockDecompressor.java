@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import org.apache.nifi.stream.io.NonCloseableInputStream;
+import org.apache.nifi.stream.io.StreamUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * Decompresses the blocks of an Event File that was compressed in the {@link EventFileCompression#ZSTD ZSTD} format.
+ * </p>
+ *
+ * <p>
+ * Such a file begins with a 4-byte integer that indicates the length of the dictionary, followed by the dictionary itself.
+ * The length is 0 if the file was compressed without a dictionary. Each block follows as a single Zstandard frame.
+ * </p>
+ */
+final class ZstdBlockDecompressor implements BlockDecompressor {
+    static final int MAX_DICTIONARY_LENGTH = 1024 * 1024;
+
+    private final byte[] dictionary;
+    private ZstdInputStreamNoFinalizer currentStream;
+
+    ZstdBlockDecompressor(final byte[] dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    static byte[] readDictionary(final InputStream in) throws IOException {
+        final int dictionaryLength = new DataInputStream(in).readInt();
+        if (dictionaryLength < 0 || dictionaryLength > MAX_DICTIONARY_LENGTH) {
+            throw new IOException("Event File indicates that its dictionary is " + dictionaryLength + " bytes; the file appears to be corrupt");
+        }
+
+        if (dictionaryLength == 0) {
+            return null;
+        }
+
+        final byte[] dictionary = new byte[dictionaryLength];
+        StreamUtils.fillBuffer(in, dictionary);
+        return dictionary;
+    }
+
+    static void writeDictionary(final byte[] dictionary, final OutputStream out) throws IOException {
+        final DataOutputStream dos = new DataOutputStream(out);
+        if (dictionary == null) {
+            dos.writeInt(0);
+        } else {
+            dos.writeInt(dictionary.length);
+            dos.write(dictionary);
+        }
+
+        dos.flush();
+    }
+
+    @Override
+    public InputStream decompress(final InputStream in) throws IOException {
+        // Release the native resources of the previous block's stream. The underlying stream is shared by all blocks, so it must remain open.
+        close();
+
+        final ZstdInputStreamNoFinalizer zstdIn = new ZstdInputStreamNoFinalizer(new NonCloseableInputStream(in));
+        if (dictionary != null) {
+            zstdIn.setDict(dictionary);
+        }
+
+        currentStream = zstdIn;
+        return zstdIn;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentStream != null) {
+            currentStream.close();
+            currentStream = null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.capture;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestEventCaptureFilter {
+
+    @Test
+    public void testParsePolicy() {
+        assertEquals(CapturePolicy.FULL, CapturePolicy.parse("full"));
+        assertEquals(CapturePolicy.sample(100), CapturePolicy.parse(" SAMPLE 100 "));
+        assertEquals(CapturePolicy.aggregate(1, TimeUnit.MINUTES), CapturePolicy.parse("AGGREGATE 1 min"));
+
+        assertThrows(IllegalArgumentException.class, () -> CapturePolicy.parse("SAMPLE"));
+        assertThrows(IllegalArgumentException.class, () -> CapturePolicy.parse("SAMPLE 0"));
+        assertThrows(IllegalArgumentException.class, () -> CapturePolicy.parse("DISCARD"));
+    }
+
+    @Test
+    public void testLineageEventTypesNotAllowed() {
+        assertThrows(IllegalArgumentException.class, () -> new EventCaptureFilter(Map.of("component-1", CapturePolicy.sample(10)), EnumSet.of(ProvenanceEventType.FORK)));
+    }
+
+    @Test
+    public void testSampleRecordsAllEventsOfSampledFlowFiles() {
+        final EventCaptureFilter filter = new EventCaptureFilter(Map.of("component-1", CapturePolicy.sample(10)), EventCaptureFilter.DEFAULT_EVENT_TYPES);
+        assertTrue(filter.isActive());
+        assertFalse(filter.isAggregating());
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        final List<String> uuids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            final String uuid = UUID.randomUUID().toString();
+            uuids.add(uuid);
+            events.add(createEvent(uuid, "component-1", ProvenanceEventType.ROUTE));
+            events.add(createEvent(uuid, "component-1", ProvenanceEventType.ATTRIBUTES_MODIFIED));
+        }
+
+        final List<ProvenanceEventRecord> captured = filter.filter(events);
+        final Set<String> capturedUuids = captured.stream().map(ProvenanceEventRecord::getFlowFileUuid).collect(Collectors.toSet());
+        assertTrue(capturedUuids.size() > 800 && capturedUuids.size() < 1200, "Expected about 1,000 sampled FlowFiles but got " + capturedUuids.size());
+        assertEquals(capturedUuids.size() * 2, captured.size());
+
+        for (final String uuid : uuids) {
+            if (!capturedUuids.contains(uuid)) {
+                assertTrue(filter.isLineageIncomplete(uuid));
+            }
+        }
+    }
+
+    @Test
+    public void testPolicyAppliesOnlyToConfiguredComponentsAndEventTypes() {
+        final EventCaptureFilter filter = new EventCaptureFilter(Map.of("component-1", CapturePolicy.sample(Integer.MAX_VALUE)), EventCaptureFilter.DEFAULT_EVENT_TYPES);
+
+        final List<ProvenanceEventRecord> events = List.of(
+            createEvent(UUID.randomUUID().toString(), "component-1", ProvenanceEventType.CONTENT_MODIFIED),
+            createEvent(UUID.randomUUID().toString(), "component-2", ProvenanceEventType.ROUTE));
+        assertEquals(events, filter.filter(events));
+        assertFalse(filter.isLineageIncomplete(events.get(0).getFlowFileUuid()));
+    }
+
+    @Test
+    public void testAggregate() {
+        final EventCaptureFilter filter = new EventCaptureFilter(Map.of("component-1", CapturePolicy.aggregate(1, TimeUnit.HOURS)), EventCaptureFilter.DEFAULT_EVENT_TYPES);
+        assertTrue(filter.isAggregating());
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(createEvent("uuid-" + i, "component-1", ProvenanceEventType.ROUTE));
+        }
+        events.add(createEvent("uuid-attributes", "component-1", ProvenanceEventType.ATTRIBUTES_MODIFIED));
+
+        assertEquals(Collections.emptyList(), filter.filter(events));
+        assertEquals(Collections.emptyList(), filter.flushExpiredWindows(System.currentTimeMillis()));
+        assertTrue(filter.isLineageIncomplete("uuid-50"));
+
+        final Map<ProvenanceEventType, ProvenanceEventRecord> summaries = filter.flushAllWindows().stream()
+            .collect(Collectors.toMap(ProvenanceEventRecord::getEventType, event -> event));
+        assertEquals(2, summaries.size());
+
+        final ProvenanceEventRecord routeSummary = summaries.get(ProvenanceEventType.ROUTE);
+        assertEquals("uuid-99", routeSummary.getFlowFileUuid());
+        assertTrue(routeSummary.getDetails().startsWith("Aggregated 100 ROUTE events totaling 102400 bytes"), routeSummary.getDetails());
+        assertTrue(routeSummary.getDetails().endsWith("first FlowFile uuid-0, last FlowFile uuid-99"), routeSummary.getDetails());
+
+        assertEquals(Collections.emptyList(), filter.flushAllWindows());
+    }
+
+    private ProvenanceEventRecord createEvent(final String uuid, final String componentId, final ProvenanceEventType eventType) {
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventType(eventType)
+            .setAttributes(Collections.emptyMap(), Map.of("uuid", uuid))
+            .setComponentId(componentId)
+            .setComponentType("unit test")
+            .setEventTime(System.currentTimeMillis())
+            .setFlowFileEntryDate(System.currentTimeMillis())
+            .setFlowFileUUID(uuid)
+            .setLineageStartDate(System.currentTimeMillis())
+            .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+            .setRelationship("success")
+            .build();
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.columnar;
+
+import org.apache.nifi.authorization.user.NiFiUser;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.RepositoryConfiguration;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.authorization.EventAuthorizer;
+import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
+import org.apache.nifi.provenance.lineage.LineageNode;
+import org.apache.nifi.provenance.lineage.LineageNodeType;
+import org.apache.nifi.provenance.lineage.ProvenanceEventLineageNode;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryResult;
+import org.apache.nifi.provenance.search.QuerySubmission;
+import org.apache.nifi.provenance.search.SearchTerms;
+import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.ArrayListEventStore;
+import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.store.StorageResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 60)
+public class TestColumnarEventIndex {
+    private static final int SEGMENT_EVENT_COUNT = 10;
+
+    private final AtomicLong idGenerator = new AtomicLong(0L);
+
+    @TempDir
+    private File storageDirectory;
+
+    @Test
+    public void testQuerySpecificFieldAcrossSegments() throws IOException, InterruptedException {
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final ColumnarEventIndex index = new ColumnarEventIndex(createConfig(), SEGMENT_EVENT_COUNT, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (int i = 0; i < 35; i++) {
+            final ProvenanceEventRecord event = createEvent(System.currentTimeMillis(), UUID.randomUUID().toString(), "component-" + (i % 3));
+            events.add(event);
+            index.addEvents(eventStore.addEvent(event).getStorageLocations());
+        }
+
+        // Persist all but the most recent events so that the query spans persisted segments and the active segment
+        index.commitChanges("1");
+        for (int i = 0; i < 5; i++) {
+            final ProvenanceEventRecord event = createEvent(System.currentTimeMillis(), UUID.randomUUID().toString(), "component-0");
+            events.add(event);
+            index.addEvents(eventStore.addEvent(event).getStorageLocations());
+        }
+
+        try {
+            assertTrue(index.getSize() > 0);
+
+            for (final int eventIndex : new int[] {0, 17, 34, 38}) {
+                final Query query = new Query(UUID.randomUUID().toString());
+                query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.FlowFileUUID, events.get(eventIndex).getFlowFileUuid().toUpperCase(), null));
+
+                final List<ProvenanceEventRecord> matchingEvents = query(index, query);
+                assertEquals(List.of(events.get(eventIndex)), matchingEvents);
+            }
+
+            final Query componentQuery = new Query(UUID.randomUUID().toString());
+            componentQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-0", null));
+            componentQuery.setMaxResults(100);
+            final List<ProvenanceEventRecord> expected = events.stream()
+                .filter(event -> event.getComponentId().equals("component-0"))
+                .collect(Collectors.toList());
+            assertEquals(expected.size(), query(index, componentQuery).size());
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testWildcardAndInvertedQuery() throws IOException, InterruptedException {
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final ColumnarEventIndex index = new ColumnarEventIndex(createConfig(), SEGMENT_EVENT_COUNT, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        final ProvenanceEventRecord event1 = createEvent(System.currentTimeMillis(), "11111111-1111-1111-1111-111111111111", "component-1");
+        final ProvenanceEventRecord event2 = createEvent(System.currentTimeMillis(), "22222222-2222-2222-2222-222222222222", "component-2");
+        final ProvenanceEventRecord event3 = createEvent(System.currentTimeMillis(), "33333333-3333-3333-3333-333333333333", "other-3");
+        for (final ProvenanceEventRecord event : List.of(event1, event2, event3)) {
+            index.addEvents(eventStore.addEvent(event).getStorageLocations());
+        }
+
+        try {
+            final Query wildcardQuery = new Query(UUID.randomUUID().toString());
+            wildcardQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "Component-?", null));
+            wildcardQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.FlowFileUUID, "1111*", Boolean.TRUE));
+            assertEquals(List.of(event2), query(index, wildcardQuery));
+
+            index.commitChanges("1");
+            assertEquals(List.of(event2), query(index, wildcardQuery));
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testQueryTimeAndFileSizeRange() throws IOException, InterruptedException {
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final ColumnarEventIndex index = new ColumnarEventIndex(createConfig(), SEGMENT_EVENT_COUNT, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        for (int i = 0; i < 30; i++) {
+            final ProvenanceEventRecord event = createEvent(1_000_000L + i * 1000L, UUID.randomUUID().toString(), "component-1");
+            index.addEvents(eventStore.addEvent(event).getStorageLocations());
+        }
+
+        index.commitChanges("1");
+
+        try {
+            final Query timeQuery = new Query(UUID.randomUUID().toString());
+            timeQuery.setStartDate(new Date(1_005_000L));
+            timeQuery.setEndDate(new Date(1_014_000L));
+            final List<ProvenanceEventRecord> matchingEvents = query(index, timeQuery);
+            assertEquals(10, matchingEvents.size());
+            for (final ProvenanceEventRecord event : matchingEvents) {
+                assertTrue(event.getEventTime() >= 1_005_000L && event.getEventTime() <= 1_014_000L);
+            }
+
+            final Query sizeQuery = new Query(UUID.randomUUID().toString());
+            sizeQuery.setMinFileSize("2 KB");
+            assertEquals(Collections.emptyList(), query(index, sizeQuery));
+
+            sizeQuery.setMinFileSize("1 KB");
+            sizeQuery.setStartDate(new Date(1_000_000L));
+            sizeQuery.setMaxResults(5);
+            final List<ProvenanceEventRecord> largestEvents = query(index, sizeQuery);
+            assertEquals(5, largestEvents.size());
+            assertEquals(29L, largestEvents.get(0).getEventId());
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testLineageAcrossSegments() throws IOException, InterruptedException {
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final ColumnarEventIndex index = new ColumnarEventIndex(createConfig(), SEGMENT_EVENT_COUNT, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        final ProvenanceEventRecord parent = createEvent("4444");
+        index.addEvents(eventStore.addEvent(parent).getStorageLocations());
+        for (int i = 0; i < 20; i++) {
+            index.addEvents(eventStore.addEvent(createEvent(UUID.randomUUID().toString())).getStorageLocations());
+        }
+
+        final Map<String, String> previousAttributes = new HashMap<>();
+        previousAttributes.put("uuid", "4444");
+        final ProvenanceEventRecord join = new StandardProvenanceEventRecord.Builder()
+                .setEventType(ProvenanceEventType.JOIN)
+                .setAttributes(previousAttributes, Collections.emptyMap())
+                .addParentUuid("4444")
+                .addChildFlowFile("1234")
+                .setComponentId("component-1")
+                .setComponentType("unit test")
+                .setEventId(idGenerator.getAndIncrement())
+                .setEventTime(System.currentTimeMillis())
+                .setFlowFileEntryDate(System.currentTimeMillis())
+                .setFlowFileUUID("1234")
+                .setLineageStartDate(parent.getLineageStartDate())
+                .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+                .build();
+        final StorageResult joinResult = eventStore.addEvent(join);
+        index.addEvents(joinResult.getStorageLocations());
+        index.addEvents(eventStore.addEvent(createEvent("1234")).getStorageLocations());
+
+        try {
+            final long joinEventId = joinResult.getStorageLocations().values().iterator().next().getEventId();
+            final ComputeLineageSubmission submission = index.submitExpandParents(joinEventId, createUser(), EventAuthorizer.GRANT_ALL);
+            assertTrue(submission.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+            assertNull(submission.getResult().getError());
+
+            final Map<ProvenanceEventType, List<LineageNode>> eventMap = submission.getResult().getNodes().stream()
+                .filter(n -> n.getNodeType() == LineageNodeType.PROVENANCE_EVENT_NODE)
+                .collect(Collectors.groupingBy(n -> ((ProvenanceEventLineageNode) n).getEventType()));
+            assertEquals(1, eventMap.get(ProvenanceEventType.JOIN).size());
+            assertEquals(1, eventMap.get(ProvenanceEventType.CONTENT_MODIFIED).size());
+            assertEquals("4444", eventMap.get(ProvenanceEventType.CONTENT_MODIFIED).get(0).getFlowFileUuid());
+
+            final ComputeLineageSubmission lineageSubmission = index.submitLineageComputation("1234", createUser(), EventAuthorizer.DENY_ALL);
+            assertTrue(lineageSubmission.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+            final List<LineageNode> eventNodes = lineageSubmission.getResult().getNodes().stream()
+                .filter(n -> n.getNodeType() == LineageNodeType.PROVENANCE_EVENT_NODE)
+                .collect(Collectors.toList());
+            assertEquals(2, eventNodes.size());
+            for (final LineageNode node : eventNodes) {
+                assertEquals(ProvenanceEventType.UNKNOWN, ((ProvenanceEventLineageNode) node).getEventType());
+            }
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testStreamingLineage() throws IOException, InterruptedException {
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final ColumnarEventIndex index = new ColumnarEventIndex(createConfig(), SEGMENT_EVENT_COUNT, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        // root is forked into child-1 and child-2, and child-1 is forked into grandchild-1 and grandchild-2
+        final List<ProvenanceEventRecord> events = List.of(
+            createEvent("root"),
+            createForkEvent("root", "child-1", "child-2"),
+            createEvent("child-1"),
+            createEvent("child-2"),
+            createForkEvent("child-1", "grandchild-1", "grandchild-2"),
+            createEvent("grandchild-1"),
+            createEvent("grandchild-2"),
+            createEvent("unrelated"));
+        for (final ProvenanceEventRecord event : events) {
+            index.addEvents(eventStore.addEvent(event).getStorageLocations());
+        }
+
+        try {
+            final ComputeLineageSubmission fullLineage = index.submitStreamingLineageComputation("root", 10, 100, createUser(), EventAuthorizer.GRANT_ALL);
+            assertTrue(fullLineage.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+            assertNull(fullLineage.getResult().getError());
+            assertEquals(List.of("root"), new ArrayList<>(fullLineage.getLineageFlowFileUuids()));
+            assertEquals(7, getEventNodes(fullLineage).size());
+            assertEquals(Set.of("child-1", "child-2", "grandchild-1", "grandchild-2"), fullLineage.getResult().getNodes().stream()
+                .filter(n -> n.getNodeType() == LineageNodeType.FLOWFILE_NODE)
+                .map(LineageNode::getFlowFileUuid)
+                .collect(Collectors.toSet()));
+
+            // Starting from a child includes the FORK that created it but must not expand its siblings
+            final ComputeLineageSubmission childLineage = index.submitStreamingLineageComputation("child-1", 10, 100, createUser(), EventAuthorizer.GRANT_ALL);
+            assertTrue(childLineage.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+            final List<LineageNode> childEventNodes = getEventNodes(childLineage);
+            assertEquals(5, childEventNodes.size());
+            assertTrue(childEventNodes.stream().noneMatch(n -> n.getFlowFileUuid().equals("child-2")));
+
+            final ComputeLineageSubmission shallowLineage = index.submitStreamingLineageComputation("root", 1, 100, createUser(), EventAuthorizer.GRANT_ALL);
+            assertTrue(shallowLineage.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+            assertEquals(5, getEventNodes(shallowLineage).size());
+
+            final ComputeLineageSubmission limitedLineage = index.submitStreamingLineageComputation("root", 10, 3, createUser(), EventAuthorizer.GRANT_ALL);
+            assertTrue(limitedLineage.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+            assertNull(limitedLineage.getResult().getError());
+            assertEquals(3, getEventNodes(limitedLineage).size());
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void testSegmentsRestoredOnRestart() throws IOException, InterruptedException {
+        final RepositoryConfiguration config = createConfig();
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final ColumnarEventIndex index = new ColumnarEventIndex(config, SEGMENT_EVENT_COUNT, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            final ProvenanceEventRecord event = createEvent(UUID.randomUUID().toString());
+            events.add(event);
+            index.addEvents(eventStore.addEvent(event).getStorageLocations());
+        }
+
+        index.close();
+
+        final ColumnarEventIndex restoredIndex = new ColumnarEventIndex(config, SEGMENT_EVENT_COUNT, EventReporter.NO_OP);
+        restoredIndex.initialize(eventStore);
+        try {
+            assertEquals(0L, restoredIndex.getMinimumEventIdToReindex("1"));
+
+            // Events that were already persisted must not be indexed a second time
+            for (final ProvenanceEventRecord event : events) {
+                restoredIndex.reindexEvents(Collections.singletonMap(event, createStorageSummary(event.getEventId())));
+            }
+            restoredIndex.commitChanges("1");
+
+            final Query query = new Query(UUID.randomUUID().toString());
+            query.setMaxResults(100);
+            final QueryResult result = submit(restoredIndex, query);
+            assertEquals(25, result.getMatchingEvents().size());
+            assertEquals(25L, result.getTotalHitCount());
+        } finally {
+            restoredIndex.close();
+        }
+    }
+
+    @Test
+    public void testExpiration() throws IOException {
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        final EventStore eventStore = Mockito.mock(EventStore.class);
+        Mockito.when(eventStore.getEvents(Mockito.anyLong(), Mockito.anyInt())).thenAnswer(invocation -> events.subList(0, Math.min(1, events.size())));
+
+        final ColumnarEventIndex index = new ColumnarEventIndex(createConfig(), SEGMENT_EVENT_COUNT, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                final ProvenanceEventRecord event = createEvent(100_000L + i, UUID.randomUUID().toString(), "component-1");
+                events.add(event);
+                index.addEvents(Collections.singletonMap(event, createStorageSummary(event.getEventId())));
+            }
+
+            index.commitChanges("1");
+            final File indexDirectory = new File(new File(storageDirectory, "1"), ColumnarEventIndex.INDEX_DIRECTORY_NAME);
+            assertEquals(2, indexDirectory.listFiles().length);
+
+            // Remove the events of the first segment from the store
+            events.subList(0, 15).clear();
+            index.performMaintenance();
+            assertEquals(1, indexDirectory.listFiles().length);
+        } finally {
+            index.close();
+        }
+    }
+
+    private List<ProvenanceEventRecord> query(final ColumnarEventIndex index, final Query query) throws InterruptedException {
+        return submit(index, query).getMatchingEvents();
+    }
+
+    private QueryResult submit(final ColumnarEventIndex index, final Query query) throws InterruptedException {
+        final QuerySubmission submission = index.submitQuery(query, EventAuthorizer.GRANT_ALL, "unit test user");
+        final QueryResult result = submission.getResult();
+        assertTrue(result.awaitCompletion(15, TimeUnit.SECONDS));
+        assertNull(result.getError());
+        return result;
+    }
+
+    private List<LineageNode> getEventNodes(final ComputeLineageSubmission submission) {
+        return submission.getResult().getNodes().stream()
+            .filter(n -> n.getNodeType() == LineageNodeType.PROVENANCE_EVENT_NODE)
+            .collect(Collectors.toList());
+    }
+
+    private StorageSummary createStorageSummary(final long eventId) {
+        return new StorageSummary(eventId, "1.prov", "1", 1, 2L, 2L);
+    }
+
+    private NiFiUser createUser() {
+        final NiFiUser user = Mockito.mock(NiFiUser.class);
+        Mockito.when(user.getIdentity()).thenReturn("unit test");
+        Mockito.when(user.getGroups()).thenReturn(Set.of());
+        return user;
+    }
+
+    private RepositoryConfiguration createConfig() {
+        final RepositoryConfiguration config = new RepositoryConfiguration();
+        config.addStorageDirectory("1", new File(storageDirectory, "1"));
+
+        final List<SearchableField> searchableFields = new ArrayList<>();
+        searchableFields.add(SearchableFields.FlowFileUUID);
+        searchableFields.add(SearchableFields.ComponentID);
+        config.setSearchableFields(searchableFields);
+        config.setSearchableAttributes(Collections.singletonList(SearchableFields.newSearchableAttribute("updated")));
+        return config;
+    }
+
+    private ProvenanceEventRecord createEvent(final String uuid) {
+        return createEvent(System.currentTimeMillis(), uuid, "component-1");
+    }
+
+    private ProvenanceEventRecord createForkEvent(final String parentUuid, final String... childUuids) {
+        final Map<String, String> previousAttributes = new HashMap<>();
+        previousAttributes.put("uuid", parentUuid);
+
+        final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder()
+                .setEventType(ProvenanceEventType.FORK)
+                .setAttributes(previousAttributes, Collections.emptyMap())
+                .addParentUuid(parentUuid)
+                .setComponentId("component-1")
+                .setComponentType("unit test")
+                .setEventId(idGenerator.getAndIncrement())
+                .setEventTime(System.currentTimeMillis())
+                .setFlowFileEntryDate(System.currentTimeMillis())
+                .setFlowFileUUID(parentUuid)
+                .setLineageStartDate(System.currentTimeMillis())
+                .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L);
+        for (final String childUuid : childUuids) {
+            builder.addChildFlowFile(childUuid);
+        }
+
+        return builder.build();
+    }
+
+    private ProvenanceEventRecord createEvent(final long timestamp, final String uuid, final String componentId) {
+        final Map<String, String> previousAttributes = new HashMap<>();
+        previousAttributes.put("uuid", uuid);
+        final Map<String, String> updatedAttributes = new HashMap<>();
+        updatedAttributes.put("updated", "true");
+
+        return new StandardProvenanceEventRecord.Builder()
+                .setEventType(ProvenanceEventType.CONTENT_MODIFIED)
+                .setAttributes(previousAttributes, updatedAttributes)
+                .setComponentId(componentId)
+                .setComponentType("unit test")
+                .setEventId(idGenerator.getAndIncrement())
+                .setEventTime(timestamp)
+                .setFlowFileEntryDate(timestamp)
+                .setFlowFileUUID(uuid)
+                .setLineageStartDate(timestamp)
+                .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+                .build();
+    }
+}
@@ -234,6 +234,56 @@ public class TestLuceneEventIndex {
         assertEquals("4444", eventMap.get(ProvenanceEventType.UNKNOWN).get(0).getFlowFileUuid());
     }
 
+    @Test
+    public void testStreamingLineageIncludesDescendants() throws InterruptedException {
+        final RepositoryConfiguration repoConfig = createConfig(1);
+        repoConfig.setDesiredIndexSize(1L);
+        final IndexManager indexManager = new StandardIndexManager(repoConfig);
+
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final LuceneEventIndex index = new LuceneEventIndex(repoConfig, indexManager, 3, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        final Map<String, String> previousAttributes = new HashMap<>();
+        previousAttributes.put("uuid", "4444");
+        final ProvenanceEventRecord fork = new StandardProvenanceEventRecord.Builder()
+                .setEventType(ProvenanceEventType.FORK)
+                .setAttributes(previousAttributes, Collections.emptyMap())
+                .addParentUuid("4444")
+                .addChildFlowFile("1234")
+                .addChildFlowFile("5678")
+                .setComponentId("component-1")
+                .setComponentType("unit test")
+                .setEventId(idGenerator.getAndIncrement())
+                .setEventTime(System.currentTimeMillis())
+                .setFlowFileEntryDate(System.currentTimeMillis())
+                .setFlowFileUUID("4444")
+                .setLineageStartDate(System.currentTimeMillis())
+                .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+                .build();
+
+        for (final ProvenanceEventRecord event : List.of(createEvent("4444"), fork, createEvent("1234"), createEvent("5678"), createEvent("9999"))) {
+            index.addEvents(eventStore.addEvent(event).getStorageLocations());
+        }
+
+        final NiFiUser user = createUser();
+
+        List<LineageNode> nodes = Collections.emptyList();
+        while (nodes.size() < 6) {
+            final ComputeLineageSubmission submission = index.submitStreamingLineageComputation("4444", 5, 100, user, EventAuthorizer.GRANT_ALL);
+            assertTrue(submission.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+            assertNull(submission.getResult().getError());
+
+            nodes = submission.getResult().getNodes();
+            Thread.sleep(25L);
+        }
+
+        // 4 events and a FlowFile node for each of the 2 children
+        assertEquals(6, nodes.size());
+        assertTrue(nodes.stream().noneMatch(n -> n.getFlowFileUuid().equals("9999")));
+        assertEquals(2, nodes.stream().filter(n -> n.getNodeType() == LineageNodeType.FLOWFILE_NODE).count());
+    }
+
     @Test
     public void testUnauthorizedEventsGetFilteredForQuery() throws InterruptedException {
         final RepositoryConfiguration repoConfig = createConfig(1);
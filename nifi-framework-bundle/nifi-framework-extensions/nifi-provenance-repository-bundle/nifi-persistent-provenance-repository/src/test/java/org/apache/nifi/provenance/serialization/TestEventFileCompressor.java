@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import org.apache.nifi.provenance.EventIdFirstSchemaRecordWriter;
+import org.apache.nifi.provenance.IdentifierLookup;
+import org.apache.nifi.provenance.ProvenanceEventBuilder;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.TestUtil;
+import org.apache.nifi.provenance.store.EventFileManager;
+import org.apache.nifi.provenance.toc.StandardTocReader;
+import org.apache.nifi.provenance.toc.StandardTocWriter;
+import org.apache.nifi.provenance.toc.TocReader;
+import org.apache.nifi.provenance.toc.TocUtil;
+import org.apache.nifi.provenance.toc.TocWriter;
+import org.apache.nifi.stream.io.ByteCountingOutputStream;
+import org.apache.nifi.stream.io.GZIPOutputStream;
+import org.apache.nifi.stream.io.NonCloseableOutputStream;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestEventFileCompressor {
+    private static final int EVENT_COUNT = 20_000;
+
+    @TempDir
+    private File storageDirectory;
+
+    @ParameterizedTest
+    @EnumSource(EventFileCompression.class)
+    public void testCompressedEventsReadByBlock(final EventFileCompression compression) throws IOException, InterruptedException {
+        final File eventFile = new File(storageDirectory, "0.prov");
+        writeEvents(eventFile);
+
+        final BlockingQueue<File> filesToCompress = new LinkedBlockingQueue<>();
+        filesToCompress.add(eventFile);
+
+        final EventFileCompressor compressor = new EventFileCompressor(filesToCompress, new EventFileManager(), compression);
+        final Thread compressorThread = new Thread(compressor);
+        compressorThread.start();
+        try {
+            final long maxTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (eventFile.exists() && System.currentTimeMillis() < maxTime) {
+                Thread.sleep(10L);
+            }
+        } finally {
+            compressor.shutdown();
+            compressorThread.join();
+        }
+
+        assertFalse(eventFile.exists());
+        final File compressedFile = new File(storageDirectory, eventFile.getName() + compression.getExtension());
+        assertTrue(compressedFile.exists());
+        assertTrue(TocUtil.getTocFile(eventFile).exists());
+
+        assertEventsReadable(compressedFile);
+    }
+
+    @Test
+    public void testReadLegacyGzipEventFile() throws IOException {
+        final File eventFile = new File(storageDirectory, "0.prov");
+        writeEvents(eventFile);
+
+        // Compress each block as its own GZIP stream, as Event Files were compressed before the compression format could be chosen
+        final File compressedFile = new File(storageDirectory, "0.prov.gz");
+        final File tocFile = TocUtil.getTocFile(eventFile);
+        final File legacyTocFile = new File(tocFile.getParentFile(), tocFile.getName() + ".legacy");
+        try (final TocReader tocReader = new StandardTocReader(tocFile);
+            final InputStream in = new FileInputStream(eventFile);
+            final ByteCountingOutputStream out = new ByteCountingOutputStream(new FileOutputStream(compressedFile));
+            final TocWriter tocWriter = new StandardTocWriter(legacyTocFile, true, false)) {
+
+            int blockIndex = 0;
+            long blockStart;
+            while ((blockStart = tocReader.getBlockOffset(blockIndex)) >= 0) {
+                long blockEnd = tocReader.getBlockOffset(blockIndex + 1);
+                if (blockEnd < 0) {
+                    blockEnd = eventFile.length();
+                }
+
+                tocWriter.addBlockOffset(out.getBytesWritten(), tocReader.getFirstEventIdForBlock(blockIndex));
+                final GZIPOutputStream gzipOut = new GZIPOutputStream(new NonCloseableOutputStream(out), 1);
+                StreamUtils.copy(in, gzipOut, blockEnd - blockStart);
+                gzipOut.close();
+                blockIndex++;
+            }
+        }
+
+        assertTrue(eventFile.delete());
+        assertTrue(tocFile.delete());
+        assertTrue(legacyTocFile.renameTo(tocFile));
+
+        assertEventsReadable(compressedFile);
+    }
+
+    @Test
+    public void testReadLegacyInlineCompressedEventFile() throws IOException {
+        // Before Event Files were compressed in the background, the writer compressed each block as it wrote the file
+        final File compressedFile = new File(storageDirectory, "0.prov.gz");
+        writeEvents(compressedFile, true);
+
+        assertEventsReadable(compressedFile);
+    }
+
+    private void assertEventsReadable(final File compressedFile) throws IOException {
+        try (final RecordReader reader = RecordReaders.newRecordReader(compressedFile, null, 2048)) {
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                final StandardProvenanceEventRecord event = reader.nextRecord();
+                assertNotNull(event);
+                assertEquals(i, event.getEventId());
+                assertEquals("nifi://unit-test/" + i, event.getTransitUri());
+            }
+
+            assertNull(reader.nextRecord());
+        }
+
+        for (final long eventId : new long[] {EVENT_COUNT - 1, 7, EVENT_COUNT / 2, 0}) {
+            try (final RecordReader reader = RecordReaders.newRecordReader(compressedFile, null, 2048)) {
+                final ProvenanceEventRecord event = reader.skipToEvent(eventId).orElse(null);
+                assertNotNull(event);
+                assertEquals(eventId, event.getEventId());
+                assertEquals("nifi://unit-test/" + eventId, event.getTransitUri());
+            }
+        }
+    }
+
+    private void writeEvents(final File eventFile) throws IOException {
+        writeEvents(eventFile, false);
+    }
+
+    private void writeEvents(final File eventFile, final boolean compressed) throws IOException {
+        final StandardTocWriter tocWriter = new StandardTocWriter(TocUtil.getTocFile(eventFile), compressed, false);
+        try (final RecordWriter writer = new EventIdFirstSchemaRecordWriter(eventFile, new AtomicLong(0L), tocWriter, compressed, 4096, IdentifierLookup.EMPTY)) {
+            writer.writeHeader(0L);
+
+            final List<ProvenanceEventRecord> events = new ArrayList<>();
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+                builder.setEventTime(System.currentTimeMillis());
+                builder.setEventType(ProvenanceEventType.RECEIVE);
+                builder.setTransitUri("nifi://unit-test/" + i);
+                builder.fromFlowFile(TestUtil.createFlowFile(i, 3000L, Map.of("filename", i + ".txt", "uuid", UUID.randomUUID().toString())));
+                builder.setComponentId("1234");
+                builder.setComponentType("dummy processor");
+                events.add(builder.build());
+            }
+
+            writer.writeRecords(events);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.provenance.schema.EventFieldNames;
+import org.apache.nifi.provenance.schema.EventRecord;
+import org.apache.nifi.provenance.schema.ProvenanceEventSchema;
+import org.apache.nifi.repository.schema.NoOpFieldCache;
+import org.apache.nifi.repository.schema.Record;
+import org.apache.nifi.repository.schema.RecordSchema;
+import org.apache.nifi.repository.schema.SchemaRecordReader;
+import org.apache.nifi.repository.schema.SchemaRecordWriter;
+import org.apache.nifi.util.RingBuffer.Filter;
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
+import org.apache.nifi.util.RingBuffer.IterationDirection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Keeps the events serialized, using the same schema as the event files of the Write Ahead Provenance Repository, in a ring of direct memory
+ * so that retaining a large number of events does not fill the Java heap with long-lived objects. Events are deserialized only when they are
+ * read. For each event, the heap holds only its location in the ring, the component that generated it, and a 64-bit signature of the FlowFile
+ * UUIDs that it references, so that lineage computations and component lookups only deserialize the events that may be relevant.
+ */
+final class OffHeapProvenanceEventBuffer implements ProvenanceEventBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapProvenanceEventBuffer.class);
+
+    private static final RecordSchema EVENT_SCHEMA = ProvenanceEventSchema.PROVENANCE_EVENT_SCHEMA_V1_WITHOUT_EVENT_ID;
+    private static final RecordSchema CONTENT_CLAIM_SCHEMA = new RecordSchema(EVENT_SCHEMA.getField(EventFieldNames.CONTENT_CLAIM).getSubFields());
+    private static final int ITERATION_BATCH_SIZE = 1000;
+
+    private final ByteBuffer buffer;
+    private final int maxEvents;
+
+    // the location and index entries of each event, at the slot given by its Event ID modulo maxEvents
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int[] componentIndices;
+    private final long[] uuidSignatures;
+    private final Map<String, Integer> componentIndexMap = new ConcurrentHashMap<>();
+
+    private final SchemaRecordWriter recordWriter = new SchemaRecordWriter();
+    private final SchemaRecordReader recordReader = SchemaRecordReader.fromSchema(EVENT_SCHEMA, new NoOpFieldCache());
+
+    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+    private final Lock readLock = rwLock.readLock();
+    private final Lock writeLock = rwLock.writeLock();
+
+    private long oldestEventId = 0L;
+    private long nextEventId = 0L;
+    private int writeOffset = 0;
+
+    OffHeapProvenanceEventBuffer(final int maxEvents, final int maxBytes) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("Maximum number of events must be positive");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Maximum number of bytes must be positive");
+        }
+
+        this.maxEvents = maxEvents;
+        this.buffer = ByteBuffer.allocateDirect(maxBytes);
+        this.offsets = new int[maxEvents];
+        this.lengths = new int[maxEvents];
+        this.componentIndices = new int[maxEvents];
+        this.uuidSignatures = new long[maxEvents];
+    }
+
+    @Override
+    public void add(final ProvenanceEventRecord event) {
+        final byte[] serialized = serialize(event);
+        if (serialized.length > buffer.capacity()) {
+            logger.warn("Discarding Provenance Event for FlowFile {} because its serialized form of {} bytes is larger than the buffer capacity of {} bytes",
+                event.getFlowFileUuid(), serialized.length, buffer.capacity());
+            return;
+        }
+
+        final long signature = createSignature(event);
+
+        writeLock.lock();
+        try {
+            final int componentIndex = componentIndexMap.computeIfAbsent(event.getComponentId(), id -> componentIndexMap.size());
+
+            // If the event does not fit between the write offset and the end of the ring, it is written at the start of the ring,
+            // and the space at the end of the ring is released along with the events that occupy it.
+            final boolean wrap = writeOffset + serialized.length > buffer.capacity();
+            final int offset = wrap ? 0 : writeOffset;
+            final int releasedFrom = wrap ? writeOffset : buffer.capacity();
+            while (oldestEventId < nextEventId) {
+                final int oldestSlot = getSlot(oldestEventId);
+                final int oldestOffset = offsets[oldestSlot];
+                final boolean overlaps = oldestOffset < offset + serialized.length && oldestOffset + lengths[oldestSlot] > offset;
+                if (nextEventId - oldestEventId < maxEvents && !overlaps && oldestOffset < releasedFrom) {
+                    break;
+                }
+
+                oldestEventId++;
+            }
+
+            buffer.put(offset, serialized);
+
+            final int slot = getSlot(nextEventId);
+            offsets[slot] = offset;
+            lengths[slot] = serialized.length;
+            componentIndices[slot] = componentIndex;
+            uuidSignatures[slot] = signature;
+
+            writeOffset = offset + serialized.length;
+            nextEventId++;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        readLock.lock();
+        try {
+            return (int) (nextEventId - oldestEventId);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public ProvenanceEventRecord getNewestEvent() {
+        final long newestEventId;
+        readLock.lock();
+        try {
+            if (nextEventId == oldestEventId) {
+                return null;
+            }
+
+            newestEventId = nextEventId - 1;
+        } finally {
+            readLock.unlock();
+        }
+
+        return getEvent(newestEventId);
+    }
+
+    @Override
+    public ProvenanceEventRecord getEvent(final long eventId) {
+        final byte[] serialized;
+        readLock.lock();
+        try {
+            if (eventId < oldestEventId || eventId >= nextEventId) {
+                return null;
+            }
+
+            serialized = read(getSlot(eventId));
+        } finally {
+            readLock.unlock();
+        }
+
+        return deserialize(serialized, eventId);
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getSelectedEvents(final Filter<ProvenanceEventRecord> filter, final int maxEvents) {
+        final List<ProvenanceEventRecord> selected = new ArrayList<>();
+        scan(IterationDirection.FORWARD, slot -> true, event -> {
+            if (filter.select(event)) {
+                selected.add(event);
+            }
+
+            return selected.size() < maxEvents;
+        });
+
+        return selected;
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEventsForComponent(final String componentId, final int maxEvents) {
+        final Integer componentIndex = componentIndexMap.get(componentId);
+        if (componentIndex == null) {
+            return List.of();
+        }
+
+        final List<ProvenanceEventRecord> selected = new ArrayList<>();
+        scan(IterationDirection.FORWARD, slot -> componentIndices[slot] == componentIndex, event -> {
+            selected.add(event);
+            return selected.size() < maxEvents;
+        });
+
+        return selected;
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEventsForFlowFiles(final Collection<String> flowFileUuids, final Filter<ProvenanceEventRecord> filter) {
+        final long[] signatures = flowFileUuids.stream()
+            .mapToLong(OffHeapProvenanceEventBuffer::createSignature)
+            .distinct()
+            .toArray();
+
+        final IntPredicate mayReferenceFlowFiles = slot -> {
+            final long eventSignature = uuidSignatures[slot];
+            for (final long signature : signatures) {
+                if ((eventSignature & signature) == signature) {
+                    return true;
+                }
+            }
+
+            return false;
+        };
+
+        final List<ProvenanceEventRecord> selected = new ArrayList<>();
+        scan(IterationDirection.FORWARD, mayReferenceFlowFiles, event -> {
+            if (filter.select(event)) {
+                selected.add(event);
+            }
+
+            return true;
+        });
+
+        return selected;
+    }
+
+    @Override
+    public void forEach(final ForEachEvaluator<ProvenanceEventRecord> evaluator, final IterationDirection direction) {
+        scan(direction, slot -> true, evaluator);
+    }
+
+    /**
+     * Iterates over the events whose slots are accepted by the given predicate. The serialized events are copied out of the ring in batches
+     * while holding the read lock, and deserialized and evaluated after releasing it so that new events can be added in the meantime.
+     */
+    private void scan(final IterationDirection direction, final IntPredicate slotPredicate, final ForEachEvaluator<ProvenanceEventRecord> evaluator) {
+        final boolean forward = direction == IterationDirection.FORWARD;
+        long cursor = forward ? Long.MIN_VALUE : Long.MAX_VALUE;
+
+        while (true) {
+            final long[] eventIds = new long[ITERATION_BATCH_SIZE];
+            final List<byte[]> batch = new ArrayList<>();
+
+            readLock.lock();
+            try {
+                long eventId = forward ? Math.max(cursor, oldestEventId) : Math.min(cursor, nextEventId - 1);
+                while (batch.size() < ITERATION_BATCH_SIZE && eventId >= oldestEventId && eventId < nextEventId) {
+                    final int slot = getSlot(eventId);
+                    if (slotPredicate.test(slot)) {
+                        eventIds[batch.size()] = eventId;
+                        batch.add(read(slot));
+                    }
+
+                    eventId = forward ? eventId + 1 : eventId - 1;
+                }
+
+                cursor = eventId;
+            } finally {
+                readLock.unlock();
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                if (!evaluator.evaluate(deserialize(batch.get(i), eventIds[i]))) {
+                    return;
+                }
+            }
+
+            if (batch.size() < ITERATION_BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private int getSlot(final long eventId) {
+        return (int) (eventId % maxEvents);
+    }
+
+    /**
+     * Must be called with the read lock or the write lock held
+     */
+    private byte[] read(final int slot) {
+        final byte[] serialized = new byte[lengths[slot]];
+        buffer.get(offsets[slot], serialized);
+        return serialized;
+    }
+
+    private byte[] serialize(final ProvenanceEventRecord event) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try {
+            recordWriter.writeRecord(new EventRecord(event, -1L, EVENT_SCHEMA, CONTENT_CLAIM_SCHEMA), out);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to serialize Provenance Event for FlowFile " + event.getFlowFileUuid(), e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private ProvenanceEventRecord deserialize(final byte[] serialized, final long eventId) {
+        final Record record;
+        try (final InputStream in = new ByteArrayInputStream(serialized)) {
+            record = recordReader.readRecord(in);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to deserialize Provenance Event with ID " + eventId, e);
+        }
+
+        // The Event ID is not serialized because it is determined by the slot of the event
+        final Record identifiedRecord = new Record() {
+            @Override
+            public RecordSchema getSchema() {
+                return record.getSchema();
+            }
+
+            @Override
+            public Object getFieldValue(final String fieldName) {
+                return EventFieldNames.EVENT_IDENTIFIER.equals(fieldName) ? eventId : record.getFieldValue(fieldName);
+            }
+        };
+
+        return EventRecord.getEvent(identifiedRecord, VolatileProvenanceRepository.CONTAINER_NAME, 0L, Integer.MAX_VALUE);
+    }
+
+    private static long createSignature(final ProvenanceEventRecord event) {
+        long signature = createSignature(event.getFlowFileUuid());
+        for (final String parentUuid : event.getParentUuids()) {
+            signature |= createSignature(parentUuid);
+        }
+        for (final String childUuid : event.getChildUuids()) {
+            signature |= createSignature(childUuid);
+        }
+
+        return signature;
+    }
+
+    // Sets 3 of 64 bits for a UUID, so that an event referencing a single FlowFile is mistaken for referencing another about once in 10,000 events
+    private static long createSignature(final String uuid) {
+        final int hash = uuid.hashCode() * 0x9E3779B1;
+        return (1L << (hash >>> 26)) | (1L << ((hash >>> 20) & 63)) | (1L << ((hash >>> 14) & 63));
+    }
+}
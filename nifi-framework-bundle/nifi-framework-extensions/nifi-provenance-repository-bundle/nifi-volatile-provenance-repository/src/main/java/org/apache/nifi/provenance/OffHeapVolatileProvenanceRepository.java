@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.util.NiFiProperties;
+
+/**
+ * A {@link VolatileProvenanceRepository} that keeps its events serialized in direct memory rather than as objects on the Java heap.
+ * This allows many more events to be retained without increasing the pressure on the garbage collector, at the cost of deserializing
+ * the events that are read by queries and lineage computations. Events are evicted oldest first when either the maximum number of events
+ * or the maximum storage size is reached.
+ */
+public class OffHeapVolatileProvenanceRepository extends VolatileProvenanceRepository {
+
+    // properties
+    public static final String MAX_STORAGE_SIZE = "nifi.provenance.repository.off.heap.max.storage.size";
+
+    // default property values
+    public static final String DEFAULT_MAX_STORAGE_SIZE = "256 MB";
+
+    /**
+     * Default no args constructor for service loading only
+     */
+    public OffHeapVolatileProvenanceRepository() {
+    }
+
+    public OffHeapVolatileProvenanceRepository(final NiFiProperties nifiProperties) {
+        this(nifiProperties.getIntegerProperty(BUFFER_SIZE, DEFAULT_BUFFER_SIZE),
+            parseMaxStorageSize(nifiProperties.getProperty(MAX_STORAGE_SIZE, DEFAULT_MAX_STORAGE_SIZE)),
+            nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS),
+            nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES));
+    }
+
+    public OffHeapVolatileProvenanceRepository(final int maxEvents, final int maxStorageBytes, final String indexedFieldString, final String indexAttributeString) {
+        super(maxEvents, indexedFieldString, indexAttributeString, new OffHeapProvenanceEventBuffer(maxEvents, maxStorageBytes));
+    }
+
+    private static int parseMaxStorageSize(final String value) {
+        final double bytes = DataUnit.parseDataSize(value, DataUnit.B);
+        if (bytes < 1 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid value for property " + MAX_STORAGE_SIZE + ": " + value + "; the value must be between 1 B and 2 GB");
+        }
+
+        return (int) bytes;
+    }
+}
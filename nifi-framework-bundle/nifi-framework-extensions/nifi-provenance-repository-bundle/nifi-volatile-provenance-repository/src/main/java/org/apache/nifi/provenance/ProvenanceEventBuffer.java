@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.util.RingBuffer.Filter;
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
+import org.apache.nifi.util.RingBuffer.IterationDirection;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Holds the events of a {@link VolatileProvenanceRepository}, retaining a bounded number of events and evicting the oldest events first.
+ * Implementations must be thread-safe.
+ */
+interface ProvenanceEventBuffer {
+
+    /**
+     * Adds the given event to the buffer, assigning it the next Event ID and evicting the oldest events if necessary in order to make room
+     *
+     * @param event the event to add
+     */
+    void add(ProvenanceEventRecord event);
+
+    /**
+     * @return the number of events in the buffer
+     */
+    int getSize();
+
+    /**
+     * @return the most recently added event, or <code>null</code> if the buffer is empty
+     */
+    ProvenanceEventRecord getNewestEvent();
+
+    /**
+     * @param eventId the ID of the event
+     * @return the event with the given ID, or <code>null</code> if the event is not in the buffer
+     */
+    ProvenanceEventRecord getEvent(long eventId);
+
+    /**
+     * Returns the events that are selected by the given filter, oldest first
+     *
+     * @param filter the filter that determines which events to return
+     * @param maxEvents the maximum number of events to return
+     * @return the selected events
+     */
+    List<ProvenanceEventRecord> getSelectedEvents(Filter<ProvenanceEventRecord> filter, int maxEvents);
+
+    /**
+     * Returns the events that were generated by the component with the given ID, oldest first
+     *
+     * @param componentId the ID of the component
+     * @param maxEvents the maximum number of events to return
+     * @return the events generated by the component
+     */
+    List<ProvenanceEventRecord> getEventsForComponent(String componentId, int maxEvents);
+
+    /**
+     * Returns the events that reference any of the given FlowFile UUIDs, as the event's FlowFile or as one of its parents or children,
+     * and that are selected by the given filter
+     *
+     * @param flowFileUuids the UUIDs of the FlowFiles of interest
+     * @param filter the filter that each of the returned events must also satisfy
+     * @return the events that reference the FlowFiles
+     */
+    List<ProvenanceEventRecord> getEventsForFlowFiles(Collection<String> flowFileUuids, Filter<ProvenanceEventRecord> filter);
+
+    /**
+     * Iterates over the events in the buffer until the evaluator returns <code>false</code>
+     *
+     * @param evaluator the evaluator to call for each event
+     * @param direction whether to iterate from oldest to newest ({@link IterationDirection#FORWARD}) or newest to oldest
+     */
+    void forEach(ForEachEvaluator<ProvenanceEventRecord> evaluator, IterationDirection direction);
+}
@@ -38,6 +38,7 @@ import org.apache.nifi.provenance.search.SearchableField;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.util.RingBuffer;
 import org.apache.nifi.util.RingBuffer.Filter;
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
 import org.apache.nifi.util.RingBuffer.IterationDirection;
 import org.apache.nifi.web.ResourceNotFoundException;
 
@@ -72,7 +73,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     public static final String CONTAINER_NAME = "in-memory";
 
-    private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+    private final ProvenanceEventBuffer eventBuffer;
     private final int maxSize;
     private final List<SearchableField> searchableFields;
     private final List<SearchableField> searchableAttributes;
@@ -81,7 +82,6 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     private final ConcurrentMap<String, AsyncQuerySubmission> querySubmissionMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, AsyncLineageSubmission> lineageSubmissionMap = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(0L);
     private final AtomicBoolean initialized = new AtomicBoolean(false);
 
     private Authorizer authorizer;  // effectively final
@@ -91,7 +91,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
      * Default no args constructor for service loading only
      */
     public VolatileProvenanceRepository() {
-        ringBuffer = null;
+        eventBuffer = null;
         searchableFields = null;
         searchableAttributes = null;
         queryExecService = null;
@@ -108,8 +108,12 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
     }
 
     public VolatileProvenanceRepository(final int maxEvents, final String indexedFieldString, final String indexAttributeString) {
+        this(maxEvents, indexedFieldString, indexAttributeString, new HeapEventBuffer(maxEvents));
+    }
+
+    VolatileProvenanceRepository(final int maxEvents, final String indexedFieldString, final String indexAttributeString, final ProvenanceEventBuffer eventBuffer) {
         maxSize = maxEvents;
-        ringBuffer = new RingBuffer<>(maxSize);
+        this.eventBuffer = eventBuffer;
         searchableFields = Collections.unmodifiableList(SearchableFieldParser.extractSearchableFields(indexedFieldString, true));
         searchableAttributes = Collections.unmodifiableList(SearchableFieldParser.extractSearchableFields(indexAttributeString, false));
 
@@ -153,8 +157,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void registerEvent(final ProvenanceEventRecord event) {
-        final long id = idGenerator.getAndIncrement();
-        ringBuffer.add(new IdEnrichedProvEvent(event, id));
+        eventBuffer.add(event);
     }
 
     @Override
@@ -171,7 +174,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public List<ProvenanceEventRecord> getEvents(final long firstRecordId, final int maxRecords, final NiFiUser user) {
-        return ringBuffer.getSelectedElements(value -> {
+        return eventBuffer.getSelectedEvents(value -> {
             if (!isAuthorized(value, user)) {
                 return false;
             }
@@ -182,20 +185,18 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public Long getMaxEventId() {
-        final ProvenanceEventRecord newest = ringBuffer.getNewestElement();
+        final ProvenanceEventRecord newest = eventBuffer.getNewestEvent();
         return (newest == null) ? null : newest.getEventId();
     }
 
     public ProvenanceEventRecord getEvent(final String identifier) {
-        final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(event -> identifier.equals(event.getFlowFileUuid()), 1);
+        final List<ProvenanceEventRecord> records = eventBuffer.getSelectedEvents(event -> identifier.equals(event.getFlowFileUuid()), 1);
         return records.isEmpty() ? null : records.getFirst();
     }
 
     @Override
     public ProvenanceEventRecord getEvent(final long id) {
-        final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(event -> event.getEventId() == id, 1);
-
-        return records.isEmpty() ? null : records.getFirst();
+        return eventBuffer.getEvent(id);
     }
 
     @Override
@@ -461,22 +462,21 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
         final String userId = user == null ? null : user.getIdentity();
         if (query.getSearchTerms().isEmpty() && query.getStartDate() == null && query.getEndDate() == null) {
             final AsyncQuerySubmission result = new AsyncQuerySubmission(query, 1, userId);
-            queryExecService.submit(new QueryRunnable(ringBuffer, createFilter(query, user), query.getMaxResults(), result));
+            queryExecService.submit(new QueryRunnable(eventBuffer, createFilter(query, user), query.getMaxResults(), result));
             querySubmissionMap.put(query.getIdentifier(), result);
             return result;
         }
 
         final AsyncQuerySubmission result = new AsyncQuerySubmission(query, 1, userId);
         querySubmissionMap.put(query.getIdentifier(), result);
-        queryExecService.submit(new QueryRunnable(ringBuffer, createFilter(query, user), query.getMaxResults(), result));
+        queryExecService.submit(new QueryRunnable(eventBuffer, createFilter(query, user), query.getMaxResults(), result));
 
         return result;
     }
 
     @Override
     public List<ProvenanceEventRecord> getLatestCachedEvents(final String componentId, final int eventLimit) {
-        final List<ProvenanceEventRecord> matches = ringBuffer.getSelectedElements(
-            event -> componentId.equals(event.getComponentId()), 1);
+        final List<ProvenanceEventRecord> matches = eventBuffer.getEventsForComponent(componentId, 1);
 
         if (matches.isEmpty()) {
             return List.of();
@@ -639,7 +639,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public long getContainerUsableSpace(String containerName) throws IOException {
-        return maxSize - ringBuffer.getSize();
+        return maxSize - eventBuffer.getSize();
     }
 
     @Override
@@ -676,20 +676,20 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
             return false;
         };
 
-        queryExecService.submit(new ComputeLineageRunnable(ringBuffer, filter, result));
+        queryExecService.submit(new ComputeLineageRunnable(eventBuffer, flowFileUuids, filter, result));
 
         return result;
     }
 
     private static class QueryRunnable implements Runnable {
 
-        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final ProvenanceEventBuffer eventBuffer;
         private final Filter<ProvenanceEventRecord> filter;
         private final AsyncQuerySubmission submission;
         private final int maxRecords;
 
-        public QueryRunnable(final RingBuffer<ProvenanceEventRecord> ringBuffer, final Filter<ProvenanceEventRecord> filter, final int maxRecords, final AsyncQuerySubmission submission) {
-            this.ringBuffer = ringBuffer;
+        public QueryRunnable(final ProvenanceEventBuffer eventBuffer, final Filter<ProvenanceEventRecord> filter, final int maxRecords, final AsyncQuerySubmission submission) {
+            this.eventBuffer = eventBuffer;
             this.filter = filter;
             this.submission = submission;
             this.maxRecords = maxRecords;
@@ -700,7 +700,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
             // Retrieve the most recent results and count the total number of matches
             final AtomicInteger matchingCount = new AtomicInteger(0);
             final List<ProvenanceEventRecord> matchingRecords = new ArrayList<>(maxRecords);
-            ringBuffer.forEach(record -> {
+            eventBuffer.forEach(record -> {
                 if (filter.select(record)) {
                     if (matchingCount.incrementAndGet() <= maxRecords) {
                         matchingRecords.add(record);
@@ -716,23 +716,81 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     private static class ComputeLineageRunnable implements Runnable {
 
-        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final ProvenanceEventBuffer eventBuffer;
+        private final Collection<String> flowFileUuids;
         private final Filter<ProvenanceEventRecord> filter;
         private final AsyncLineageSubmission submission;
 
-        public ComputeLineageRunnable(final RingBuffer<ProvenanceEventRecord> ringBuffer, final Filter<ProvenanceEventRecord> filter, final AsyncLineageSubmission submission) {
-            this.ringBuffer = ringBuffer;
+        public ComputeLineageRunnable(final ProvenanceEventBuffer eventBuffer, final Collection<String> flowFileUuids, final Filter<ProvenanceEventRecord> filter,
+                                      final AsyncLineageSubmission submission) {
+            this.eventBuffer = eventBuffer;
+            this.flowFileUuids = flowFileUuids;
             this.filter = filter;
             this.submission = submission;
         }
 
         @Override
         public void run() {
-            final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(filter);
+            final List<ProvenanceEventRecord> records = eventBuffer.getEventsForFlowFiles(flowFileUuids, filter);
             submission.getResult().update(records, records.size());
         }
     }
 
+    /**
+     * Keeps the events on the Java heap in a {@link RingBuffer}
+     */
+    private static class HeapEventBuffer implements ProvenanceEventBuffer {
+
+        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final AtomicLong idGenerator = new AtomicLong(0L);
+
+        public HeapEventBuffer(final int maxEvents) {
+            this.ringBuffer = new RingBuffer<>(maxEvents);
+        }
+
+        @Override
+        public void add(final ProvenanceEventRecord event) {
+            final long id = idGenerator.getAndIncrement();
+            ringBuffer.add(new IdEnrichedProvEvent(event, id));
+        }
+
+        @Override
+        public int getSize() {
+            return ringBuffer.getSize();
+        }
+
+        @Override
+        public ProvenanceEventRecord getNewestEvent() {
+            return ringBuffer.getNewestElement();
+        }
+
+        @Override
+        public ProvenanceEventRecord getEvent(final long eventId) {
+            final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(event -> event.getEventId() == eventId, 1);
+            return records.isEmpty() ? null : records.getFirst();
+        }
+
+        @Override
+        public List<ProvenanceEventRecord> getSelectedEvents(final Filter<ProvenanceEventRecord> filter, final int maxEvents) {
+            return ringBuffer.getSelectedElements(filter, maxEvents);
+        }
+
+        @Override
+        public List<ProvenanceEventRecord> getEventsForComponent(final String componentId, final int maxEvents) {
+            return ringBuffer.getSelectedElements(event -> componentId.equals(event.getComponentId()), maxEvents);
+        }
+
+        @Override
+        public List<ProvenanceEventRecord> getEventsForFlowFiles(final Collection<String> flowFileUuids, final Filter<ProvenanceEventRecord> filter) {
+            return ringBuffer.getSelectedElements(filter);
+        }
+
+        @Override
+        public void forEach(final ForEachEvaluator<ProvenanceEventRecord> evaluator, final IterationDirection direction) {
+            ringBuffer.forEach(evaluator, direction);
+        }
+    }
+
     private class RemoveExpiredQueryResults implements Runnable {
 
         @Override
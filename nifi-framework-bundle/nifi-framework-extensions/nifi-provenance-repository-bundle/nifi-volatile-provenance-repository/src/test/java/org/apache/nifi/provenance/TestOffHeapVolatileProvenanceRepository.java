@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
+import org.apache.nifi.provenance.lineage.LineageNode;
+import org.apache.nifi.provenance.lineage.LineageNodeType;
+import org.apache.nifi.provenance.lineage.ProvenanceEventLineageNode;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QuerySubmission;
+import org.apache.nifi.provenance.search.SearchTerms;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(value = 10)
+public class TestOffHeapVolatileProvenanceRepository {
+
+    private OffHeapVolatileProvenanceRepository repo;
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        if (repo != null) {
+            repo.close();
+        }
+    }
+
+    @Test
+    public void testEventsAreRestoredFromStorage() throws IOException {
+        repo = new OffHeapVolatileProvenanceRepository(100, 1024 * 1024, null, null);
+
+        final String uuid = UUID.randomUUID().toString();
+        final ProvenanceEventRecord event = new StandardProvenanceEventRecord.Builder()
+            .setEventType(ProvenanceEventType.RECEIVE)
+            .setEventTime(1000L)
+            .setFlowFileUUID(uuid)
+            .setComponentId("component-1")
+            .setComponentType("unit test")
+            .setTransitUri("nifi://unit-test")
+            .setAttributes(Map.of(), Map.of("uuid", uuid, "filename", "file.txt"))
+            .setCurrentContentClaim("container", "section", "identifier", 12L, 3000L)
+            .build();
+
+        repo.registerEvent(event);
+        repo.registerEvent(event);
+
+        final ProvenanceEventRecord restored = repo.getEvent(1L);
+        assertEquals(1L, restored.getEventId());
+        assertEquals(uuid, restored.getFlowFileUuid());
+        assertEquals(ProvenanceEventType.RECEIVE, restored.getEventType());
+        assertEquals("nifi://unit-test", restored.getTransitUri());
+        assertEquals("file.txt", restored.getAttributes().get("filename"));
+        assertEquals("identifier", restored.getContentClaimIdentifier());
+        assertEquals(12L, restored.getContentClaimOffset());
+        assertEquals(3000L, restored.getFileSize());
+
+        assertEquals(1L, repo.getMaxEventId());
+        assertEquals(2, repo.getEvents(0L, 10).size());
+        assertNull(repo.getEvent(2L));
+    }
+
+    @Test
+    public void testOldestEventsEvictedWhenMaxEventsReached() throws IOException {
+        repo = new OffHeapVolatileProvenanceRepository(10, 1024 * 1024, null, null);
+
+        for (int i = 0; i < 25; i++) {
+            repo.registerEvent(createEvent(UUID.randomUUID().toString(), "component-" + (i % 2)));
+        }
+
+        final List<ProvenanceEventRecord> events = repo.getEvents(0L, 100);
+        assertEquals(10, events.size());
+        assertEquals(15L, events.getFirst().getEventId());
+        assertEquals(24L, events.getLast().getEventId());
+        assertNull(repo.getEvent(14L));
+
+        final List<ProvenanceEventRecord> cached = repo.getLatestCachedEvents("component-0", 1);
+        assertEquals(1, cached.size());
+        assertEquals("component-0", cached.getFirst().getComponentId());
+    }
+
+    @Test
+    public void testOldestEventsEvictedWhenMaxStorageSizeReached() throws IOException {
+        repo = new OffHeapVolatileProvenanceRepository(10_000, 16 * 1024, null, null);
+
+        for (int i = 0; i < 1000; i++) {
+            repo.registerEvent(createEvent(UUID.randomUUID().toString(), "component-1"));
+        }
+
+        final List<ProvenanceEventRecord> events = repo.getEvents(0L, 10_000);
+        assertTrue(events.size() > 10);
+        assertTrue(events.size() < 1000);
+
+        // every retained event must still be intact, with the newest events retained in order
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(1000 - events.size() + i, events.get(i).getEventId());
+            assertEquals("component-1", events.get(i).getComponentId());
+        }
+    }
+
+    @Test
+    public void testQueryAndLineage() throws InterruptedException {
+        repo = new OffHeapVolatileProvenanceRepository(1000, 1024 * 1024, null, null);
+
+        final String parentUuid = UUID.randomUUID().toString();
+        final String childUuid = UUID.randomUUID().toString();
+        repo.registerEvent(createEvent(parentUuid, "component-1"));
+        for (int i = 0; i < 100; i++) {
+            repo.registerEvent(createEvent(UUID.randomUUID().toString(), "component-2"));
+        }
+        repo.registerEvent(new StandardProvenanceEventRecord.Builder()
+            .setEventType(ProvenanceEventType.FORK)
+            .setEventTime(System.currentTimeMillis())
+            .setFlowFileUUID(parentUuid)
+            .setComponentId("component-1")
+            .setComponentType("unit test")
+            .setCurrentContentClaim(null, null, null, null, 0L)
+            .setAttributes(Map.of(), Map.of("uuid", parentUuid))
+            .addParentUuid(parentUuid)
+            .addChildUuid(childUuid)
+            .build());
+        repo.registerEvent(createEvent(childUuid, "component-2", ProvenanceEventType.DROP));
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-1", null));
+        query.setMaxResults(100);
+
+        final QuerySubmission submission = repo.submitQuery(query, null);
+        assertTrue(submission.getResult().awaitCompletion(5, TimeUnit.SECONDS));
+        assertEquals(2, submission.getResult().getMatchingEvents().size());
+
+        final ComputeLineageSubmission lineageSubmission = repo.submitLineageComputation(childUuid, null);
+        assertTrue(lineageSubmission.getResult().awaitCompletion(5, TimeUnit.SECONDS));
+
+        final Set<ProvenanceEventType> eventTypes = lineageSubmission.getResult().getNodes().stream()
+            .filter(node -> node.getNodeType() == LineageNodeType.PROVENANCE_EVENT_NODE)
+            .map(node -> ((ProvenanceEventLineageNode) node).getEventType())
+            .collect(Collectors.toSet());
+        assertEquals(Set.of(ProvenanceEventType.FORK, ProvenanceEventType.DROP), eventTypes);
+        assertTrue(lineageSubmission.getResult().getNodes().stream().map(LineageNode::getFlowFileUuid).anyMatch(childUuid::equals));
+    }
+
+    private ProvenanceEventRecord createEvent(final String uuid, final String componentId) {
+        return createEvent(uuid, componentId, ProvenanceEventType.RECEIVE);
+    }
+
+    private ProvenanceEventRecord createEvent(final String uuid, final String componentId, final ProvenanceEventType eventType) {
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventType(eventType)
+            .setEventTime(System.currentTimeMillis())
+            .setFlowFileUUID(uuid)
+            .setComponentId(componentId)
+            .setComponentType("unit test")
+            .setTransitUri("nifi://unit-test")
+            .setCurrentContentClaim(null, null, null, null, 0L)
+            .setAttributes(Map.of(), Map.of("uuid", uuid))
+            .build();
+    }
+}
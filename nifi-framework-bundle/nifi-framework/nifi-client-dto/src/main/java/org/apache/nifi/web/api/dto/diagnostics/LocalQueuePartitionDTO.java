@@ -29,6 +29,9 @@ public class LocalQueuePartitionDTO {
     private int swapFlowFileCount;
     private long swapByteCount;
     private int swapFiles;
+    private long swapInCount;
+    private long swapInStallCount;
+    private long swapInMillis;
     private int inFlightFlowFileCount;
     private long inFlightByteCount;
     private Boolean allActiveQueueFlowFilesPenalized;
@@ -97,6 +100,34 @@ public class LocalQueuePartitionDTO {
         this.swapFiles = swapFiles;
     }
 
+    @Schema(description = "The number of Swap Files that have been swapped in for this Connection")
+    public long getSwapInCount() {
+        return swapInCount;
+    }
+
+    public void setSwapInCount(long swapInCount) {
+        this.swapInCount = swapInCount;
+    }
+
+    @Schema(description = "The number of times that FlowFiles had to be swapped in for this Connection while waiting on a Swap File to be read or written, "
+        + "rather than using FlowFiles that had already been read in the background")
+    public long getSwapInStallCount() {
+        return swapInStallCount;
+    }
+
+    public void setSwapInStallCount(long swapInStallCount) {
+        this.swapInStallCount = swapInStallCount;
+    }
+
+    @Schema(description = "The total number of milliseconds that have been spent swapping in Swap Files for this Connection")
+    public long getSwapInMillis() {
+        return swapInMillis;
+    }
+
+    public void setSwapInMillis(long swapInMillis) {
+        this.swapInMillis = swapInMillis;
+    }
+
     @Schema(description = "The number of In-Flight FlowFiles for this Connection. These are FlowFiles that belong to the connection but are currently being operated on by a Processor, Port, etc.")
     public int getInFlightFlowFileCount() {
         return inFlightFlowFileCount;
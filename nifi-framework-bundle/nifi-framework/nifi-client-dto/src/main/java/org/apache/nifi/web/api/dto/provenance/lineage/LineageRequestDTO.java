@@ -43,6 +43,10 @@ public class LineageRequestDTO {
     private String uuid;
     private String clusterNodeId;
 
+    private Boolean streaming;
+    private Integer maxDepth;
+    private Integer maxNodes;
+
     /**
      * @return event id that was used to generate this lineage
      */
@@ -101,4 +105,44 @@ public class LineageRequestDTO {
         this.uuid = uuid;
     }
 
+    /**
+     * @return whether the lineage should be computed one generation at a time, publishing the partial graph as it is discovered
+     */
+    @Schema(description = """
+                    Whether the lineage should be computed one generation of descendants at a time. When true, the nodes and links discovered so far
+                    are returned while the lineage request is still running. Streaming is only supported when the lineageRequestType is FLOWFILE and
+                    the flowfile uuid is specified.
+                    """
+    )
+    public Boolean getStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(Boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * @return the maximum number of generations of descendants to include in a streaming lineage
+     */
+    @Schema(description = "The maximum number of generations of descendants to include in a streaming lineage.")
+    public Integer getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(Integer maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @return the maximum number of events to include in a streaming lineage
+     */
+    @Schema(description = "The maximum number of events to include in a streaming lineage.")
+    public Integer getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(Integer maxNodes) {
+        this.maxNodes = maxNodes;
+    }
 }
@@ -29,6 +29,7 @@ import java.util.Set;
 public class LineageResultsDTO {
 
     private Set<String> errors;
+    private Boolean incomplete;
 
     private List<ProvenanceNodeDTO> nodes;
     private List<ProvenanceLinkDTO> links;
@@ -46,6 +47,19 @@ public class LineageResultsDTO {
         this.errors = errors;
     }
 
+    /**
+     * @return whether some of the events of the FlowFiles in the lineage were not recorded
+     */
+    @Schema(description = "Whether the lineage may be missing events because the Provenance Repository sampled or aggregated the events of some of its FlowFiles."
+    )
+    public Boolean getIncomplete() {
+        return incomplete;
+    }
+
+    public void setIncomplete(Boolean incomplete) {
+        this.incomplete = incomplete;
+    }
+
     /**
      * @return the nodes
      */
@@ -0,0 +1,514 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.repository.schema.FieldCache;
+import org.wali.SerDe;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A SerDe that writes Repository Records using a compact binary encoding. Numeric fields are written as variable-length integers,
+ * and attribute keys that are known to the {@link AttributeKeyDictionary} when the SerDe is created are written as a reference into
+ * the dictionary rather than as a String. The dictionary is written as part of the header so that the data can be read back even
+ * if the dictionary of the reading JVM differs.
+ * </p>
+ *
+ * <p>
+ * When a FlowFile is updated, only the attributes that were added, changed, or removed since the previous state of the FlowFile are
+ * written. Because the journal may serialize records from many threads concurrently, the dictionary is never modified once the SerDe
+ * has been created, which means that the SerDe holds no state that changes as records are serialized.
+ * </p>
+ *
+ * <p>
+ * A FlowFile whose content is held in the FlowFile record itself is written with its content in place of the Content Claim.
+ * </p>
+ */
+public class CompactRepositoryRecordSerde extends RepositoryRecordSerde implements SerDe<SerializedRepositoryRecord> {
+    private static final int CURRENT_ENCODING_VERSION = 2;
+
+    private static final int ACTION_CREATE = 0;
+    private static final int ACTION_UPDATE = 1;
+    private static final int ACTION_DELETE = 2;
+    private static final int ACTION_SWAP_OUT = 3;
+    private static final int ACTION_SWAP_IN = 4;
+    private static final int ACTION_SWAP_FILE_DELETED = 5;
+    private static final int ACTION_SWAP_FILE_RENAMED = 6;
+
+    private static final int ATTRIBUTES_FULL = 0;
+    private static final int ATTRIBUTES_DELTA = 1;
+
+    private static final int NO_CONTENT = 0;
+    private static final int CONTENT_CLAIM = 1;
+    private static final int INLINE_CONTENT = 2;
+
+    private static final int INLINE_KEY = 0;
+
+    private final ResourceClaimManager resourceClaimManager;
+    private final FieldCache fieldCache;
+    private final Map<String, Integer> keyReferences;
+    private volatile String[] readKeys = new String[0];
+
+    public CompactRepositoryRecordSerde(final ResourceClaimManager resourceClaimManager, final FieldCache fieldCache) {
+        this.resourceClaimManager = resourceClaimManager;
+        this.fieldCache = fieldCache;
+
+        final List<String> dictionaryKeys = AttributeKeyDictionary.getKeys();
+        keyReferences = new HashMap<>(dictionaryKeys.size() * 2);
+        for (int i = 0; i < dictionaryKeys.size(); i++) {
+            keyReferences.put(dictionaryKeys.get(i), i + 1);
+        }
+    }
+
+    @Override
+    public void writeHeader(final DataOutputStream out) throws IOException {
+        final String[] keys = new String[keyReferences.size()];
+        for (final Map.Entry<String, Integer> entry : keyReferences.entrySet()) {
+            keys[entry.getValue() - 1] = entry.getKey();
+        }
+
+        writeVarInt(keys.length, out);
+        for (final String key : keys) {
+            writeString(key, out);
+        }
+    }
+
+    @Override
+    public void readHeader(final DataInputStream in) throws IOException {
+        final int keyCount = readVarInt(in);
+        final String[] keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = AttributeKeyDictionary.intern(readString(in));
+        }
+
+        readKeys = keys;
+    }
+
+    @Override
+    public void serializeRecord(final SerializedRepositoryRecord record, final DataOutputStream out) throws IOException {
+        serializeEdit(null, record, out);
+    }
+
+    @Override
+    public void serializeEdit(final SerializedRepositoryRecord previousRecordState, final SerializedRepositoryRecord record, final DataOutputStream out) throws IOException {
+        switch (record.getType()) {
+            case CONTENTMISSING, DELETE -> {
+                out.write(ACTION_DELETE);
+                writeVarLong(getRecordIdentifier(record), out);
+            }
+            case SWAP_OUT -> {
+                out.write(ACTION_SWAP_OUT);
+                writeVarLong(getRecordIdentifier(record), out);
+                writeString(record.getQueueIdentifier(), out);
+                writeString(record.getSwapLocation(), out);
+            }
+            case SWAP_FILE_DELETED -> {
+                out.write(ACTION_SWAP_FILE_DELETED);
+                writeString(record.getQueueIdentifier(), out);
+                writeString(record.getSwapLocation(), out);
+            }
+            case SWAP_FILE_RENAMED -> {
+                out.write(ACTION_SWAP_FILE_RENAMED);
+                writeString(record.getQueueIdentifier(), out);
+                writeString(record.getOriginalSwapLocation(), out);
+                writeString(record.getSwapLocation(), out);
+            }
+            case CREATE -> {
+                out.write(ACTION_CREATE);
+                serializeFlowFile(null, record, out);
+            }
+            case UPDATE -> {
+                out.write(ACTION_UPDATE);
+                serializeFlowFile(previousRecordState, record, out);
+            }
+            case SWAP_IN -> {
+                out.write(ACTION_SWAP_IN);
+                serializeFlowFile(null, record, out);
+                writeString(record.getSwapLocation(), out);
+            }
+            default -> throw new IllegalArgumentException("Received Repository Record with unknown Update Type: " + record.getType());
+        }
+    }
+
+    private void serializeFlowFile(final SerializedRepositoryRecord previousRecordState, final SerializedRepositoryRecord record, final DataOutputStream out) throws IOException {
+        final FlowFileRecord flowFile = record.getFlowFileRecord();
+
+        writeVarLong(flowFile.getId(), out);
+        writeVarLong(flowFile.getEntryDate(), out);
+        writeVarLong(flowFile.getLineageStartDate(), out);
+        writeVarLong(flowFile.getLineageStartIndex(), out);
+
+        final Long queueDate = flowFile.getLastQueueDate();
+        writeVarLong(queueDate == null ? System.currentTimeMillis() : queueDate, out);
+        writeVarLong(flowFile.getQueueDateIndex(), out);
+        writeVarLong(flowFile.getSize(), out);
+
+        final String queueIdentifier = record.getQueueIdentifier();
+        writeString(queueIdentifier == null ? "" : queueIdentifier, out);
+
+        final byte[] inlineContent = flowFile.getInlineContent();
+        if (inlineContent == null) {
+            serializeContentClaim(record.getContentClaim(), record.getClaimOffset(), out);
+        } else {
+            out.write(INLINE_CONTENT);
+            writeVarInt(inlineContent.length, out);
+            out.write(inlineContent);
+        }
+
+        final FlowFileRecord previousFlowFile = previousRecordState == null ? null : previousRecordState.getFlowFileRecord();
+        if (previousFlowFile == null) {
+            serializeAttributes(flowFile.getAttributes(), out);
+        } else {
+            serializeAttributeDelta(previousFlowFile.getAttributes(), flowFile.getAttributes(), out);
+        }
+    }
+
+    private void serializeAttributes(final Map<String, String> attributes, final DataOutputStream out) throws IOException {
+        out.write(ATTRIBUTES_FULL);
+        writeVarInt(attributes.size(), out);
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            writeKey(entry.getKey(), out);
+            writeString(entry.getValue(), out);
+        }
+    }
+
+    private void serializeAttributeDelta(final Map<String, String> previousAttributes, final Map<String, String> attributes, final DataOutputStream out) throws IOException {
+        // FlowFiles whose attributes have not been modified share the same attribute map with their previous state.
+        if (previousAttributes == attributes) {
+            out.write(ATTRIBUTES_DELTA);
+            writeVarInt(0, out);
+            writeVarInt(0, out);
+            return;
+        }
+
+        final List<String> removedKeys = new ArrayList<>();
+        for (final String key : previousAttributes.keySet()) {
+            if (!attributes.containsKey(key)) {
+                removedKeys.add(key);
+            }
+        }
+
+        final List<Map.Entry<String, String>> updatedEntries = new ArrayList<>();
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            if (!entry.getValue().equals(previousAttributes.get(entry.getKey()))) {
+                updatedEntries.add(entry);
+            }
+        }
+
+        if (removedKeys.size() + updatedEntries.size() >= attributes.size()) {
+            serializeAttributes(attributes, out);
+            return;
+        }
+
+        out.write(ATTRIBUTES_DELTA);
+        writeVarInt(removedKeys.size(), out);
+        for (final String key : removedKeys) {
+            writeKey(key, out);
+        }
+
+        writeVarInt(updatedEntries.size(), out);
+        for (final Map.Entry<String, String> entry : updatedEntries) {
+            writeKey(entry.getKey(), out);
+            writeString(entry.getValue(), out);
+        }
+    }
+
+    private void serializeContentClaim(final ContentClaim claim, final long offset, final DataOutputStream out) throws IOException {
+        if (claim == null) {
+            out.write(NO_CONTENT);
+            return;
+        }
+
+        out.write(CONTENT_CLAIM);
+
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        writeString(resourceClaim.getContainer(), out);
+        writeString(resourceClaim.getSection(), out);
+        writeString(resourceClaim.getId(), out);
+        out.writeBoolean(resourceClaim.isLossTolerant());
+        writeVarLong(claim.getOffset(), out);
+        writeVarLong(claim.getLength(), out);
+        writeVarLong(offset, out);
+    }
+
+    @Override
+    public SerializedRepositoryRecord deserializeEdit(final DataInputStream in, final Map<Object, SerializedRepositoryRecord> currentRecordStates, final int version) throws IOException {
+        final int action = in.read();
+        if (action == -1) {
+            throw new EOFException();
+        }
+
+        return deserialize(action, in, currentRecordStates);
+    }
+
+    @Override
+    public SerializedRepositoryRecord deserializeRecord(final DataInputStream in, final int version) throws IOException {
+        final int action = in.read();
+        if (action == -1) {
+            return null;
+        }
+
+        return deserialize(action, in, null);
+    }
+
+    private SerializedRepositoryRecord deserialize(final int action, final DataInputStream in, final Map<Object, SerializedRepositoryRecord> currentRecordStates) throws IOException {
+        return switch (action) {
+            case ACTION_DELETE -> new ReconstitutedSerializedRepositoryRecord.Builder()
+                .type(RepositoryRecordType.DELETE)
+                .flowFileRecord(new StandardFlowFileRecord.Builder().id(readVarLong(in)).build())
+                .build();
+            case ACTION_SWAP_OUT -> {
+                final long recordId = readVarLong(in);
+                yield new ReconstitutedSerializedRepositoryRecord.Builder()
+                    .type(RepositoryRecordType.SWAP_OUT)
+                    .flowFileRecord(new StandardFlowFileRecord.Builder().id(recordId).build())
+                    .queueIdentifier(readCachedString(in))
+                    .swapLocation(readString(in))
+                    .build();
+            }
+            case ACTION_SWAP_FILE_DELETED -> new ReconstitutedSerializedRepositoryRecord.Builder()
+                .type(RepositoryRecordType.SWAP_FILE_DELETED)
+                .queueIdentifier(readCachedString(in))
+                .swapLocation(readString(in))
+                .build();
+            case ACTION_SWAP_FILE_RENAMED -> new ReconstitutedSerializedRepositoryRecord.Builder()
+                .type(RepositoryRecordType.SWAP_FILE_RENAMED)
+                .queueIdentifier(readCachedString(in))
+                .originalSwapLocation(readString(in))
+                .swapLocation(readString(in))
+                .build();
+            case ACTION_CREATE -> deserializeFlowFile(RepositoryRecordType.CREATE, in, currentRecordStates);
+            case ACTION_UPDATE -> deserializeFlowFile(RepositoryRecordType.UPDATE, in, currentRecordStates);
+            case ACTION_SWAP_IN -> deserializeFlowFile(RepositoryRecordType.SWAP_IN, in, currentRecordStates);
+            default -> throw new IOException("Found unrecognized Update Type " + action + "; the FlowFile Repository appears to be corrupt!");
+        };
+    }
+
+    private SerializedRepositoryRecord deserializeFlowFile(final RepositoryRecordType type, final DataInputStream in,
+                                                           final Map<Object, SerializedRepositoryRecord> currentRecordStates) throws IOException {
+        final long recordId = readVarLong(in);
+
+        final StandardFlowFileRecord.Builder ffBuilder = new StandardFlowFileRecord.Builder();
+        ffBuilder.id(recordId);
+        ffBuilder.entryDate(readVarLong(in));
+
+        final long lineageStartDate = readVarLong(in);
+        final long lineageStartIndex = readVarLong(in);
+        ffBuilder.lineageStart(lineageStartDate, lineageStartIndex);
+
+        final long lastQueueDate = readVarLong(in);
+        final long queueDateIndex = readVarLong(in);
+        ffBuilder.lastQueued(lastQueueDate, queueDateIndex);
+
+        ffBuilder.size(readVarLong(in));
+        final String queueIdentifier = readCachedString(in);
+
+        deserializeContentClaim(in, ffBuilder);
+
+        final int attributesMode = in.read();
+        if (attributesMode == ATTRIBUTES_FULL) {
+            ffBuilder.addAttributes(deserializeAttributes(PersistentAttributeMap.empty(), in));
+        } else if (attributesMode == ATTRIBUTES_DELTA) {
+            final SerializedRepositoryRecord previousRecordState = currentRecordStates == null ? null : currentRecordStates.get(recordId);
+            final FlowFileRecord previousFlowFile = previousRecordState == null ? null : previousRecordState.getFlowFileRecord();
+            if (previousFlowFile == null) {
+                throw new IOException("Found changes to the attributes of FlowFile " + recordId + " but the previous state of the FlowFile is not known; "
+                    + "the FlowFile Repository appears to be corrupt!");
+            }
+
+            PersistentAttributeMap attributes = PersistentAttributeMap.copyOf(previousFlowFile.getAttributes());
+            final int removedCount = readVarInt(in);
+            for (int i = 0; i < removedCount; i++) {
+                attributes = attributes.without(readKey(in));
+            }
+
+            ffBuilder.addAttributes(deserializeAttributes(attributes, in));
+        } else if (attributesMode == -1) {
+            throw new EOFException();
+        } else {
+            throw new IOException("Attribute Encoding Qualifier not found in stream; found value: " + attributesMode + "; the FlowFile Repository appears to be corrupt!");
+        }
+
+        final String swapLocation = type == RepositoryRecordType.SWAP_IN ? readString(in) : null;
+
+        return new ReconstitutedSerializedRepositoryRecord.Builder()
+            .type(type)
+            .flowFileRecord(ffBuilder.build())
+            .queueIdentifier(queueIdentifier)
+            .swapLocation(swapLocation)
+            .build();
+    }
+
+    private PersistentAttributeMap deserializeAttributes(final PersistentAttributeMap initialAttributes, final DataInputStream in) throws IOException {
+        PersistentAttributeMap attributes = initialAttributes;
+        final int attributeCount = readVarInt(in);
+        for (int i = 0; i < attributeCount; i++) {
+            final String key = readKey(in);
+            final String value = readCachedString(in);
+            attributes = attributes.with(key, value);
+        }
+
+        return attributes;
+    }
+
+    private void deserializeContentClaim(final DataInputStream in, final StandardFlowFileRecord.Builder ffBuilder) throws IOException {
+        final int claimExists = in.read();
+        if (claimExists == NO_CONTENT) {
+            return;
+        }
+        if (claimExists == -1) {
+            throw new EOFException();
+        }
+        if (claimExists == INLINE_CONTENT) {
+            final byte[] inlineContent = new byte[readVarInt(in)];
+            in.readFully(inlineContent);
+            ffBuilder.inlineContent(inlineContent);
+            return;
+        }
+        if (claimExists != CONTENT_CLAIM) {
+            throw new IOException("Claim Existence Qualifier not found in stream; found value: " + claimExists + "; the FlowFile Repository appears to be corrupt!");
+        }
+
+        final String container = readCachedString(in);
+        final String section = readCachedString(in);
+        final String identifier = readCachedString(in);
+        final boolean lossTolerant = in.readBoolean();
+        final long resourceOffset = readVarLong(in);
+        final long resourceLength = readVarLong(in);
+        final long claimOffset = readVarLong(in);
+
+        final ResourceClaim resourceClaim = resourceClaimManager.newResourceClaim(container, section, identifier, lossTolerant, false);
+        final StandardContentClaim contentClaim = new StandardContentClaim(resourceClaim, resourceOffset);
+        contentClaim.setLength(resourceLength);
+
+        ffBuilder.contentClaim(contentClaim);
+        ffBuilder.contentClaimOffset(claimOffset);
+    }
+
+    private void writeKey(final String key, final DataOutputStream out) throws IOException {
+        final Integer reference = keyReferences.get(key);
+        if (reference == null) {
+            writeVarInt(INLINE_KEY, out);
+            writeString(key, out);
+        } else {
+            writeVarInt(reference, out);
+        }
+    }
+
+    private String readKey(final DataInputStream in) throws IOException {
+        final int reference = readVarInt(in);
+        if (reference == INLINE_KEY) {
+            return AttributeKeyDictionary.intern(readString(in));
+        }
+
+        final String[] keys = readKeys;
+        if (reference > keys.length) {
+            throw new IOException("Found reference to Attribute Key " + reference + " but only " + keys.length + " keys are known; the FlowFile Repository appears to be corrupt!");
+        }
+
+        return keys[reference - 1];
+    }
+
+    private void writeString(final String value, final DataOutputStream out) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length, out);
+        out.write(bytes);
+    }
+
+    private String readString(final DataInputStream in) throws IOException {
+        final int length = readVarInt(in);
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String readCachedString(final DataInputStream in) throws IOException {
+        return fieldCache.cache(readString(in));
+    }
+
+    private void writeVarInt(final int value, final DataOutputStream out) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    private int readVarInt(final DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Found malformed variable-length integer; the FlowFile Repository appears to be corrupt!");
+    }
+
+    // Values are zig-zag encoded so that small negative values, such as the length of a Content Claim whose length is unknown, remain small.
+    private void writeVarLong(final long value, final DataOutputStream out) throws IOException {
+        long remaining = (value << 1) ^ (value >> 63);
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    private long readVarLong(final DataInputStream in) throws IOException {
+        long encoded = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+
+            encoded |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (encoded >>> 1) ^ -(encoded & 1);
+            }
+        }
+
+        throw new IOException("Found malformed variable-length integer; the FlowFile Repository appears to be corrupt!");
+    }
+
+    @Override
+    public int getVersion() {
+        return CURRENT_ENCODING_VERSION;
+    }
+}
@@ -44,9 +44,9 @@ import java.io.IOException;
 import java.util.Map;
 
 public class SchemaRepositoryRecordSerde extends RepositoryRecordSerde implements SerDe<SerializedRepositoryRecord> {
-    private static final int MAX_ENCODING_VERSION = 3;
+    private static final int MAX_ENCODING_VERSION = 4;
 
-    private final RecordSchema writeSchema = RepositoryRecordSchema.REPOSITORY_RECORD_SCHEMA_V3;
+    private final RecordSchema writeSchema = RepositoryRecordSchema.REPOSITORY_RECORD_SCHEMA_V4;
     private final RecordSchema contentClaimSchema = ContentClaimSchema.CONTENT_CLAIM_SCHEMA_V1;
 
     private final ResourceClaimManager resourceClaimManager;
@@ -72,9 +72,9 @@ public class SchemaRepositoryRecordSerde extends RepositoryRecordSerde implement
     @Override
     public void serializeRecord(final SerializedRepositoryRecord record, final DataOutputStream out) throws IOException {
         final RecordSchema schema = switch (record.getType()) {
-            case CREATE, UPDATE -> RepositoryRecordSchema.CREATE_OR_UPDATE_SCHEMA_V2;
+            case CREATE, UPDATE -> RepositoryRecordSchema.CREATE_OR_UPDATE_SCHEMA_V4;
             case CONTENTMISSING, DELETE -> RepositoryRecordSchema.DELETE_SCHEMA_V2;
-            case SWAP_IN -> RepositoryRecordSchema.SWAP_IN_SCHEMA_V2;
+            case SWAP_IN -> RepositoryRecordSchema.SWAP_IN_SCHEMA_V4;
             case SWAP_OUT -> RepositoryRecordSchema.SWAP_OUT_SCHEMA_V2;
             case SWAP_FILE_DELETED -> RepositoryRecordSchema.SWAP_FILE_DELETED_SCHEMA_V3;
             case SWAP_FILE_RENAMED -> RepositoryRecordSchema.SWAP_FILE_RENAMED_SCHEMA_V3;
@@ -82,7 +82,7 @@ public class SchemaRepositoryRecordSerde extends RepositoryRecordSerde implement
                     throw new IllegalArgumentException("Received Repository Record with unknown Update Type: " + record.getType()); // won't happen.
         };
 
-        serializeRecord(record, out, schema, RepositoryRecordSchema.REPOSITORY_RECORD_SCHEMA_V3);
+        serializeRecord(record, out, schema, RepositoryRecordSchema.REPOSITORY_RECORD_SCHEMA_V4);
     }
 
     protected void serializeRecord(final SerializedRepositoryRecord record, final DataOutputStream out, RecordSchema schema, RecordSchema repositoryRecordSchema) throws IOException {
@@ -189,6 +189,11 @@ public class SchemaRepositoryRecordSerde extends RepositoryRecordSerde implement
         populateContentClaim(ffBuilder, record);
         ffBuilder.size((Long) record.getFieldValue(FlowFileSchema.FLOWFILE_SIZE));
 
+        final byte[] inlineContent = (byte[]) record.getFieldValue(FlowFileSchema.INLINE_CONTENT);
+        if (inlineContent != null) {
+            ffBuilder.inlineContent(inlineContent);
+        }
+
         ffBuilder.addAttributes((Map<String, String>) record.getFieldValue(FlowFileSchema.ATTRIBUTES));
 
         final FlowFileRecord flowFileRecord = ffBuilder.build();
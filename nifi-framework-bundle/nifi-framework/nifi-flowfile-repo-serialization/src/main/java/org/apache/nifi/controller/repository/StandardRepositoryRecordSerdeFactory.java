@@ -27,18 +27,34 @@ public class StandardRepositoryRecordSerdeFactory implements RepositoryRecordSer
     private static final String LEGACY_SERDE_ENCODING_NAME = "org.apache.nifi.controller.repository.WriteAheadFlowFileRepository$WriteAheadRecordSerde";
     private final ResourceClaimManager resourceClaimManager;
     private final FieldCache fieldCache;
+    private final boolean compactEncoding;
 
     public StandardRepositoryRecordSerdeFactory(final ResourceClaimManager claimManager) {
         this(claimManager, new NoOpFieldCache());
     }
 
     public StandardRepositoryRecordSerdeFactory(final ResourceClaimManager claimManager, final FieldCache fieldCache) {
+        this(claimManager, fieldCache, false);
+    }
+
+    /**
+     * @param claimManager the Resource Claim Manager to use when restoring Content Claims
+     * @param fieldCache the cache to use for de-duplicating Strings that are read
+     * @param compactEncoding whether new data should be written using the {@link CompactRepositoryRecordSerde} rather than the {@link SchemaRepositoryRecordSerde}.
+     *            Data is always read using the encoding that it was written with, regardless of this flag.
+     */
+    public StandardRepositoryRecordSerdeFactory(final ResourceClaimManager claimManager, final FieldCache fieldCache, final boolean compactEncoding) {
         this.resourceClaimManager = claimManager;
         this.fieldCache = fieldCache;
+        this.compactEncoding = compactEncoding;
     }
 
     @Override
     public SerDe<SerializedRepositoryRecord> createSerDe(final String encodingName) {
+        if ((encodingName == null && compactEncoding) || CompactRepositoryRecordSerde.class.getName().equals(encodingName)) {
+            return new CompactRepositoryRecordSerde(resourceClaimManager, fieldCache);
+        }
+
         if (encodingName == null || SchemaRepositoryRecordSerde.class.getName().equals(encodingName)) {
             final SchemaRepositoryRecordSerde serde = new SchemaRepositoryRecordSerde(resourceClaimManager, fieldCache);
             return serde;
@@ -59,6 +59,7 @@ public class FlowFileRecordFieldMap implements Record {
             case FlowFileSchema.QUEUE_DATE -> flowFile.getLastQueueDate();
             case FlowFileSchema.QUEUE_DATE_INDEX -> flowFile.getQueueDateIndex();
             case FlowFileSchema.RECORD_ID -> flowFile.getId();
+            case FlowFileSchema.INLINE_CONTENT -> flowFile.getInlineContent();
             default -> null;
         };
 
@@ -85,6 +86,11 @@ public class FlowFileRecordFieldMap implements Record {
             }
         }
 
+        final byte[] inlineContent = (byte[]) record.getFieldValue(FlowFileSchema.INLINE_CONTENT);
+        if (inlineContent != null) {
+            builder.inlineContent(inlineContent);
+        }
+
         return builder.build();
     }
 }
@@ -39,6 +39,7 @@ public class FlowFileSchema {
     public static final String FLOWFILE_SIZE = "FlowFile Size";
     public static final String CONTENT_CLAIM = "Content Claim";
     public static final String ATTRIBUTES = "Attributes";
+    public static final String INLINE_CONTENT = "Inline Content";
 
     // attribute fields
     public static final String ATTRIBUTE_NAME = "Attribute Name";
@@ -46,6 +47,7 @@ public class FlowFileSchema {
 
     public static final RecordSchema FLOWFILE_SCHEMA_V1;
     public static final RecordSchema FLOWFILE_SCHEMA_V2;
+    public static final RecordSchema FLOWFILE_SCHEMA_V3;
 
     static {
         final List<RecordField> flowFileFields = new ArrayList<>();
@@ -84,4 +86,12 @@ public class FlowFileSchema {
 
         FLOWFILE_SCHEMA_V2 = new RecordSchema(flowFileFields);
     }
+
+    static {
+        // V3 adds the content of FlowFiles whose content is held in the FlowFile record rather than in a Content Claim
+        final List<RecordField> flowFileFields = new ArrayList<>(FLOWFILE_SCHEMA_V2.getFields());
+        flowFileFields.add(new SimpleRecordField(INLINE_CONTENT, FieldType.BYTE_ARRAY, Repetition.ZERO_OR_ONE));
+
+        FLOWFILE_SCHEMA_V3 = new RecordSchema(flowFileFields);
+    }
 }
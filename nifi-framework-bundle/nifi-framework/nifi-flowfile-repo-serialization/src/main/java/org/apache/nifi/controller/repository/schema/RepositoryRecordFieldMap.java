@@ -54,6 +54,7 @@ public class RepositoryRecordFieldMap implements Record {
                         : new ContentClaimFieldMap(record.getContentClaim(), record.getClaimOffset(), contentClaimSchema);
                 yield contentClaimFieldMap;
             }
+            case FlowFileSchema.INLINE_CONTENT -> flowFile == null ? null : flowFile.getInlineContent();
             case RepositoryRecordSchema.QUEUE_IDENTIFIER -> record.getQueueIdentifier();
             default -> null;
         };
@@ -33,6 +33,7 @@ public class RepositoryRecordSchema {
     public static final String REPOSITORY_RECORD_UPDATE_V1 = "Repository Record Update";  // top level field name
     public static final String REPOSITORY_RECORD_UPDATE_V2 = "Repository Record Update";  // top level field name
     public static final String REPOSITORY_RECORD_UPDATE_V3 = "Repository Record Update";  // top level field name
+    public static final String REPOSITORY_RECORD_UPDATE_V4 = "Repository Record Update";  // top level field name
 
     // repository record fields
     public static final String ACTION_TYPE = "Action";
@@ -65,6 +66,10 @@ public class RepositoryRecordSchema {
     public static final RecordSchema SWAP_FILE_DELETED_SCHEMA_V3;
     public static final RecordSchema SWAP_FILE_RENAMED_SCHEMA_V3;
 
+    public static final RecordSchema REPOSITORY_RECORD_SCHEMA_V4;
+    public static final RecordSchema CREATE_OR_UPDATE_SCHEMA_V4;
+    public static final RecordSchema SWAP_IN_SCHEMA_V4;
+
     public static final RecordField ACTION_TYPE_FIELD = new SimpleRecordField(ACTION_TYPE, FieldType.STRING, Repetition.EXACTLY_ONE);
     public static final RecordField RECORD_ID_FIELD = new SimpleRecordField(RECORD_ID, FieldType.LONG, Repetition.EXACTLY_ONE);
 
@@ -198,4 +203,38 @@ public class RepositoryRecordSchema {
                 createOrUpdate, delete, swapOut, swapIn, swapFileDeleted, swapFileRenamed);
         REPOSITORY_RECORD_SCHEMA_V3 = new RecordSchema(Collections.singletonList(repoUpdateField));
     }
+
+    static {
+        // V4 reuses V3 schemas for Delete, Swap Out, Swap File Deleted and Swap File Renamed
+        // and uses V3 of the FlowFile schema, which adds Inline Content, for Create/Update and Swap In
+
+        // Fields for "Create" or "Update" records
+        final List<RecordField> createOrUpdateFields = new ArrayList<>();
+        createOrUpdateFields.add(ACTION_TYPE_FIELD);
+        createOrUpdateFields.addAll(FlowFileSchema.FLOWFILE_SCHEMA_V3.getFields());
+        createOrUpdateFields.add(new SimpleRecordField(QUEUE_IDENTIFIER, FieldType.STRING, Repetition.EXACTLY_ONE));
+        createOrUpdateFields.add(new SimpleRecordField(SWAP_LOCATION, FieldType.STRING, Repetition.ZERO_OR_ONE));
+        final ComplexRecordField createOrUpdate = new ComplexRecordField(CREATE_OR_UPDATE_ACTION, Repetition.EXACTLY_ONE, createOrUpdateFields);
+        CREATE_OR_UPDATE_SCHEMA_V4 = new RecordSchema(createOrUpdateFields);
+
+        // Fields for "Delete" records (same as V3)
+        final ComplexRecordField delete = new ComplexRecordField(DELETE_ACTION, Repetition.EXACTLY_ONE, DELETE_SCHEMA_V2.getFields());
+
+        // Fields for "Swap Out" records (same as V3)
+        final ComplexRecordField swapOut = new ComplexRecordField(SWAP_OUT_ACTION, Repetition.EXACTLY_ONE, SWAP_OUT_SCHEMA_V2.getFields());
+
+        // Fields for "Swap In" records
+        final List<RecordField> swapInFields = new ArrayList<>(createOrUpdateFields);
+        swapInFields.add(new SimpleRecordField(SWAP_LOCATION, FieldType.STRING, Repetition.EXACTLY_ONE));
+        final ComplexRecordField swapIn = new ComplexRecordField(SWAP_IN_ACTION, Repetition.EXACTLY_ONE, swapInFields);
+        SWAP_IN_SCHEMA_V4 = new RecordSchema(swapInFields);
+
+        // Fields for "Swap File Deleted" and "Swap File Renamed" records (same as V3)
+        final ComplexRecordField swapFileDeleted = new ComplexRecordField(SWAP_FILE_DELETED_ACTION, Repetition.EXACTLY_ONE, SWAP_FILE_DELETED_SCHEMA_V3.getFields());
+        final ComplexRecordField swapFileRenamed = new ComplexRecordField(SWAP_FILE_RENAMED_ACTION, Repetition.EXACTLY_ONE, SWAP_FILE_RENAMED_SCHEMA_V3.getFields());
+
+        final UnionRecordField repoUpdateField = new UnionRecordField(REPOSITORY_RECORD_UPDATE_V4, Repetition.EXACTLY_ONE,
+                createOrUpdate, delete, swapOut, swapIn, swapFileDeleted, swapFileRenamed);
+        REPOSITORY_RECORD_SCHEMA_V4 = new RecordSchema(Collections.singletonList(repoUpdateField));
+    }
 }
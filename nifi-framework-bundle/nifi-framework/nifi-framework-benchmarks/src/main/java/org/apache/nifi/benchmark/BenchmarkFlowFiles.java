@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared fixtures for the framework benchmarks
+ */
+public final class BenchmarkFlowFiles {
+    private static final AtomicLong ID_GENERATOR = new AtomicLong(0L);
+
+    private BenchmarkFlowFiles() {
+    }
+
+    /**
+     * Creates a FlowFile Record without content, carrying the core attributes plus the given number of additional attributes
+     *
+     * @param attributeCount number of additional attributes to add
+     * @param size the size to report for the FlowFile
+     * @return a new FlowFile Record with a unique identifier
+     */
+    public static FlowFileRecord createFlowFile(final int attributeCount, final long size) {
+        final long now = System.currentTimeMillis();
+        final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+            .id(ID_GENERATOR.getAndIncrement())
+            .entryDate(now)
+            .lineageStart(now, 0L)
+            .lastQueued(now, 0L)
+            .size(size)
+            .addAttribute(CoreAttributes.UUID.key(), UUID.randomUUID().toString())
+            .addAttribute(CoreAttributes.FILENAME.key(), "benchmark-" + now)
+            .addAttribute(CoreAttributes.PATH.key(), "./");
+
+        for (int i = 0; i < attributeCount; i++) {
+            builder.addAttribute("attribute." + i, "value-" + i);
+        }
+
+        return builder.build();
+    }
+
+    public static Path createTempDirectory(final String prefix) {
+        try {
+            return Files.createTempDirectory(prefix);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to create temporary directory for benchmark", e);
+        }
+    }
+
+    public static void deleteRecursively(final Path directory) throws IOException {
+        if (directory == null || !directory.toFile().exists()) {
+            return;
+        }
+
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark.queue;
+
+import org.apache.nifi.benchmark.BenchmarkFlowFiles;
+import org.apache.nifi.controller.queue.DropFlowFileAction;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.queue.SwappablePriorityQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.prioritizer.FirstInFirstOutPrioritizer;
+import org.apache.nifi.prioritizer.OldestFlowFileFirstPrioritizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures offer and poll throughput of the SwappablePriorityQueue that backs every connection, with and without prioritizers.
+ * The swap threshold is set above the queue depth so that the benchmark isolates the in-memory active queue.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SwappablePriorityQueueBenchmark {
+    private static final int SWAP_THRESHOLD = 1_000_000;
+    private static final DropFlowFileAction NOP_DROP_ACTION = (flowFiles, requestor) -> new QueueSize(0, 0L);
+
+    @Param({"NONE", "FIFO", "OLDEST_FIRST"})
+    public String prioritizer;
+
+    @Param({"1000", "100000"})
+    public int queueDepth;
+
+    @Param({"100"})
+    public int batchSize;
+
+    private SwappablePriorityQueue queue;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final FlowFileQueue flowFileQueue = mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("benchmark-queue");
+
+        final FlowFileSwapManager swapManager = mock(FlowFileSwapManager.class);
+        queue = new SwappablePriorityQueue(swapManager, SWAP_THRESHOLD, EventReporter.NO_OP, flowFileQueue, NOP_DROP_ACTION, null);
+        queue.setPriorities(createPrioritizers());
+
+        final List<FlowFileRecord> initialFlowFiles = new ArrayList<>(queueDepth);
+        for (int i = 0; i < queueDepth; i++) {
+            initialFlowFiles.add(BenchmarkFlowFiles.createFlowFile(5, 1024L));
+        }
+        queue.putAll(initialFlowFiles);
+    }
+
+    private List<FlowFilePrioritizer> createPrioritizers() {
+        return switch (prioritizer) {
+            case "FIFO" -> List.of(new FirstInFirstOutPrioritizer());
+            case "OLDEST_FIRST" -> List.of(new OldestFlowFileFirstPrioritizer());
+            default -> List.of();
+        };
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+        private FlowFileRecord flowFile;
+        private List<FlowFileRecord> batch;
+
+        @Setup(Level.Trial)
+        public void setup(final SwappablePriorityQueueBenchmark benchmark) {
+            flowFile = BenchmarkFlowFiles.createFlowFile(5, 1024L);
+            batch = new ArrayList<>(benchmark.batchSize);
+            for (int i = 0; i < benchmark.batchSize; i++) {
+                batch.add(BenchmarkFlowFiles.createFlowFile(5, 1024L));
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void offerPoll(final ThreadState state, final Blackhole blackhole) {
+        offerPollSingle(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void offerPollContended(final ThreadState state, final Blackhole blackhole) {
+        offerPollSingle(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void offerPollBatch(final ThreadState state, final Blackhole blackhole) {
+        offerPollBatched(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void offerPollBatchContended(final ThreadState state, final Blackhole blackhole) {
+        offerPollBatched(state, blackhole);
+    }
+
+    private void offerPollSingle(final ThreadState state, final Blackhole blackhole) {
+        queue.put(state.flowFile);
+
+        final FlowFileRecord polled = queue.poll(state.expiredRecords, 0L);
+        if (polled != null) {
+            queue.acknowledge(polled);
+            state.flowFile = polled;
+        }
+
+        blackhole.consume(polled);
+    }
+
+    private void offerPollBatched(final ThreadState state, final Blackhole blackhole) {
+        queue.putAll(state.batch);
+
+        final List<FlowFileRecord> polled = queue.poll(state.batch.size(), state.expiredRecords, 0L);
+        queue.acknowledge(polled);
+        state.batch = polled;
+
+        blackhole.consume(polled);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark.repository;
+
+import org.apache.nifi.benchmark.BenchmarkFlowFiles;
+import org.apache.nifi.controller.repository.FileSystemRepository;
+import org.apache.nifi.controller.repository.StandardContentRepositoryContext;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.util.NiFiProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures content write and read throughput of the FileSystemRepository for small claims, which share an appendable
+ * Resource Claim, and large claims, which exceed the max appendable claim size and receive a Resource Claim of their own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileSystemRepositoryBenchmark {
+    private static final String CONTENT_REPOSITORY_ALWAYS_SYNC = "nifi.content.repository.always.sync";
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    @Param({"1024", "65536", "4194304"})
+    public int contentSize;
+
+    @Param({"false", "true"})
+    public boolean alwaysSync;
+
+    private Path repositoryDirectory;
+    private FileSystemRepository repository;
+    private byte[] content;
+    private ContentClaim readClaim;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        repositoryDirectory = BenchmarkFlowFiles.createTempDirectory("content-repository-benchmark");
+
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties("", Map.of(
+            NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", repositoryDirectory.toString(),
+            CONTENT_REPOSITORY_ALWAYS_SYNC, String.valueOf(alwaysSync),
+            NiFiProperties.CONTENT_ARCHIVE_ENABLED, "false"
+        ));
+
+        repository = new FileSystemRepository(nifiProperties);
+        repository.initialize(new StandardContentRepositoryContext(new StandardResourceClaimManager(), EventReporter.NO_OP));
+
+        content = new byte[contentSize];
+        ThreadLocalRandom.current().nextBytes(content);
+
+        readClaim = writeClaim();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.shutdown();
+        BenchmarkFlowFiles.deleteRecursively(repositoryDirectory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void write() throws IOException {
+        writeAndRelease();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void writeContended() throws IOException {
+        writeAndRelease();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void read(final Blackhole blackhole) throws IOException {
+        readFully(blackhole);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void readContended(final Blackhole blackhole) throws IOException {
+        readFully(blackhole);
+    }
+
+    private void writeAndRelease() throws IOException {
+        final ContentClaim claim = writeClaim();
+        repository.decrementClaimantCount(claim);
+        repository.remove(claim);
+    }
+
+    private ContentClaim writeClaim() throws IOException {
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(content);
+        }
+        return claim;
+    }
+
+    private void readFully(final Blackhole blackhole) throws IOException {
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (final InputStream in = repository.read(readClaim)) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                blackhole.consume(len);
+            }
+        }
+    }
+}
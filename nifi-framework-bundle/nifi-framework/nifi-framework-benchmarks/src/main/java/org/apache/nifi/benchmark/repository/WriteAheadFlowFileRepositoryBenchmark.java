@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark.repository;
+
+import org.apache.nifi.benchmark.BenchmarkFlowFiles;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.RepositoryRecord;
+import org.apache.nifi.controller.repository.StandardRepositoryRecord;
+import org.apache.nifi.controller.repository.WriteAheadFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.util.NiFiProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures throughput of WriteAheadFlowFileRepository.updateRepository, which every session commit goes through.
+ * Each invocation writes a transaction that creates a batch of FlowFiles followed by a transaction that deletes them,
+ * so that the live record set, and therefore checkpoint cost, stays constant for the length of the trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteAheadFlowFileRepositoryBenchmark {
+
+    @Param({"false", "true"})
+    public boolean alwaysSync;
+
+    @Param({"1", "100"})
+    public int recordsPerUpdate;
+
+    @Param({"5", "25"})
+    public int attributeCount;
+
+    private Path repositoryDirectory;
+    private WriteAheadFlowFileRepository repository;
+    private FlowFileQueue queue;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        repositoryDirectory = BenchmarkFlowFiles.createTempDirectory("flowfile-repository-benchmark");
+
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties("", Map.of(
+            NiFiProperties.FLOWFILE_REPOSITORY_DIRECTORY, repositoryDirectory.toString(),
+            NiFiProperties.FLOWFILE_REPOSITORY_ALWAYS_SYNC, String.valueOf(alwaysSync),
+            NiFiProperties.FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL, "20 secs"
+        ));
+
+        queue = mock(FlowFileQueue.class);
+        when(queue.getIdentifier()).thenReturn("benchmark-queue");
+
+        repository = new WriteAheadFlowFileRepository(nifiProperties);
+        repository.initialize(new StandardResourceClaimManager());
+        repository.loadFlowFiles(() -> List.of(queue));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+        BenchmarkFlowFiles.deleteRecursively(repositoryDirectory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void update() throws IOException {
+        createAndDelete();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void updateContended4() throws IOException {
+        createAndDelete();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void updateContended16() throws IOException {
+        createAndDelete();
+    }
+
+    private void createAndDelete() throws IOException {
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(recordsPerUpdate);
+        final List<RepositoryRecord> createRecords = new ArrayList<>(recordsPerUpdate);
+        for (int i = 0; i < recordsPerUpdate; i++) {
+            final FlowFileRecord flowFile = BenchmarkFlowFiles.createFlowFile(attributeCount, 0L);
+            flowFiles.add(flowFile);
+
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(null);
+            record.setWorking(flowFile, false);
+            record.setDestination(queue);
+            createRecords.add(record);
+        }
+        repository.updateRepository(createRecords);
+
+        final List<RepositoryRecord> deleteRecords = new ArrayList<>(recordsPerUpdate);
+        for (final FlowFileRecord flowFile : flowFiles) {
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(queue, flowFile);
+            record.markForDelete();
+            deleteRecords.add(record);
+        }
+        repository.updateRepository(deleteRecords);
+    }
+}
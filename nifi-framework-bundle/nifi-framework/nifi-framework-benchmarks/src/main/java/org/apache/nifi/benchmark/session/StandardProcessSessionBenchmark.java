@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark.session;
+
+import org.apache.nifi.benchmark.BenchmarkFlowFiles;
+import org.apache.nifi.components.state.StateManager;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableFlowFileActivity;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.BackoffMechanism;
+import org.apache.nifi.controller.ProcessScheduler;
+import org.apache.nifi.controller.metrics.ComponentMetricReporter;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.StandardFlowFileQueue;
+import org.apache.nifi.controller.repository.FileSystemRepository;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.StandardContentRepositoryContext;
+import org.apache.nifi.controller.repository.StandardCounterRepository;
+import org.apache.nifi.controller.repository.StandardProcessSession;
+import org.apache.nifi.controller.repository.StandardRepositoryContext;
+import org.apache.nifi.controller.repository.VolatileFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.metrics.NopPerformanceTracker;
+import org.apache.nifi.controller.repository.metrics.RingBufferEventRepository;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.processor.FlowFileFilter;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.provenance.VolatileProvenanceRepository;
+import org.apache.nifi.util.NiFiProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the StandardProcessSession lifecycle of creating FlowFiles, writing content, transferring and committing, followed by
+ * a second session that pulls the FlowFiles back off the queue and removes them so that the queue depth stays constant.
+ * The session is wired to a real StandardFlowFileQueue, FileSystemRepository and VolatileProvenanceRepository, with the
+ * FlowFile Repository held in memory so that the numbers reflect session overhead rather than journal I/O.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StandardProcessSessionBenchmark {
+    private static final Relationship SUCCESS = new Relationship.Builder().name("success").build();
+
+    @Param({"1", "100"})
+    public int flowFilesPerSession;
+
+    @Param({"0", "1024"})
+    public int contentSize;
+
+    @Param({"5"})
+    public int attributeCount;
+
+    private Path contentRepositoryDirectory;
+    private FileSystemRepository contentRepository;
+    private VolatileFlowFileRepository flowFileRepository;
+    private StandardRepositoryContext repositoryContext;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        contentRepositoryDirectory = BenchmarkFlowFiles.createTempDirectory("session-benchmark-content");
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties("", Map.of(
+            NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", contentRepositoryDirectory.toString(),
+            NiFiProperties.CONTENT_ARCHIVE_ENABLED, "false"
+        ));
+
+        final StandardResourceClaimManager claimManager = new StandardResourceClaimManager();
+        contentRepository = new FileSystemRepository(nifiProperties);
+        contentRepository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+
+        flowFileRepository = new VolatileFlowFileRepository();
+        flowFileRepository.initialize(claimManager);
+
+        final VolatileProvenanceRepository provenanceRepository = new VolatileProvenanceRepository(10_000, "", "");
+
+        final FlowFileQueue queue = new StandardFlowFileQueue("benchmark-queue", flowFileRepository, provenanceRepository,
+            mock(ProcessScheduler.class), mock(FlowFileSwapManager.class), EventReporter.NO_OP, 1_000_000, "0 sec", 0L, "0 B");
+        final Connectable connectable = createConnectable(queue);
+
+        repositoryContext = new StandardRepositoryContext(connectable, new AtomicLong(0L), contentRepository, flowFileRepository,
+            new RingBufferEventRepository(1), new StandardCounterRepository(), mock(ComponentMetricReporter.class), provenanceRepository,
+            mock(StateManager.class), 1024 * 1024L);
+
+        content = new byte[contentSize];
+        ThreadLocalRandom.current().nextBytes(content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        flowFileRepository.close();
+        contentRepository.shutdown();
+        BenchmarkFlowFiles.deleteRecursively(contentRepositoryDirectory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Connectable createConnectable(final FlowFileQueue queue) {
+        final ProcessGroup processGroup = mock(ProcessGroup.class);
+        when(processGroup.getIdentifier()).thenReturn("benchmark-group");
+        when(processGroup.getLoggingAttributes()).thenReturn(Map.of());
+
+        final Connectable connectable = mock(Connectable.class);
+        final Connection connection = mock(Connection.class);
+        when(connection.getIdentifier()).thenReturn("benchmark-connection");
+        when(connection.getFlowFileQueue()).thenReturn(queue);
+        when(connection.getSource()).thenReturn(connectable);
+        when(connection.getDestination()).thenReturn(connectable);
+        doAnswer(invocation -> queue.poll((Set<FlowFileRecord>) invocation.getArgument(0))).when(connection).poll(any(Set.class));
+        doAnswer(invocation -> queue.poll((FlowFileFilter) invocation.getArgument(0), invocation.getArgument(1)))
+            .when(connection).poll(any(FlowFileFilter.class), any(Set.class));
+
+        when(connectable.getIdentifier()).thenReturn("benchmark-connectable");
+        when(connectable.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        when(connectable.getComponentType()).thenReturn("Benchmark Component");
+        when(connectable.getProcessGroup()).thenReturn(processGroup);
+        when(connectable.getBackoffMechanism()).thenReturn(BackoffMechanism.PENALIZE_FLOWFILE);
+        when(connectable.getMaxBackoffPeriod()).thenReturn("1 sec");
+        when(connectable.getFlowFileActivity()).thenReturn(new ConnectableFlowFileActivity());
+        when(connectable.hasIncomingConnection()).thenReturn(true);
+        when(connectable.getIncomingConnections()).thenReturn(List.of(connection));
+        when(connectable.getConnections()).thenReturn(Set.of(connection));
+        when(connectable.getConnections(any(Relationship.class))).thenReturn(Set.of(connection));
+        return connectable;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void createTransferCommit() {
+        produceAndConsume();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void createTransferCommitContended() {
+        produceAndConsume();
+    }
+
+    private void produceAndConsume() {
+        final StandardProcessSession producer = new StandardProcessSession(repositoryContext, () -> false, new NopPerformanceTracker());
+        for (int i = 0; i < flowFilesPerSession; i++) {
+            FlowFile flowFile = producer.create();
+            for (int j = 0; j < attributeCount; j++) {
+                flowFile = producer.putAttribute(flowFile, "attribute." + j, "value-" + j);
+            }
+            if (contentSize > 0) {
+                flowFile = producer.write(flowFile, out -> out.write(content));
+            }
+            producer.transfer(flowFile, SUCCESS);
+        }
+        producer.commit();
+
+        final StandardProcessSession consumer = new StandardProcessSession(repositoryContext, () -> false, new NopPerformanceTracker());
+        final List<FlowFile> flowFiles = consumer.get(flowFilesPerSession);
+        consumer.remove(flowFiles);
+        consumer.commit();
+    }
+}
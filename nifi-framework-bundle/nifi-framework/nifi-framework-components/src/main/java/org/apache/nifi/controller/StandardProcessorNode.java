@@ -169,6 +169,7 @@ public class StandardProcessorNode extends ProcessorNode implements Connectable
     private final AtomicReference<String> penalizationPeriod;
     private final AtomicReference<Map<String, String>> style;
     private final AtomicInteger concurrentTaskCount;
+    private final AtomicInteger concurrentTaskLimit = new AtomicInteger(0);
     private final AtomicLong yieldExpiration;
     private final AtomicLong schedulingNanos;
     private final AtomicReference<String> versionedComponentId = new AtomicReference<>();
@@ -644,6 +645,23 @@ public class StandardProcessorNode extends ProcessorNode implements Connectable
         return concurrentTaskCount.get();
     }
 
+    @Override
+    public int getConcurrentTaskLimit() {
+        final int maxConcurrentTasks = getMaxConcurrentTasks();
+        final int limit = concurrentTaskLimit.get();
+        return limit < 1 ? maxConcurrentTasks : Math.min(limit, maxConcurrentTasks);
+    }
+
+    @Override
+    public void setConcurrentTaskLimit(final int limit) {
+        concurrentTaskLimit.set(Math.max(0, limit));
+    }
+
+    @Override
+    public boolean isConcurrentTaskLimited() {
+        return concurrentTaskLimit.get() > 0;
+    }
+
     @Override
     public LogLevel getBulletinLevel() {
         return bulletinLevel;
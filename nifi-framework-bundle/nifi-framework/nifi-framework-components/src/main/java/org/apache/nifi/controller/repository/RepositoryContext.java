@@ -55,6 +55,14 @@ public interface RepositoryContext {
 
     ContentClaimWriteCache createContentClaimWriteCache(PerformanceTracker performanceTracker);
 
+    /**
+     * @return the maximum number of bytes of content that may be held in a FlowFile record rather than in the Content Repository,
+     * or 0 if content is always written to the Content Repository
+     */
+    default int getMaxInlineContentBytes() {
+        return 0;
+    }
+
     InternalProvenanceReporter createProvenanceReporter(Predicate<FlowFile> flowfileKnownCheck, ProvenanceEventEnricher eventEnricher);
 
     String getConnectableDescription();
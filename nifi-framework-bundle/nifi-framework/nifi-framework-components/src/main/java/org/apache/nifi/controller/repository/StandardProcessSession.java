@@ -82,12 +82,16 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -139,6 +143,10 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     private static final Logger LOG = LoggerFactory.getLogger(StandardProcessSession.class);
     private static final Logger claimLog = LoggerFactory.getLogger(StandardProcessSession.class.getSimpleName() + ".claims");
     private static final int MAX_ROLLBACK_FLOWFILES_TO_LOG = 5;
+    private static final int INDIVIDUAL_GET_POLLS = 2;
+    private static final int MAX_GET_BATCH_SIZE = 8;
+    private static final Comparator<FlowFileRecord> QUEUED_ORDER = Comparator.comparingLong(FlowFileRecord::getLastQueueDate)
+        .thenComparingLong(FlowFileRecord::getQueueDateIndex);
 
     private final Map<Long, StandardRepositoryRecord> records = new ConcurrentHashMap<>();
     private final Map<String, StandardFlowFileEvent> connectionCounts = new ConcurrentHashMap<>();
@@ -172,6 +180,17 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     private long contentSizeIn = 0L;
     private long contentSizeOut = 0L;
 
+    // FlowFiles that were polled from an incoming Connection by get() but have not yet been handed to the Processor. The first few calls to get()
+    // in a session poll a single FlowFile. After that, FlowFiles are polled in small batches so that a Processor that calls get() in a loop does not
+    // have to lock the queue for each one. Any that are left over are returned to the head of the queue when the session is checkpointed, committed
+    // or rolled back, and at the end of each trigger of a batching session, so that other tasks are never kept from more than a handful of FlowFiles.
+    private final Deque<FlowFileRecord> prefetchedFlowFiles = new ArrayDeque<>();
+    private Connection prefetchedConnection = null;
+    private int getPollCount = 0;
+
+    // FlowFiles that have been rolled back by rollbackRecord(), keyed by the queue to which they are to be returned
+    private final Map<FlowFileQueue, List<FlowFileRecord>> rolledBackFlowFiles = new HashMap<>();
+
     private ResourceClaim currentReadClaim = null;
     private ByteCountingInputStream currentReadClaimStream = null;
     private long processingStartTime;
@@ -192,6 +211,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
 
     private Checkpoint checkpoint = null;
     private final ContentClaimWriteCache claimCache;
+    private final int maxInlineContentBytes;
 
     private StateMap localState;
     private StateMap clusterState;
@@ -207,6 +227,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         this.sessionId = idGenerator.getAndIncrement();
         this.connectableDescription = context.getConnectableDescription();
         this.claimCache = context.createContentClaimWriteCache(performanceTracker);
+        this.maxInlineContentBytes = context.getMaxInlineContentBytes();
         LOG.trace("Session {} created for {}", this, connectableDescription);
         processingStartTime = System.nanoTime();
         retryAttribute = "retryCount." + context.getConnectable().getIdentifier();
@@ -285,6 +306,8 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     }
 
     private void checkpoint(final boolean copyCollections) {
+        releasePrefetchedFlowFiles();
+
         try {
             validateCommitState();
         } catch (final Exception e) {
@@ -594,6 +617,8 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                 claimCache.reset();
             }
 
+            deduplicateContent(checkpoint);
+
             final long updateProvenanceStart = System.nanoTime();
             updateProvenanceRepo(checkpoint);
 
@@ -1234,6 +1259,9 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                     this, loggableFlowfileInfo(), new Throwable("Stack Trace on rollback"));
         }
 
+        // Release these first so that the FlowFiles being rolled back, which were polled before them, are returned ahead of them.
+        releasePrefetchedFlowFiles();
+
         deleteOnCommit.clear();
 
         closeStreams(openInputStreams, "rolled back", "input");
@@ -1297,10 +1325,10 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
             }
         }
 
-        // Put the FlowFiles that are not marked for abort back to their original queues
         for (final StandardRepositoryRecord record : transferRecords) {
             rollbackRecord(record, penalize);
         }
+        requeueRolledBackFlowFiles();
 
         if (!abortedRecords.isEmpty()) {
             try {
@@ -1349,20 +1377,57 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
      * @param penalize whether or not the Record should be penalized
      */
     protected void rollbackRecord(final StandardRepositoryRecord record, final boolean penalize) {
-        if (record.getOriginal() != null) {
-            final FlowFileQueue originalQueue = record.getOriginalQueue();
-            if (originalQueue != null) {
-                if (penalize) {
-                    final long expirationEpochMillis = System.currentTimeMillis() + context.getConnectable().getPenalizationPeriod(TimeUnit.MILLISECONDS);
-                    final FlowFileRecord newFile = new StandardFlowFileRecord.Builder().fromFlowFile(record.getOriginal()).penaltyExpirationTime(expirationEpochMillis).build();
-                    originalQueue.put(newFile);
-                } else {
-                    originalQueue.put(record.getOriginal());
-                }
-            }
+        final FlowFileRecord rolledBack = getRolledBackFlowFile(record, penalize);
+        if (rolledBack != null) {
+            // The FlowFiles are placed back on their queues once all Records have been rolled back, so that they keep the order in which they were queued
+            rolledBackFlowFiles.computeIfAbsent(record.getOriginalQueue(), queue -> new ArrayList<>()).add(rolledBack);
         }
     }
 
+    private FlowFileRecord getRolledBackFlowFile(final StandardRepositoryRecord record, final boolean penalize) {
+        if (record.getOriginal() == null || record.getOriginalQueue() == null) {
+            return null;
+        }
+
+        if (penalize) {
+            final long expirationEpochMillis = System.currentTimeMillis() + context.getConnectable().getPenalizationPeriod(TimeUnit.MILLISECONDS);
+            return new StandardFlowFileRecord.Builder().fromFlowFile(record.getOriginal()).penaltyExpirationTime(expirationEpochMillis).build();
+        }
+
+        return record.getOriginal();
+    }
+
+    private void requeueRolledBackFlowFiles() {
+        for (final Map.Entry<FlowFileQueue, List<FlowFileRecord>> entry : rolledBackFlowFiles.entrySet()) {
+            final List<FlowFileRecord> flowFiles = entry.getValue();
+            flowFiles.sort(QUEUED_ORDER);
+            entry.getKey().requeue(flowFiles);
+        }
+
+        rolledBackFlowFiles.clear();
+    }
+
+    /**
+     * Returns any FlowFiles that were polled by {@link #get()} but not handed to the Processor to the head of the queue that they came from.
+     * This is done whenever the session is checkpointed, committed or rolled back, and should be done by the framework at the end of each trigger
+     * when one session is shared by several triggers.
+     */
+    public synchronized void releasePrefetchedFlowFiles() {
+        if (prefetchedFlowFiles.isEmpty()) {
+            return;
+        }
+
+        final List<FlowFileRecord> unused = new ArrayList<>(prefetchedFlowFiles);
+        prefetchedFlowFiles.clear();
+
+        final FlowFileQueue queue = prefetchedConnection.getFlowFileQueue();
+        prefetchedConnection = null;
+
+        queue.requeue(unused);
+        queue.acknowledge(unused);
+        LOG.trace("{} returned {} unused FlowFiles to {}", this, unused.size(), queue);
+    }
+
     private String loggableFlowfileInfo() {
         final StringBuilder details = new StringBuilder(1024).append("[");
         final int initLen = details.length();
@@ -1408,6 +1473,63 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         context.getContentRepository().decrementClaimantCount(claim);
     }
 
+    /**
+     * Gives the Content Repository the chance to replace the Content Claims that were written in this session with existing claims that
+     * hold the same content. This must be done after the session's streams to the Content Repository have been closed, so that the
+     * content of each claim is complete, and before the Provenance and FlowFile Repositories are updated, so that they reference the
+     * claims that will be kept.
+     *
+     * @param checkpoint the checkpoint whose records are being committed
+     */
+    private void deduplicateContent(final Checkpoint checkpoint) {
+        final ContentRepository contentRepo = context.getContentRepository();
+        Map<ContentClaim, ContentClaim> duplicates = null;
+
+        for (final StandardRepositoryRecord record : checkpoint.records.values()) {
+            if (record.isMarkedForAbort() || record.isMarkedForDelete()) {
+                continue;
+            }
+
+            final FlowFileRecord flowFile = record.getCurrent();
+            final ContentClaim claim = record.getCurrentClaim();
+            if (claim == null || !(record.isContentModified() || record.getType() == RepositoryRecordType.CREATE) || claim.equals(record.getOriginalClaim())) {
+                continue;
+            }
+
+            // Only FlowFiles whose content is the entirety of the claim can share another claim
+            if (flowFile.getContentClaimOffset() != 0 || flowFile.getSize() != claim.getLength()) {
+                continue;
+            }
+
+            if (duplicates == null) {
+                duplicates = new HashMap<>();
+            }
+
+            ContentClaim duplicate = duplicates.get(claim);
+            if (duplicate == null) {
+                duplicate = contentRepo.deduplicate(claim);
+                duplicates.put(claim, duplicate);
+            } else if (duplicate != claim) {
+                // The claimant count of the duplicate was incremented only for the first FlowFile that referenced the claim
+                contentRepo.incrementClaimaintCount(duplicate);
+            }
+
+            if (duplicate == claim) {
+                continue;
+            }
+
+            claimLog.debug("Replacing ContentClaim {} with {} for {} because the content is identical", claim, duplicate, flowFile);
+            contentRepo.decrementClaimantCount(claim);
+            record.addTransientClaim(claim);
+
+            final FlowFileRecord deduplicated = new StandardFlowFileRecord.Builder()
+                .fromFlowFile(flowFile)
+                .contentClaim(duplicate)
+                .build();
+            record.setWorking(deduplicated, true);
+        }
+    }
+
     /**
      * Destroys a ContentClaim that was being written to but is no longer needed
      *
@@ -1449,6 +1571,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         createdFlowFilesWithoutLineage.clear();
         removedFlowFiles.clear();
         flowFileLinkage.clear();
+        getPollCount = 0;
 
         if (countersOnCommit != null) {
             countersOnCommit.clear();
@@ -1939,13 +2062,33 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     @Override
     public FlowFile get() {
         verifyTaskActive();
+
+        final FlowFileRecord prefetched = prefetchedFlowFiles.poll();
+        if (prefetched != null) {
+            registerDequeuedRecord(prefetched, prefetchedConnection);
+            return prefetched;
+        }
+
+        final int batchSize = getPollCount < INDIVIDUAL_GET_POLLS ? 1 : Math.min(MAX_GET_BATCH_SIZE, 1 << Math.min(getPollCount, 30));
+        getPollCount++;
+
         final List<Connection> connections = context.getPollableConnections();
         final int numConnections = connections.size();
         for (int numAttempts = 0; numAttempts < numConnections; numAttempts++) {
             final Connection conn = connections.get(context.getNextIncomingConnectionIndex() % numConnections);
             // TODO: We create this Set<FlowFileRecord> every time. Instead, add FlowFileQueue.isExpirationConfigured(). If false, pass Collections.emptySet(). Same for all get() methods.
             final Set<FlowFileRecord> expired = new HashSet<>();
-            final FlowFileRecord flowFile = conn.poll(expired);
+            final FlowFileRecord flowFile;
+            if (batchSize == 1) {
+                flowFile = conn.poll(expired);
+            } else {
+                final List<FlowFileRecord> polled = conn.poll(createMaxResultsFilter(batchSize), expired);
+                flowFile = polled.isEmpty() ? null : polled.getFirst();
+                if (polled.size() > 1) {
+                    prefetchedFlowFiles.addAll(polled.subList(1, polled.size()));
+                    prefetchedConnection = conn;
+                }
+            }
             removeExpired(expired, conn);
 
             if (flowFile != null) {
@@ -1960,6 +2103,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     @Override
     public List<FlowFile> get(final int maxResults) {
         verifyTaskActive();
+        releasePrefetchedFlowFiles();
 
         if (maxResults < 0) {
             throw new IllegalArgumentException();
@@ -1974,7 +2118,11 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
             return Collections.emptyList();
         }
 
-        return get((connection, expiredRecords) -> connection.poll(new FlowFileFilter() {
+        return get((connection, expiredRecords) -> connection.poll(createMaxResultsFilter(maxResults), expiredRecords), false);
+    }
+
+    private static FlowFileFilter createMaxResultsFilter(final int maxResults) {
+        return new FlowFileFilter() {
             int polled = 0;
 
             @Override
@@ -1985,12 +2133,13 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                     return FlowFileFilterResult.ACCEPT_AND_TERMINATE;
                 }
             }
-        }, expiredRecords), false);
+        };
     }
 
     @Override
     public List<FlowFile> get(final FlowFileFilter filter) {
         verifyTaskActive();
+        releasePrefetchedFlowFiles();
 
         return get((connection, expiredRecords) -> connection.poll(filter, expiredRecords), true);
     }
@@ -2093,34 +2242,29 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         parent = getMostRecent(parent);
 
         final String uuid = UUID.randomUUID().toString();
+        final Map<String, String> parentAttributes = parent.getAttributes();
 
-        final Map<String, String> newAttributes = new HashMap<>(3);
-        newAttributes.put(CoreAttributes.FILENAME.key(), uuid);
-        newAttributes.put(CoreAttributes.PATH.key(), DEFAULT_FLOWFILE_PATH);
-        newAttributes.put(CoreAttributes.UUID.key(), uuid);
+        // Start from the parent's attributes so that the child can share the parent's attribute map rather than copying it. The "special"
+        // attributes are then removed or replaced because copying them can cause problems -- especially the ALTERNATE_IDENTIFIER,
+        // because copying can cause Provenance Events to be incorrectly created.
+        final StandardFlowFileRecord.Builder fFileBuilder = new StandardFlowFileRecord.Builder()
+            .id(context.getNextFlowFileSequence())
+            .addAttributes(parentAttributes)
+            .removeAttributes(CoreAttributes.ALTERNATE_IDENTIFIER.key(), CoreAttributes.DISCARD_REASON.key())
+            .addAttribute(CoreAttributes.UUID.key(), uuid);
 
-        final StandardFlowFileRecord.Builder fFileBuilder = new StandardFlowFileRecord.Builder().id(context.getNextFlowFileSequence());
-
-        // copy all attributes from parent except for the "special" attributes. Copying the special attributes
-        // can cause problems -- especially the ALTERNATE_IDENTIFIER, because copying can cause Provenance Events
-        // to be incorrectly created.
-        for (final Map.Entry<String, String> entry : parent.getAttributes().entrySet()) {
-            final String key = entry.getKey();
-            final String value = entry.getValue();
-            if (CoreAttributes.ALTERNATE_IDENTIFIER.key().equals(key)
-                || CoreAttributes.DISCARD_REASON.key().equals(key)
-                || CoreAttributes.UUID.key().equals(key)) {
-                continue;
-            }
-            newAttributes.put(key, value);
+        if (parentAttributes.get(CoreAttributes.FILENAME.key()) == null) {
+            fFileBuilder.addAttribute(CoreAttributes.FILENAME.key(), uuid);
+        }
+        if (parentAttributes.get(CoreAttributes.PATH.key()) == null) {
+            fFileBuilder.addAttribute(CoreAttributes.PATH.key(), DEFAULT_FLOWFILE_PATH);
         }
 
         fFileBuilder.lineageStart(parent.getLineageStartDate(), parent.getLineageStartIndex());
-        fFileBuilder.addAttributes(newAttributes);
 
         final FlowFileRecord fFile = fFileBuilder.build();
         final StandardRepositoryRecord record = new StandardRepositoryRecord((FlowFileQueue) null);
-        record.setWorking(fFile, newAttributes, false);
+        record.setWorking(fFile, fFile.getAttributes(), false);
         records.put(fFile.getId(), record);
         createdFlowFiles.add(fFile.getAttribute(CoreAttributes.UUID.key()));
 
@@ -2208,6 +2352,11 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         builder.contentClaimOffset(currRec.getContentClaimOffset() + offset);
         builder.size(size);
 
+        final byte[] inlineContent = currRec.getInlineContent();
+        if (inlineContent != null) {
+            builder.inlineContent(Arrays.copyOfRange(inlineContent, (int) offset, (int) (offset + size)));
+        }
+
         final String newUuid = UUID.randomUUID().toString();
         builder.addAttribute(CoreAttributes.UUID.key(), newUuid);
 
@@ -2645,6 +2794,11 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
             return new ByteArrayInputStream(new byte[0]);
         }
 
+        // Likewise, if the content is held in the FlowFile record itself, there is nothing to read from the Content Repository.
+        if (flowFile instanceof final FlowFileRecord flowFileRecord && flowFileRecord.getInlineContent() != null) {
+            return new ByteArrayInputStream(flowFileRecord.getInlineContent());
+        }
+
         try {
             // If the recursion set is empty, we can use the same input stream that we already have open. However, if
             // the recursion set is NOT empty, we can't do this because we may be reading the input of FlowFile 1 while in the
@@ -2958,7 +3112,14 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                 for (final FlowFile source : sources) {
                     final StandardRepositoryRecord sourceRecord = getRecord(source);
 
-                    final long copied = contentRepo.exportTo(sourceRecord.getCurrentClaim(), out, sourceRecord.getCurrentClaimOffset(), source.getSize());
+                    final byte[] inlineContent = sourceRecord.getCurrent().getInlineContent();
+                    final long copied;
+                    if (inlineContent == null) {
+                        copied = contentRepo.exportTo(sourceRecord.getCurrentClaim(), out, sourceRecord.getCurrentClaimOffset(), source.getSize());
+                    } else {
+                        out.write(inlineContent);
+                        copied = inlineContent.length;
+                    }
                     writtenCount += copied;
                     readCount += copied;
 
@@ -3163,18 +3324,27 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
 
         long writtenToFlowFile = 0L;
         ContentClaim newClaim = null;
+        InlineContentOutputStream inlineContentOut = null;
         try {
-            newClaim = claimCache.getContentClaim();
-            claimLog.debug("Creating ContentClaim {} for 'write' for {}", newClaim, source);
+            final OutputStream stream;
+            if (maxInlineContentBytes > 0) {
+                // A Content Claim is created only if the content grows too large to be held in the FlowFile record
+                inlineContentOut = new InlineContentOutputStream(source);
+                stream = inlineContentOut;
+            } else {
+                newClaim = claimCache.getContentClaim();
+                claimLog.debug("Creating ContentClaim {} for 'write' for {}", newClaim, source);
 
-            ensureNotAppending(newClaim);
+                ensureNotAppending(newClaim);
+                stream = claimCache.write(newClaim);
+            }
 
             // Build an OutputStream that we can return to the caller. Note that the returned OutputStream is wrapped with multiple layers
             // of OutputStream, each with its own purpose. This layering is important for driving the capabilities that are necessary at the
             // framework level. For example, we intercept flushes and closes to ensure that the framework is able to efficiently manage what
             // gets written to the Content Repository and manage the full lifecycle of the Content Repository's OutputStream. When the
             // ProcessSession is committed or rolled back, we ensure that the underlying streams are closed and flushed appropriately.
-            try (final OutputStream stream = claimCache.write(newClaim);
+            try (stream;
                 final NonFlushableOutputStream nonFlushableOutputStream = new NonFlushableOutputStream(stream);
                 final OutputStream disableOnClose = new DisableOnCloseOutputStream(nonFlushableOutputStream);
                 final ByteCountingOutputStream countingOut = new ByteCountingOutputStream(disableOnClose)) {
@@ -3191,21 +3361,27 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
             }
         } catch (final ContentNotFoundException nfe) {
             resetWriteClaims(); // need to reset write claim before we can remove the claim
-            destroyContent(newClaim, record);
+            destroyContent(getWriteClaim(newClaim, inlineContentOut), record);
             handleContentNotFound(nfe, record);
         } catch (final IOException ioe) {
             resetWriteClaims(); // need to reset write claim before we can remove the claim
-            destroyContent(newClaim, record);
+            destroyContent(getWriteClaim(newClaim, inlineContentOut), record);
             throw new ProcessException("IOException thrown from " + connectableDescription + ": " + ioe.toString(), ioe);
         } catch (final Throwable t) {
             resetWriteClaims(); // need to reset write claim before we can remove the claim
-            destroyContent(newClaim, record);
+            destroyContent(getWriteClaim(newClaim, inlineContentOut), record);
             throw t;
         }
 
+        newClaim = getWriteClaim(newClaim, inlineContentOut);
         removeTemporaryClaim(record);
         final FlowFileRecord newFile;
-        if (writtenToFlowFile == 0) {
+        if (newClaim == null) {
+            newFile = new StandardFlowFileRecord.Builder()
+                .fromFlowFile(record.getCurrent())
+                .inlineContent(inlineContentOut.getInlineContent())
+                .build();
+        } else if (writtenToFlowFile == 0) {
             newFile = new StandardFlowFileRecord.Builder()
                 .fromFlowFile(record.getCurrent())
                 .contentClaim(null)
@@ -3451,16 +3627,25 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
 
         long writtenToFlowFile = 0L;
         ContentClaim newClaim = null;
+        InlineContentOutputStream inlineContentOut = null;
         try {
-            newClaim = claimCache.getContentClaim();
-            claimLog.debug("Creating ContentClaim {} for 'write' for {}", newClaim, source);
-
-            ensureNotAppending(newClaim);
-
             if (currClaim != null) {
                 claimCache.flush(currClaim.getResourceClaim());
             }
 
+            final OutputStream os;
+            if (maxInlineContentBytes > 0) {
+                // A Content Claim is created only if the content grows too large to be held in the FlowFile record
+                inlineContentOut = new InlineContentOutputStream(source);
+                os = inlineContentOut;
+            } else {
+                newClaim = claimCache.getContentClaim();
+                claimLog.debug("Creating ContentClaim {} for 'write' for {}", newClaim, source);
+
+                ensureNotAppending(newClaim);
+                os = claimCache.write(newClaim);
+            }
+
             // Build a InputStream and OutputStream that we can return to the caller. Note that the returned streams are wrapped with multiple layers,
             // each with its own purpose. This layering is important for driving the capabilities that are necessary at the
             // framework level. For example, we intercept flushes and closes to ensure that the framework is able to efficiently manage what
@@ -3470,7 +3655,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                 final InputStream limitedIn = new LimitedInputStream(is, source.getSize());
                 final InputStream disableOnCloseIn = new DisableOnCloseInputStream(limitedIn);
                 final ByteCountingInputStream countingIn = new ByteCountingInputStream(disableOnCloseIn, bytesRead);
-                final OutputStream os = claimCache.write(newClaim);
+                os;
                 final OutputStream nonFlushableOut = new NonFlushableOutputStream(os);
                 final OutputStream disableOnCloseOut = new DisableOnCloseOutputStream(nonFlushableOut);
                 final ByteCountingOutputStream countingOut = new ByteCountingOutputStream(disableOnCloseOut)) {
@@ -3504,20 +3689,26 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                 }
             }
         } catch (final ContentNotFoundException nfe) {
-            destroyContent(newClaim, record);
+            destroyContent(getWriteClaim(newClaim, inlineContentOut), record);
             handleContentNotFound(nfe, record);
         } catch (final IOException ioe) {
-            destroyContent(newClaim, record);
+            destroyContent(getWriteClaim(newClaim, inlineContentOut), record);
             throw new ProcessException("IOException thrown from " + connectableDescription + ": " + ioe.toString(), ioe);
         } catch (final Throwable t) {
-            destroyContent(newClaim, record);
+            destroyContent(getWriteClaim(newClaim, inlineContentOut), record);
             throw t;
         }
 
+        newClaim = getWriteClaim(newClaim, inlineContentOut);
         removeTemporaryClaim(record);
         final FlowFileRecord newFile;
 
-        if (writtenToFlowFile == 0) {
+        if (newClaim == null) {
+            newFile = new StandardFlowFileRecord.Builder()
+                .fromFlowFile(record.getCurrent())
+                .inlineContent(inlineContentOut.getInlineContent())
+                .build();
+        } else if (writtenToFlowFile == 0) {
             newFile = new StandardFlowFileRecord.Builder()
                 .fromFlowFile(record.getCurrent())
                 .contentClaim(null)
@@ -3667,6 +3858,17 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         source = validateRecordState(source);
         final StandardRepositoryRecord record = getRecord(source);
         try {
+            final byte[] inlineContent = record.getCurrent().getInlineContent();
+            if (inlineContent != null) {
+                if (append) {
+                    Files.write(destination, inlineContent, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } else {
+                    Files.write(destination, inlineContent);
+                }
+                bytesRead += inlineContent.length;
+                return;
+            }
+
             ensureNotAppending(record.getCurrentClaim());
 
             claimCache.flush(record.getCurrentClaim());
@@ -3685,7 +3887,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         source = validateRecordState(source);
         final StandardRepositoryRecord record = getRecord(source);
 
-        if (record.getCurrentClaim() == null) {
+        if (record.getCurrentClaim() == null && record.getCurrent().getInlineContent() == null) {
             return;
         }
 
@@ -4179,6 +4381,82 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         }
     }
 
+    /**
+     * Returns the Content Claim that a call to write(...) produced: either the claim created up front or, if the content was
+     * buffered for inlining, the claim that was created when the content grew too large. A return value of <code>null</code>
+     * indicates that the content is small enough to be held in the FlowFile record.
+     */
+    private ContentClaim getWriteClaim(final ContentClaim newClaim, final InlineContentOutputStream inlineContentOut) {
+        return inlineContentOut == null ? newClaim : inlineContentOut.getOverflowClaim();
+    }
+
+    /**
+     * An OutputStream that buffers content on heap until it exceeds the configured maximum inline content size, at which point a
+     * Content Claim is created, the buffered bytes are written to it, and all further writes are passed through to the Content Repository.
+     */
+    private class InlineContentOutputStream extends OutputStream {
+        private final FlowFile flowFile;
+        private byte[] buffer = new byte[Math.min(maxInlineContentBytes, 1024)];
+        private int count = 0;
+        private ContentClaim overflowClaim;
+        private OutputStream overflowStream;
+
+        InlineContentOutputStream(final FlowFile flowFile) {
+            this.flowFile = flowFile;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (overflowStream == null && count + len > maxInlineContentBytes) {
+                overflowClaim = claimCache.getContentClaim();
+                claimLog.debug("Creating ContentClaim {} for 'write' for {} because content exceeds {} bytes", overflowClaim, flowFile, maxInlineContentBytes);
+
+                ensureNotAppending(overflowClaim);
+                overflowStream = claimCache.write(overflowClaim);
+                overflowStream.write(buffer, 0, count);
+                buffer = null;
+            }
+
+            if (overflowStream != null) {
+                overflowStream.write(b, off, len);
+                return;
+            }
+
+            if (count + len > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(maxInlineContentBytes, Math.max(buffer.length * 2, count + len)));
+            }
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (overflowStream != null) {
+                overflowStream.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (overflowStream != null) {
+                overflowStream.close();
+            }
+        }
+
+        ContentClaim getOverflowClaim() {
+            return overflowClaim;
+        }
+
+        byte[] getInlineContent() {
+            return Arrays.copyOf(buffer, count);
+        }
+    }
+
     private static class FlowFileLinkage {
         private final Map<Long, List<Long>> linkedIds = new HashMap<>();
 
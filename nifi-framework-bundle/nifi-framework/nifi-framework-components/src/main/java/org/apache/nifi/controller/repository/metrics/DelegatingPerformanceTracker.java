@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.metrics;
+
+/**
+ * A PerformanceTracker that forwards to another tracker which may be replaced at any time. This allows an object that is created with a
+ * PerformanceTracker, such as a ProcessSession, to be reused across tasks while still attributing its timings to the current task.
+ */
+public class DelegatingPerformanceTracker implements PerformanceTracker {
+    private volatile PerformanceTracker delegate;
+
+    public DelegatingPerformanceTracker(final PerformanceTracker delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setDelegate(final PerformanceTracker delegate) {
+        this.delegate = delegate;
+    }
+
+    public PerformanceTracker getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void beginContentRead() {
+        delegate.beginContentRead();
+    }
+
+    @Override
+    public void endContentRead() {
+        delegate.endContentRead();
+    }
+
+    @Override
+    public long getContentReadNanos() {
+        return delegate.getContentReadNanos();
+    }
+
+    @Override
+    public void beginContentWrite() {
+        delegate.beginContentWrite();
+    }
+
+    @Override
+    public void endContentWrite() {
+        delegate.endContentWrite();
+    }
+
+    @Override
+    public long getContentWriteNanos() {
+        return delegate.getContentWriteNanos();
+    }
+
+    @Override
+    public void beginSessionCommit() {
+        delegate.beginSessionCommit();
+    }
+
+    @Override
+    public void endSessionCommit() {
+        delegate.endSessionCommit();
+    }
+
+    @Override
+    public long getSessionCommitNanos() {
+        return delegate.getSessionCommitNanos();
+    }
+}
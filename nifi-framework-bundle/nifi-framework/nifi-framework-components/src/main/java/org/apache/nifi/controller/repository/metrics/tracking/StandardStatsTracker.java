@@ -62,13 +62,15 @@ public class StandardStatsTracker implements StatsTracker {
         final long startTimeNanos = System.nanoTime();
         final long startGcMillis = gcMillisTracker.getAsLong();
         final boolean trackExpensiveMetrics = iterations.getAndIncrement() % iterationsBetweenCpuTracking == 0;
-        final long startCpuTimeMillis = trackExpensiveMetrics ? cpuTimeMillisTracker.getAsLong() : 0;
+        // Thread CPU time is not available for virtual threads, so CPU time is only sampled on platform threads
+        final boolean sampleCpuTime = trackExpensiveMetrics && !Thread.currentThread().isVirtual();
+        final long startCpuTimeMillis = sampleCpuTime ? cpuTimeMillisTracker.getAsLong() : 0;
         final PerformanceTracker performanceTracker = trackExpensiveMetrics ? new NanoTimePerformanceTracker() : new NopPerformanceTracker();
 
         return new TrackedStats() {
             @Override
             public StandardFlowFileEvent end() {
-                final long endCpuTimeMillis = trackExpensiveMetrics ? cpuTimeMillisTracker.getAsLong() : 0;
+                final long endCpuTimeMillis = sampleCpuTime ? cpuTimeMillisTracker.getAsLong() : 0;
 
                 final StandardFlowFileEvent event = new StandardFlowFileEvent();
                 event.setProcessingNanos(System.nanoTime() - startTimeNanos);
@@ -78,7 +80,7 @@ public class StandardStatsTracker implements StatsTracker {
                 event.setContentWriteNanoseconds(performanceTracker.getContentWriteNanos());
                 event.setSessionCommitNanos(performanceTracker.getSessionCommitNanos());
 
-                if (trackExpensiveMetrics) {
+                if (sampleCpuTime) {
                     addSampledCpuTime(event.getProcessingNanoseconds(), event.getCpuNanoseconds());
                 } else {
                     event.setCpuNanoseconds(estimateCpuTime(event.getProcessingNanoseconds()));
@@ -36,6 +36,7 @@ import org.apache.nifi.controller.repository.FlowFileEvent;
 import org.apache.nifi.controller.repository.FlowFileEventRepository;
 import org.apache.nifi.controller.repository.RepositoryStatusReport;
 import org.apache.nifi.controller.repository.metrics.EmptyFlowFileEvent;
+import org.apache.nifi.controller.status.AdaptiveProcessorStatus;
 import org.apache.nifi.controller.status.ConnectionStatus;
 import org.apache.nifi.controller.status.LoadBalanceStatus;
 import org.apache.nifi.controller.status.PortStatus;
@@ -656,7 +657,15 @@ public abstract class AbstractEventAccess implements EventAccess {
     protected ProcessorStatus getProcessorStatus(final FlowFileEvent flowFileEvent, final ProcessorNode procNode, final Predicate<Authorizable> isAuthorized) {
         final boolean isProcessorAuthorized = isAuthorized.test(procNode);
 
-        final ProcessorStatus status = new ProcessorStatus();
+        final ProcessorStatus status;
+        if (procNode.isConcurrentTaskLimited()) {
+            // Capture the adaptive concurrent task limit so that the framework's decisions are recorded in the status history
+            final AdaptiveProcessorStatus adaptiveStatus = new AdaptiveProcessorStatus();
+            adaptiveStatus.setConcurrentTaskLimit(procNode.getConcurrentTaskLimit());
+            status = adaptiveStatus;
+        } else {
+            status = new ProcessorStatus();
+        }
         status.setId(procNode.getIdentifier());
         status.setGroupId(procNode.getProcessGroup().getIdentifier());
         status.setName(isProcessorAuthorized ? procNode.getName() : procNode.getIdentifier());
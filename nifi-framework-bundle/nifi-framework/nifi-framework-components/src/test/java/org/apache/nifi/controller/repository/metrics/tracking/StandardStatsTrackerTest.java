@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.metrics.tracking;
+
+import org.apache.nifi.controller.repository.metrics.NanoTimePerformanceTracker;
+import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StandardStatsTrackerTest {
+
+    @Test
+    void testCpuTimeNotSampledOnVirtualThread() throws InterruptedException {
+        final StandardStatsTracker statsTracker = new StandardStatsTracker(() -> 0L, 100);
+
+        final AtomicReference<TrackedStats> trackedStatsRef = new AtomicReference<>();
+        final AtomicReference<StandardFlowFileEvent> eventRef = new AtomicReference<>();
+        final Thread virtualThread = Thread.ofVirtual().start(() -> {
+            final TrackedStats trackedStats = statsTracker.startTracking();
+            trackedStatsRef.set(trackedStats);
+            eventRef.set(trackedStats.end());
+        });
+        virtualThread.join();
+
+        // Content and commit timings are still tracked, but no CPU time is reported because it cannot be measured
+        assertInstanceOf(NanoTimePerformanceTracker.class, trackedStatsRef.get().getPerformanceTracker());
+        assertEquals(0L, eventRef.get().getCpuNanoseconds());
+        assertTrue(eventRef.get().getProcessingNanoseconds() >= 0L);
+    }
+
+    @Test
+    void testCpuTimeSampledOnPlatformThread() {
+        final StandardStatsTracker statsTracker = new StandardStatsTracker(() -> 0L, 100);
+
+        final TrackedStats trackedStats = statsTracker.startTracking();
+        final StandardFlowFileEvent event = trackedStats.end();
+
+        assertInstanceOf(NanoTimePerformanceTracker.class, trackedStats.getPerformanceTracker());
+        assertTrue(event.getCpuNanoseconds() >= 0L);
+    }
+}
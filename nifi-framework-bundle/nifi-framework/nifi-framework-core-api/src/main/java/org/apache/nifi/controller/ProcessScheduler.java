@@ -20,6 +20,7 @@ import org.apache.nifi.annotation.notification.PrimaryNodeState;
 import org.apache.nifi.components.connector.ConnectorNode;
 import org.apache.nifi.connectable.Funnel;
 import org.apache.nifi.connectable.Port;
+import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.service.ControllerServiceNode;
 import org.apache.nifi.controller.service.ControllerServiceProvider;
 import org.apache.nifi.groups.StatelessGroupNode;
@@ -230,6 +231,24 @@ public interface ProcessScheduler {
      */
     void yield(ProcessorNode procNode);
 
+    /**
+     * Notifies the Scheduler that one or more FlowFiles have been queued in the given queue, so that a component
+     * that is waiting for incoming data may be triggered without waiting for its bored yield to expire
+     *
+     * @param queue the queue that FlowFiles were added to
+     */
+    default void onFlowFilesQueued(FlowFileQueue queue) {
+    }
+
+    /**
+     * Notifies the Scheduler that the given queue is no longer full, so that a component that is waiting for
+     * back pressure to be released may be triggered without waiting for its bored yield to expire
+     *
+     * @param queue the queue that is no longer full
+     */
+    default void onBackPressureReleased(FlowFileQueue queue) {
+    }
+
     /**
      * Stops scheduling the given Reporting Task to run
      *
@@ -133,6 +133,27 @@ public abstract class ProcessorNode extends AbstractComponentNode implements Con
      */
     public abstract int getActiveThreadCount();
 
+    /**
+     * Returns the number of concurrent tasks that the framework currently allows this Processor to run. Unless the limit has been
+     * set via {@link #setConcurrentTaskLimit(int)}, this is the same as {@link #getMaxConcurrentTasks()}.
+     *
+     * @return the number of concurrent tasks that may currently run, never more than {@link #getMaxConcurrentTasks()}
+     */
+    public abstract int getConcurrentTaskLimit();
+
+    /**
+     * Limits the number of concurrent tasks that this Processor may run to fewer than its configured Concurrent Tasks, as is done when
+     * the framework adapts the number of concurrent tasks to the Processor's workload.
+     *
+     * @param limit the number of concurrent tasks that may run, or <code>0</code> to remove the limit
+     */
+    public abstract void setConcurrentTaskLimit(int limit);
+
+    /**
+     * @return <code>true</code> if the number of concurrent tasks is currently being limited via {@link #setConcurrentTaskLimit(int)}
+     */
+    public abstract boolean isConcurrentTaskLimited();
+
     public void verifyCanPerformVerification() {
         if (isRunning()) {
             throw new IllegalStateException("Cannot perform verification because the Processor is not stopped");
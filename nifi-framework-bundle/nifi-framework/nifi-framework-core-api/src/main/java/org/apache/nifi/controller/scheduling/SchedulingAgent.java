@@ -18,6 +18,7 @@ package org.apache.nifi.controller.scheduling;
 
 import org.apache.nifi.connectable.Connectable;
 import org.apache.nifi.controller.ReportingTaskNode;
+import org.apache.nifi.controller.queue.FlowFileQueue;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
@@ -33,6 +34,12 @@ public interface SchedulingAgent {
 
     void onEvent(Connectable connectable);
 
+    default void onFlowFilesQueued(FlowFileQueue queue) {
+    }
+
+    default void onBackPressureReleased(FlowFileQueue queue) {
+    }
+
     void schedule(ReportingTaskNode taskNode, LifecycleState scheduleState);
 
     void unschedule(ReportingTaskNode taskNode, LifecycleState scheduleState);
@@ -41,6 +48,16 @@ public interface SchedulingAgent {
 
     void incrementMaxThreadCount(int toAdd);
 
+    /**
+     * Increments the maximum number of threads available to the given component, such as to make up for tasks of the component that could not be terminated
+     *
+     * @param connectable the component whose tasks were terminated
+     * @param toAdd the number of threads to add
+     */
+    default void incrementMaxThreadCount(Connectable connectable, int toAdd) {
+        incrementMaxThreadCount(toAdd);
+    }
+
     void setAdministrativeYieldDuration(String duration);
 
     String getAdministrativeYieldDuration();
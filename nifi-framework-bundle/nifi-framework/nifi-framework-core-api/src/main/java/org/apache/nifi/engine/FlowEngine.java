@@ -52,10 +52,23 @@ public final class FlowEngine extends ScheduledThreadPoolExecutor {
      * @param daemon if true, the thread pool will be populated with daemon threads, otherwise the threads will not be marked as daemon.
      */
     public FlowEngine(int corePoolSize, final String threadNamePrefix, final boolean daemon) {
+        this(corePoolSize, threadNamePrefix, daemon, false);
+    }
+
+    /**
+     * Creates a new instance of FlowEngine
+     *
+     * @param corePoolSize the maximum number of threads available to tasks running in the engine.
+     * @param threadNamePrefix for thread naming
+     * @param daemon if true, the thread pool will be populated with daemon threads, otherwise the threads will not be marked as daemon.
+     * @param virtual if true, the thread pool will be populated with virtual threads, which are always daemon threads. A task that blocks
+     * on I/O then releases its carrier thread rather than occupying a platform thread for the duration of the call.
+     */
+    public FlowEngine(int corePoolSize, final String threadNamePrefix, final boolean daemon, final boolean virtual) {
         super(corePoolSize);
 
         final AtomicInteger threadIndex = new AtomicInteger(0);
-        final ThreadFactory defaultThreadFactory = getThreadFactory();
+        final ThreadFactory defaultThreadFactory = virtual ? Thread.ofVirtual().factory() : getThreadFactory();
         setThreadFactory(r -> {
             final Thread t = defaultThreadFactory.newThread(r);
             if (daemon) {
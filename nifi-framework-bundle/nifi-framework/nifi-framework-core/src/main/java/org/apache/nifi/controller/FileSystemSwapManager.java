@@ -27,6 +27,8 @@ import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
 import org.apache.nifi.controller.repository.SwapSummary;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.ColumnarSwapDeserializer;
+import org.apache.nifi.controller.swap.ColumnarSwapSerializer;
 import org.apache.nifi.controller.swap.SchemaSwapDeserializer;
 import org.apache.nifi.controller.swap.SchemaSwapSerializer;
 import org.apache.nifi.controller.swap.SimpleSwapDeserializer;
@@ -34,6 +36,7 @@ import org.apache.nifi.controller.swap.StandardSwapContents;
 import org.apache.nifi.controller.swap.StandardSwapSummary;
 import org.apache.nifi.controller.swap.SwapDeserializer;
 import org.apache.nifi.controller.swap.SwapSerializer;
+import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.reporting.Severity;
 import org.apache.nifi.repository.schema.FieldCache;
@@ -64,6 +67,8 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -82,9 +87,13 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     private static final Pattern UUID_PATTERN = Pattern.compile("([a-f0-9]{8}-[a-f0-9]{4}-[a-f0-9]{4}-[a-f0-9]{4}-[a-f0-9]{12})");
 
     public static final String EVENT_CATEGORY = "Swap FlowFiles";
+    private static final String COLUMNAR_ENCODING = "nifi.swap.columnar.encoding";
+    private static final String BACKGROUND_THREADS = "nifi.swap.background.threads";
     private static final Logger logger = LoggerFactory.getLogger(FileSystemSwapManager.class);
 
     private final File storageDirectory;
+    private final boolean columnarEncoding;
+    private final ExecutorService backgroundExecutor;
     private final FieldCache fieldCache = new CaffeineFieldCache(10_000_000);
 
     // effectively final
@@ -99,13 +108,33 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
      */
     public FileSystemSwapManager() {
         storageDirectory = null;
+        columnarEncoding = false;
+        backgroundExecutor = null;
     }
 
     public FileSystemSwapManager(final NiFiProperties nifiProperties) {
-        this(nifiProperties.getFlowFileRepositoryPath());
+        this(nifiProperties.getFlowFileRepositoryPath(), Boolean.parseBoolean(nifiProperties.getProperty(COLUMNAR_ENCODING, "false")),
+            nifiProperties.getIntegerProperty(BACKGROUND_THREADS, 0));
     }
 
     public FileSystemSwapManager(final Path flowFileRepoPath) {
+        this(flowFileRepoPath, false);
+    }
+
+    public FileSystemSwapManager(final Path flowFileRepoPath, final boolean columnarEncoding) {
+        this(flowFileRepoPath, columnarEncoding, 0);
+    }
+
+    /**
+     * @param flowFileRepoPath the path of the FlowFile Repository, under which swap files are stored
+     * @param columnarEncoding whether swap files should be written using the {@link ColumnarSwapSerializer}. Swap files are always read
+     *            using the serialization that they were written with, regardless of this flag.
+     * @param backgroundThreads the number of threads to use for reading swap files ahead of the queues that need them and for writing swap
+     *            files without blocking the queues that produced them, or 0 to always read and write swap files on the calling thread
+     */
+    public FileSystemSwapManager(final Path flowFileRepoPath, final boolean columnarEncoding, final int backgroundThreads) {
+        this.columnarEncoding = columnarEncoding;
+        this.backgroundExecutor = backgroundThreads > 0 ? new FlowEngine(backgroundThreads, "Swap FlowFiles", true) : null;
         this.storageDirectory = flowFileRepoPath.resolve("swap").toFile();
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new RuntimeException("Cannot create Swap Storage directory " + storageDirectory.getAbsolutePath());
@@ -141,7 +170,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final File swapTempFile = new File(swapFile.getParentFile(), swapFile.getName() + ".part");
         final String swapLocation = swapFile.getAbsolutePath();
 
-        final SwapSerializer serializer = new SchemaSwapSerializer();
+        final SwapSerializer serializer = columnarEncoding ? new ColumnarSwapSerializer() : new SchemaSwapSerializer();
         try (final OutputStream os = getOutputStream(swapTempFile);
             final OutputStream out = new BufferedOutputStream(os)) {
             out.write(MAGIC_HEADER);
@@ -165,8 +194,30 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         return swapLocation;
     }
 
+    @Override
+    public CompletableFuture<String> swapOutAsync(final List<FlowFileRecord> toSwap, final FlowFileQueue flowFileQueue, final String partitionName) {
+        if (backgroundExecutor == null) {
+            return null;
+        }
+
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        backgroundExecutor.execute(() -> {
+            try {
+                future.complete(swapOut(toSwap, flowFileQueue, partitionName));
+            } catch (final Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
     @Override
     public SwapContents swapIn(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+        return swapIn(swapLocation, flowFileQueue, null);
+    }
+
+    @Override
+    public SwapContents swapIn(final String swapLocation, final FlowFileQueue flowFileQueue, final SwapContents prefetchedContents) throws IOException {
         final File swapFile = new File(swapLocation);
 
         final boolean validLocation = flowFileRepository.isValidSwapLocationSuffix(swapFile.getName());
@@ -178,7 +229,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             return new StandardSwapContents(swapSummary, Collections.emptyList());
         }
 
-        final SwapContents swapContents = peek(swapLocation, flowFileQueue);
+        final SwapContents swapContents = prefetchedContents == null ? peek(swapLocation, flowFileQueue) : prefetchedContents;
         flowFileRepository.swapFlowFilesIn(swapFile.getAbsolutePath(), swapContents.getFlowFiles(), flowFileQueue);
 
         if (!swapFile.delete()) {
@@ -188,6 +239,27 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         return swapContents;
     }
 
+    @Override
+    public CompletableFuture<SwapContents> prefetch(final String swapLocation, final FlowFileQueue flowFileQueue) {
+        if (backgroundExecutor == null) {
+            return null;
+        }
+
+        final CompletableFuture<SwapContents> future = new CompletableFuture<>();
+        backgroundExecutor.execute(() -> {
+            if (future.isCancelled()) {
+                return;
+            }
+
+            try {
+                future.complete(peek(swapLocation, flowFileQueue));
+            } catch (final Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
     @Override
     public SwapContents peek(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
         final File swapFile = new File(swapLocation);
@@ -286,7 +358,8 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             if (TEMP_SWAP_FILE_PATTERN.matcher(swapFile.getName()).matches()) {
                 if (swapFile.delete()) {
                     logger.info("Removed incomplete/temporary Swap File {}", swapFile);
-                } else {
+                } else if (swapFile.exists()) {
+                    // The swap files of several queues may be recovered concurrently, in which case another queue may already have removed this file
                     warn("Failed to remove incomplete/temporary Swap File " + swapFile + "; this file should be cleaned up manually");
                 }
 
@@ -376,6 +449,9 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             if (serializationName.equals(SchemaSwapDeserializer.getSerializationName())) {
                 return new SchemaSwapDeserializer(fieldCache);
             }
+            if (serializationName.equals(ColumnarSwapDeserializer.getSerializationName())) {
+                return new ColumnarSwapDeserializer(fieldCache);
+            }
 
             throw new IOException("Cannot find a suitable Deserializer for swap file, written with Serialization Name '" + serializationName + "'");
         } else {
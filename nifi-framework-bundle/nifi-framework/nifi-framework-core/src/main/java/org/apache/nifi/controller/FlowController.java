@@ -133,6 +133,7 @@ import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
 import org.apache.nifi.controller.scheduling.CronSchedulingAgent;
 import org.apache.nifi.controller.scheduling.LifecycleStateManager;
+import org.apache.nifi.controller.scheduling.ProcessGroupThreadQuotas;
 import org.apache.nifi.controller.scheduling.RepositoryContextFactory;
 import org.apache.nifi.controller.scheduling.StandardLifecycleStateManager;
 import org.apache.nifi.controller.scheduling.StandardProcessScheduler;
@@ -260,8 +261,10 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -294,8 +297,14 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
 
     private static final String ZOOKEEPER_STATE_PROVIDER_SERVER_CLASS = "org.apache.nifi.controller.state.providers.zookeeper.server.ZooKeeperStateProviderServer";
 
+    // Inline content is held on the heap for every FlowFile that is queued and not swapped out
+    private static final int MAX_INLINE_CONTENT_BYTES = 64 * 1024;
+
     private final AtomicInteger maxTimerDrivenThreads;
     private final AtomicReference<FlowEngine> timerDrivenEngineRef;
+    // Runs the Timer-Driven tasks of I/O-bound Processor types on virtual threads; null if no Processor type is configured to do so
+    private final FlowEngine virtualThreadEngine;
+    private final ProcessGroupThreadQuotas processGroupThreadQuotas;
 
     private final ContentRepository contentRepository;
     private final FlowFileRepository flowFileRepository;
@@ -554,6 +563,18 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
         }
 
         timerDrivenEngineRef = new AtomicReference<>(new FlowEngine(maxTimerDrivenThreads.get(), "Timer-Driven Process"));
+        if (nifiProperties.getVirtualThreadProcessorTypes().isEmpty()) {
+            virtualThreadEngine = null;
+        } else {
+            virtualThreadEngine = new FlowEngine(nifiProperties.getVirtualThreadMaxConcurrentTasks(), "Timer-Driven Virtual Process", true, true);
+            LOG.info("Processors of type {} will run on up to {} concurrent virtual threads", nifiProperties.getVirtualThreadProcessorTypes(),
+                nifiProperties.getVirtualThreadMaxConcurrentTasks());
+        }
+
+        processGroupThreadQuotas = new ProcessGroupThreadQuotas(nifiProperties.getProcessGroupMaxThreads());
+        if (!processGroupThreadQuotas.isEmpty()) {
+            LOG.info("Process Groups will be limited to the following number of Timer-Driven threads: {}", nifiProperties.getProcessGroupMaxThreads());
+        }
 
         final FlowFileRepository flowFileRepo = createFlowFileRepository(nifiProperties, extensionManager, resourceClaimManager);
         flowFileRepository = flowFileRepo;
@@ -605,7 +626,7 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
         parameterContextManager = new StandardParameterContextManager();
         final long maxAppendableBytes = getMaxAppendableBytes();
         repositoryContextFactory = new RepositoryContextFactory(contentRepository, flowFileRepository, flowFileEventRepository,
-            counterRepositoryRef.get(), componentMetricReporter, provenanceRepository, stateManagerProvider, maxAppendableBytes);
+            counterRepositoryRef.get(), componentMetricReporter, provenanceRepository, stateManagerProvider, maxAppendableBytes, getMaxInlineContentBytes());
 
         assetManager = createAssetManager(
             nifiProperties,
@@ -675,7 +696,8 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
         }
 
         final CronSchedulingAgent cronSchedulingAgent = new CronSchedulingAgent(this, timerDrivenEngineRef.get(), repositoryContextFactory);
-        final TimerDrivenSchedulingAgent timerDrivenAgent = new TimerDrivenSchedulingAgent(this, timerDrivenEngineRef.get(), repositoryContextFactory, this.nifiProperties);
+        final TimerDrivenSchedulingAgent timerDrivenAgent = new TimerDrivenSchedulingAgent(this, timerDrivenEngineRef.get(), virtualThreadEngine, repositoryContextFactory,
+            this.nifiProperties, processGroupThreadQuotas);
         processScheduler.setSchedulingAgent(SchedulingStrategy.TIMER_DRIVEN, timerDrivenAgent);
         processScheduler.setSchedulingAgent(SchedulingStrategy.CRON_DRIVEN, cronSchedulingAgent);
 
@@ -1320,35 +1342,81 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
         initializeFlow(new StandardQueueProvider(getFlowManager()));
     }
 
+    /**
+     * Loads the FlowFiles from the FlowFile Repository and then recovers the swap files of each queue, using a pool of threads to summarize the
+     * swap files of different queues in parallel. Swap recovery must not begin until all FlowFiles have been loaded: enqueuing a FlowFile may
+     * swap out part of a queue, and recovery removes any partially written swap file that it finds.
+     *
+     * @return the largest FlowFile ID that was found in a swap file, or -1 if no swap file holds a FlowFile
+     */
+    private long loadFlowFilesAndRecoverSwapFiles(final QueueProvider queueProvider, final Set<Connection> connections) throws IOException {
+        final long loadStart = System.nanoTime();
+        final int recoveryThreads = Math.min(nifiProperties.getFlowFileRepositoryRecoveryThreads(), Math.max(1, connections.size()));
+        final ExecutorService swapRecoveryExecutor = new FlowEngine(recoveryThreads, "Recover Swap Files", true);
+        final List<CompletableFuture<SwapSummary>> swapSummaryFutures = new ArrayList<>(connections.size());
+
+        try {
+            flowFileRepository.loadFlowFiles(queueProvider);
+            final long loadNanos = System.nanoTime() - loadStart;
+
+            for (final Connection connection : connections) {
+                final FlowFileQueue queue = connection.getFlowFileQueue();
+                swapSummaryFutures.add(CompletableFuture.supplyAsync(queue::recoverSwappedFlowFiles, swapRecoveryExecutor));
+            }
+
+            long maxIdFromSwapFiles = -1L;
+            int swappedFlowFileCount = 0;
+            for (final CompletableFuture<SwapSummary> swapSummaryFuture : swapSummaryFutures) {
+                final SwapSummary swapSummary;
+                try {
+                    swapSummary = swapSummaryFuture.join();
+                } catch (final CompletionException e) {
+                    if (e.getCause() instanceof final RuntimeException runtimeException) {
+                        throw runtimeException;
+                    }
+                    throw e;
+                }
+
+                if (swapSummary != null) {
+                    final Long maxFlowFileId = swapSummary.getMaxFlowFileId();
+                    if (maxFlowFileId != null && maxFlowFileId > maxIdFromSwapFiles) {
+                        maxIdFromSwapFiles = maxFlowFileId;
+                    }
+
+                    swappedFlowFileCount += swapSummary.getQueueSize().getObjectCount();
+                    for (final ResourceClaim resourceClaim : swapSummary.getResourceClaims()) {
+                        resourceClaimManager.incrementClaimantCount(resourceClaim);
+                    }
+                }
+            }
+
+            final long totalNanos = System.nanoTime() - loadStart;
+            LOG.info("Loaded FlowFiles for {} queues in {} millis (Load FlowFile Repository = {} millis, Swap File recovery = {} millis); "
+                    + "recovered {} swapped FlowFiles using {} threads", connections.size(), TimeUnit.NANOSECONDS.toMillis(totalNanos), TimeUnit.NANOSECONDS.toMillis(loadNanos),
+                    TimeUnit.NANOSECONDS.toMillis(totalNanos - loadNanos), swappedFlowFileCount, recoveryThreads);
+
+            return maxIdFromSwapFiles;
+        } finally {
+            swapRecoveryExecutor.shutdownNow();
+        }
+    }
+
     public void initializeFlow(final QueueProvider queueProvider) throws IOException {
         writeLock.lock();
         try {
             // get all connections/queues and recover from swap files.
             final Set<Connection> connections = flowManager.findAllConnections();
 
-            flowFileRepository.loadFlowFiles(queueProvider);
-
             long maxIdFromSwapFiles = -1L;
             if (flowFileRepository.isVolatile()) {
+                flowFileRepository.loadFlowFiles(queueProvider);
+
                 for (final Connection connection : connections) {
                     final FlowFileQueue queue = connection.getFlowFileQueue();
                     queue.purgeSwapFiles();
                 }
             } else {
-                for (final Connection connection : connections) {
-                    final FlowFileQueue queue = connection.getFlowFileQueue();
-                    final SwapSummary swapSummary = queue.recoverSwappedFlowFiles();
-                    if (swapSummary != null) {
-                        final Long maxFlowFileId = swapSummary.getMaxFlowFileId();
-                        if (maxFlowFileId != null && maxFlowFileId > maxIdFromSwapFiles) {
-                            maxIdFromSwapFiles = maxFlowFileId;
-                        }
-
-                        for (final ResourceClaim resourceClaim : swapSummary.getResourceClaims()) {
-                            resourceClaimManager.incrementClaimantCount(resourceClaim);
-                        }
-                    }
-                }
+                maxIdFromSwapFiles = loadFlowFilesAndRecoverSwapFiles(queueProvider, connections);
             }
 
             flowFileRepository.updateMaxFlowFileIdentifier(maxIdFromSwapFiles + 1);
@@ -1363,7 +1431,8 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
                     getComponentMetricReporter(),
                     provenanceRepository,
                     stateManagerProvider,
-                    maxAppendableClaimBytes
+                    maxAppendableClaimBytes,
+                    getMaxInlineContentBytes()
             );
             processScheduler.scheduleFrameworkTask(new ExpireFlowFiles(this, contextFactory), "Expire FlowFiles", 30L, 30L, TimeUnit.SECONDS);
 
@@ -1421,6 +1490,22 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
         return maxAppendableClaimBytes;
     }
 
+    private int getMaxInlineContentBytes() {
+        if (!flowFileRepository.isInlineContentSupported()) {
+            return 0;
+        }
+
+        final String maxInlineContentSize = nifiProperties.getFlowFileRepositoryInlineContentMaxSize();
+        final long maxInlineContentBytes = DataUnit.parseDataSize(maxInlineContentSize, DataUnit.B).longValue();
+        if (maxInlineContentBytes > MAX_INLINE_CONTENT_BYTES) {
+            LOG.warn("{} is set to {} but content larger than {} bytes is never held in the FlowFile Repository; using {} bytes",
+                NiFiProperties.FLOWFILE_REPOSITORY_INLINE_CONTENT_MAX_SIZE, maxInlineContentSize, MAX_INLINE_CONTENT_BYTES, MAX_INLINE_CONTENT_BYTES);
+            return MAX_INLINE_CONTENT_BYTES;
+        }
+
+        return (int) Math.max(0L, maxInlineContentBytes);
+    }
+
     private void notifyComponentsConfigurationRestored() {
         for (final ProcessorNode procNode : flowManager.getRootGroup().findAllProcessors()) {
             final Processor processor = procNode.getProcessor();
@@ -1966,9 +2051,15 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
 
             if (kill) {
                 this.timerDrivenEngineRef.get().shutdownNow();
+                if (virtualThreadEngine != null) {
+                    virtualThreadEngine.shutdownNow();
+                }
                 LOG.info("Initiated immediate shutdown of flow controller...");
             } else {
                 this.timerDrivenEngineRef.get().shutdown();
+                if (virtualThreadEngine != null) {
+                    virtualThreadEngine.shutdown();
+                }
                 LOG.info("Initiated graceful shutdown of flow controller...waiting up to {} seconds", gracefulShutdownSeconds);
             }
 
@@ -2210,7 +2301,18 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
     }
 
     public int getActiveTimerDrivenThreadCount() {
-        return timerDrivenEngineRef.get().getActiveCount();
+        return timerDrivenEngineRef.get().getActiveCount() + getActiveVirtualThreadCount();
+    }
+
+    private int getActiveVirtualThreadCount() {
+        return virtualThreadEngine == null ? 0 : virtualThreadEngine.getActiveCount();
+    }
+
+    /**
+     * @return the thread budgets of the Process Groups that are configured with {@link NiFiProperties#PROCESS_GROUP_MAX_THREADS_PREFIX}
+     */
+    public ProcessGroupThreadQuotas getProcessGroupThreadQuotas() {
+        return processGroupThreadQuotas;
     }
 
     public void setMaxTimerDrivenThreadCount(final int maxThreadCount) {
@@ -2882,7 +2984,7 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
     }
 
     public int getActiveThreadCount() {
-        return timerDrivenEngineRef.get().getActiveCount();
+        return timerDrivenEngineRef.get().getActiveCount() + getActiveVirtualThreadCount();
     }
 
     //
@@ -3407,7 +3509,8 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
         final ContentClaim contentClaim = flowFile.getContentClaim();
         if (contentClaim == null) {
             resourceClaim = null;
-            stream = new ByteArrayInputStream(new byte[0]);
+            final byte[] inlineContent = flowFile.getInlineContent();
+            stream = new ByteArrayInputStream(inlineContent == null ? new byte[0] : inlineContent);
         } else {
             resourceClaim = flowFile.getContentClaim().getResourceClaim();
             stream = contentRepository.read(flowFile.getContentClaim());
@@ -3775,6 +3878,13 @@ public class FlowController implements ReportingTaskProvider, FlowAnalysisRulePr
         return nifiProperties.getPerformanceMetricTrackingPercentage();
     }
 
+    /**
+     * @return the maximum number of consecutive triggers of a Processor that supports batching and has no Run Duration that may share a single session commit
+     */
+    public int getProcessorMicroBatchSize() {
+        return nifiProperties.getProcessorMicroBatchSize();
+    }
+
     public Integer getRemoteSiteListeningPort() {
         return remoteInputSocketPort;
     }
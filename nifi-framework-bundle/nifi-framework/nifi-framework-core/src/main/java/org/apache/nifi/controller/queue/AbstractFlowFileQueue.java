@@ -88,6 +88,24 @@ public abstract class AbstractFlowFileQueue implements FlowFileQueue {
         return scheduler;
     }
 
+    /**
+     * Notifies the scheduler that FlowFiles have been added to this queue, so that a destination that is waiting for data can be triggered
+     */
+    protected void notifyFlowFilesQueued() {
+        if (scheduler != null) {
+            scheduler.onFlowFilesQueued(this);
+        }
+    }
+
+    /**
+     * Notifies the scheduler if this queue is not full, so that a source that is waiting for back pressure to be released can be triggered
+     */
+    protected void notifyIfBackPressureReleased() {
+        if (scheduler != null && !isFull()) {
+            scheduler.onBackPressureReleased(this);
+        }
+    }
+
     @Override
     public String getFlowFileExpiration() {
         return expirationPeriod.get().getPeriod();
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * The active queue of a {@link SwappablePriorityQueue} that has no prioritizers. FlowFiles are returned in the order in which they were added,
+ * except that penalized FlowFiles are held back, ordered by when their penalty expires. Once its penalty has expired, a FlowFile rejoins the
+ * end of the queue. A penalized FlowFile is returned only if there is no other FlowFile available, so that callers can tell that the rest of
+ * the queue is penalized, just as they can with a {@link java.util.PriorityQueue} ordered by a {@link QueuePrioritizer}.
+ * </p>
+ *
+ * <p>
+ * Unlike a {@link java.util.PriorityQueue}, this queue is safe for concurrent use and does not block, which allows FlowFiles to be added to
+ * and polled from the SwappablePriorityQueue while holding only its read lock.
+ * </p>
+ */
+final class ConcurrentFifoQueue extends AbstractQueue<FlowFileRecord> {
+    private static final Comparator<FlowFileRecord> PENALTY_COMPARATOR = Comparator.comparingLong(FlowFileRecord::getPenaltyExpirationMillis)
+        .thenComparingLong(FlowFileRecord::getId);
+
+    private final ConcurrentLinkedDeque<FlowFileRecord> unpenalized = new ConcurrentLinkedDeque<>();
+    private final ConcurrentSkipListSet<FlowFileRecord> penalized = new ConcurrentSkipListSet<>(PENALTY_COMPARATOR);
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    @Override
+    public boolean offer(final FlowFileRecord flowFile) {
+        if (flowFile.isPenalized()) {
+            penalized.add(flowFile);
+        } else {
+            unpenalized.offerLast(flowFile);
+        }
+
+        size.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the given FlowFiles to the head of the queue, in the order given, so that they are polled before any FlowFile that is already queued.
+     * Penalized FlowFiles are held back as usual.
+     *
+     * @param flowFiles the FlowFiles to return to the queue
+     */
+    void addAllFirst(final Collection<FlowFileRecord> flowFiles) {
+        final List<FlowFileRecord> flowFileList = flowFiles instanceof List<FlowFileRecord> list ? list : new ArrayList<>(flowFiles);
+        for (int i = flowFileList.size() - 1; i >= 0; i--) {
+            final FlowFileRecord flowFile = flowFileList.get(i);
+            if (flowFile.isPenalized()) {
+                penalized.add(flowFile);
+            } else {
+                unpenalized.offerFirst(flowFile);
+            }
+
+            size.incrementAndGet();
+        }
+    }
+
+    @Override
+    public FlowFileRecord poll() {
+        releaseExpiredPenalties();
+
+        FlowFileRecord flowFile = unpenalized.pollFirst();
+        if (flowFile == null) {
+            flowFile = penalized.pollFirst();
+        }
+
+        if (flowFile != null) {
+            size.decrementAndGet();
+        }
+
+        return flowFile;
+    }
+
+    @Override
+    public FlowFileRecord peek() {
+        final FlowFileRecord head = unpenalized.peekFirst();
+        return head == null ? firstPenalized() : head;
+    }
+
+    private FlowFileRecord firstPenalized() {
+        final Iterator<FlowFileRecord> iterator = penalized.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private void releaseExpiredPenalties() {
+        FlowFileRecord first;
+        while ((first = firstPenalized()) != null && !first.isPenalized()) {
+            // Another thread may have polled or released the FlowFile, in which case there is nothing left for us to do with it.
+            if (penalized.remove(first)) {
+                unpenalized.offerLast(first);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void clear() {
+        unpenalized.clear();
+        penalized.clear();
+        size.set(0);
+    }
+
+    @Override
+    public Iterator<FlowFileRecord> iterator() {
+        return new Iterator<>() {
+            private final Iterator<FlowFileRecord> unpenalizedIterator = unpenalized.iterator();
+            private final Iterator<FlowFileRecord> penalizedIterator = penalized.iterator();
+            private Iterator<FlowFileRecord> current = unpenalizedIterator;
+            private Iterator<FlowFileRecord> lastReturnedFrom;
+
+            @Override
+            public boolean hasNext() {
+                if (current == unpenalizedIterator && !unpenalizedIterator.hasNext()) {
+                    current = penalizedIterator;
+                }
+
+                return current.hasNext();
+            }
+
+            @Override
+            public FlowFileRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                lastReturnedFrom = current;
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturnedFrom == null) {
+                    throw new IllegalStateException();
+                }
+
+                lastReturnedFrom.remove();
+                lastReturnedFrom = null;
+                size.decrementAndGet();
+            }
+        };
+    }
+}
@@ -117,11 +117,19 @@ public class StandardFlowFileQueue extends AbstractFlowFileQueue implements Flow
     @Override
     public void put(final FlowFileRecord file) {
         queue.put(file);
+        notifyFlowFilesQueued();
     }
 
     @Override
     public void putAll(final Collection<FlowFileRecord> files) {
         queue.putAll(files);
+        notifyFlowFilesQueued();
+    }
+
+    @Override
+    public void requeue(final Collection<FlowFileRecord> files) {
+        queue.requeue(files);
+        notifyFlowFilesQueued();
     }
 
     @Override
@@ -139,11 +147,13 @@ public class StandardFlowFileQueue extends AbstractFlowFileQueue implements Flow
     @Override
     public void acknowledge(final FlowFileRecord flowFile) {
         queue.acknowledge(flowFile);
+        notifyIfBackPressureReleased();
     }
 
     @Override
     public void acknowledge(final Collection<FlowFileRecord> flowFiles) {
         queue.acknowledge(flowFiles);
+        notifyIfBackPressureReleased();
     }
 
     @Override
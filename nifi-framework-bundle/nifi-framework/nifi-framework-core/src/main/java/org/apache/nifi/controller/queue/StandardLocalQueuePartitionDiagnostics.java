@@ -23,14 +23,26 @@ public class StandardLocalQueuePartitionDiagnostics implements LocalQueuePartiti
     private final boolean allPenalized;
     private final QueueSize penalizedQueueSize;
     private final QueueSize totalSwapFileQueueSize;
+    private final long swapInCount;
+    private final long swapInStallCount;
+    private final long swapInNanos;
 
     public StandardLocalQueuePartitionDiagnostics(final FlowFileQueueSize queueSize, final boolean anyPenalized, final boolean allPenalized,
                                                    final QueueSize penalizedQueueSize, final QueueSize totalSwapFileQueueSize) {
+        this(queueSize, anyPenalized, allPenalized, penalizedQueueSize, totalSwapFileQueueSize, 0L, 0L, 0L);
+    }
+
+    public StandardLocalQueuePartitionDiagnostics(final FlowFileQueueSize queueSize, final boolean anyPenalized, final boolean allPenalized,
+                                                   final QueueSize penalizedQueueSize, final QueueSize totalSwapFileQueueSize,
+                                                   final long swapInCount, final long swapInStallCount, final long swapInNanos) {
         this.queueSize = queueSize;
         this.anyPenalized = anyPenalized;
         this.allPenalized = allPenalized;
         this.penalizedQueueSize = penalizedQueueSize;
         this.totalSwapFileQueueSize = totalSwapFileQueueSize;
+        this.swapInCount = swapInCount;
+        this.swapInStallCount = swapInStallCount;
+        this.swapInNanos = swapInNanos;
     }
 
     @Override
@@ -72,4 +84,19 @@ public class StandardLocalQueuePartitionDiagnostics implements LocalQueuePartiti
     public QueueSize getTotalSwapFileQueueSize() {
         return totalSwapFileQueueSize;
     }
+
+    @Override
+    public long getSwapInCount() {
+        return swapInCount;
+    }
+
+    @Override
+    public long getSwapInStallCount() {
+        return swapInStallCount;
+    }
+
+    @Override
+    public long getSwapInNanos() {
+        return swapInNanos;
+    }
 }
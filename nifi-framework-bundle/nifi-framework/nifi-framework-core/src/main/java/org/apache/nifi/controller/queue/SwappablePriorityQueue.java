@@ -24,6 +24,7 @@ import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapSummary;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.status.FlowFileAvailability;
+import org.apache.nifi.controller.swap.StandardSwapContents;
 import org.apache.nifi.controller.swap.StandardSwapSummary;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.flowfile.FlowFile;
@@ -50,6 +51,9 @@ import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -59,9 +63,11 @@ public class SwappablePriorityQueue {
     private static final Logger logger = LoggerFactory.getLogger(SwappablePriorityQueue.class);
     private static final int MAX_SWAP_RECORD_POLL_SIZE = 10_000;
     private static final int MAX_EXPIRED_RECORDS_PER_ITERATION = 10_000;
+    private static final int MAX_PENDING_SWAP_OUTS = 2;
 
     private final int swapThreshold;
     private final int swapRecordPollSize;
+    private final int swapInPrefetchThreshold;
     private final FlowFileSwapManager swapManager;
     private final EventReporter eventReporter;
     private final FlowFileQueue flowFileQueue;
@@ -85,6 +91,10 @@ public class SwappablePriorityQueue {
     // that they are swapped out.
     // Guarded by lock.
     private Queue<FlowFileRecord> activeQueue;
+    // If there are no prioritizers, the active queue is a ConcurrentFifoQueue. In that case, as long as nothing is swapped out, FlowFiles are
+    // added to and polled from the active queue while holding only the read lock, so that concurrent tasks do not contend for the write lock.
+    // This refers to the active queue in that case and is null otherwise. It is only changed while holding the write lock.
+    private volatile ConcurrentFifoQueue concurrentActiveQueue;
     private List<FlowFileRecord> swapQueue;
     private boolean swapMode = false;
     private volatile long topPenaltyExpiration = -1L;
@@ -94,13 +104,26 @@ public class SwappablePriorityQueue {
     private final Map<String, Long> minQueueDateInSwapLocation = new HashMap<>();
     private final Map<String, Long> totalQueueDateInSwapLocation = new HashMap<>();
 
+    // If the Swap Manager supports it, swap files are written and read in the background so that the thread holding the lock does not
+    // have to wait on disk I/O. Swap files that are still being written are kept, in the order that they were swapped out, along with
+    // their FlowFiles; at most MAX_PENDING_SWAP_OUTS are allowed to be outstanding in order to bound the amount of heap that they use.
+    // Once written, they are moved to 'swapLocations' and the FlowFiles are released. The next swap file to be swapped in is read ahead
+    // of time once the active queue falls below the prefetch threshold.
+    // Guarded by lock.
+    private final List<PendingSwapOut> pendingSwapOuts = new ArrayList<>();
+    private PendingSwapIn pendingSwapIn;
+    private long swapInCount = 0L;
+    private long swapInStallCount = 0L;
+    private long swapInNanos = 0L;
+
     public SwappablePriorityQueue(final FlowFileSwapManager swapManager, final int swapThreshold, final EventReporter eventReporter, final FlowFileQueue flowFileQueue,
         final DropFlowFileAction dropAction, final String swapPartitionName) {
         this.swapManager = swapManager;
         this.swapThreshold = swapThreshold;
         this.swapRecordPollSize = Math.min(MAX_SWAP_RECORD_POLL_SIZE, swapThreshold);
+        this.swapInPrefetchThreshold = Math.max(1, swapRecordPollSize / 2);
 
-        this.activeQueue = new PriorityQueue<>(20, new QueuePrioritizer(Collections.emptyList()));
+        setActiveQueue(createActiveQueue(Collections.emptyList(), 20));
         this.swapQueue = new ArrayList<>();
         this.eventReporter = eventReporter;
         this.flowFileQueue = flowFileQueue;
@@ -125,14 +148,47 @@ public class SwappablePriorityQueue {
         try {
             this.priorities = new ArrayList<>(newPriorities);
 
-            final Queue<FlowFileRecord> newQueue = new PriorityQueue<>(Math.max(20, activeQueue.size()), new QueuePrioritizer(newPriorities));
-            newQueue.addAll(activeQueue);
-            activeQueue = newQueue;
+            final Queue<FlowFileRecord> newQueue = createActiveQueue(newPriorities, activeQueue.size());
+            FlowFileRecord flowFile;
+            while ((flowFile = activeQueue.poll()) != null) {
+                newQueue.add(flowFile);
+            }
+            setActiveQueue(newQueue);
+            updateTopPenaltyExpiration();
         } finally {
             writeLock.unlock("setPriorities");
         }
     }
 
+    private Queue<FlowFileRecord> createActiveQueue(final List<FlowFilePrioritizer> prioritizers, final int initialCapacity) {
+        if (prioritizers.isEmpty()) {
+            return new ConcurrentFifoQueue();
+        }
+
+        return new PriorityQueue<>(Math.max(20, initialCapacity), new QueuePrioritizer(prioritizers));
+    }
+
+    // MUST be called while holding write lock
+    private void setActiveQueue(final Queue<FlowFileRecord> queue) {
+        activeQueue = queue;
+        concurrentActiveQueue = queue instanceof ConcurrentFifoQueue fifoQueue ? fifoQueue : null;
+    }
+
+    // MUST be called while holding read lock or write lock. Returns the given FlowFiles to the head of the active queue.
+    private void returnToActiveQueue(final Collection<FlowFileRecord> flowFiles) {
+        if (activeQueue instanceof ConcurrentFifoQueue fifoQueue) {
+            fifoQueue.addAllFirst(flowFiles);
+        } else {
+            activeQueue.addAll(flowFiles);
+        }
+    }
+
+    // MUST be called while holding read lock. FlowFiles may be added to and polled from the active queue without the write lock only if it
+    // allows for concurrent access and nothing needs to be swapped in.
+    private boolean isConcurrentAccessAllowed() {
+        return activeQueue == concurrentActiveQueue && getFlowFileQueueSize().getSwappedCount() == 0;
+    }
+
     public LocalQueuePartitionDiagnostics getQueueDiagnostics() {
         readLock.lock();
         try {
@@ -161,9 +217,14 @@ public class SwappablePriorityQueue {
                     logger.warn("Unable to read swap file summary for {}: {}", swapLocation, e.getMessage());
                 }
             }
+            for (final PendingSwapOut pendingSwapOut : pendingSwapOuts) {
+                totalSwapFlowFiles += pendingSwapOut.flowFiles().size();
+                totalSwapBytes += pendingSwapOut.bytes();
+            }
             final QueueSize totalSwapFileQueueSize = new QueueSize(totalSwapFlowFiles, totalSwapBytes);
 
-            return new StandardLocalQueuePartitionDiagnostics(getFlowFileQueueSize(), anyPenalized, allPenalized, penalizedQueueSize, totalSwapFileQueueSize);
+            return new StandardLocalQueuePartitionDiagnostics(getFlowFileQueueSize(), anyPenalized, allPenalized, penalizedQueueSize, totalSwapFileQueueSize,
+                swapInCount, swapInStallCount, swapInNanos);
         } finally {
             readLock.unlock("getQueueDiagnostics");
         }
@@ -212,6 +273,7 @@ public class SwappablePriorityQueue {
 
         long bytesSwappedOut = 0L;
         int flowFilesSwappedOut = 0;
+        int swapFilesWritten = 0;
         final List<String> swapLocations = new ArrayList<>(numSwapFiles);
         for (int i = 0; i < numSwapFiles; i++) {
             long bytesSwappedThisIteration = 0L;
@@ -228,8 +290,29 @@ public class SwappablePriorityQueue {
                 minQueueDateThisIteration = minQueueDateThisIteration < flowFile.getLastQueueDate() ? minQueueDateThisIteration : flowFile.getLastQueueDate();
             }
 
+            Collections.reverse(toSwap); // currently ordered in reverse priority order based on the ordering of the temp queue.
+
+            if (pendingSwapOuts.size() >= MAX_PENDING_SWAP_OUTS) {
+                // Wait for the oldest swap file to be written so that we do not hold more than MAX_PENDING_SWAP_OUTS batches of FlowFiles in heap.
+                final PendingSwapOut oldest = pendingSwapOuts.remove(0);
+                if (!completeSwapOut(oldest, tempQueue)) {
+                    // The FlowFiles are already accounted for in the swapped count, so treat them as though they were on the swap queue all along.
+                    originalSwapQueueCount += oldest.flowFiles().size();
+                    originalSwapQueueBytes += oldest.bytes();
+                }
+            }
+
+            final CompletableFuture<String> backgroundSwapOut = swapManager.swapOutAsync(toSwap, flowFileQueue, swapPartitionName);
+            if (backgroundSwapOut != null) {
+                pendingSwapOuts.add(new PendingSwapOut(toSwap, bytesSwappedThisIteration, minQueueDateThisIteration, totalSwapQueueDatesThisIteration, backgroundSwapOut));
+                logger.debug("Writing Swap File containing {} FlowFiles ({} bytes) in the background", toSwap.size(), bytesSwappedThisIteration);
+
+                bytesSwappedOut += bytesSwappedThisIteration;
+                flowFilesSwappedOut += toSwap.size();
+                continue;
+            }
+
             try {
-                Collections.reverse(toSwap); // currently ordered in reverse priority order based on the ordering of the temp queue.
                 final String swapLocation = swapManager.swapOut(toSwap, flowFileQueue, swapPartitionName);
                 swapLocations.add(swapLocation);
 
@@ -237,21 +320,12 @@ public class SwappablePriorityQueue {
 
                 bytesSwappedOut += bytesSwappedThisIteration;
                 flowFilesSwappedOut += toSwap.size();
+                swapFilesWritten++;
                 minQueueDateInSwapLocation.put(swapLocation, minQueueDateThisIteration);
                 totalQueueDateInSwapLocation.put(swapLocation, totalSwapQueueDatesThisIteration);
             } catch (final IOException ioe) {
                 tempQueue.addAll(toSwap); // if we failed, we must add the FlowFiles back to the queue.
-
-                final int objectCount = getFlowFileCount();
-                logger.error("FlowFile Queue with identifier {} has {} FlowFiles queued up. Attempted to spill FlowFile information over to disk in order to avoid exhausting "
-                    + "the Java heap space but failed to write information to disk due to {}", getQueueIdentifier(), objectCount, ioe.toString());
-                logger.error("", ioe);
-                if (eventReporter != null) {
-                    eventReporter.reportEvent(Severity.ERROR, "Failed to Overflow to Disk", "Flowfile Queue with identifier " + getQueueIdentifier() + " has " + objectCount +
-                        " queued up. Attempted to spill FlowFile information over to disk in order to avoid exhausting the Java heap space but failed to write information to disk. "
-                        + "See logs for more information.");
-                }
-
+                reportSwapOutFailure(ioe);
                 break;
             }
         }
@@ -278,7 +352,7 @@ public class SwappablePriorityQueue {
             final FlowFileQueueSize newSize = new FlowFileQueueSize(originalSize.getActiveCount(), originalSize.getActiveBytes(),
                 originalSize.getSwappedCount() + addedSwapRecords + flowFilesSwappedOut,
                 originalSize.getSwappedBytes() + addedSwapBytes + bytesSwappedOut,
-                originalSize.getSwapFileCount() + numSwapFiles,
+                originalSize.getSwapFileCount() + swapFilesWritten,
                 originalSize.getUnacknowledgedCount(), originalSize.getUnacknowledgedBytes());
 
             updated = updateSize(originalSize, newSize);
@@ -291,6 +365,148 @@ public class SwappablePriorityQueue {
         logger.debug("After writing swap files, setting new set of Swap Locations to {}", this.swapLocations);
     }
 
+    private void reportSwapOutFailure(final Throwable failure) {
+        final int objectCount = getFlowFileCount();
+        logger.error("FlowFile Queue with identifier {} has {} FlowFiles queued up. Attempted to spill FlowFile information over to disk in order to avoid exhausting "
+            + "the Java heap space but failed to write information to disk due to {}", getQueueIdentifier(), objectCount, failure.toString());
+        logger.error("", failure);
+        if (eventReporter != null) {
+            eventReporter.reportEvent(Severity.ERROR, "Failed to Overflow to Disk", "Flowfile Queue with identifier " + getQueueIdentifier() + " has " + objectCount +
+                " queued up. Attempted to spill FlowFile information over to disk in order to avoid exhausting the Java heap space but failed to write information to disk. "
+                + "See logs for more information.");
+        }
+    }
+
+    /**
+     * Waits for the given swap file to be written by the Swap Manager. If it was written successfully, it is added to the end of the swap locations.
+     * Otherwise, its FlowFiles are added to the given collection and the failure is reported.
+     *
+     * This method MUST be called with the write lock held, and the given swap file must be the oldest one that was pending.
+     *
+     * @return <code>true</code> if the swap file was written successfully, <code>false</code> otherwise
+     */
+    private boolean completeSwapOut(final PendingSwapOut pendingSwapOut, final Collection<FlowFileRecord> requeue) {
+        final String swapLocation;
+        try {
+            swapLocation = pendingSwapOut.swapLocation().join();
+        } catch (final CompletionException | CancellationException e) {
+            requeue.addAll(pendingSwapOut.flowFiles());
+            reportSwapOutFailure(e.getCause() == null ? e : e.getCause());
+            return false;
+        }
+
+        swapLocations.add(swapLocation);
+        minQueueDateInSwapLocation.put(swapLocation, pendingSwapOut.minQueueDate());
+        totalQueueDateInSwapLocation.put(swapLocation, pendingSwapOut.totalQueueDate());
+        incrementSwapQueueSize(0, 0L, 1);
+
+        // If this swap file is the next one to be swapped in and would be read ahead of time anyway, keep its FlowFiles rather than reading them back.
+        if (swapLocations.size() == 1 && activeQueue.size() < swapInPrefetchThreshold) {
+            cancelPrefetch();
+            pendingSwapIn = new PendingSwapIn(swapLocation, CompletableFuture.completedFuture(createSwapContents(pendingSwapOut)));
+        }
+
+        logger.debug("Successfully wrote out Swap File {} containing {} FlowFiles ({} bytes)", swapLocation, pendingSwapOut.flowFiles().size(), pendingSwapOut.bytes());
+        return true;
+    }
+
+    /**
+     * Moves any swap files that have finished being written in the background to the swap locations, without waiting on those that have not.
+     * Swap files are only moved in the order in which they were swapped out, so that they are swapped back in in the same order.
+     *
+     * This method MUST be called with the write lock held.
+     */
+    private void completeFinishedSwapOuts() {
+        while (!pendingSwapOuts.isEmpty() && pendingSwapOuts.get(0).swapLocation().isDone()) {
+            completeSwapOut(pendingSwapOuts.remove(0), swapQueue);
+        }
+    }
+
+    /**
+     * Waits for all swap files that are being written in the background, so that every swapped out FlowFile is accounted for by
+     * either the swap locations or the swap queue.
+     *
+     * This method MUST be called with the write lock held.
+     */
+    private void awaitPendingSwapOuts() {
+        for (final PendingSwapOut pendingSwapOut : pendingSwapOuts) {
+            completeSwapOut(pendingSwapOut, swapQueue);
+        }
+        pendingSwapOuts.clear();
+    }
+
+    /**
+     * Discards the swap file that is being read ahead of time, if any. This is called whenever the swap locations are changed other than by
+     * swapping in the first of them, so that heap is not held for FlowFiles that will not be swapped in from that read.
+     *
+     * This method MUST be called with the write lock held.
+     */
+    private void cancelPrefetch() {
+        if (pendingSwapIn != null) {
+            pendingSwapIn.swapContents().cancel(false);
+            pendingSwapIn = null;
+        }
+    }
+
+    /**
+     * Begins reading the next swap file in the background if the active queue has fallen below the prefetch threshold, so that its
+     * FlowFiles are available by the time that the active queue runs out.
+     *
+     * This method MUST be called with the write lock held.
+     */
+    private void prefetchSwapFileIfNecessary() {
+        if (swapLocations.isEmpty() || activeQueue.size() >= swapInPrefetchThreshold) {
+            return;
+        }
+
+        final String swapLocation = swapLocations.get(0);
+        if (pendingSwapIn != null) {
+            if (pendingSwapIn.swapLocation().equals(swapLocation)) {
+                return;
+            }
+
+            cancelPrefetch();
+        }
+
+        final CompletableFuture<SwapContents> prefetch = swapManager.prefetch(swapLocation, flowFileQueue);
+        if (prefetch != null) {
+            logger.debug("Reading Swap File {} in the background for {}", swapLocation, this);
+            pendingSwapIn = new PendingSwapIn(swapLocation, prefetch);
+        }
+    }
+
+    /**
+     * Returns the contents of the given swap file if they have been read ahead of time, waiting for the read to complete if it is still in progress,
+     * or <code>null</code> if the swap file has not been read. A stall is counted if the contents were not already available.
+     *
+     * This method MUST be called with the write lock held.
+     */
+    private SwapContents takePrefetchedContents(final String swapLocation) {
+        final PendingSwapIn prefetch = pendingSwapIn;
+        pendingSwapIn = null;
+
+        if (prefetch == null || !prefetch.swapLocation().equals(swapLocation)) {
+            if (prefetch != null) {
+                prefetch.swapContents().cancel(false);
+            }
+
+            swapInStallCount++;
+            return null;
+        }
+
+        if (!prefetch.swapContents().isDone()) {
+            swapInStallCount++;
+        }
+
+        try {
+            return prefetch.swapContents().join();
+        } catch (final CompletionException | CancellationException e) {
+            // The Swap Manager will read the swap file again, and any failure that is not transient will be handled then
+            logger.debug("Failed to read Swap File {} in the background; it will be read again", swapLocation, e);
+            return null;
+        }
+    }
+
     private int getFlowFileCount() {
         final FlowFileQueueSize size = getFlowFileQueueSize();
         return size.getActiveCount() + size.getSwappedCount() + size.getUnacknowledgedCount();
@@ -316,7 +532,12 @@ public class SwappablePriorityQueue {
         // Calling this method when records are polled prevents this condition by migrating FlowFiles from the
         // Swap Queue to the Active Queue. However, we don't do this if there are FlowFiles already swapped out
         // to disk, because we want them to be swapped back in in the same order that they were swapped out.
+        if (!pendingSwapOuts.isEmpty()) {
+            completeFinishedSwapOuts();
+        }
+
         if (!activeQueue.isEmpty()) {
+            prefetchSwapFileIfNecessary();
             return;
         }
 
@@ -330,6 +551,16 @@ public class SwappablePriorityQueue {
             return;
         }
 
+        // If the oldest swap file is still being written, we have to wait for it. Its FlowFiles are kept once it has been written, so they
+        // need not be read back from disk.
+        if (!pendingSwapOuts.isEmpty()) {
+            swapInStallCount++;
+            if (completeSwapOut(pendingSwapOuts.remove(0), swapQueue)) {
+                swapIn();
+            }
+            return;
+        }
+
         // this is the most common condition (nothing is swapped out), so do the check first and avoid the expense
         // of other checks for 99.999% of the cases.
         final FlowFileQueueSize size = getFlowFileQueueSize();
@@ -378,13 +609,29 @@ public class SwappablePriorityQueue {
         }
     }
 
+    private SwapContents createSwapContents(final PendingSwapOut pendingSwapOut) {
+        long maxFlowFileId = -1L;
+        final List<ResourceClaim> resourceClaims = new ArrayList<>();
+        for (final FlowFileRecord flowFile : pendingSwapOut.flowFiles()) {
+            maxFlowFileId = Math.max(maxFlowFileId, flowFile.getId());
+            if (flowFile.getContentClaim() != null) {
+                resourceClaims.add(flowFile.getContentClaim().getResourceClaim());
+            }
+        }
+
+        final QueueSize queueSize = new QueueSize(pendingSwapOut.flowFiles().size(), pendingSwapOut.bytes());
+        final SwapSummary swapSummary = new StandardSwapSummary(queueSize, maxFlowFileId, resourceClaims, pendingSwapOut.minQueueDate(), pendingSwapOut.totalQueueDate());
+        return new StandardSwapContents(swapSummary, pendingSwapOut.flowFiles());
+    }
+
     private void swapIn() {
         final String swapLocation = swapLocations.get(0);
+        final long swapInStart = System.nanoTime();
         boolean partialContents = false;
         SwapContents swapContents;
         try {
             logger.debug("Attempting to swap in {}; all swap locations = {}", swapLocation, swapLocations);
-            swapContents = swapManager.swapIn(swapLocation, flowFileQueue);
+            swapContents = swapManager.swapIn(swapLocation, flowFileQueue, takePrefetchedContents(swapLocation));
             swapLocations.remove(0);
             minQueueDateInSwapLocation.remove(swapLocation);
             totalQueueDateInSwapLocation.remove(swapLocation);
@@ -448,6 +695,8 @@ public class SwappablePriorityQueue {
         }
 
         activeQueue.addAll(swapContents.getFlowFiles());
+        swapInCount++;
+        swapInNanos += System.nanoTime() - swapInStart;
     }
 
     public QueueSize size() {
@@ -469,7 +718,16 @@ public class SwappablePriorityQueue {
             return FlowFileAvailability.ACTIVE_QUEUE_EMPTY;
         }
 
-        final long expiration = topPenaltyExpiration;
+        // The head of a concurrent active queue can change without the write lock, so check it directly rather than relying on topPenaltyExpiration.
+        final ConcurrentFifoQueue fifoQueue = concurrentActiveQueue;
+        final long expiration;
+        if (fifoQueue == null) {
+            expiration = topPenaltyExpiration;
+        } else {
+            final FlowFileRecord head = fifoQueue.peek();
+            expiration = head == null ? -1L : head.getPenaltyExpirationMillis();
+        }
+
         if (expiration > 0 && expiration > System.currentTimeMillis()) { // compare against 0 to avoid unnecessary System call
             return FlowFileAvailability.HEAD_OF_QUEUE_PENALIZED;
         }
@@ -494,6 +752,11 @@ public class SwappablePriorityQueue {
     }
 
     public void put(final FlowFileRecord flowFile) {
+        if (concurrentActiveQueue != null && putConcurrently(List.of(flowFile), flowFile.getSize(), swapThreshold)) {
+            logger.trace("{} put to {}", flowFile, this);
+            return;
+        }
+
         writeLock.lock();
         try {
             if (swapMode || activeQueue.size() >= swapThreshold) {
@@ -520,6 +783,11 @@ public class SwappablePriorityQueue {
             bytes += flowFile.getSize();
         }
 
+        if (concurrentActiveQueue != null && putConcurrently(flowFiles, bytes, swapThreshold - numFiles)) {
+            logger.trace("{} put to {}", flowFiles, this);
+            return;
+        }
+
         writeLock.lock();
         try {
             if (swapMode || activeQueue.size() >= swapThreshold - numFiles) {
@@ -539,6 +807,60 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Adds the given FlowFiles to the active queue while holding only the read lock, if the active queue allows for concurrent access
+     * and the FlowFiles do not need to go to the swap queue.
+     *
+     * @return <code>true</code> if the FlowFiles were added, <code>false</code> if they must be added while holding the write lock
+     */
+    private boolean putConcurrently(final Collection<FlowFileRecord> flowFiles, final long bytes, final int maxActiveQueueSize) {
+        readLock.lock();
+        try {
+            if (swapMode || !isConcurrentAccessAllowed() || activeQueue.size() >= maxActiveQueueSize) {
+                return false;
+            }
+
+            incrementActiveQueueSize(flowFiles.size(), bytes);
+            activeQueue.addAll(flowFiles);
+            return true;
+        } finally {
+            readLock.unlock("putConcurrently");
+        }
+    }
+
+    /**
+     * Returns FlowFiles that were polled from this queue but not processed. If the active queue is first-in-first-out, they are returned to its head,
+     * even if the queue is in swap mode, because that is where they were taken from. Otherwise, they are placed into the queue just as with
+     * {@link #putAll(Collection)}, and the prioritizers determine where they belong.
+     *
+     * @param flowFiles the FlowFiles to return, in the order in which they were polled
+     */
+    public void requeue(final Collection<FlowFileRecord> flowFiles) {
+        if (flowFiles.isEmpty()) {
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            if (activeQueue instanceof ConcurrentFifoQueue fifoQueue) {
+                long bytes = 0L;
+                for (final FlowFile flowFile : flowFiles) {
+                    bytes += flowFile.getSize();
+                }
+
+                incrementActiveQueueSize(flowFiles.size(), bytes);
+                fifoQueue.addAllFirst(flowFiles);
+                updateTopPenaltyExpiration();
+                logger.trace("{} requeued to {}", flowFiles, this);
+                return;
+            }
+        } finally {
+            writeLock.unlock("requeue");
+        }
+
+        putAll(flowFiles);
+    }
+
     public FlowFileRecord poll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         return poll(expiredRecords, expirationMillis, PollStrategy.UNPENALIZED_FLOWFILES);
     }
@@ -546,6 +868,23 @@ public class SwappablePriorityQueue {
     public FlowFileRecord poll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
         FlowFileRecord flowFile;
 
+        if (concurrentActiveQueue != null) {
+            readLock.lock();
+            try {
+                if (isConcurrentAccessAllowed()) {
+                    flowFile = pollActiveQueue(expiredRecords, expirationMillis, pollStrategy);
+                    if (flowFile != null) {
+                        logger.trace("{} poll() returning {}", this, flowFile);
+                        unacknowledge(1, flowFile.getSize());
+                    }
+
+                    return flowFile;
+                }
+            } finally {
+                readLock.unlock("poll(Set)");
+            }
+        }
+
         // First check if we have any records Pre-Fetched.
         writeLock.lock();
         try {
@@ -565,11 +904,15 @@ public class SwappablePriorityQueue {
     }
 
     private FlowFileRecord doPoll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
+        migrateSwapToActive();
+        return pollActiveQueue(expiredRecords, expirationMillis, pollStrategy);
+    }
+
+    // MUST be called while holding write lock, or read lock if concurrent access is allowed
+    private FlowFileRecord pollActiveQueue(final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
         FlowFileRecord flowFile;
         boolean isExpired;
 
-        migrateSwapToActive();
-
         long expiredBytes = 0L;
         do {
             flowFile = this.activeQueue.poll();
@@ -604,13 +947,28 @@ public class SwappablePriorityQueue {
     public List<FlowFileRecord> poll(int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
         final List<FlowFileRecord> records = new ArrayList<>(Math.min(1, maxResults));
 
-        // First check if we have any records Pre-Fetched.
-        writeLock.lock();
-        try {
-            doPoll(records, maxResults, expiredRecords, expirationMillis, pollStrategy);
-            updateTopPenaltyExpiration();
-        } finally {
-            writeLock.unlock("poll(int, Set)");
+        boolean polled = false;
+        if (concurrentActiveQueue != null) {
+            readLock.lock();
+            try {
+                if (isConcurrentAccessAllowed()) {
+                    drainActiveQueue(records, maxResults, expiredRecords, expirationMillis, pollStrategy);
+                    polled = true;
+                }
+            } finally {
+                readLock.unlock("poll(int, Set)");
+            }
+        }
+
+        if (!polled) {
+            // First check if we have any records Pre-Fetched.
+            writeLock.lock();
+            try {
+                doPoll(records, maxResults, expiredRecords, expirationMillis, pollStrategy);
+                updateTopPenaltyExpiration();
+            } finally {
+                writeLock.unlock("poll(int, Set)");
+            }
         }
 
         if (!records.isEmpty() && logger.isTraceEnabled()) {
@@ -666,8 +1024,8 @@ public class SwappablePriorityQueue {
                     result = filter.filter(flowFile);
                 } catch (final Throwable t) {
                     unselected.add(flowFile);
-                    activeQueue.addAll(unselected);
-                    activeQueue.addAll(selectedFlowFiles);
+                    returnToActiveQueue(unselected);
+                    returnToActiveQueue(selectedFlowFiles);
                     throw t;
                 }
 
@@ -685,7 +1043,7 @@ public class SwappablePriorityQueue {
                 }
             }
 
-            this.activeQueue.addAll(unselected);
+            returnToActiveQueue(unselected);
 
             unacknowledge(flowFilesPulled, bytesPulled);
 
@@ -720,7 +1078,12 @@ public class SwappablePriorityQueue {
 
     private void doPoll(final List<FlowFileRecord> records, int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
         migrateSwapToActive();
+        drainActiveQueue(records, maxResults, expiredRecords, expirationMillis, pollStrategy);
+    }
 
+    // MUST be called while holding write lock, or read lock if concurrent access is allowed
+    private void drainActiveQueue(final List<FlowFileRecord> records, final int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis,
+                                  final PollStrategy pollStrategy) {
         final long bytesDrained = drainQueue(activeQueue, records, maxResults, expiredRecords, expirationMillis, pollStrategy);
 
         long expiredBytes = 0L;
@@ -808,6 +1171,8 @@ public class SwappablePriorityQueue {
 
         writeLock.lock();
         try {
+            awaitPendingSwapOuts();
+            cancelPrefetch();
             dropRequest.setState(DropFlowFileState.DROPPING_FLOWFILES);
             logger.debug("For DropFlowFileRequest {}, original size is {}", requestIdentifier, size());
 
@@ -942,6 +1307,9 @@ public class SwappablePriorityQueue {
 
         writeLock.lock();
         try {
+            awaitPendingSwapOuts();
+            cancelPrefetch();
+
             // Process swap files FIRST - this is done first because it can throw IOException.
             // By processing swap files first, we avoid modifying in-memory state if swap file operations fail.
             // We use a two-phase approach: first create all new swap files, then if all succeed, update state.
@@ -1008,7 +1376,7 @@ public class SwappablePriorityQueue {
             }
 
             // Filter the active queue
-            final Queue<FlowFileRecord> newActiveQueue = new PriorityQueue<>(Math.max(20, activeQueue.size()), new QueuePrioritizer(getPriorities()));
+            final Queue<FlowFileRecord> newActiveQueue = createActiveQueue(getPriorities(), activeQueue.size());
             int droppedFromActiveCount = 0;
             long droppedFromActiveBytes = 0L;
 
@@ -1021,7 +1389,7 @@ public class SwappablePriorityQueue {
                     newActiveQueue.add(flowFile);
                 }
             }
-            activeQueue = newActiveQueue;
+            setActiveQueue(newActiveQueue);
             if (droppedFromActiveCount > 0) {
                 incrementActiveQueueSize(-droppedFromActiveCount, -droppedFromActiveBytes);
                 logger.debug("Selective drop removed {} FlowFiles ({} bytes) from active queue", droppedFromActiveCount, droppedFromActiveBytes);
@@ -1227,6 +1595,9 @@ public class SwappablePriorityQueue {
             for (Long minSwapQueueDate: minQueueDateInSwapLocation.values()) {
                 min = min == 0 ? minSwapQueueDate : Long.min(min, minSwapQueueDate);
             }
+            for (final PendingSwapOut pendingSwapOut : pendingSwapOuts) {
+                min = min == 0 ? pendingSwapOut.minQueueDate() : Long.min(min, pendingSwapOut.minQueueDate());
+            }
 
             return min;
         } finally {
@@ -1260,6 +1631,9 @@ public class SwappablePriorityQueue {
             for (Long totalQueueDate: totalQueueDateInSwapLocation.values()) {
                 totalSwappedQueueDate += totalQueueDate;
             }
+            for (final PendingSwapOut pendingSwapOut : pendingSwapOuts) {
+                totalSwappedQueueDate += pendingSwapOut.totalQueueDate();
+            }
 
             // We are only considering FlowFiles that have been swapped to disk in this calculation since we took care of the
             // in-memory swapQueue previously.
@@ -1364,6 +1738,7 @@ public class SwappablePriorityQueue {
         writeLock.lock();
         try {
             putAll(queueContents.getActiveFlowFiles());
+            awaitPendingSwapOuts();
 
             final List<String> inheritedSwapLocations = queueContents.getSwapLocations();
             swapLocations.addAll(inheritedSwapLocations);
@@ -1380,6 +1755,9 @@ public class SwappablePriorityQueue {
     public FlowFileQueueContents packageForRebalance(final String newPartitionName) {
         writeLock.lock();
         try {
+            awaitPendingSwapOuts();
+            cancelPrefetch();
+
             final List<FlowFileRecord> activeRecords = new ArrayList<>(this.activeQueue);
 
             final List<String> updatedSwapLocations = new ArrayList<>(swapLocations.size());
@@ -1419,6 +1797,12 @@ public class SwappablePriorityQueue {
         }
     }
 
+    private record PendingSwapOut(List<FlowFileRecord> flowFiles, long bytes, long minQueueDate, long totalQueueDate, CompletableFuture<String> swapLocation) {
+    }
+
+    private record PendingSwapIn(String swapLocation, CompletableFuture<SwapContents> swapContents) {
+    }
+
     @Override
     public String toString() {
         return "SwappablePriorityQueue[queueId=" + flowFileQueue.getIdentifier() + ", partition=" + swapPartitionName + "]";
@@ -23,6 +23,7 @@ import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
 import org.apache.nifi.stream.io.StreamUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
@@ -37,6 +38,11 @@ public class ContentRepositoryFlowFileAccess implements FlowFileContentAccess {
 
     @Override
     public InputStream read(final FlowFileRecord flowFile) throws IOException {
+        final byte[] inlineContent = flowFile.getInlineContent();
+        if (inlineContent != null) {
+            return new ByteArrayInputStream(inlineContent);
+        }
+
         final InputStream rawIn;
         try {
             rawIn = contentRepository.read(flowFile.getContentClaim());
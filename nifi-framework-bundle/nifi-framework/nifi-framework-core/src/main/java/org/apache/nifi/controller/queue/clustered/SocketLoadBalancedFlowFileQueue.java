@@ -800,6 +800,7 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
     @Override
     public void put(final FlowFileRecord flowFile) {
         putAndGetPartition(flowFile);
+        notifyFlowFilesQueued();
     }
 
     protected QueuePartition putAndGetPartition(final FlowFileRecord flowFile) {
@@ -854,6 +855,7 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
                 // size has been updated to account for them and therefore we will not attempt to assign a negative queue size.
                 adjustSize(flowFiles.size(), flowFiles.stream().mapToLong(FlowFileRecord::getSize).sum());
                 localPartition.putAll(flowFiles);
+                notifyFlowFilesQueued();
             }
         } finally {
             partitionReadLock.unlock();
@@ -863,6 +865,7 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
     @Override
     public void putAll(final Collection<FlowFileRecord> flowFiles) {
         putAllAndGetPartitions(flowFiles);
+        notifyFlowFilesQueued();
     }
 
     protected Map<QueuePartition, List<FlowFileRecord>> putAllAndGetPartitions(final Collection<FlowFileRecord> flowFiles) {
@@ -970,6 +973,7 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
         localPartition.acknowledge(flowFile);
 
         adjustSize(-1, -flowFile.getSize());
+        notifyIfBackPressureReleased();
     }
 
     @Override
@@ -979,6 +983,7 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
         if (!flowFiles.isEmpty()) {
             final long bytes = flowFiles.stream().mapToLong(FlowFileRecord::getSize).sum();
             adjustSize(-flowFiles.size(), -bytes);
+            notifyIfBackPressureReleased();
         }
     }
 
@@ -46,21 +46,28 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -93,6 +100,8 @@ public class FileSystemRepository implements ContentRepository {
     // unnecessarily large resource claim files
     public static final String APPENDABLE_CLAIM_LENGTH_CAP = "100 MB";
     public static final Pattern MAX_ARCHIVE_SIZE_PATTERN = Pattern.compile("\\d{1,2}%");
+    private static final String CONTENT_DIGEST_ALGORITHM = "SHA-256";
+    private static final String COLD_TIER_PARTIAL_SUFFIX = ".partial";
     private static final Logger LOG = LoggerFactory.getLogger(FileSystemRepository.class);
 
     private final Logger archiveExpirationLog = LoggerFactory.getLogger(FileSystemRepository.class.getName() + ".archive.expiration");
@@ -102,7 +111,8 @@ public class FileSystemRepository implements ContentRepository {
     private final AtomicLong index;
 
     // Executor handles: BinDestructableClaims, one ArchiveOrDestroyDestructableClaims per content repository container,
-    // TruncateClaims, and archive directory scanning tasks submitted during initialization.
+    // TruncateClaims, one MoveClaimsToColdTier per container that has a cold tier, and archive directory scanning tasks
+    // submitted during initialization.
     private final ScheduledExecutorService executor = new FlowEngine(6, "FileSystemRepository Workers", true);
     private final ConcurrentMap<String, BlockingQueue<ResourceClaim>> reclaimable = new ConcurrentHashMap<>();
     private final Map<String, ContainerState> containerStateMap = new HashMap<>();
@@ -128,6 +138,15 @@ public class FileSystemRepository implements ContentRepository {
     private final Map<String, Long> minUsableContainerBytesForArchive = new HashMap<>();
     private final boolean alwaysSync;
     private final boolean truncationEnabled;
+    private final long minDeduplicationLength;
+    private final DeduplicationIndex deduplicationIndex; // null if deduplication is disabled
+    // Map of container to the directory on the slower volume that its Resource Claims are moved to once they are no longer hot.
+    // A Resource Claim keeps its container, section and identifier when it is moved, so only the file system location changes.
+    private final Map<String, Path> coldContainers;
+    // Guards a Resource Claim file moving between tiers against it being removed or archived at the same time.
+    private final Map<String, Lock> coldTierLocks = new HashMap<>();
+    private final long coldAgeMillis;
+    private final double maxHotUsageRatio;
     private final ScheduledExecutorService containerCleanupExecutor;
 
     private ResourceClaimManager resourceClaimManager; // effectively final
@@ -238,6 +257,36 @@ public class FileSystemRepository implements ContentRepository {
         this.alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty("nifi.content.repository.always.sync"));
         this.truncationEnabled = nifiProperties.isContentClaimTruncationEnabled();
         LOG.info("Initializing FileSystemRepository with 'Always Sync' set to {}", alwaysSync);
+
+        if (nifiProperties.isContentRepositoryDeduplicationEnabled()) {
+            this.minDeduplicationLength = Math.max(1L, DataUnit.parseDataSize(nifiProperties.getContentRepositoryDeduplicationMinSize(), DataUnit.B).longValue());
+            this.deduplicationIndex = new DeduplicationIndex(nifiProperties.getContentRepositoryDeduplicationMaxEntries());
+            LOG.info("Content deduplication enabled for content of at least {} bytes", minDeduplicationLength);
+        } else {
+            this.minDeduplicationLength = Long.MAX_VALUE;
+            this.deduplicationIndex = null;
+        }
+
+        this.coldContainers = new HashMap<>(nifiProperties.getContentRepositoryColdPaths());
+        for (final String containerName : coldContainers.keySet()) {
+            if (!containers.containsKey(containerName)) {
+                throw new RuntimeException("A cold tier directory is configured for Content Repository container '%s' but no such container exists".formatted(containerName));
+            }
+            coldTierLocks.put(containerName, new ReentrantLock());
+        }
+
+        final String maxHotUsage = nifiProperties.getContentRepositoryColdHotMaxUsagePercentage();
+        if (!MAX_ARCHIVE_SIZE_PATTERN.matcher(maxHotUsage.trim()).matches()) {
+            throw new RuntimeException("Invalid value specified for the '%s' property. Value must be in format: <XX>%%".formatted(
+                NiFiProperties.CONTENT_REPOSITORY_COLD_HOT_MAX_USAGE_PERCENTAGE));
+        }
+        this.maxHotUsageRatio = getRatio(maxHotUsage);
+        this.coldAgeMillis = Math.round(FormatUtils.getPreciseTimeDuration(nifiProperties.getContentRepositoryColdAgeThreshold(), TimeUnit.MILLISECONDS));
+        if (!coldContainers.isEmpty()) {
+            LOG.info("Content older than {} millis, or the oldest content whenever a container is more than {} full, will be moved to the cold tier {}",
+                coldAgeMillis, maxHotUsage, coldContainers);
+        }
+
         initializeRepository();
 
         containerCleanupExecutor = new FlowEngine(containers.size(), "Cleanup FileSystemRepository Container", true);
@@ -266,6 +315,10 @@ public class FileSystemRepository implements ContentRepository {
             final Runnable cleanup = new DestroyExpiredArchiveClaims(containerName, containerPath);
             containerCleanupExecutor.scheduleWithFixedDelay(cleanup, cleanupMillis, cleanupMillis, TimeUnit.MILLISECONDS);
         }
+
+        for (final String containerName : coldContainers.keySet()) {
+            executor.scheduleWithFixedDelay(new MoveClaimsToColdTier(containerName), cleanupMillis, cleanupMillis, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
@@ -347,6 +400,16 @@ public class FileSystemRepository implements ContentRepository {
 
         containers.clear();
         containers.putAll(realPathMap);
+
+        // The cold tier holds no archive directories, since content that is destroyed while on the cold tier is always deleted.
+        for (final Map.Entry<String, Path> coldContainer : coldContainers.entrySet()) {
+            final Path realPath = Files.createDirectories(coldContainer.getValue()).toRealPath();
+            for (int i = 0; i < SECTIONS_PER_CONTAINER; i++) {
+                Files.createDirectories(realPath.resolve(String.valueOf(i)));
+            }
+
+            coldContainer.setValue(realPath);
+        }
     }
 
     private void scanArchiveDirectories(final File containerDir, final ContainerState containerState) {
@@ -438,6 +501,43 @@ public class FileSystemRepository implements ContentRepository {
                 }
             }
         }
+
+        for (final Map.Entry<String, Path> entry : coldContainers.entrySet()) {
+            removeIncompleteColdContent(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void removeIncompleteColdContent(final String containerName, final Path coldContainerPath) {
+        final Path containerPath = containers.get(containerName);
+
+        for (int i = 0; i < SECTIONS_PER_CONTAINER; i++) {
+            final String sectionName = String.valueOf(i);
+            final File[] files = coldContainerPath.resolve(sectionName).toFile().listFiles();
+            if (files == null) {
+                continue;
+            }
+
+            for (final File file : files) {
+                final String id = file.getName();
+
+                // A partial copy, or a copy whose hot file was not yet deleted when NiFi stopped, is redundant. Otherwise, the file
+                // is removed only if nothing references it. Content is never archived on the cold tier, so it is deleted rather than archived.
+                final boolean remove;
+                if (id.endsWith(COLD_TIER_PARTIAL_SUFFIX) || Files.exists(containerPath.resolve(sectionName).resolve(id))) {
+                    remove = true;
+                } else {
+                    final ResourceClaim resourceClaim = resourceClaimManager.newResourceClaim(containerName, sectionName, id, false, false);
+                    remove = resourceClaimManager.getClaimantCount(resourceClaim) == 0;
+                }
+
+                if (remove) {
+                    LOG.info("Found unknown file {} in cold tier of File System Repository; removing file", file.getAbsolutePath());
+                    if (!file.delete() && file.exists()) {
+                        LOG.warn("Unable to remove unknown file {} from cold tier of File System Repository", file.getAbsolutePath());
+                    }
+                }
+            }
+        }
     }
 
     private void removeIncompleteContent(final String containerName, final Path containerPath, final Path fileToRemove) {
@@ -528,6 +628,10 @@ public class FileSystemRepository implements ContentRepository {
         }
 
         final Set<ResourceClaim> activeResourceClaims = getActiveResourceClaims(containerPath.toFile(), containerName);
+        final Path coldContainerPath = coldContainers.get(containerName);
+        if (coldContainerPath != null) {
+            activeResourceClaims.addAll(getActiveResourceClaims(coldContainerPath.toFile(), containerName));
+        }
 
         LOG.debug("Obtaining active resource claims, will return a list of {} resource claims for container {}", activeResourceClaims.size(), containerName);
         if (LOG.isTraceEnabled()) {
@@ -578,6 +682,20 @@ public class FileSystemRepository implements ContentRepository {
     }
 
     private Path getPath(final ResourceClaim resourceClaim) {
+        final Path hotPath = getHotPath(resourceClaim);
+        if (hotPath == null) {
+            return null;
+        }
+
+        final Path coldPath = getColdPath(resourceClaim);
+        if (coldPath == null || Files.exists(hotPath) || !Files.exists(coldPath)) {
+            return hotPath;
+        }
+
+        return coldPath;
+    }
+
+    private Path getHotPath(final ResourceClaim resourceClaim) {
         final Path containerPath = containers.get(resourceClaim.getContainer());
         if (containerPath == null) {
             return null;
@@ -585,6 +703,19 @@ public class FileSystemRepository implements ContentRepository {
         return containerPath.resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
     }
 
+    private Path getColdPath(final ResourceClaim resourceClaim) {
+        final Path coldContainerPath = coldContainers.get(resourceClaim.getContainer());
+        if (coldContainerPath == null) {
+            return null;
+        }
+        return coldContainerPath.resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+    }
+
+    private boolean isCold(final ResourceClaim resourceClaim, final Path path) {
+        final Path coldContainerPath = coldContainers.get(resourceClaim.getContainer());
+        return coldContainerPath != null && path.startsWith(coldContainerPath);
+    }
+
     public Path getPath(final ContentClaim claim, final boolean verifyExists) throws ContentNotFoundException {
         final ResourceClaim resourceClaim = claim.getResourceClaim();
         final Path containerPath = containers.get(resourceClaim.getContainer());
@@ -597,17 +728,23 @@ public class FileSystemRepository implements ContentRepository {
         }
 
         // Create the Path that points to the data
-        Path resolvedPath = containerPath.resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+        final Path resolvedPath = containerPath.resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+        if (Files.exists(resolvedPath)) {
+            return resolvedPath;
+        }
 
-        // If the data does not exist, create a Path that points to where the data would exist in the archive directory.
-        if (!Files.exists(resolvedPath)) {
-            resolvedPath = getArchivePath(claim.getResourceClaim());
+        // If the data has been moved to the cold tier, point to it there.
+        final Path coldPath = getColdPath(resourceClaim);
+        if (coldPath != null && Files.exists(coldPath)) {
+            return coldPath;
+        }
 
-            if (verifyExists && !Files.exists(resolvedPath)) {
-                throw new ContentNotFoundException(claim);
-            }
+        // If the data does not exist, create a Path that points to where the data would exist in the archive directory.
+        final Path archivePath = getArchivePath(claim.getResourceClaim());
+        if (verifyExists && !Files.exists(archivePath)) {
+            throw new ContentNotFoundException(claim);
         }
-        return resolvedPath;
+        return archivePath;
     }
 
     private InputStream getInputStream(final ResourceClaim resourceClaim) {
@@ -628,7 +765,16 @@ public class FileSystemRepository implements ContentRepository {
         try {
             return new FileInputStream(resolvedPath.toFile());
         } catch (final FileNotFoundException ignored) {
-            // If this occurs, we will also check the archive directory.
+            // If this occurs, we will also check the cold tier and the archive directory.
+        }
+
+        final Path coldPath = getColdPath(resourceClaim);
+        if (coldPath != null) {
+            try {
+                return new FileInputStream(coldPath.toFile());
+            } catch (final FileNotFoundException ignored) {
+                // If this occurs, we will also check the archive directory.
+            }
         }
 
         final Path archivePath = getArchivePath(resourceClaim);
@@ -679,12 +825,12 @@ public class FileSystemRepository implements ContentRepository {
             // at the same time because we will call create() to get the claim before we write to it,
             // and when we call create(), it will remove it from the Queue, which means that no other
             // thread will get the same Claim until we've finished writing to it.
-            final Path resourceClaimPath = getPath(resourceClaim);
+            final Path resourceClaimPath = getHotPath(resourceClaim);
             if (resourceClaimPath == null) {
                 throw new IOException("Could not determine file to write to for " + resourceClaim);
             }
             final File file = resourceClaimPath.toFile();
-            ByteCountingOutputStream claimStream = new SynchronizedByteCountingOutputStream(new FileOutputStream(file, true), file.length());
+            final ByteCountingOutputStream claimStream = new SyncableClaimStream(new FileOutputStream(file, true), file.length());
             writableClaimStreams.put(resourceClaim, claimStream);
 
             incrementClaimantCount(resourceClaim, true);
@@ -735,6 +881,22 @@ public class FileSystemRepository implements ContentRepository {
         return resourceClaimManager.decrementClaimantCount(claim.getResourceClaim());
     }
 
+    @Override
+    public ContentClaim deduplicate(final ContentClaim claim) {
+        if (deduplicationIndex == null || !(claim instanceof final StandardContentClaim scc)) {
+            return claim;
+        }
+
+        final byte[] contentDigest = scc.getContentDigest();
+        if (contentDigest == null) {
+            return claim;
+        }
+
+        final ContentClaim duplicate = deduplicationIndex.deduplicate(scc, contentDigest, resourceClaimManager);
+        scc.setContentDigest(null);
+        return duplicate;
+    }
+
     @Override
     public boolean remove(final ContentClaim claim) {
         if (claim == null) {
@@ -749,12 +911,22 @@ public class FileSystemRepository implements ContentRepository {
             return false;
         }
 
-        final Path path = getPath(claim);
-        if (path != null) {
-            final File file = path.toFile();
-            if (!file.delete() && file.exists()) {
-                LOG.warn("Unable to delete {} at path {}", claim, path);
-                return false;
+        final Lock coldTierLock = coldTierLocks.get(claim.getContainer());
+        if (coldTierLock != null) {
+            coldTierLock.lock();
+        }
+        try {
+            final Path path = getPath(claim);
+            if (path != null) {
+                final File file = path.toFile();
+                if (!file.delete() && file.exists()) {
+                    LOG.warn("Unable to delete {} at path {}", claim, path);
+                    return false;
+                }
+            }
+        } finally {
+            if (coldTierLock != null) {
+                coldTierLock.unlock();
             }
         }
 
@@ -804,11 +976,10 @@ public class FileSystemRepository implements ContentRepository {
             return 0L;
         }
 
-        try (final InputStream in = read(claim);
-             final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
-            final long copied = StreamUtils.copy(in, fos);
+        try (final FileChannel destinationChannel = openExportChannel(destination, append)) {
+            final long copied = transferTo(claim, 0L, size(claim), destinationChannel);
             if (alwaysSync) {
-                fos.getFD().sync();
+                destinationChannel.force(true);
             }
             return copied;
         }
@@ -833,19 +1004,87 @@ public class FileSystemRepository implements ContentRepository {
 
         }
 
-        try (final InputStream in = read(claim);
-             final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
-            if (offset > 0) {
-                StreamUtils.skip(in, offset);
+        try (final FileChannel destinationChannel = openExportChannel(destination, append)) {
+            final long copied = transferTo(claim, offset, length, destinationChannel);
+            if (copied < length) {
+                throw new EOFException("Expected to export " + length + " bytes of " + claim + " starting at offset " + offset + " but only " + copied + " bytes were available");
             }
-            StreamUtils.copy(in, fos, length);
+
             if (alwaysSync) {
-                fos.getFD().sync();
+                destinationChannel.force(true);
             }
             return length;
         }
     }
 
+    private FileChannel openExportChannel(final Path destination, final boolean append) throws IOException {
+        final StandardOpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        return FileChannel.open(destination, StandardOpenOption.WRITE, StandardOpenOption.CREATE, mode);
+    }
+
+    /**
+     * Transfers the content directly from the Resource Claim's file to the destination, so that the kernel can copy the bytes
+     * (using sendfile or copy_file_range, for instance) without them ever being copied into the heap.
+     */
+    @Override
+    public long transferTo(final ContentClaim claim, final long offset, final long length, final WritableByteChannel destination) throws IOException {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset cannot be negative");
+        }
+        if (claim == null) {
+            return 0L;
+        }
+
+        final long claimSize = size(claim);
+        if (offset > claimSize) {
+            throw new IllegalArgumentException("offset of " + offset + " exceeds claim size of " + claimSize);
+        }
+
+        final long bytesToTransfer = Math.min(length, claimSize - offset);
+        final long startPosition = claim.getOffset() + offset;
+        try (final FileChannel source = openChannel(claim)) {
+            long transferred = 0L;
+            while (transferred < bytesToTransfer) {
+                final long position = startPosition + transferred;
+                if (position >= source.size()) {
+                    throw new EOFException("Expected " + claim + " to contain " + bytesToTransfer + " bytes starting at offset " + offset + " but only " + transferred + " bytes were available");
+                }
+
+                transferred += source.transferTo(position, bytesToTransfer - transferred, destination);
+            }
+
+            return transferred;
+        }
+    }
+
+    private FileChannel openChannel(final ContentClaim claim) throws IOException {
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        final Path hotPath = getHotPath(resourceClaim);
+        if (hotPath == null) {
+            throw new ContentNotFoundException(claim);
+        }
+
+        // Check the hot tier, the cold tier and the archive, in the same order as getInputStream()
+        final List<Path> candidatePaths = new ArrayList<>(3);
+        candidatePaths.add(hotPath);
+        final Path coldPath = getColdPath(resourceClaim);
+        if (coldPath != null) {
+            candidatePaths.add(coldPath);
+        }
+        candidatePaths.add(getArchivePath(resourceClaim));
+
+        NoSuchFileException notFound = null;
+        for (final Path candidatePath : candidatePaths) {
+            try {
+                return FileChannel.open(candidatePath, StandardOpenOption.READ);
+            } catch (final NoSuchFileException nsfe) {
+                notFound = nsfe;
+            }
+        }
+
+        throw new ContentNotFoundException(claim, notFound);
+    }
+
     @Override
     public long exportTo(final ContentClaim claim, final OutputStream destination) throws IOException {
         if (claim == null) {
@@ -1253,12 +1492,32 @@ public class FileSystemRepository implements ContentRepository {
             return false;
         }
 
-        final Path curPath = getPath(claim);
-        if (curPath == null) {
-            return false;
+        final Lock coldTierLock = coldTierLocks.get(claim.getContainer());
+        if (coldTierLock != null) {
+            coldTierLock.lock();
         }
 
-        final boolean archived = archive(curPath);
+        final boolean archived;
+        try {
+            final Path curPath = getPath(claim);
+            if (curPath == null) {
+                return false;
+            }
+
+            // The archive is only maintained on the hot tier, so content that has been moved to the cold tier is deleted instead.
+            if (isCold(claim, curPath)) {
+                Files.deleteIfExists(curPath);
+                LOG.debug("Removed {} from cold tier instead of archiving it", claim);
+                truncationClaimManager.removeTruncationClaims(claim);
+                return false;
+            }
+
+            archived = archive(curPath);
+        } finally {
+            if (coldTierLock != null) {
+                coldTierLock.unlock();
+            }
+        }
         LOG.debug("Successfully moved {} to archive", claim);
 
         if (archived) {
@@ -1649,6 +1908,130 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    // visible for testing
+    synchronized void moveClaimsToColdTier(final String containerName) throws IOException {
+        final Path containerPath = containers.get(containerName);
+        final long ageThreshold = System.currentTimeMillis() - coldAgeMillis;
+
+        // Determine how many bytes must leave the hot tier for it to drop back below the configured usage
+        final long capacity = getContainerCapacity(containerName);
+        final long usedBytes = capacity - getContainerUsableSpace(containerName);
+        long excessBytes = usedBytes - (long) (capacity * maxHotUsageRatio);
+
+        final List<ColdTierCandidate> candidates = new ArrayList<>();
+        for (int i = 0; i < SECTIONS_PER_CONTAINER; i++) {
+            final String section = String.valueOf(i);
+            final File[] files = containerPath.resolve(section).toFile().listFiles();
+            if (files == null) {
+                continue;
+            }
+
+            for (final File file : files) {
+                if (ARCHIVE_DIR_NAME.equals(file.getName())) {
+                    continue;
+                }
+
+                candidates.add(new ColdTierCandidate(section, file.getName(), file.length(), getLastModTime(file)));
+            }
+        }
+
+        // Move the oldest content first, until all content beyond the age threshold is moved and the hot tier is no longer over its limit
+        candidates.sort(Comparator.comparingLong(ColdTierCandidate::lastModTime));
+
+        int movedCount = 0;
+        long movedBytes = 0L;
+        for (final ColdTierCandidate candidate : candidates) {
+            if (candidate.lastModTime() > ageThreshold && excessBytes <= 0) {
+                break;
+            }
+
+            final ResourceClaim claim = resourceClaimManager.getResourceClaim(containerName, candidate.section(), candidate.id());
+            if (claim == null || !moveToColdTier(claim)) {
+                continue;
+            }
+
+            movedCount++;
+            movedBytes += candidate.size();
+            excessBytes -= candidate.size();
+        }
+
+        if (movedCount > 0) {
+            LOG.info("Moved {} Resource Claims ({} bytes) for Container {} to the cold tier", movedCount, movedBytes, containerName);
+        }
+    }
+
+    private boolean moveToColdTier(final ResourceClaim claim) throws IOException {
+        // Only Resource Claims that will never be written to again and that are still referenced are worth moving.
+        // Note that isWritable() must be checked before the claimant count; see ResourceClaim#isInUse.
+        if (claim.isWritable() || resourceClaimManager.getClaimantCount(claim) < 1) {
+            return false;
+        }
+
+        final Path hotPath = getHotPath(claim);
+        final Path coldPath = getColdPath(claim);
+        final Path partialPath = coldPath.resolveSibling(coldPath.getFileName() + COLD_TIER_PARTIAL_SUFFIX);
+
+        // Copy the content before obtaining the lock, so that removing or archiving other claims is not held up by the copy.
+        try {
+            Files.copy(hotPath, partialPath, StandardCopyOption.REPLACE_EXISTING);
+            if (alwaysSync) {
+                try (final FileChannel channel = FileChannel.open(partialPath, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+        } catch (final NoSuchFileException nsfe) {
+            // The claim was removed or archived while it was being copied
+            Files.deleteIfExists(partialPath);
+            return false;
+        }
+
+        final Lock coldTierLock = coldTierLocks.get(claim.getContainer());
+        coldTierLock.lock();
+        try {
+            if (!Files.exists(hotPath)) {
+                Files.deleteIfExists(partialPath);
+                return false;
+            }
+
+            // Once the cold file is in place, readers that cannot find the hot file will find the cold one. Readers that already
+            // have the hot file open keep reading it after it is deleted.
+            Files.move(partialPath, coldPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.delete(hotPath);
+            } catch (final IOException e) {
+                Files.deleteIfExists(coldPath);
+                LOG.warn("Unable to move {} to the cold tier because the file at {} could not be deleted", claim, hotPath, e);
+                return false;
+            }
+        } finally {
+            coldTierLock.unlock();
+        }
+
+        LOG.debug("Moved {} from {} to the cold tier at {}", claim, hotPath, coldPath);
+        return true;
+    }
+
+    private record ColdTierCandidate(String section, String id, long size, long lastModTime) {
+    }
+
+    private class MoveClaimsToColdTier implements Runnable {
+
+        private final String containerName;
+
+        private MoveClaimsToColdTier(final String containerName) {
+            this.containerName = containerName;
+        }
+
+        @Override
+        public void run() {
+            try {
+                moveClaimsToColdTier(containerName);
+            } catch (final Throwable t) {
+                LOG.error("Failed to move content to the cold tier for container {}", containerName, t);
+            }
+        }
+    }
+
     private class DestroyExpiredArchiveClaims implements Runnable {
 
         private final String containerName;
@@ -1828,6 +2211,69 @@ public class FileSystemRepository implements ContentRepository {
         return containerState.isArchiveClearedOnLastRun();
     }
 
+    /**
+     * The stream used to append to the file of a writable Resource Claim. When 'Always Sync' is enabled, the sessions that write
+     * to the same Resource Claim share their syncs: a call to {@link #sync()} returns without syncing again if another thread has
+     * already synced everything that had been written when it was called, and if another thread is currently syncing, waits for it
+     * to finish before deciding whether a sync is still needed. As a result, sessions that commit at the same time sync the file once.
+     */
+    private static class SyncableClaimStream extends SynchronizedByteCountingOutputStream {
+        private final FileChannel channel;
+        private final Lock syncLock = new ReentrantLock();
+        private final Condition syncComplete = syncLock.newCondition();
+
+        private long bytesSynced = 0L;
+        private boolean syncInProgress = false;
+
+        public SyncableClaimStream(final FileOutputStream out, final long byteCount) {
+            super(out, byteCount);
+            this.channel = out.getChannel();
+        }
+
+        public void sync() throws IOException {
+            final long bytesToSync = getBytesWritten();
+
+            syncLock.lock();
+            try {
+                while (syncInProgress) {
+                    syncComplete.await();
+                }
+
+                if (bytesSynced >= bytesToSync) {
+                    return;
+                }
+
+                syncInProgress = true;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for Resource Claim to be synced to disk");
+            } finally {
+                syncLock.unlock();
+            }
+
+            // Anything written before this point, including content written by other sessions that have since been given
+            // this Resource Claim, is made durable by this sync.
+            final long bytesWritten = getBytesWritten();
+            boolean synced = false;
+            try {
+                channel.force(false);
+                synced = true;
+            } finally {
+                syncLock.lock();
+                try {
+                    if (synced) {
+                        bytesSynced = Math.max(bytesSynced, bytesWritten);
+                    }
+
+                    syncInProgress = false;
+                    syncComplete.signalAll();
+                } finally {
+                    syncLock.unlock();
+                }
+            }
+        }
+    }
+
     protected static class ClaimLengthPair {
 
         private final ResourceClaim claim;
@@ -1916,6 +2362,7 @@ public class FileSystemRepository implements ContentRepository {
         private long bytesWritten;
         protected boolean recycle;
         protected boolean closed;
+        private final MessageDigest contentDigest; // null unless content is being hashed for deduplication
 
         public ContentRepositoryOutputStream(StandardContentClaim scc, ByteCountingOutputStream bcos, int initialLength) {
             this.scc = scc;
@@ -1924,6 +2371,7 @@ public class FileSystemRepository implements ContentRepository {
             bytesWritten = 0L;
             recycle = true;
             closed = false;
+            contentDigest = deduplicationIndex == null || initialLength > 0 ? null : createContentDigest();
         }
 
         @Override
@@ -1944,6 +2392,10 @@ public class FileSystemRepository implements ContentRepository {
                 throw new IOException("Failed to write to " + this, ioe);
             }
 
+            if (contentDigest != null) {
+                contentDigest.update((byte) b);
+            }
+
             bytesWritten++;
             scc.setLength(bytesWritten + initialLength);
         }
@@ -1961,6 +2413,10 @@ public class FileSystemRepository implements ContentRepository {
                 throw new IOException("Failed to write to " + this, ioe);
             }
 
+            if (contentDigest != null) {
+                contentDigest.update(b);
+            }
+
             bytesWritten += b.length;
             scc.setLength(bytesWritten + initialLength);
         }
@@ -1978,6 +2434,10 @@ public class FileSystemRepository implements ContentRepository {
                 throw new IOException("Failed to write to " + this, ioe);
             }
 
+            if (contentDigest != null) {
+                contentDigest.update(b, off, len);
+            }
+
             bytesWritten += len;
 
             scc.setLength(bytesWritten + initialLength);
@@ -2000,15 +2460,13 @@ public class FileSystemRepository implements ContentRepository {
 
             closed = true;
 
-            if (alwaysSync) {
-                ((FileOutputStream) bcos.getWrappedStream()).getFD().sync();
-            }
-
             if (scc.getLength() < 0) {
                 // If claim was not written to, set length to 0
                 scc.setLength(0L);
             }
 
+            completeContentDigest();
+
             // if we've not yet hit the threshold for appending to a resource claim, add the claim
             // to the writableClaimQueue so that the Resource Claim can be used again when create()
             // is called. In this case, we don't have to actually close the file stream. Instead, we
@@ -2028,12 +2486,28 @@ public class FileSystemRepository implements ContentRepository {
 
                 if (enqueued) {
                     LOG.debug("Claim length less than max; Adding {} back to Writable Claim Queue", this);
+
+                    // The Resource Claim is synced only after it has been made available to other sessions, so that a session that
+                    // writes to it while we are syncing can share our sync, or we can share theirs.
+                    if (alwaysSync) {
+                        try {
+                            sync();
+                        } catch (final IOException e) {
+                            if (writableClaimQueue.remove(pair)) {
+                                writableClaimStreams.remove(scc.getResourceClaim());
+                                resourceClaimManager.freeze(scc.getResourceClaim());
+                                closeQuietly(bcos);
+                            }
+
+                            throw e;
+                        }
+                    }
                 } else {
                     final OutputStream out = writableClaimStreams.remove(scc.getResourceClaim());
                     resourceClaimManager.freeze(scc.getResourceClaim());
                     LOG.debug("Removed {} for {} from writableClaimStreams because ContentRepositoryOutputStream was closed and could not enqueue.", out, scc.getResourceClaim());
 
-                    bcos.close();
+                    syncAndClose();
 
                     LOG.debug("Claim length less than max; Closing {} because could not add back to queue", this);
                     if (LOG.isTraceEnabled()) {
@@ -2059,12 +2533,39 @@ public class FileSystemRepository implements ContentRepository {
                 if (LOG.isTraceEnabled()) {
                     LOG.trace("Stack trace: ", new RuntimeException("Stack Trace for closing " + this));
                 }
+                syncAndClose();
+            }
+        }
+
+        private void sync() throws IOException {
+            ((SyncableClaimStream) bcos).sync();
+        }
+
+        private void syncAndClose() throws IOException {
+            try {
+                if (alwaysSync) {
+                    sync();
+                }
+            } finally {
                 bcos.close();
             }
         }
 
+        private void completeContentDigest() {
+            if (contentDigest == null) {
+                return;
+            }
+
+            // digest() also resets the MessageDigest so that it can be used for the next Content Claim written to this stream
+            final byte[] digest = contentDigest.digest();
+            if (recycle && scc.getLength() >= minDeduplicationLength) {
+                scc.setContentDigest(digest);
+            }
+        }
+
         @Override
         public synchronized ContentClaim newContentClaim() {
+            completeContentDigest();
             scc = new StandardContentClaim(scc.getResourceClaim(), scc.getOffset() + Math.max(0, scc.getLength()));
             initialLength = 0;
             bytesWritten = 0L;
@@ -2073,6 +2574,51 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    private static MessageDigest createContentDigest() {
+        try {
+            return MessageDigest.getInstance(CONTENT_DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Content deduplication requires the " + CONTENT_DIGEST_ALGORITHM + " algorithm", e);
+        }
+    }
+
+    /**
+     * Maps the digests of recently written content to the Content Claims that hold that content, evicting the least recently used digests
+     * once the maximum number of entries is reached. A Content Claim is shared only while its Resource Claim is still referenced, because
+     * a Resource Claim that is no longer referenced may be destroyed at any time. Truncation candidates are never shared, because their
+     * content may be truncated away even though other content in the same Resource Claim is still referenced.
+     */
+    private static class DeduplicationIndex {
+        private final Map<ContentKey, ContentClaim> claims;
+
+        DeduplicationIndex(final int maxEntries) {
+            this.claims = new LinkedHashMap<>(16, 0.75F, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<ContentKey, ContentClaim> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized ContentClaim deduplicate(final StandardContentClaim claim, final byte[] contentDigest, final ResourceClaimManager resourceClaimManager) {
+            final ContentKey key = new ContentKey(claim.getLength(), ByteBuffer.wrap(contentDigest));
+            final ContentClaim existing = claims.get(key);
+            if (existing != null && !existing.equals(claim) && !existing.isTruncationCandidate()
+                    && resourceClaimManager.incrementClaimantCountIfReferenced(existing.getResourceClaim()) > 0) {
+                LOG.debug("Content of {} is identical to {}; sharing the existing Content Claim", claim, existing);
+                return existing;
+            }
+
+            // The claim is about to be shared, so it must no longer be truncated when the FlowFiles that reference it are removed
+            claim.setTruncationCandidate(false);
+            claims.put(key, claim);
+            return claim;
+        }
+    }
+
+    private record ContentKey(long length, ByteBuffer digest) {
+    }
+
     private static class TruncationClaimManager {
         private static final int MAX_THRESHOLD = 100_000;
         private final Map<String, List<ContentClaim>> truncationClaims = new HashMap<>();
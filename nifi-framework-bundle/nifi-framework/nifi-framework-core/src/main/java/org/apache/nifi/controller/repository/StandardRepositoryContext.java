@@ -29,6 +29,7 @@ import java.util.concurrent.atomic.AtomicLong;
 public class StandardRepositoryContext extends AbstractRepositoryContext implements RepositoryContext {
 
     private final long maxAppendableClaimBytes;
+    private final int maxInlineContentBytes;
 
     public StandardRepositoryContext(
             final Connectable connectable,
@@ -41,13 +42,36 @@ public class StandardRepositoryContext extends AbstractRepositoryContext impleme
             final ProvenanceEventRepository provenanceRepository,
             final StateManager stateManager,
             final long maxAppendableClaimBytes
+    ) {
+        this(connectable, connectionIndex, contentRepository, flowFileRepository, flowFileEventRepository, counterRepository, componentMetricReporter, provenanceRepository, stateManager,
+            maxAppendableClaimBytes, 0);
+    }
+
+    public StandardRepositoryContext(
+            final Connectable connectable,
+            final AtomicLong connectionIndex,
+            final ContentRepository contentRepository,
+            final FlowFileRepository flowFileRepository,
+            final FlowFileEventRepository flowFileEventRepository,
+            final CounterRepository counterRepository,
+            final ComponentMetricReporter componentMetricReporter,
+            final ProvenanceEventRepository provenanceRepository,
+            final StateManager stateManager,
+            final long maxAppendableClaimBytes,
+            final int maxInlineContentBytes
     ) {
         super(connectable, connectionIndex, contentRepository, flowFileRepository, flowFileEventRepository, counterRepository, componentMetricReporter, provenanceRepository, stateManager);
         this.maxAppendableClaimBytes = maxAppendableClaimBytes;
+        this.maxInlineContentBytes = maxInlineContentBytes;
     }
 
     @Override
     public ContentClaimWriteCache createContentClaimWriteCache(final PerformanceTracker performanceTracker) {
         return new StandardContentClaimWriteCache(getContentRepository(), performanceTracker, maxAppendableClaimBytes, 8192);
     }
+
+    @Override
+    public int getMaxInlineContentBytes() {
+        return maxInlineContentBytes;
+    }
 }
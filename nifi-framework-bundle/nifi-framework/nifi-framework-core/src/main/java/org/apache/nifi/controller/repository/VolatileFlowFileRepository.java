@@ -49,6 +49,11 @@ public class VolatileFlowFileRepository implements FlowFileRepository {
         return true;
     }
 
+    @Override
+    public boolean isInlineContentSupported() {
+        return true;
+    }
+
     @Override
     public long getStorageCapacity() throws IOException {
         return 1L;
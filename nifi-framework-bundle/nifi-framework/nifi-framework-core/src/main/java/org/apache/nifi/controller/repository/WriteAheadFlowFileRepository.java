@@ -86,6 +86,12 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     private static final String RETAIN_ORPHANED_FLOWFILES = "nifi.flowfile.repository.retain.orphaned.flowfiles";
     private static final String FLOWFILE_REPO_CACHE_SIZE = "nifi.flowfile.repository.wal.cache.characters";
     private static final int DEFAULT_CACHE_SIZE = 10_000_000;
+    private static final String GROUP_COMMIT_MAX_WAIT = "nifi.flowfile.repository.group.commit.max.wait";
+    private static final String DEFAULT_GROUP_COMMIT_MAX_WAIT = "0 millis";
+    private static final String GROUP_COMMIT_MAX_BATCH_SIZE = "nifi.flowfile.repository.group.commit.max.batch.size";
+    private static final int DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE = 1000;
+    private static final String MEMORY_MAPPED_SNAPSHOT = "nifi.flowfile.repository.wal.snapshot.memory.mapped";
+    private static final String COMPACT_ENCODING = "nifi.flowfile.repository.wal.compact.encoding";
 
     protected final NiFiProperties nifiProperties;
 
@@ -100,6 +106,11 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     private final List<File> flowFileRepositoryPaths = new ArrayList<>();
     private final ScheduledExecutorService checkpointExecutor;
     private final int maxCharactersToCache;
+    private final long groupCommitMaxWaitNanos;
+    private final int groupCommitMaxBatchSize;
+    private final boolean memoryMappedSnapshot;
+    private final int recoveryThreads;
+    private final boolean compactEncoding;
     private final long truncationThreshold;
     private final boolean truncationEnabled;
 
@@ -148,6 +159,11 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         nifiProperties = null;
         retainOrphanedFlowFiles = true;
         maxCharactersToCache = 0;
+        groupCommitMaxWaitNanos = 0L;
+        groupCommitMaxBatchSize = DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE;
+        memoryMappedSnapshot = false;
+        recoveryThreads = 1;
+        compactEncoding = false;
         truncationThreshold = Long.MAX_VALUE;
         truncationEnabled = false;
     }
@@ -160,6 +176,11 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         retainOrphanedFlowFiles = orphanedFlowFileProperty == null || Boolean.parseBoolean(orphanedFlowFileProperty);
 
         this.maxCharactersToCache = nifiProperties.getIntegerProperty(FLOWFILE_REPO_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+        this.groupCommitMaxWaitNanos = FormatUtils.getTimeDuration(nifiProperties.getProperty(GROUP_COMMIT_MAX_WAIT, DEFAULT_GROUP_COMMIT_MAX_WAIT), TimeUnit.NANOSECONDS);
+        this.groupCommitMaxBatchSize = nifiProperties.getIntegerProperty(GROUP_COMMIT_MAX_BATCH_SIZE, DEFAULT_GROUP_COMMIT_MAX_BATCH_SIZE);
+        this.memoryMappedSnapshot = Boolean.parseBoolean(nifiProperties.getProperty(MEMORY_MAPPED_SNAPSHOT, "false"));
+        this.recoveryThreads = nifiProperties.getFlowFileRepositoryRecoveryThreads();
+        this.compactEncoding = Boolean.parseBoolean(nifiProperties.getProperty(COMPACT_ENCODING, "false"));
         final long maxAppendableClaimLength = DataUnit.parseDataSize(nifiProperties.getMaxAppendableClaimSize(), DataUnit.B).longValue();
         // Cap the truncation threshold at 1 MB so that claims larger than 1 MB are always eligible
         // for truncation regardless of how large maxAppendableClaimSize is configured.
@@ -185,7 +206,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     }
 
     protected RepositoryRecordSerdeFactory createSerdeFactory(final ResourceClaimManager claimManager, final FieldCache fieldCache) {
-        return new StandardRepositoryRecordSerdeFactory(claimManager, fieldCache);
+        return new StandardRepositoryRecordSerdeFactory(claimManager, fieldCache, compactEncoding);
     }
 
     public void initialize(final ResourceClaimManager claimManager, final RepositoryRecordSerdeFactory serdeFactory, final FieldCache fieldCache) throws IOException {
@@ -202,7 +223,15 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         // delete backup. On restore, if no files exist in partition's directory, would have to check backup directory
         this.serdeFactory = serdeFactory;
 
-        wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this);
+        wal = new SequentialAccessWriteAheadLog.Builder<SerializedRepositoryRecord>()
+            .storageDirectory(flowFileRepositoryPaths.get(0))
+            .serdeFactory(serdeFactory)
+            .syncListener(this)
+            .groupCommitMaxWait(groupCommitMaxWaitNanos, TimeUnit.NANOSECONDS)
+            .groupCommitMaxBatchSize(groupCommitMaxBatchSize)
+            .memoryMappedSnapshot(memoryMappedSnapshot)
+            .recoveryThreads(recoveryThreads)
+            .build();
         logger.info("Initialized FlowFile Repository");
     }
 
@@ -221,6 +250,11 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         return false;
     }
 
+    @Override
+    public boolean isInlineContentSupported() {
+        return true;
+    }
+
     @Override
     public Map<ResourceClaim, Set<ResourceClaimReference>> findResourceClaimReferences(final Set<ResourceClaim> resourceClaims, final FlowFileSwapManager swapManager) {
         final Map<ResourceClaim, Set<ResourceClaimReference>> references = new HashMap<>();
@@ -824,6 +858,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
     @Override
     public long loadFlowFiles(final QueueProvider queueProvider) throws IOException {
+        final long loadStart = System.nanoTime();
+
         // If we have already loaded the records from the write-ahead logs, use them. Otherwise, recover the records now.
         // We do this because a call to #findQueuesWithFlowFiles will recover the records, and we don't want to have to re-read
         // the entire repository, so that method will stash the records away.
@@ -835,6 +871,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         } else {
             recordList = recoveredRecords;
         }
+        final long recoverRecordsNanos = System.nanoTime() - loadStart;
 
         final Set<String> recoveredSwapLocations = wal.getRecoveredSwapLocations();
         synchronized (this.swapLocationSuffixes) {
@@ -854,6 +891,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         }
 
         fieldCache.clear();
+        final long enqueueStart = System.nanoTime();
 
         final Map<String, FlowFileQueue> queueMap = new HashMap<>();
         for (final FlowFileQueue queue : queueProvider.getAllQueues()) {
@@ -943,6 +981,8 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             flowFileQueue.put(record.getFlowFileRecord());
         }
 
+        final long enqueueNanos = System.nanoTime() - enqueueStart;
+
         // If recoveredRecords has been populated it need to be nulled out now because it is no longer useful and can be garbage collected.
         recoveredRecords = null;
 
@@ -1011,6 +1051,9 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
         checkpointFuture = checkpointExecutor.scheduleWithFixedDelay(checkpointRunnable, checkpointDelayMillis, checkpointDelayMillis, TimeUnit.MILLISECONDS);
 
+        logger.info("Loaded FlowFile Repository in {} milliseconds (Record Recovery = {} milliseconds, Enqueue FlowFiles = {} milliseconds)",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart), TimeUnit.NANOSECONDS.toMillis(recoverRecordsNanos), TimeUnit.NANOSECONDS.toMillis(enqueueNanos));
+
         return maxId;
     }
 
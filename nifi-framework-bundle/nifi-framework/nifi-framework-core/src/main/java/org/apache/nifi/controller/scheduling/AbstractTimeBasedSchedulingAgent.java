@@ -66,12 +66,20 @@ public abstract class AbstractTimeBasedSchedulingAgent extends AbstractSchedulin
             }
         };
 
-        final ScheduledFuture<?> future = flowEngine.schedule(trigger, 1, TimeUnit.NANOSECONDS);
+        final ScheduledFuture<?> future = getFlowEngine(connectable).schedule(trigger, 1, TimeUnit.NANOSECONDS);
         futures.add(future);
 
         scheduleState.setFutures(futures);
     }
 
+    /**
+     * @param connectable the component to run
+     * @return the engine on which the given component's tasks are to run
+     */
+    protected FlowEngine getFlowEngine(final Connectable connectable) {
+        return flowEngine;
+    }
+
     @Override
     public void setAdministrativeYieldDuration(final String yieldDuration) {
         this.adminYieldDuration = yieldDuration;
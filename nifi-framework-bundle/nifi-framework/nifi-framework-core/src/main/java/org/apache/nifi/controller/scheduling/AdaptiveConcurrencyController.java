@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.repository.FlowFileEvent;
+import org.apache.nifi.controller.tasks.InvocationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Raises and lowers the number of concurrent tasks that a Processor may run, between a configured minimum and the Processor's configured
+ * Concurrent Tasks. At the end of each evaluation interval, the limit is raised by one if the Processor has a backlog and is keeping all of its
+ * tasks busy, and lowered by one if its tasks are mostly idle or yielding. Because the CPU time captured by the processing performance tracker
+ * does not include time spent blocked, the time that tasks spend neither on the CPU nor reading, writing or committing content is treated as
+ * time spent waiting on locks or other contention; if the limit was last raised and the extra task added mostly waiting rather than throughput,
+ * the limit is lowered again.
+ */
+class AdaptiveConcurrencyController {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyController.class);
+
+    static final double HIGH_YIELD_RATIO = 0.5;
+    static final double LOW_YIELD_RATIO = 0.1;
+    static final double LOW_UTILIZATION = 0.5;
+    static final double HIGH_UTILIZATION = 0.8;
+    static final double HIGH_WAIT_RATIO = 0.5;
+    static final double MIN_THROUGHPUT_GAIN = 1.05;
+
+    private final ProcessorNode processorNode;
+    private final LifecycleState lifecycleState;
+    private final int minConcurrentTasks;
+    private final long intervalNanos;
+
+    private final LongAdder triggers = new LongAdder();
+    private final LongAdder yields = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    private final LongAdder contentNanos = new LongAdder();
+    private final LongAdder flowFilesProcessed = new LongAdder();
+    private final AtomicLong windowStartNanos;
+
+    // Only accessed by the single thread that wins the race to evaluate a window
+    private int lastAdjustment = 0;
+    private double lastThroughput = 0D;
+
+    AdaptiveConcurrencyController(final ProcessorNode processorNode, final LifecycleState lifecycleState, final int minConcurrentTasks, final long intervalNanos) {
+        this.processorNode = processorNode;
+        this.lifecycleState = lifecycleState;
+        this.minConcurrentTasks = Math.max(1, minConcurrentTasks);
+        this.intervalNanos = intervalNanos;
+        this.windowStartNanos = new AtomicLong(System.nanoTime());
+
+        // Start from the configured Concurrent Tasks so that enabling adaptive concurrent tasks never makes a Processor slower to begin with.
+        processorNode.setConcurrentTaskLimit(processorNode.getMaxConcurrentTasks());
+    }
+
+    /**
+     * @param taskIndex the index of one of the Processor's concurrent tasks, starting at 0
+     * @return <code>true</code> if the task may currently run, <code>false</code> if it is parked because the limit has been lowered
+     */
+    boolean isTaskEnabled(final int taskIndex) {
+        return taskIndex < processorNode.getConcurrentTaskLimit();
+    }
+
+    void onTaskCompleted(final FlowFileEvent event) {
+        processingNanos.add(event.getProcessingNanoseconds());
+        cpuNanos.add(event.getCpuNanoseconds());
+        contentNanos.add(event.getContentReadNanoseconds() + event.getContentWriteNanoseconds() + event.getSessionCommitNanoseconds());
+        flowFilesProcessed.add(Math.max(event.getFlowFilesIn(), event.getFlowFilesOut() + event.getFlowFilesRemoved()));
+    }
+
+    /**
+     * Records the outcome of one trigger and, if the evaluation interval has elapsed, adjusts the concurrent task limit.
+     *
+     * @param result the result of triggering the Processor
+     */
+    void onTrigger(final InvocationResult result) {
+        triggers.increment();
+        if (result.isYield()) {
+            yields.increment();
+        }
+
+        final long now = System.nanoTime();
+        final long windowStart = windowStartNanos.get();
+        if (now - windowStart < intervalNanos || !windowStartNanos.compareAndSet(windowStart, now)) {
+            return;
+        }
+
+        evaluate(now - windowStart);
+    }
+
+    void evaluate(final long elapsedNanos) {
+        final long windowTriggers = triggers.sumThenReset();
+        final long windowYields = yields.sumThenReset();
+        final long windowProcessingNanos = processingNanos.sumThenReset();
+        final long windowCpuNanos = cpuNanos.sumThenReset();
+        final long windowContentNanos = contentNanos.sumThenReset();
+        final long windowFlowFiles = flowFilesProcessed.sumThenReset();
+
+        if (!lifecycleState.isScheduled() || windowTriggers == 0 || elapsedNanos <= 0) {
+            return;
+        }
+
+        final int maxConcurrentTasks = processorNode.getMaxConcurrentTasks();
+        final int limit = processorNode.getConcurrentTaskLimit();
+
+        final double yieldRatio = (double) windowYields / windowTriggers;
+        final double utilization = (double) windowProcessingNanos / ((double) elapsedNanos * limit);
+        final double throughput = windowFlowFiles * 1_000_000_000D / elapsedNanos;
+
+        // CPU time is only known if the processing performance tracker samples it; without it, contention cannot be told apart from I/O.
+        final double waitRatio;
+        if (windowCpuNanos > 0 && windowProcessingNanos > 0) {
+            waitRatio = Math.max(0L, windowProcessingNanos - windowCpuNanos - windowContentNanos) / (double) windowProcessingNanos;
+        } else {
+            waitRatio = 0D;
+        }
+
+        final boolean lastIncreaseIneffective = lastAdjustment > 0 && throughput < lastThroughput * MIN_THROUGHPUT_GAIN;
+
+        final int adjustment;
+        final String reason;
+        if (yieldRatio > HIGH_YIELD_RATIO) {
+            adjustment = -1;
+            reason = "most triggers found no work to do";
+        } else if (utilization < LOW_UTILIZATION) {
+            adjustment = -1;
+            reason = "tasks were mostly idle";
+        } else if (lastIncreaseIneffective && waitRatio > HIGH_WAIT_RATIO) {
+            adjustment = -1;
+            reason = "the last added task increased contention without increasing throughput";
+        } else if (yieldRatio < LOW_YIELD_RATIO && utilization > HIGH_UTILIZATION && hasBacklog(limit)) {
+            adjustment = 1;
+            reason = "all tasks were busy and work is queued";
+        } else {
+            adjustment = 0;
+            reason = null;
+        }
+
+        final int newLimit = Math.max(minConcurrentTasks, Math.min(maxConcurrentTasks, limit + adjustment));
+        lastThroughput = throughput;
+        lastAdjustment = newLimit - limit;
+
+        if (newLimit != limit) {
+            processorNode.setConcurrentTaskLimit(newLimit);
+            logger.debug("Changed concurrent tasks of {} from {} to {} because {} [yield ratio={}, utilization={}, wait ratio={}, FlowFiles/sec={}]",
+                processorNode, limit, newLimit, reason, yieldRatio, utilization, waitRatio, throughput);
+        }
+    }
+
+    private boolean hasBacklog(final int limit) {
+        if (!processorNode.hasIncomingConnection()) {
+            return true;
+        }
+
+        long queued = 0L;
+        for (final Connection connection : processorNode.getIncomingConnections()) {
+            queued += connection.getFlowFileQueue().size().getObjectCount();
+        }
+
+        return queued > limit;
+    }
+
+    void stop() {
+        processorNode.setConcurrentTaskLimit(0);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.groups.ProcessGroup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of Timer-Driven threads that the components of a Process Group, including those of its descendant groups, may use at once,
+ * so that a single group cannot consume the entire thread pool at the expense of the rest of the flow. A component is governed by the budget of
+ * the nearest enclosing Process Group that has one; components outside of any such group are not limited.
+ */
+public class ProcessGroupThreadQuotas {
+    private final Map<String, Quota> quotasByGroupId;
+
+    /**
+     * @param maxThreadsByGroupId the maximum number of threads for each Process Group that has a thread budget, keyed by Process Group identifier
+     */
+    public ProcessGroupThreadQuotas(final Map<String, Integer> maxThreadsByGroupId) {
+        final Map<String, Quota> quotas = new HashMap<>();
+        maxThreadsByGroupId.forEach((groupId, maxThreads) -> quotas.put(groupId, new Quota(groupId, maxThreads)));
+        this.quotasByGroupId = Collections.unmodifiableMap(quotas);
+    }
+
+    public boolean isEmpty() {
+        return quotasByGroupId.isEmpty();
+    }
+
+    /**
+     * Returns the thread budget that governs the given component
+     *
+     * @param connectable the component
+     * @return the budget of the nearest enclosing Process Group that has one, or <code>null</code> if the component's threads are not limited
+     */
+    public Quota getQuota(final Connectable connectable) {
+        if (quotasByGroupId.isEmpty()) {
+            return null;
+        }
+
+        ProcessGroup group = connectable.getProcessGroup();
+        while (group != null) {
+            final Quota quota = quotasByGroupId.get(group.getIdentifier());
+            if (quota != null) {
+                return quota;
+            }
+
+            group = group.getParent();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the total time that components have waited for a thread in each Process Group that has a thread budget, keyed by Process Group identifier
+     */
+    public Map<String, Long> getThreadWaitMillis() {
+        final Map<String, Long> waitMillis = new HashMap<>();
+        quotasByGroupId.forEach((groupId, quota) -> waitMillis.put(groupId, TimeUnit.NANOSECONDS.toMillis(quota.getThreadWaitNanos())));
+        return waitMillis;
+    }
+
+    public static class Quota {
+        private final String groupId;
+        private final int maxThreads;
+        private final Semaphore permits;
+        private final LongAdder threadWaitNanos = new LongAdder();
+
+        private Quota(final String groupId, final int maxThreads) {
+            this.groupId = groupId;
+            this.maxThreads = maxThreads;
+            this.permits = new Semaphore(maxThreads);
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public int getMaxThreads() {
+            return maxThreads;
+        }
+
+        public int getActiveThreads() {
+            return maxThreads - permits.availablePermits();
+        }
+
+        /**
+         * Attempts to claim one of the group's threads without blocking
+         *
+         * @return <code>true</code> if a thread was claimed and must later be given back via {@link #release()}, <code>false</code> if all of the group's threads are in use
+         */
+        public boolean tryAcquire() {
+            return permits.tryAcquire();
+        }
+
+        public void release() {
+            permits.release();
+        }
+
+        public void recordThreadWait(final long nanos) {
+            if (nanos > 0L) {
+                threadWaitNanos.add(nanos);
+            }
+        }
+
+        public long getThreadWaitNanos() {
+            return threadWaitNanos.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Quota[groupId=" + groupId + ", maxThreads=" + maxThreads + "]";
+        }
+    }
+}
@@ -41,6 +41,7 @@ public class RepositoryContextFactory {
     private final ProvenanceRepository provenanceRepo;
     private final StateManagerProvider stateManagerProvider;
     private final long maxAppendableClaimBytes;
+    private final int maxInlineContentBytes;
 
     public RepositoryContextFactory(
             final ContentRepository contentRepository,
@@ -50,7 +51,8 @@ public class RepositoryContextFactory {
             final ComponentMetricReporter componentMetricReporter,
             final ProvenanceRepository provenanceRepository,
             final StateManagerProvider stateManagerProvider,
-            final long maxAppendableClaimBytes
+            final long maxAppendableClaimBytes,
+            final int maxInlineContentBytes
     ) {
         this.contentRepo = contentRepository;
         this.flowFileRepo = flowFileRepository;
@@ -60,6 +62,7 @@ public class RepositoryContextFactory {
         this.provenanceRepo = provenanceRepository;
         this.stateManagerProvider = stateManagerProvider;
         this.maxAppendableClaimBytes = maxAppendableClaimBytes;
+        this.maxInlineContentBytes = maxInlineContentBytes;
     }
 
     public RepositoryContext newProcessContext(final Connectable connectable, final AtomicLong connectionIndex) {
@@ -77,7 +80,8 @@ public class RepositoryContextFactory {
                 componentMetricReporter,
                 provenanceRepo,
                 stateManager,
-                maxAppendableClaimBytes
+                maxAppendableClaimBytes,
+                maxInlineContentBytes
         );
     }
 
@@ -41,6 +41,7 @@ import org.apache.nifi.controller.ScheduledState;
 import org.apache.nifi.controller.SchedulingAgentCallback;
 import org.apache.nifi.controller.StandardProcessorNode;
 import org.apache.nifi.controller.exception.ProcessorInstantiationException;
+import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.repository.scheduling.ConnectableProcessContext;
 import org.apache.nifi.controller.service.ControllerServiceNode;
 import org.apache.nifi.controller.service.ControllerServiceProvider;
@@ -632,7 +633,7 @@ public final class StandardProcessScheduler implements ProcessScheduler {
 
         final int tasksTerminated = procNode.terminate();
 
-        getSchedulingAgent(procNode).incrementMaxThreadCount(tasksTerminated);
+        getSchedulingAgent(procNode).incrementMaxThreadCount(procNode, tasksTerminated);
 
         try {
             final Set<URL> additionalUrls = procNode.getAdditionalClasspathResources(procNode.getPropertyDescriptors());
@@ -708,6 +709,23 @@ public final class StandardProcessScheduler implements ProcessScheduler {
         // that gave very bad results.
     }
 
+    @Override
+    public void onFlowFilesQueued(final FlowFileQueue queue) {
+        // Only Timer-Driven components wait for work signals; CRON-Driven components run on their schedule regardless
+        final SchedulingAgent agent = getSchedulingAgent(SchedulingStrategy.TIMER_DRIVEN);
+        if (agent != null) {
+            agent.onFlowFilesQueued(queue);
+        }
+    }
+
+    @Override
+    public void onBackPressureReleased(final FlowFileQueue queue) {
+        final SchedulingAgent agent = getSchedulingAgent(SchedulingStrategy.TIMER_DRIVEN);
+        if (agent != null) {
+            agent.onBackPressureReleased(queue);
+        }
+    }
+
     @Override
     public int getActiveThreadCount(final Object scheduled) {
         final String componentId = getComponentId(scheduled);
@@ -17,27 +17,69 @@
 package org.apache.nifi.controller.scheduling;
 
 import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
 import org.apache.nifi.controller.ReportingTaskNode;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.scheduling.ProcessGroupThreadQuotas.Quota;
+import org.apache.nifi.controller.status.FlowFileAvailability;
 import org.apache.nifi.controller.tasks.ConnectableTask;
 import org.apache.nifi.controller.tasks.InvocationResult;
+import org.apache.nifi.controller.tasks.InvocationResult.AwaitedCondition;
 import org.apache.nifi.controller.tasks.ReportingTaskWrapper;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent {
     private final long noWorkYieldNanos;
+    private final boolean workAware;
+    private final long maxNoWorkYieldNanos;
+    private final FlowEngine virtualThreadEngine;
+    private final Set<String> virtualThreadProcessorTypes;
+    private final ProcessGroupThreadQuotas threadQuotas;
+    private final long threadWaitRetryNanos;
+    private final boolean adaptiveConcurrentTasks;
+    private final int adaptiveMinConcurrentTasks;
+    private final long adaptiveIntervalNanos;
+    private final long parkedTaskCheckNanos;
+    private final ConcurrentMap<Connectable, AdaptiveConcurrencyController> adaptiveControllers = new ConcurrentHashMap<>();
+
+    // When work-aware scheduling is enabled, a component that has no work to do registers here against the queues whose
+    // state it is waiting on, and is triggered as soon as one of those queues signals that work may be available.
+    private final ConcurrentMap<FlowFileQueue, Set<TriggerState>> awaitingIncomingData = new ConcurrentHashMap<>();
+    private final ConcurrentMap<FlowFileQueue, Set<TriggerState>> awaitingDownstreamSpace = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Connectable, List<TriggerState>> triggerStatesByComponent = new ConcurrentHashMap<>();
 
     public TimerDrivenSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final RepositoryContextFactory contextFactory,
                                       final NiFiProperties nifiProperties) {
+        this(flowController, flowEngine, null, contextFactory, nifiProperties, new ProcessGroupThreadQuotas(Collections.emptyMap()));
+    }
+
+    /**
+     * @param virtualThreadEngine the engine on which to run the Processors configured by {@link NiFiProperties#VIRTUAL_THREAD_PROCESSOR_TYPES},
+     * or <code>null</code> if all components run on the given flow engine
+     * @param threadQuotas the thread budgets of the Process Groups whose components may only use a limited number of threads at once
+     */
+    public TimerDrivenSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final FlowEngine virtualThreadEngine,
+                                      final RepositoryContextFactory contextFactory, final NiFiProperties nifiProperties, final ProcessGroupThreadQuotas threadQuotas) {
         super(flowEngine, flowController, contextFactory);
+        this.virtualThreadEngine = virtualThreadEngine;
+        this.threadQuotas = threadQuotas;
+        this.virtualThreadProcessorTypes = virtualThreadEngine == null ? Collections.emptySet() : nifiProperties.getVirtualThreadProcessorTypes();
 
         final String boredYieldDuration = nifiProperties.getBoredYieldDuration();
         try {
@@ -45,11 +87,75 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
         } catch (final IllegalArgumentException e) {
             throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.BORED_YIELD_DURATION + " property is set to an invalid time duration: " + boredYieldDuration);
         }
+
+        workAware = nifiProperties.isBoredYieldWorkAware();
+        final String maxBoredYieldDuration = nifiProperties.getBoredYieldMaxDuration();
+        try {
+            maxNoWorkYieldNanos = Math.max(noWorkYieldNanos, FormatUtils.getTimeDuration(maxBoredYieldDuration, TimeUnit.NANOSECONDS));
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.BORED_YIELD_MAX_DURATION + " property is set to an invalid time duration: "
+                + maxBoredYieldDuration);
+        }
+
+        if (workAware) {
+            logger.info("Components with no work to do will wait up to {} for work to become available", maxBoredYieldDuration);
+        }
+
+        // A component whose Process Group has no thread available checks again after the bored yield duration, but never busy-spins.
+        threadWaitRetryNanos = Math.max(noWorkYieldNanos, TimeUnit.MILLISECONDS.toNanos(1L));
+
+        adaptiveConcurrentTasks = nifiProperties.isAdaptiveConcurrentTasksEnabled();
+        adaptiveMinConcurrentTasks = nifiProperties.getAdaptiveConcurrentTasksMin();
+        final String adaptiveInterval = nifiProperties.getAdaptiveConcurrentTasksInterval();
+        try {
+            adaptiveIntervalNanos = FormatUtils.getTimeDuration(adaptiveInterval, TimeUnit.NANOSECONDS);
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.ADAPTIVE_CONCURRENT_TASKS_INTERVAL + " property is set to an invalid time duration: "
+                + adaptiveInterval);
+        }
+
+        // A concurrent task that is parked because the adaptive limit was lowered checks whether it may run again ten times per evaluation interval.
+        parkedTaskCheckNanos = Math.max(threadWaitRetryNanos, adaptiveIntervalNanos / 10);
+
+        if (adaptiveConcurrentTasks) {
+            logger.info("Concurrent tasks of Processors will be adapted to their workload every {}, with a minimum of {}", adaptiveInterval, adaptiveMinConcurrentTasks);
+        }
     }
 
     @Override
     public void shutdown() {
         flowEngine.shutdown();
+        if (virtualThreadEngine != null) {
+            virtualThreadEngine.shutdown();
+        }
+    }
+
+    @Override
+    protected FlowEngine getFlowEngine(final Connectable connectable) {
+        if (isRunOnVirtualThreads(connectable)) {
+            return virtualThreadEngine;
+        }
+
+        return flowEngine;
+    }
+
+    private boolean isRunOnVirtualThreads(final Connectable connectable) {
+        if (virtualThreadProcessorTypes.isEmpty() || !(connectable instanceof final ProcessorNode processorNode)) {
+            return false;
+        }
+
+        return virtualThreadProcessorTypes.contains(processorNode.getCanonicalClassName()) || virtualThreadProcessorTypes.contains(processorNode.getComponentType());
+    }
+
+    @Override
+    public void incrementMaxThreadCount(final Connectable connectable, final int toAdd) {
+        if (!isRunOnVirtualThreads(connectable)) {
+            incrementMaxThreadCount(toAdd);
+            return;
+        }
+
+        // A task that could not be terminated still holds one of the virtual threads, so make up for it in the virtual thread engine.
+        virtualThreadEngine.setCorePoolSize(Math.max(1, virtualThreadEngine.getCorePoolSize() + toAdd));
     }
 
     @Override
@@ -68,16 +174,30 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
     @Override
     public void doSchedule(final Connectable connectable, final LifecycleState scheduleState) {
         final List<ScheduledFuture<?>> futures = new ArrayList<>();
+        final List<TriggerState> triggerStates = new ArrayList<>();
         final ConnectableTask connectableTask = new ConnectableTask(this, connectable, flowController, contextFactory, scheduleState);
+        final FlowEngine engine = getFlowEngine(connectable);
+
+        final AdaptiveConcurrencyController adaptiveController;
+        if (adaptiveConcurrentTasks && connectable instanceof final ProcessorNode processorNode && processorNode.getMaxConcurrentTasks() > adaptiveMinConcurrentTasks) {
+            adaptiveController = new AdaptiveConcurrencyController(processorNode, scheduleState, adaptiveMinConcurrentTasks, adaptiveIntervalNanos);
+            connectableTask.setTaskCompletionListener(adaptiveController::onTaskCompleted);
+            adaptiveControllers.put(connectable, adaptiveController);
+        } else {
+            adaptiveController = null;
+        }
 
         for (int i = 0; i < connectable.getMaxConcurrentTasks(); i++) {
             // Determine the task to run and create it.
             final AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
+            final TriggerState triggerState = new TriggerState(connectable, engine, scheduleState, futureRef);
+            triggerStates.add(triggerState);
 
-            final Runnable trigger = createTrigger(connectableTask, scheduleState, futureRef);
+            final Runnable trigger = createTrigger(connectableTask, i, engine, scheduleState, futureRef, triggerState, adaptiveController);
+            triggerState.setTrigger(trigger);
 
             // Schedule the task to run
-            final ScheduledFuture<?> future = flowEngine.scheduleWithFixedDelay(trigger, 0L,
+            final ScheduledFuture<?> future = engine.scheduleWithFixedDelay(trigger, 0L,
                 connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
 
             // now that we have the future, set the atomic reference so that if the component is yielded we
@@ -89,14 +209,72 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
         }
 
         scheduleState.setFutures(futures);
-        logger.info("Scheduled {} to run with {} threads", connectable, connectable.getMaxConcurrentTasks());
+        if (workAware) {
+            triggerStatesByComponent.put(connectable, triggerStates);
+        }
+        logger.info("Scheduled {} to run with {} {}threads{}", connectable, connectable.getMaxConcurrentTasks(), engine == virtualThreadEngine ? "virtual " : "",
+            adaptiveController == null ? "" : " adapted to its workload");
     }
 
-    private Runnable createTrigger(final ConnectableTask connectableTask, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef) {
+    private Runnable createTrigger(final ConnectableTask connectableTask, final int taskIndex, final FlowEngine engine, final LifecycleState scheduleState,
+                                   final AtomicReference<ScheduledFuture<?>> futureRef, final TriggerState triggerState,
+                                   final AdaptiveConcurrencyController adaptiveController) {
         final Connectable connectable = connectableTask.getConnectable();
+        final AtomicLong waitingForThreadSince = new AtomicLong(0L);
         final Runnable yieldDetectionRunnable = new Runnable() {
             @Override
             public void run() {
+                // A future that was replaced just as it was about to run may fire alongside its replacement, so only one of them may run the task.
+                if (!triggerState.startRunning()) {
+                    logger.trace("Will not trigger {} because the same task is already running", connectable);
+                    return;
+                }
+
+                AwaitedCondition awaitedCondition = null;
+                try {
+                    awaitedCondition = runTask();
+                } finally {
+                    triggerState.finishRunning(awaitedCondition);
+                }
+            }
+
+            /**
+             * @return the condition to be signaled about before the component has work to do, or <code>null</code> if it is not waiting for a signal
+             */
+            private AwaitedCondition runTask() {
+                // If the adaptive concurrent task limit has been lowered below this task, leave it parked until the limit is raised again.
+                if (adaptiveController != null && !adaptiveController.isTaskEnabled(taskIndex)) {
+                    reschedule(this, connectable, engine, scheduleState, futureRef, parkedTaskCheckNanos);
+                    return null;
+                }
+
+                final Quota quota = threadQuotas.getQuota(connectable);
+                if (quota == null) {
+                    return trigger();
+                }
+
+                // If the component's Process Group is already using all of the threads that it is allowed, give this thread
+                // back to the pool and try again shortly, keeping track of how long the component has been kept waiting.
+                if (!quota.tryAcquire()) {
+                    waitingForThreadSince.compareAndSet(0L, System.nanoTime());
+                    logger.trace("{} has no thread available in {}", connectable, quota);
+                    reschedule(this, connectable, engine, scheduleState, futureRef, threadWaitRetryNanos);
+                    return null;
+                }
+
+                try {
+                    final long waitStart = waitingForThreadSince.getAndSet(0L);
+                    if (waitStart > 0L) {
+                        quota.recordThreadWait(System.nanoTime() - waitStart);
+                    }
+
+                    return trigger();
+                } finally {
+                    quota.release();
+                }
+            }
+
+            private AwaitedCondition trigger() {
                 // Call the task. It will return a boolean indicating whether or not we should yield
                 // based on a lack of work for to do for the component.
                 final InvocationResult invocationResult = connectableTask.invoke();
@@ -104,6 +282,10 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
                     logger.debug("Yielding {} due to {}", connectable, invocationResult.getYieldExplanation());
                 }
 
+                if (adaptiveController != null) {
+                    adaptiveController.onTrigger(invocationResult);
+                }
+
                 // If the component is yielded, cancel its future and re-submit it to run again
                 // after the yield has expired.
                 final long newYieldExpiration = connectable.getYieldExpiration();
@@ -113,7 +295,7 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
                     final long scheduleMillis = connectable.getSchedulingPeriod(TimeUnit.MILLISECONDS);
                     final ScheduledFuture<?> scheduledFuture = futureRef.get();
                     if (scheduledFuture == null) {
-                        return;
+                        return null;
                     }
 
                     // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
@@ -125,7 +307,7 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
                         synchronized (scheduleState) {
                             if (scheduleState.isScheduled()) {
                                 final long schedulingNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
-                                final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, yieldNanos, schedulingNanos, TimeUnit.NANOSECONDS);
+                                final ScheduledFuture<?> newFuture = engine.scheduleWithFixedDelay(this, yieldNanos, schedulingNanos, TimeUnit.NANOSECONDS);
 
                                 scheduleState.replaceFuture(scheduledFuture, newFuture);
                                 futureRef.set(newFuture);
@@ -137,30 +319,57 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
                     // to yield the component automatically for a short period of time.
                     final ScheduledFuture<?> scheduledFuture = futureRef.get();
                     if (scheduledFuture == null) {
-                        return;
+                        return null;
                     }
 
                     // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
                     // an accurate accounting of which futures are outstanding; we must then also update the futureRef
                     // so that we can do this again the next time that the component is yielded.
                     if (scheduledFuture.cancel(false)) {
+                        // If the component is waiting on a condition that we can be signaled about, there is no need to check
+                        // for work after the bored yield duration; instead, we wait for the signal, up to the maximum duration.
+                        final AwaitedCondition awaitedCondition = workAware ? invocationResult.getAwaitedCondition() : null;
+                        final long yieldNanos = awaitedCondition == null ? noWorkYieldNanos : maxNoWorkYieldNanos;
+
                         synchronized (scheduleState) {
                             if (scheduleState.isScheduled()) {
-                                final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, noWorkYieldNanos,
+                                final ScheduledFuture<?> newFuture = engine.scheduleWithFixedDelay(this, yieldNanos,
                                     connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
 
                                 scheduleState.replaceFuture(scheduledFuture, newFuture);
                                 futureRef.set(newFuture);
                             }
                         }
+
+                        return awaitedCondition;
                     }
                 }
+
+                return null;
             }
         };
 
         return yieldDetectionRunnable;
     }
 
+    private void reschedule(final Runnable trigger, final Connectable connectable, final FlowEngine engine, final LifecycleState scheduleState,
+                            final AtomicReference<ScheduledFuture<?>> futureRef, final long delayNanos) {
+        final ScheduledFuture<?> scheduledFuture = futureRef.get();
+        if (scheduledFuture == null || !scheduledFuture.cancel(false)) {
+            return;
+        }
+
+        synchronized (scheduleState) {
+            if (scheduleState.isScheduled()) {
+                final ScheduledFuture<?> newFuture = engine.scheduleWithFixedDelay(trigger, delayNanos,
+                    connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+
+                scheduleState.replaceFuture(scheduledFuture, newFuture);
+                futureRef.set(newFuture);
+            }
+        }
+    }
+
     @Override
     public void doUnschedule(final Connectable connectable, final LifecycleState lifecycleState) {
         for (final ScheduledFuture<?> future : lifecycleState.getFutures()) {
@@ -168,6 +377,16 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
             future.cancel(false);
         }
 
+        final List<TriggerState> triggerStates = triggerStatesByComponent.remove(connectable);
+        if (triggerStates != null) {
+            triggerStates.forEach(TriggerState::stopAwaiting);
+        }
+
+        final AdaptiveConcurrencyController adaptiveController = adaptiveControllers.remove(connectable);
+        if (adaptiveController != null) {
+            adaptiveController.stop();
+        }
+
         logger.info("Stopped scheduling {} to run", connectable);
     }
 
@@ -185,6 +404,184 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
     public void onEvent(final Connectable connectable) {
     }
 
+    @Override
+    public void onFlowFilesQueued(final FlowFileQueue queue) {
+        signal(awaitingIncomingData, queue);
+    }
+
+    @Override
+    public void onBackPressureReleased(final FlowFileQueue queue) {
+        signal(awaitingDownstreamSpace, queue);
+    }
+
+    private void signal(final Map<FlowFileQueue, Set<TriggerState>> awaiting, final FlowFileQueue queue) {
+        // This is called every time that a FlowFile is queued or acknowledged, so avoid any work if nothing is waiting.
+        if (!workAware || awaiting.isEmpty()) {
+            return;
+        }
+
+        final Set<TriggerState> triggerStates = awaiting.get(queue);
+        if (triggerStates == null) {
+            return;
+        }
+
+        for (final TriggerState triggerState : triggerStates) {
+            triggerState.wake();
+        }
+    }
+
+    /**
+     * Tracks whether one concurrent task of a Timer-Driven component is running, scheduled to run, or waiting for a signal from one or
+     * more queues before it is triggered again. Every change of state, along with any replacement of the task's future that goes with it,
+     * is made while holding this object's lock, so a signal can never cause the task to be triggered while it is already running.
+     */
+    private class TriggerState {
+        private final Connectable connectable;
+        private final FlowEngine engine;
+        private final LifecycleState scheduleState;
+        private final AtomicReference<ScheduledFuture<?>> futureRef;
+        private State state = State.SCHEDULED;
+        private volatile Runnable trigger;
+        private Map<FlowFileQueue, Set<TriggerState>> awaitedQueueMap = Collections.emptyMap();
+        private List<FlowFileQueue> awaitedQueues = Collections.emptyList();
+
+        TriggerState(final Connectable connectable, final FlowEngine engine, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef) {
+            this.connectable = connectable;
+            this.engine = engine;
+            this.scheduleState = scheduleState;
+            this.futureRef = futureRef;
+        }
+
+        void setTrigger(final Runnable trigger) {
+            this.trigger = trigger;
+        }
+
+        /**
+         * @return <code>true</code> if the task may run, or <code>false</code> if it is already running
+         */
+        synchronized boolean startRunning() {
+            if (state == State.RUNNING) {
+                return false;
+            }
+
+            // If the task was waiting for work but is running anyway, it no longer needs to be signaled.
+            if (state == State.AWAITING) {
+                deregister();
+            }
+
+            state = State.RUNNING;
+            return true;
+        }
+
+        /**
+         * @param condition the condition to be signaled about before the task is triggered again, or <code>null</code> if the task only runs on its schedule
+         */
+        void finishRunning(final AwaitedCondition condition) {
+            if (condition == null || !scheduleState.isScheduled()) {
+                synchronized (this) {
+                    state = State.SCHEDULED;
+                }
+                return;
+            }
+
+            final List<FlowFileQueue> queues = new ArrayList<>();
+            final Map<FlowFileQueue, Set<TriggerState>> queueMap;
+            if (condition == AwaitedCondition.INCOMING_DATA) {
+                for (final Connection connection : connectable.getIncomingConnections()) {
+                    queues.add(connection.getFlowFileQueue());
+                }
+                queueMap = awaitingIncomingData;
+            } else {
+                for (final Connection connection : connectable.getConnections()) {
+                    queues.add(connection.getFlowFileQueue());
+                }
+                queueMap = awaitingDownstreamSpace;
+            }
+
+            // Register before leaving the running state. A signal that arrives in between finds the task still running and is
+            // ignored, but is then caught by checking the condition below.
+            synchronized (this) {
+                awaitedQueueMap = queueMap;
+                awaitedQueues = queues;
+                for (final FlowFileQueue queue : queues) {
+                    queueMap.compute(queue, (key, triggerStates) -> {
+                        final Set<TriggerState> updated = triggerStates == null ? ConcurrentHashMap.newKeySet() : triggerStates;
+                        updated.add(this);
+                        return updated;
+                    });
+                }
+                state = State.AWAITING;
+            }
+
+            // The queue may have signaled between the component checking for work and registering to receive the signal
+            if (isConditionMet(condition, queues)) {
+                wake();
+            }
+        }
+
+        private boolean isConditionMet(final AwaitedCondition condition, final List<FlowFileQueue> queues) {
+            for (final FlowFileQueue queue : queues) {
+                if (condition == AwaitedCondition.INCOMING_DATA ? queue.getFlowFileAvailability() == FlowFileAvailability.FLOWFILE_AVAILABLE : !queue.isFull()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        synchronized void stopAwaiting() {
+            if (state == State.AWAITING) {
+                deregister();
+                state = State.SCHEDULED;
+            }
+        }
+
+        synchronized void wake() {
+            if (state != State.AWAITING) {
+                return;
+            }
+
+            deregister();
+            state = State.SCHEDULED;
+
+            // Replace the future that would trigger the component after the maximum bored yield duration with one that triggers it now.
+            // If that future fires while it is being replaced, it waits for this lock and then runs the task, and the new future finds the
+            // task running and does not.
+            final ScheduledFuture<?> scheduledFuture = futureRef.get();
+            if (scheduledFuture == null || !scheduledFuture.cancel(false)) {
+                return;
+            }
+
+            synchronized (scheduleState) {
+                if (scheduleState.isScheduled()) {
+                    final ScheduledFuture<?> newFuture = engine.scheduleWithFixedDelay(trigger, 0L,
+                        connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+
+                    scheduleState.replaceFuture(scheduledFuture, newFuture);
+                    futureRef.set(newFuture);
+                }
+            }
+
+            logger.debug("Triggering {} because work became available", connectable);
+        }
+
+        private void deregister() {
+            for (final FlowFileQueue queue : awaitedQueues) {
+                awaitedQueueMap.computeIfPresent(queue, (key, triggerStates) -> {
+                    triggerStates.remove(this);
+                    return triggerStates.isEmpty() ? null : triggerStates;
+                });
+            }
+            awaitedQueues = Collections.emptyList();
+        }
+    }
+
+    private enum State {
+        SCHEDULED,
+        AWAITING,
+        RUNNING
+    }
+
     @Override
     public void setMaxThreadCount(final int maxThreads) {
     }
@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.swap;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.AttributeKeyDictionary;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.PersistentAttributeMap;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.repository.schema.FieldCache;
+import org.apache.nifi.repository.schema.NoOpFieldCache;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads swap files that were written by the {@link ColumnarSwapSerializer}
+ */
+public class ColumnarSwapDeserializer implements SwapDeserializer {
+    private static final int BUFFER_SIZE = 65536;
+
+    private final FieldCache fieldCache;
+
+    public ColumnarSwapDeserializer() {
+        this(new NoOpFieldCache());
+    }
+
+    public ColumnarSwapDeserializer(final FieldCache fieldCache) {
+        this.fieldCache = fieldCache;
+    }
+
+    @Override
+    public SwapSummary getSwapSummary(final DataInputStream in, final String swapLocation, final ResourceClaimManager claimManager) throws IOException {
+        return readSummary(in, swapLocation, claimManager).swapSummary();
+    }
+
+    @Override
+    public SwapContents deserializeFlowFiles(final DataInputStream in, final String swapLocation, final FlowFileQueue queue, final ResourceClaimManager claimManager) throws IOException {
+        final Summary summary = readSummary(in, swapLocation, claimManager);
+        final int flowFileCount = summary.swapSummary().getQueueSize().getObjectCount();
+
+        final Inflater inflater = new Inflater();
+        try {
+            final DataInputStream columnsIn = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in, inflater, BUFFER_SIZE), BUFFER_SIZE));
+            final List<FlowFileRecord> flowFiles = readColumns(columnsIn, flowFileCount, summary);
+            return new StandardSwapContents(summary.swapSummary(), flowFiles);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private Summary readSummary(final DataInputStream in, final String swapLocation, final ResourceClaimManager claimManager) throws IOException {
+        final int encodingVersion = in.readInt();
+        if (encodingVersion > ColumnarSwapSerializer.ENCODING_VERSION) {
+            throw new IOException("Cannot read swap file " + swapLocation + " because it was written with encoding version " + encodingVersion
+                + " but this version of NiFi only supports up to version " + ColumnarSwapSerializer.ENCODING_VERSION);
+        }
+
+        in.readUTF(); // queue identifier
+        final int flowFileCount = in.readInt();
+        final long contentSize = in.readLong();
+        final long maxFlowFileId = in.readLong();
+        final long minLastQueueDate = in.readLong();
+        final long totalLastQueueDate = in.readLong();
+
+        final int resourceClaimCount = in.readInt();
+        final ResourceClaim[] resourceClaims = new ResourceClaim[resourceClaimCount];
+        final List<ResourceClaim> summaryResourceClaims = new ArrayList<>(flowFileCount);
+        for (int i = 0; i < resourceClaimCount; i++) {
+            final String container = in.readUTF();
+            final String section = in.readUTF();
+            final String identifier = in.readUTF();
+            final boolean lossTolerant = in.readBoolean();
+            final int claimantCount = in.readInt();
+
+            final ResourceClaim resourceClaim = claimManager.newResourceClaim(container, section, identifier, lossTolerant, false);
+            resourceClaims[i] = resourceClaim;
+            for (int j = 0; j < claimantCount; j++) {
+                summaryResourceClaims.add(resourceClaim);
+            }
+        }
+
+        final QueueSize queueSize = new QueueSize(flowFileCount, contentSize);
+        final SwapSummary swapSummary = new StandardSwapSummary(queueSize, maxFlowFileId, summaryResourceClaims, minLastQueueDate, totalLastQueueDate);
+        return new Summary(swapSummary, resourceClaims, encodingVersion);
+    }
+
+    private List<FlowFileRecord> readColumns(final DataInputStream in, final int flowFileCount, final Summary summary) throws IOException {
+        final ResourceClaim[] resourceClaims = summary.resourceClaims();
+        final long[] ids = readDeltaColumn(in, flowFileCount);
+        final long[] entryDates = readDeltaColumn(in, flowFileCount);
+        final long[] lineageStartDates = readDeltaColumn(in, flowFileCount);
+        final long[] lineageStartIndices = readDeltaColumn(in, flowFileCount);
+        final long[] lastQueueDates = readDeltaColumn(in, flowFileCount);
+        final long[] queueDateIndices = readDeltaColumn(in, flowFileCount);
+
+        final long[] sizes = new long[flowFileCount];
+        for (int i = 0; i < flowFileCount; i++) {
+            sizes[i] = readVarLong(in);
+        }
+
+        final int[] claimReferences = new int[flowFileCount];
+        int contentClaimCount = 0;
+        for (int i = 0; i < flowFileCount; i++) {
+            final int reference = readVarInt(in);
+            if (reference > resourceClaims.length) {
+                throw new IOException("Swap file references Resource Claim " + reference + " but only " + resourceClaims.length + " Resource Claims are known; the swap file appears to be corrupt");
+            }
+
+            claimReferences[i] = reference;
+            if (reference > 0) {
+                contentClaimCount++;
+            }
+        }
+
+        final long[] claimOffsets = new long[contentClaimCount];
+        for (int i = 0; i < contentClaimCount; i++) {
+            claimOffsets[i] = readVarLong(in);
+        }
+        final long[] claimLengths = new long[contentClaimCount];
+        for (int i = 0; i < contentClaimCount; i++) {
+            claimLengths[i] = readVarLong(in);
+        }
+        final long[] contentClaimOffsets = new long[contentClaimCount];
+        for (int i = 0; i < contentClaimCount; i++) {
+            contentClaimOffsets[i] = readVarLong(in);
+        }
+
+        final PersistentAttributeMap[] attributes = readAttributes(in, flowFileCount);
+
+        // Version 2 added inline content, which is written for each FlowFile that has content but no Content Claim
+        final byte[][] inlineContents = new byte[flowFileCount][];
+        if (summary.encodingVersion() >= 2) {
+            for (int i = 0; i < flowFileCount; i++) {
+                if (claimReferences[i] == 0 && sizes[i] > 0) {
+                    inlineContents[i] = new byte[(int) sizes[i]];
+                    in.readFully(inlineContents[i]);
+                }
+            }
+        }
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(flowFileCount);
+        int claimIndex = 0;
+        for (int i = 0; i < flowFileCount; i++) {
+            final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+                .id(ids[i])
+                .entryDate(entryDates[i])
+                .lineageStart(lineageStartDates[i], lineageStartIndices[i])
+                .lastQueued(lastQueueDates[i], queueDateIndices[i])
+                .size(sizes[i])
+                .addAttributes(attributes[i]);
+
+            if (claimReferences[i] > 0) {
+                final StandardContentClaim contentClaim = new StandardContentClaim(resourceClaims[claimReferences[i] - 1], claimOffsets[claimIndex]);
+                contentClaim.setLength(claimLengths[claimIndex]);
+                builder.contentClaim(contentClaim);
+                builder.contentClaimOffset(contentClaimOffsets[claimIndex]);
+                claimIndex++;
+            } else if (inlineContents[i] != null) {
+                builder.inlineContent(inlineContents[i]);
+            }
+
+            flowFiles.add(builder.build());
+        }
+
+        return flowFiles;
+    }
+
+    private PersistentAttributeMap[] readAttributes(final DataInputStream in, final int flowFileCount) throws IOException {
+        final String[] keys = new String[readVarInt(in)];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = AttributeKeyDictionary.intern(readString(in));
+        }
+
+        final String[] values = new String[readVarInt(in)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = fieldCache.cache(readString(in));
+        }
+
+        final int[] attributesPerFlowFile = new int[flowFileCount];
+        int attributeCount = 0;
+        for (int i = 0; i < flowFileCount; i++) {
+            attributesPerFlowFile[i] = readVarInt(in);
+            attributeCount += attributesPerFlowFile[i];
+        }
+
+        final String[] attributeKeys = new String[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            attributeKeys[i] = lookup(keys, readVarInt(in));
+        }
+
+        final PersistentAttributeMap[] attributes = new PersistentAttributeMap[flowFileCount];
+        int attributeIndex = 0;
+        for (int i = 0; i < flowFileCount; i++) {
+            PersistentAttributeMap flowFileAttributes = PersistentAttributeMap.empty();
+            for (int j = 0; j < attributesPerFlowFile[i]; j++) {
+                flowFileAttributes = flowFileAttributes.with(attributeKeys[attributeIndex++], lookup(values, readVarInt(in)));
+            }
+            attributes[i] = flowFileAttributes;
+        }
+
+        return attributes;
+    }
+
+    private String lookup(final String[] dictionary, final int index) throws IOException {
+        if (index >= dictionary.length) {
+            throw new IOException("Swap file references dictionary entry " + index + " but the dictionary has only " + dictionary.length + " entries; the swap file appears to be corrupt");
+        }
+
+        return dictionary[index];
+    }
+
+    private long[] readDeltaColumn(final DataInputStream in, final int flowFileCount) throws IOException {
+        final long[] column = new long[flowFileCount];
+        long previous = 0L;
+        for (int i = 0; i < flowFileCount; i++) {
+            previous += readVarLong(in);
+            column[i] = previous;
+        }
+
+        return column;
+    }
+
+    private String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt(final DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Found malformed variable-length integer; the swap file appears to be corrupt");
+    }
+
+    private long readVarLong(final DataInputStream in) throws IOException {
+        long encoded = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+
+            encoded |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (encoded >>> 1) ^ -(encoded & 1);
+            }
+        }
+
+        throw new IOException("Found malformed variable-length integer; the swap file appears to be corrupt");
+    }
+
+    public static String getSerializationName() {
+        return ColumnarSwapSerializer.SERIALIZATION_NAME;
+    }
+
+    private record Summary(SwapSummary swapSummary, ResourceClaim[] resourceClaims, int encodingVersion) {
+    }
+}
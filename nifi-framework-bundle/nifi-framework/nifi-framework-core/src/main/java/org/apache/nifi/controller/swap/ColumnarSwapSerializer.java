@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.swap;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * <p>
+ * A SwapSerializer that writes a swap file in columnar form. The swap summary is written first and is not compressed, so that it can be
+ * read without decoding the FlowFiles. The FlowFiles are then written as a compressed series of columns: each numeric field of every FlowFile,
+ * followed by the next field, and so on. Identifiers and timestamps are written as the difference from the previous FlowFile, and attribute
+ * keys and values are each written once into a dictionary and then referenced by their position in the dictionary.
+ * </p>
+ *
+ * <p>
+ * Because FlowFiles that are swapped out together tend to have similar identifiers, timestamps, and attributes, this results in a swap file
+ * that is far smaller than one written by the {@link SchemaSwapSerializer} and that can be read back more quickly.
+ * </p>
+ */
+public class ColumnarSwapSerializer implements SwapSerializer {
+    static final String SERIALIZATION_NAME = "Columnar Swap Serialization";
+    static final int ENCODING_VERSION = 2;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    @Override
+    public void serializeFlowFiles(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final String swapLocation, final OutputStream destination) throws IOException {
+        final DataOutputStream out = new DataOutputStream(destination);
+        out.writeInt(ENCODING_VERSION);
+
+        long contentSize = 0L;
+        long maxFlowFileId = -1L;
+        long minLastQueueDate = Long.MAX_VALUE;
+        long totalLastQueueDate = 0L;
+        final Map<ResourceClaim, Integer> resourceClaimIndices = new LinkedHashMap<>();
+        final List<Integer> resourceClaimCounts = new ArrayList<>();
+        final int[] resourceClaimReferences = new int[toSwap.size()];
+
+        for (int i = 0; i < toSwap.size(); i++) {
+            final FlowFileRecord flowFile = toSwap.get(i);
+            contentSize += flowFile.getSize();
+            maxFlowFileId = Math.max(maxFlowFileId, flowFile.getId());
+            minLastQueueDate = Math.min(minLastQueueDate, flowFile.getLastQueueDate());
+            totalLastQueueDate += flowFile.getLastQueueDate();
+
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim != null) {
+                final ResourceClaim resourceClaim = contentClaim.getResourceClaim();
+                Integer index = resourceClaimIndices.get(resourceClaim);
+                if (index == null) {
+                    index = resourceClaimIndices.size();
+                    resourceClaimIndices.put(resourceClaim, index);
+                    resourceClaimCounts.add(0);
+                }
+
+                resourceClaimCounts.set(index, resourceClaimCounts.get(index) + 1);
+                resourceClaimReferences[i] = index + 1;
+            }
+        }
+
+        // Write the summary
+        out.writeUTF(queue.getIdentifier());
+        out.writeInt(toSwap.size());
+        out.writeLong(contentSize);
+        out.writeLong(maxFlowFileId);
+        out.writeLong(toSwap.isEmpty() ? 0L : minLastQueueDate);
+        out.writeLong(totalLastQueueDate);
+
+        out.writeInt(resourceClaimIndices.size());
+        int claimIndex = 0;
+        for (final ResourceClaim resourceClaim : resourceClaimIndices.keySet()) {
+            out.writeUTF(resourceClaim.getContainer());
+            out.writeUTF(resourceClaim.getSection());
+            out.writeUTF(resourceClaim.getId());
+            out.writeBoolean(resourceClaim.isLossTolerant());
+            out.writeInt(resourceClaimCounts.get(claimIndex++));
+        }
+        out.flush();
+
+        // Write the FlowFiles
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            final DeflaterOutputStream deflaterOut = new DeflaterOutputStream(destination, deflater, BUFFER_SIZE);
+            final DataOutputStream columnsOut = new DataOutputStream(new BufferedOutputStream(deflaterOut, BUFFER_SIZE));
+            writeColumns(toSwap, resourceClaimReferences, columnsOut);
+            columnsOut.flush();
+            deflaterOut.finish();
+        } finally {
+            deflater.end();
+        }
+
+        destination.flush();
+    }
+
+    private void writeColumns(final List<FlowFileRecord> toSwap, final int[] resourceClaimReferences, final DataOutputStream out) throws IOException {
+        long previous = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            writeVarLong(flowFile.getId() - previous, out);
+            previous = flowFile.getId();
+        }
+
+        previous = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            writeVarLong(flowFile.getEntryDate() - previous, out);
+            previous = flowFile.getEntryDate();
+        }
+
+        previous = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            writeVarLong(flowFile.getLineageStartDate() - previous, out);
+            previous = flowFile.getLineageStartDate();
+        }
+
+        previous = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            writeVarLong(flowFile.getLineageStartIndex() - previous, out);
+            previous = flowFile.getLineageStartIndex();
+        }
+
+        previous = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            writeVarLong(flowFile.getLastQueueDate() - previous, out);
+            previous = flowFile.getLastQueueDate();
+        }
+
+        previous = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            writeVarLong(flowFile.getQueueDateIndex() - previous, out);
+            previous = flowFile.getQueueDateIndex();
+        }
+
+        for (final FlowFileRecord flowFile : toSwap) {
+            writeVarLong(flowFile.getSize(), out);
+        }
+
+        // Content Claims. Each FlowFile references a Resource Claim from the summary by its position, or 0 if it has no Content Claim.
+        for (final int reference : resourceClaimReferences) {
+            writeVarInt(reference, out);
+        }
+        for (final FlowFileRecord flowFile : toSwap) {
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim != null) {
+                writeVarLong(contentClaim.getOffset(), out);
+            }
+        }
+        for (final FlowFileRecord flowFile : toSwap) {
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim != null) {
+                writeVarLong(contentClaim.getLength(), out);
+            }
+        }
+        for (final FlowFileRecord flowFile : toSwap) {
+            if (flowFile.getContentClaim() != null) {
+                writeVarLong(flowFile.getContentClaimOffset(), out);
+            }
+        }
+
+        writeAttributes(toSwap, out);
+
+        // Inline content. The length of the content is the size of the FlowFile, so only the bytes are written.
+        for (final FlowFileRecord flowFile : toSwap) {
+            final byte[] inlineContent = flowFile.getInlineContent();
+            if (inlineContent != null) {
+                out.write(inlineContent);
+            }
+        }
+    }
+
+    private void writeAttributes(final List<FlowFileRecord> toSwap, final DataOutputStream out) throws IOException {
+        final Map<String, Integer> keyIndices = new HashMap<>();
+        final Map<String, Integer> valueIndices = new HashMap<>();
+        final List<String> keys = new ArrayList<>();
+        final List<String> values = new ArrayList<>();
+
+        int attributeCount = 0;
+        for (final FlowFileRecord flowFile : toSwap) {
+            attributeCount += flowFile.getAttributes().size();
+        }
+
+        final int[] attributesPerFlowFile = new int[toSwap.size()];
+        final int[] keyReferences = new int[attributeCount];
+        final int[] valueReferences = new int[attributeCount];
+
+        int attributeIndex = 0;
+        for (int i = 0; i < toSwap.size(); i++) {
+            final Map<String, String> attributes = toSwap.get(i).getAttributes();
+            attributesPerFlowFile[i] = attributes.size();
+
+            for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+                keyReferences[attributeIndex] = getDictionaryIndex(entry.getKey(), keyIndices, keys);
+                valueReferences[attributeIndex] = getDictionaryIndex(entry.getValue(), valueIndices, values);
+                attributeIndex++;
+            }
+        }
+
+        writeVarInt(keys.size(), out);
+        for (final String key : keys) {
+            writeString(key, out);
+        }
+
+        writeVarInt(values.size(), out);
+        for (final String value : values) {
+            writeString(value, out);
+        }
+
+        for (final int count : attributesPerFlowFile) {
+            writeVarInt(count, out);
+        }
+        for (final int reference : keyReferences) {
+            writeVarInt(reference, out);
+        }
+        for (final int reference : valueReferences) {
+            writeVarInt(reference, out);
+        }
+    }
+
+    private int getDictionaryIndex(final String value, final Map<String, Integer> indices, final List<String> dictionary) {
+        final Integer existing = indices.get(value);
+        if (existing != null) {
+            return existing;
+        }
+
+        final int index = dictionary.size();
+        dictionary.add(value);
+        indices.put(value, index);
+        return index;
+    }
+
+    private void writeString(final String value, final DataOutputStream out) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length, out);
+        out.write(bytes);
+    }
+
+    private void writeVarInt(final int value, final DataOutputStream out) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    // Values are zig-zag encoded so that small negative differences remain small.
+    private void writeVarLong(final long value, final DataOutputStream out) throws IOException {
+        long remaining = (value << 1) ^ (value >> 63);
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    @Override
+    public String getSerializationName() {
+        return SERIALIZATION_NAME;
+    }
+}
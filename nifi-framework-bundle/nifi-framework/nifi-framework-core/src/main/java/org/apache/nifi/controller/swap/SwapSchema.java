@@ -43,6 +43,8 @@ public class SwapSchema {
     public static final RecordSchema SWAP_SUMMARY_SCHEMA_V3;
     public static final RecordSchema FULL_SWAP_FILE_SCHEMA_V3;
 
+    public static final RecordSchema FULL_SWAP_FILE_SCHEMA_V4;
+
     public static final String RESOURCE_CLAIMS = "Resource Claims";
     public static final String RESOURCE_CLAIM = "Resource Claim";
     public static final String RESOURCE_CLAIM_COUNT = "Claim Count";
@@ -139,4 +141,12 @@ public class SwapSchema {
         fullSchemaFields.add(new ComplexRecordField(FLOWFILE_CONTENTS, Repetition.ZERO_OR_MORE, FlowFileSchema.FLOWFILE_SCHEMA_V2.getFields()));
         FULL_SWAP_FILE_SCHEMA_V3 = new RecordSchema(fullSchemaFields);
     }
+
+    static {
+        // V4 uses the same summary as V3 and V3 of the FlowFile schema, which adds Inline Content
+        final List<RecordField> fullSchemaFields = new ArrayList<>();
+        fullSchemaFields.add(new ComplexRecordField(SWAP_SUMMARY, Repetition.EXACTLY_ONE, SWAP_SUMMARY_SCHEMA_V3.getFields()));
+        fullSchemaFields.add(new ComplexRecordField(FLOWFILE_CONTENTS, Repetition.ZERO_OR_MORE, FlowFileSchema.FLOWFILE_SCHEMA_V3.getFields()));
+        FULL_SWAP_FILE_SCHEMA_V4 = new RecordSchema(fullSchemaFields);
+    }
 }
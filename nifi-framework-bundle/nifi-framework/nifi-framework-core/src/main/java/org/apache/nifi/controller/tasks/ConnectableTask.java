@@ -27,10 +27,13 @@ import org.apache.nifi.controller.lifecycle.TaskTerminationAwareStateManager;
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.repository.ActiveProcessSessionFactory;
 import org.apache.nifi.controller.repository.BatchingSessionFactory;
+import org.apache.nifi.controller.repository.FlowFileEvent;
 import org.apache.nifi.controller.repository.RepositoryContext;
 import org.apache.nifi.controller.repository.StandardProcessSession;
 import org.apache.nifi.controller.repository.StandardProcessSessionFactory;
 import org.apache.nifi.controller.repository.WeakHashMapProcessSessionFactory;
+import org.apache.nifi.controller.repository.metrics.DelegatingPerformanceTracker;
+import org.apache.nifi.controller.repository.metrics.PerformanceTracker;
 import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
 import org.apache.nifi.controller.repository.metrics.tracking.StandardStatsTracker;
 import org.apache.nifi.controller.repository.metrics.tracking.StatsTracker;
@@ -54,8 +57,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Continually runs a <code>{@link Connectable}</code> component as long as the component has work to do.
@@ -73,6 +79,12 @@ public class ConnectableTask {
     private final FlowController flowController;
     private final int numRelationships;
     private final StatsTracker statsTracker;
+    private volatile Consumer<FlowFileEvent> taskCompletionListener;
+    private final int microBatchSize;
+
+    // Sessions that batch the triggers of a component that supports batching. A session is reset when it is committed, so rather than building
+    // a new session, along with all of its internal collections, for every task, each committed session is kept here for the next task to reuse.
+    private final BlockingQueue<PooledSession> sessionPool;
 
     public ConnectableTask(final SchedulingAgent schedulingAgent, final Connectable connectable,
                            final FlowController flowController, final RepositoryContextFactory contextFactory, final LifecycleState lifecycleState) {
@@ -103,12 +115,22 @@ public class ConnectableTask {
 
         statsTracker = new StandardStatsTracker(flowController.getGarbageCollectionLog()::getTotalGarbageCollectionMillis,
             flowController.getPerformanceTrackingPercentage());
+
+        microBatchSize = Math.max(1, flowController.getProcessorMicroBatchSize());
+        sessionPool = new LinkedBlockingQueue<>(Math.max(1, connectable.getMaxConcurrentTasks()));
     }
 
     public Connectable getConnectable() {
         return connectable;
     }
 
+    /**
+     * @param listener notified with the statistics of each task that triggers the component, after they have been added to the FlowFile Event Repository
+     */
+    public void setTaskCompletionListener(final Consumer<FlowFileEvent> listener) {
+        this.taskCompletionListener = listener;
+    }
+
     private boolean isRunOnCluster(final FlowController flowController) {
         return !connectable.isIsolated() || !flowController.isConfiguredForClustering() || flowController.isPrimary();
     }
@@ -146,14 +168,27 @@ public class ConnectableTask {
                     && Connectables.flowFilesQueued(connectable);
         }
 
-        final boolean isSourceComponent = connectable.isTriggerWhenEmpty()
+        // If it is not a 'source' component, it requires a FlowFile to process.
+        return isSourceComponent(hasNonLoopConnection) || Connectables.flowFilesQueued(connectable);
+    }
+
+    private boolean isSourceComponent(final boolean hasNonLoopConnection) {
+        return connectable.isTriggerWhenEmpty()
                 // No input connections
                 || !connectable.hasIncomingConnection()
                 // Every incoming connection loops back to itself, no inputs from other components
                 || !hasNonLoopConnection;
+    }
 
-        // If it is not a 'source' component, it requires a FlowFile to process.
-        return isSourceComponent || Connectables.flowFilesQueued(connectable);
+    /**
+     * @return <code>true</code> if the component can only have work to do once a FlowFile is queued in one of its incoming connections
+     */
+    private boolean isAwaitingIncomingData() {
+        if (connectable.getConnectableType() == ConnectableType.FUNNEL) {
+            return connectable.hasIncomingConnection();
+        }
+
+        return !isSourceComponent(Connectables.hasNonLoopConnection(connectable));
     }
 
     private boolean isBackPressureEngaged() {
@@ -184,6 +219,9 @@ public class ConnectableTask {
         // Make sure processor has work to do.
         if (!isWorkToDo()) {
             logger.debug("Yielding {} because it has no work to do", connectable);
+            if (isAwaitingIncomingData()) {
+                return InvocationResult.await(InvocationResult.AwaitedCondition.INCOMING_DATA, "No work to do");
+            }
             return InvocationResult.yield("No work to do");
         }
 
@@ -191,23 +229,25 @@ public class ConnectableTask {
             final int requiredNumberOfAvailableRelationships = connectable.isTriggerWhenAnyDestinationAvailable() ? 1 : numRelationships;
             if (!repositoryContext.isRelationshipAvailabilitySatisfied(requiredNumberOfAvailableRelationships)) {
                 logger.debug("Yielding {} because Backpressure is Applied", connectable);
-                return InvocationResult.yield("Backpressure Applied");
+                return InvocationResult.await(InvocationResult.AwaitedCondition.DOWNSTREAM_SPACE, "Backpressure Applied");
             }
         }
 
         logger.debug("Triggering {}", connectable);
         final TrackedStats stats = statsTracker.startTracking();
 
+        // A component that supports batching combines its triggers into a single session commit for up to its Run Duration or,
+        // if it has no Run Duration, for up to the configured number of consecutive triggers.
         final long batchNanos = connectable.getRunDuration(TimeUnit.NANOSECONDS);
         final ProcessSessionFactory sessionFactory;
-        final StandardProcessSession rawSession;
+        final PooledSession pooledSession;
         final boolean batch;
-        if (connectable.isSessionBatchingSupported() && batchNanos > 0L) {
-            rawSession = new StandardProcessSession(repositoryContext, lifecycleState::isTerminated, stats.getPerformanceTracker());
-            sessionFactory = new BatchingSessionFactory(rawSession);
+        if (connectable.isSessionBatchingSupported() && (batchNanos > 0L || microBatchSize > 1)) {
+            pooledSession = acquireSession(stats.getPerformanceTracker());
+            sessionFactory = new BatchingSessionFactory(pooledSession.session());
             batch = true;
         } else {
-            rawSession = null;
+            pooledSession = null;
             sessionFactory = new StandardProcessSessionFactory(repositoryContext, lifecycleState::isTerminated, stats.getPerformanceTracker());
             batch = false;
         }
@@ -232,8 +272,12 @@ public class ConnectableTask {
                         return InvocationResult.DO_NOT_YIELD;
                     }
 
+                    // The batching session is not committed until the batch ends, so give back any FlowFiles that this trigger polled but did not
+                    // use rather than keeping them from other tasks for the rest of the batch.
+                    pooledSession.session().releasePrefetchedFlowFiles();
+
                     final long nanoTime = System.nanoTime();
-                    if (nanoTime > finishNanos) {
+                    if (batchNanos > 0L ? nanoTime > finishNanos : invocationCount >= microBatchSize) {
                         return InvocationResult.DO_NOT_YIELD;
                     }
 
@@ -273,9 +317,11 @@ public class ConnectableTask {
             try {
                 if (batch) {
                     final ComponentLog procLog = new SimpleProcessLogger(connectable.getIdentifier(), connectable.getRunnableComponent(), new StandardLoggingContext(connectable));
+                    final StandardProcessSession rawSession = pooledSession.session();
 
                     try {
-                        rawSession.commitAsync(null, t -> {
+                        // Only a session that was committed successfully has been reset and can be reused
+                        rawSession.commitAsync(() -> releaseSession(pooledSession), t -> {
                             procLog.error("Failed to commit session {}; rolling back", rawSession, t);
                         });
                     } catch (final TerminatedTaskException tte) {
@@ -297,14 +343,43 @@ public class ConnectableTask {
         return InvocationResult.DO_NOT_YIELD;
     }
 
+    private PooledSession acquireSession(final PerformanceTracker performanceTracker) {
+        final PooledSession pooledSession = sessionPool.poll();
+        if (pooledSession != null) {
+            pooledSession.performanceTracker().setDelegate(performanceTracker);
+            return pooledSession;
+        }
+
+        final DelegatingPerformanceTracker delegatingTracker = new DelegatingPerformanceTracker(performanceTracker);
+        return new PooledSession(createBatchSession(delegatingTracker), delegatingTracker);
+    }
+
+    // Visible for testing
+    StandardProcessSession createBatchSession(final PerformanceTracker performanceTracker) {
+        return new StandardProcessSession(repositoryContext, lifecycleState::isTerminated, performanceTracker);
+    }
+
+    private void releaseSession(final PooledSession pooledSession) {
+        // If the pool is already full, the session is simply discarded
+        sessionPool.offer(pooledSession);
+    }
+
     private void updateEventRepo(final TrackedStats stats, final int invocationCount) throws IOException {
         final StandardFlowFileEvent flowFileEvent = stats.end();
         flowFileEvent.setInvocations(invocationCount);
         repositoryContext.getFlowFileEventRepository().updateRepository(flowFileEvent, connectable.getIdentifier());
+
+        final Consumer<FlowFileEvent> listener = taskCompletionListener;
+        if (listener != null) {
+            listener.accept(flowFileEvent);
+        }
     }
 
     private ComponentLog getComponentLog() {
         return new SimpleProcessLogger(connectable.getIdentifier(), connectable.getRunnableComponent(), new StandardLoggingContext(connectable));
     }
 
+    private record PooledSession(StandardProcessSession session, DelegatingPerformanceTracker performanceTracker) {
+    }
+
 }
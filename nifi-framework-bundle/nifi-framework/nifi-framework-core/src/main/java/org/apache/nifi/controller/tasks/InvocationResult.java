@@ -22,6 +22,14 @@ public interface InvocationResult {
 
     String getYieldExplanation();
 
+    /**
+     * @return the condition that must be met before the component will have work to do, or <code>null</code> if the
+     * component is not known to be waiting on any particular condition
+     */
+    default AwaitedCondition getAwaitedCondition() {
+        return null;
+    }
+
     InvocationResult DO_NOT_YIELD = new InvocationResult() {
         @Override
         public boolean isYield() {
@@ -34,6 +42,25 @@ public interface InvocationResult {
         }
     };
 
+    static InvocationResult await(final AwaitedCondition condition, final String explanation) {
+        return new InvocationResult() {
+            @Override
+            public boolean isYield() {
+                return true;
+            }
+
+            @Override
+            public String getYieldExplanation() {
+                return explanation;
+            }
+
+            @Override
+            public AwaitedCondition getAwaitedCondition() {
+                return condition;
+            }
+        };
+    }
+
     static InvocationResult yield(final String explanation) {
         return new InvocationResult() {
             @Override
@@ -47,4 +74,16 @@ public interface InvocationResult {
             }
         };
     }
+
+    enum AwaitedCondition {
+        /**
+         * The component has no work to do until a FlowFile is queued in one of its incoming connections
+         */
+        INCOMING_DATA,
+
+        /**
+         * The component cannot run until back pressure is released on one of its outgoing connections
+         */
+        DOWNSTREAM_SPACE
+    }
 }
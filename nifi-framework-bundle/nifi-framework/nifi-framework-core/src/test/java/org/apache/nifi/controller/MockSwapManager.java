@@ -31,18 +31,26 @@ import org.apache.nifi.controller.swap.StandardSwapSummary;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 
 public class MockSwapManager implements FlowFileSwapManager {
-    public final Map<String, List<FlowFileRecord>> swappedOut = new HashMap<>();
-    public int swapOutCalledCount = 0;
+    public final Map<String, List<FlowFileRecord>> swappedOut = new ConcurrentHashMap<>();
+    public volatile int swapOutCalledCount = 0;
     public int swapInCalledCount = 0;
+    public int prefetchCalledCount = 0;
+    public int prefetchedSwapInCount = 0;
+
+    private boolean prefetchEnabled = false;
+    private boolean backgroundSwapOutEnabled = false;
+    private volatile CountDownLatch backgroundSwapOutLatch = new CountDownLatch(0);
 
     public int incompleteSwapFileRecordsToInclude = -1;
 
@@ -74,6 +82,22 @@ public class MockSwapManager implements FlowFileSwapManager {
         incompleteSwapFileRecordsToInclude = flowFilesToInclude;
     }
 
+    public void enablePrefetch() {
+        prefetchEnabled = true;
+    }
+
+    public void enableBackgroundSwapOut() {
+        backgroundSwapOutEnabled = true;
+    }
+
+    public void holdBackgroundSwapOuts() {
+        backgroundSwapOutLatch = new CountDownLatch(1);
+    }
+
+    public void releaseBackgroundSwapOuts() {
+        backgroundSwapOutLatch.countDown();
+    }
+
     @Override
     public String swapOut(List<FlowFileRecord> flowFiles, FlowFileQueue flowFileQueue, final String partitionName) throws IOException {
         swapOutCalledCount++;
@@ -88,6 +112,27 @@ public class MockSwapManager implements FlowFileSwapManager {
         return location;
     }
 
+    @Override
+    public CompletableFuture<String> swapOutAsync(final List<FlowFileRecord> flowFiles, final FlowFileQueue flowFileQueue, final String partitionName) {
+        if (!backgroundSwapOutEnabled) {
+            return null;
+        }
+
+        final CountDownLatch latch = backgroundSwapOutLatch;
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            try {
+                latch.await();
+                synchronized (this) {
+                    future.complete(swapOut(flowFiles, flowFileQueue, partitionName));
+                }
+            } catch (final Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
     private void throwIncompleteIfNecessary(final String swapLocation, final boolean remove) throws IOException {
         if (incompleteSwapFileRecordsToInclude > -1) {
             final SwapSummary summary = getSwapSummary(swapLocation);
@@ -129,6 +174,32 @@ public class MockSwapManager implements FlowFileSwapManager {
         return new StandardSwapContents(getSwapSummary(swapLocation), swappedOut.remove(swapLocation));
     }
 
+    @Override
+    public SwapContents swapIn(final String swapLocation, final FlowFileQueue flowFileQueue, final SwapContents swapContents) throws IOException {
+        if (swapContents == null) {
+            return swapIn(swapLocation, flowFileQueue);
+        }
+
+        swapInCalledCount++;
+        prefetchedSwapInCount++;
+        swappedOut.remove(swapLocation);
+        return swapContents;
+    }
+
+    @Override
+    public CompletableFuture<SwapContents> prefetch(final String swapLocation, final FlowFileQueue flowFileQueue) {
+        if (!prefetchEnabled) {
+            return null;
+        }
+
+        prefetchCalledCount++;
+        try {
+            return CompletableFuture.completedFuture(peek(swapLocation, flowFileQueue));
+        } catch (final IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     @Override
     public List<String> recoverSwapLocations(FlowFileQueue flowFileQueue, final String partitionName) throws IOException {
         return swappedOut.keySet().stream()
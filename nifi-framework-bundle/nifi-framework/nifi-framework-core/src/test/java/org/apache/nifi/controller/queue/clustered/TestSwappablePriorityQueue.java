@@ -22,6 +22,7 @@ import org.apache.nifi.controller.MockSwapManager;
 import org.apache.nifi.controller.queue.DropFlowFileAction;
 import org.apache.nifi.controller.queue.DropFlowFileRequest;
 import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.LocalQueuePartitionDiagnostics;
 import org.apache.nifi.controller.queue.PollStrategy;
 import org.apache.nifi.controller.queue.QueueSize;
 import org.apache.nifi.controller.queue.SelectiveDropResult;
@@ -360,6 +361,107 @@ public class TestSwappablePriorityQueue {
         assertTrue(queue.isEmpty());
     }
 
+    @Test
+    public void testFirstInFirstOutWithoutPrioritizers() {
+        final FlowFileRecord penalizedFlowFile = mock(FlowFileRecord.class);
+        when(penalizedFlowFile.isPenalized()).thenReturn(true);
+        when(penalizedFlowFile.getPenaltyExpirationMillis()).thenReturn(Long.MAX_VALUE);
+        queue.put(penalizedFlowFile);
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>();
+        for (final long id : new long[] {3L, 1L, 2L}) {
+            final FlowFileRecord flowFile = mock(FlowFileRecord.class);
+            when(flowFile.getId()).thenReturn(id);
+            flowFiles.add(flowFile);
+            queue.put(flowFile);
+        }
+
+        final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+        for (final FlowFileRecord expected : flowFiles) {
+            assertSame(expected, queue.poll(expiredRecords, 0L));
+        }
+
+        assertNull(queue.poll(expiredRecords, 0L));
+        assertSame(penalizedFlowFile, queue.poll(expiredRecords, 0L, PollStrategy.ALL_FLOWFILES));
+    }
+
+    @Test
+    public void testRequeueReturnsFlowFilesToHeadOfQueue() {
+        for (int i = 0; i < 10; i++) {
+            queue.put(new MockFlowFileRecord(Map.of("i", String.valueOf(i)), i));
+        }
+
+        final List<FlowFileRecord> polled = queue.poll(3, new HashSet<>(), 0L);
+        assertEquals(3, polled.size());
+        queue.requeue(polled);
+        queue.acknowledge(polled);
+
+        assertEquals(10, queue.size().getObjectCount());
+        assertFalse(queue.isUnacknowledgedFlowFile());
+
+        final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(String.valueOf(i), queue.poll(expiredRecords, 0L).getAttribute("i"));
+        }
+    }
+
+    @Test
+    public void testSetPrioritizersKeepsActiveQueue() {
+        for (int i = 0; i < 100; i++) {
+            queue.put(new MockFlowFileRecord(Map.of("i", String.valueOf(i)), i));
+        }
+
+        final FlowFilePrioritizer reversePrioritizer = (o1, o2) -> Integer.compare(Integer.parseInt(o2.getAttribute("i")), Integer.parseInt(o1.getAttribute("i")));
+        queue.setPriorities(Collections.singletonList(reversePrioritizer));
+        assertEquals("99", queue.poll(Set.of(), 0L).getAttribute("i"));
+
+        queue.setPriorities(Collections.emptyList());
+        assertEquals(99, queue.getActiveFlowFiles().size());
+        assertEquals("98", queue.poll(Set.of(), 0L).getAttribute("i"));
+        assertEquals("97", queue.poll(Set.of(), 0L).getAttribute("i"));
+    }
+
+    @Test
+    @Timeout(30)
+    public void testConcurrentPutAndPollWithoutPrioritizers() throws InterruptedException {
+        final int threadCount = 8;
+        final int flowFilesPerThread = 5000;
+        final List<FlowFileRecord> polled = Collections.synchronizedList(new ArrayList<>());
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final Thread thread = new Thread(() -> {
+                final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+                for (int i = 0; i < flowFilesPerThread; i++) {
+                    queue.put(new MockFlowFileRecord(1L));
+
+                    final FlowFileRecord flowFile = queue.poll(expiredRecords, 0L);
+                    if (flowFile != null) {
+                        polled.add(flowFile);
+                        queue.acknowledge(flowFile);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        FlowFileRecord flowFile;
+        while ((flowFile = queue.poll(Set.of(), 0L)) != null) {
+            polled.add(flowFile);
+            queue.acknowledge(flowFile);
+        }
+
+        assertEquals(threadCount * flowFilesPerThread, polled.size());
+        assertEquals(threadCount * flowFilesPerThread, new HashSet<>(polled).size());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size().getObjectCount());
+    }
+
     @Test
     public void testPollWithOnlyExpiredFlowFile() {
         final FlowFileRecord expiredFlowFile = mock(FlowFileRecord.class);
@@ -596,6 +698,121 @@ public class TestSwappablePriorityQueue {
         queue.poll(exp, 500000);
     }
 
+    @Test
+    public void testSwapInUsesPrefetchedSwapFile() {
+        swapManager.enablePrefetch();
+
+        for (int i = 1; i <= 20000; i++) {
+            queue.put(new MockFlowFileRecord());
+        }
+        assertEquals(1, swapManager.swappedOut.size());
+
+        final Set<FlowFileRecord> exp = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            assertNotNull(queue.poll(exp, 500000));
+        }
+        assertEquals(0, swapManager.prefetchCalledCount);
+
+        // Once the active queue falls below half of a swap file, the next swap file should be read ahead of time
+        assertNotNull(queue.poll(exp, 500000));
+        assertNotNull(queue.poll(exp, 500000));
+        assertEquals(1, swapManager.prefetchCalledCount);
+        assertEquals(0, swapManager.swapInCalledCount);
+
+        for (int i = 0; i < 4998; i++) {
+            assertNotNull(queue.poll(exp, 500000));
+        }
+        assertEquals(0, swapManager.swapInCalledCount);
+
+        assertNotNull(queue.poll(exp, 500000));
+        assertEquals(1, swapManager.swapInCalledCount);
+        assertEquals(1, swapManager.prefetchedSwapInCount);
+        assertTrue(swapManager.swappedOut.isEmpty());
+
+        final LocalQueuePartitionDiagnostics diagnostics = queue.getQueueDiagnostics();
+        assertEquals(9999, diagnostics.getActiveQueueSize().getObjectCount());
+        assertEquals(1, diagnostics.getSwapInCount());
+        assertEquals(0, diagnostics.getSwapInStallCount());
+    }
+
+    @Test
+    public void testSwapInStallCountedWithoutPrefetch() {
+        for (int i = 1; i <= 20000; i++) {
+            queue.put(new MockFlowFileRecord());
+        }
+
+        final List<FlowFileRecord> polled = queue.poll(20000, Collections.emptySet(), 0L);
+        assertEquals(10000, polled.size());
+        assertEquals(10000, queue.poll(20000, Collections.emptySet(), 0L).size());
+
+        final LocalQueuePartitionDiagnostics diagnostics = queue.getQueueDiagnostics();
+        assertEquals(1, diagnostics.getSwapInCount());
+        assertEquals(1, diagnostics.getSwapInStallCount());
+        assertEquals(0, swapManager.prefetchedSwapInCount);
+    }
+
+    @Test
+    public void testBackgroundSwapOut() {
+        swapManager.enableBackgroundSwapOut();
+        swapManager.holdBackgroundSwapOuts();
+
+        for (int i = 1; i <= 20000; i++) {
+            queue.put(new MockFlowFileRecord());
+        }
+
+        // The swap file is still being written, but its FlowFiles must still be accounted for
+        assertEquals(0, swapManager.swapOutCalledCount);
+        assertEquals(20000, queue.size().getObjectCount());
+        LocalQueuePartitionDiagnostics diagnostics = queue.getQueueDiagnostics();
+        assertEquals(10000, diagnostics.getActiveQueueSize().getObjectCount());
+        assertEquals(10000, diagnostics.getSwapQueueSize().getObjectCount());
+        assertEquals(0, diagnostics.getSwapFileCount());
+        assertEquals(10000, diagnostics.getTotalSwapFileQueueSize().getObjectCount());
+
+        swapManager.releaseBackgroundSwapOuts();
+
+        final Set<Long> ids = new HashSet<>();
+        FlowFileRecord flowFile;
+        while ((flowFile = queue.poll(Collections.emptySet(), 0L)) != null) {
+            assertTrue(ids.add(flowFile.getId()));
+        }
+
+        assertEquals(20000, ids.size());
+        assertEquals(1, swapManager.swapOutCalledCount);
+        assertEquals(1, swapManager.swapInCalledCount);
+        assertTrue(swapManager.swappedOut.isEmpty());
+
+        diagnostics = queue.getQueueDiagnostics();
+        assertEquals(0, diagnostics.getSwapQueueSize().getObjectCount());
+        assertEquals(0, diagnostics.getSwapFileCount());
+        assertEquals(1, diagnostics.getSwapInCount());
+    }
+
+    @Test
+    @Timeout(30)
+    public void testBackgroundSwapOutKeepsPriorityOrder() {
+        swapManager.enableBackgroundSwapOut();
+        swapManager.enablePrefetch();
+        queue.setPriorities(Collections.singletonList((o1, o2) -> Long.compare(o1.getSize(), o2.getSize())));
+
+        final int flowFileCount = 55000;
+        for (int i = 0; i < flowFileCount; i++) {
+            queue.put(new MockFlowFileRecord(i));
+        }
+        assertEquals(flowFileCount, queue.size().getObjectCount());
+
+        for (int i = 0; i < flowFileCount; i++) {
+            final FlowFileRecord flowFile = queue.poll(Collections.emptySet(), 0L);
+            assertNotNull(flowFile);
+            assertEquals(i, flowFile.getSize());
+        }
+
+        assertNull(queue.poll(Collections.emptySet(), 0L));
+        assertEquals(4, swapManager.swapOutCalledCount);
+        assertEquals(4, queue.getQueueDiagnostics().getSwapInCount());
+        assertTrue(swapManager.swappedOut.isEmpty());
+    }
+
     @Test
     public void testQueueCountsUpdatedWhenIncompleteSwapFile() {
         for (int i = 1; i <= 20000; i++) {
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.repository.schema.NoOpFieldCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CompactRepositoryRecordSerdeTest {
+    private static final String TEST_QUEUE_IDENTIFIER = "testQueueIdentifier";
+
+    private StandardResourceClaimManager resourceClaimManager;
+    private CompactRepositoryRecordSerde serde;
+    private FlowFileQueue flowFileQueue;
+    private ByteArrayOutputStream byteArrayOutputStream;
+    private DataOutputStream dataOutputStream;
+
+    @BeforeEach
+    public void setup() {
+        resourceClaimManager = new StandardResourceClaimManager();
+        serde = new CompactRepositoryRecordSerde(resourceClaimManager, new NoOpFieldCache());
+        flowFileQueue = createMockQueue();
+        byteArrayOutputStream = new ByteArrayOutputStream();
+        dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+    }
+
+    @AfterEach
+    public void teardown() {
+        resourceClaimManager.purge();
+    }
+
+    @Test
+    public void testRoundTripCreate() throws IOException {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put(CoreAttributes.FILENAME.key(), "file.txt");
+        attributes.put("compact.serde.test.key", "testValue");
+
+        final ResourceClaim resourceClaim = resourceClaimManager.newResourceClaim("container", "section", "1", false, false);
+        final StandardContentClaim contentClaim = new StandardContentClaim(resourceClaim, 512L);
+        contentClaim.setLength(-1L);
+
+        final StandardRepositoryRecord record = new StandardRepositoryRecord(flowFileQueue);
+        record.setWorking(new StandardFlowFileRecord.Builder()
+            .id(42L)
+            .entryDate(1_700_000_000_000L)
+            .lineageStart(1_700_000_000_000L, 7L)
+            .lastQueued(1_700_000_000_100L, 8L)
+            .size(1024L)
+            .contentClaim(contentClaim)
+            .contentClaimOffset(12L)
+            .addAttributes(attributes)
+            .build(), false);
+
+        serde.writeHeader(dataOutputStream);
+        serde.serializeRecord(new LiveSerializedRepositoryRecord(record), dataOutputStream);
+
+        final DataInputStream dataInputStream = createDataInputStream();
+        final CompactRepositoryRecordSerde readSerde = new CompactRepositoryRecordSerde(resourceClaimManager, new NoOpFieldCache());
+        readSerde.readHeader(dataInputStream);
+        final SerializedRepositoryRecord repositoryRecord = readSerde.deserializeRecord(dataInputStream, readSerde.getVersion());
+
+        assertEquals(RepositoryRecordType.CREATE, repositoryRecord.getType());
+        assertEquals(TEST_QUEUE_IDENTIFIER, repositoryRecord.getQueueIdentifier());
+
+        final FlowFileRecord flowFile = repositoryRecord.getFlowFileRecord();
+        assertEquals(42L, flowFile.getId());
+        assertEquals(1_700_000_000_000L, flowFile.getEntryDate());
+        assertEquals(7L, flowFile.getLineageStartIndex());
+        assertEquals(1_700_000_000_100L, flowFile.getLastQueueDate());
+        assertEquals(8L, flowFile.getQueueDateIndex());
+        assertEquals(1024L, flowFile.getSize());
+        assertEquals(12L, flowFile.getContentClaimOffset());
+        assertEquals(512L, flowFile.getContentClaim().getOffset());
+        assertEquals(-1L, flowFile.getContentClaim().getLength());
+        assertEquals(resourceClaim, flowFile.getContentClaim().getResourceClaim());
+        assertEquals(attributes, flowFile.getAttributes());
+
+        assertNull(readSerde.deserializeRecord(dataInputStream, readSerde.getVersion()));
+    }
+
+    @Test
+    public void testRoundTripInlineContent() throws IOException {
+        final byte[] content = "inline content".getBytes(StandardCharsets.UTF_8);
+        final StandardRepositoryRecord record = new StandardRepositoryRecord(flowFileQueue);
+        record.setWorking(new StandardFlowFileRecord.Builder()
+            .id(43L)
+            .addAttribute(CoreAttributes.FILENAME.key(), "inline.txt")
+            .inlineContent(content)
+            .build(), false);
+
+        serde.writeHeader(dataOutputStream);
+        serde.serializeRecord(new LiveSerializedRepositoryRecord(record), dataOutputStream);
+
+        final DataInputStream dataInputStream = createDataInputStream();
+        serde.readHeader(dataInputStream);
+        final FlowFileRecord flowFile = serde.deserializeRecord(dataInputStream, serde.getVersion()).getFlowFileRecord();
+
+        assertNull(flowFile.getContentClaim());
+        assertEquals(content.length, flowFile.getSize());
+        assertArrayEquals(content, flowFile.getInlineContent());
+    }
+
+    @Test
+    public void testUpdateWritesOnlyChangedAttributes() throws IOException {
+        final Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            attributes.put("attribute-" + i, "value-" + i);
+        }
+
+        final StandardRepositoryRecord createRecord = createCreateFlowFileRecord(attributes);
+        final FlowFileRecord original = createRecord.getCurrent();
+
+        final StandardRepositoryRecord updateRecord = new StandardRepositoryRecord(flowFileQueue, original);
+        final FlowFileRecord updated = new StandardFlowFileRecord.Builder()
+            .fromFlowFile(original)
+            .addAttribute("attribute-0", "updated")
+            .addAttribute("new-attribute", "new-value")
+            .removeAttributes("attribute-1")
+            .build();
+        updateRecord.setWorking(updated, false);
+
+        serde.writeHeader(dataOutputStream);
+        serde.serializeRecord(new LiveSerializedRepositoryRecord(createRecord), dataOutputStream);
+        final int createLength = byteArrayOutputStream.size();
+        serde.serializeEdit(new LiveSerializedRepositoryRecord(createRecord), new LiveSerializedRepositoryRecord(updateRecord), dataOutputStream);
+        final int updateLength = byteArrayOutputStream.size() - createLength;
+
+        final DataInputStream dataInputStream = createDataInputStream();
+        serde.readHeader(dataInputStream);
+        final SerializedRepositoryRecord recoveredCreate = serde.deserializeRecord(dataInputStream, serde.getVersion());
+        final Map<Object, SerializedRepositoryRecord> recordStates = new HashMap<>();
+        recordStates.put(recoveredCreate.getFlowFileRecord().getId(), recoveredCreate);
+
+        final SerializedRepositoryRecord recoveredUpdate = serde.deserializeEdit(dataInputStream, recordStates, serde.getVersion());
+        assertEquals(RepositoryRecordType.UPDATE, recoveredUpdate.getType());
+        assertEquals(updated.getAttributes(), recoveredUpdate.getFlowFileRecord().getAttributes());
+        assertTrue(updateLength < createLength / 2);
+    }
+
+    @Test
+    public void testUpdateWithoutPreviousStateFails() throws IOException {
+        final StandardRepositoryRecord createRecord = createCreateFlowFileRecord(Map.of("a", "1", "b", "2", "c", "3"));
+        final StandardRepositoryRecord updateRecord = new StandardRepositoryRecord(flowFileQueue, createRecord.getCurrent());
+        updateRecord.setWorking(new StandardFlowFileRecord.Builder().fromFlowFile(createRecord.getCurrent()).addAttribute("a", "4").build(), false);
+
+        serde.writeHeader(dataOutputStream);
+        serde.serializeEdit(new LiveSerializedRepositoryRecord(createRecord), new LiveSerializedRepositoryRecord(updateRecord), dataOutputStream);
+
+        final DataInputStream dataInputStream = createDataInputStream();
+        serde.readHeader(dataInputStream);
+        assertThrows(IOException.class, () -> serde.deserializeEdit(dataInputStream, new HashMap<>(), serde.getVersion()));
+    }
+
+    @Test
+    public void testRoundTripSwapAndDelete() throws IOException {
+        final StandardRepositoryRecord createRecord = createCreateFlowFileRecord(Map.of("a", "1"));
+        final FlowFileRecord flowFile = createRecord.getCurrent();
+
+        final StandardRepositoryRecord swapOutRecord = new StandardRepositoryRecord(flowFileQueue, flowFile, "swap-out-location");
+        final StandardRepositoryRecord swapInRecord = new StandardRepositoryRecord(flowFileQueue, flowFile);
+        swapInRecord.setSwapLocation("swap-in-location", RepositoryRecordType.SWAP_IN);
+        final StandardRepositoryRecord deleteRecord = new StandardRepositoryRecord(flowFileQueue, flowFile);
+        deleteRecord.markForDelete();
+
+        serde.writeHeader(dataOutputStream);
+        serde.serializeRecord(new LiveSerializedRepositoryRecord(swapOutRecord), dataOutputStream);
+        serde.serializeRecord(new LiveSerializedRepositoryRecord(swapInRecord), dataOutputStream);
+        serde.serializeRecord(new LiveSerializedRepositoryRecord(deleteRecord), dataOutputStream);
+
+        final DataInputStream dataInputStream = createDataInputStream();
+        serde.readHeader(dataInputStream);
+
+        final SerializedRepositoryRecord recoveredSwapOut = serde.deserializeRecord(dataInputStream, serde.getVersion());
+        assertEquals(RepositoryRecordType.SWAP_OUT, recoveredSwapOut.getType());
+        assertEquals("swap-out-location", recoveredSwapOut.getSwapLocation());
+        assertEquals(TEST_QUEUE_IDENTIFIER, recoveredSwapOut.getQueueIdentifier());
+        assertEquals(flowFile.getId(), recoveredSwapOut.getFlowFileRecord().getId());
+
+        final SerializedRepositoryRecord recoveredSwapIn = serde.deserializeRecord(dataInputStream, serde.getVersion());
+        assertEquals(RepositoryRecordType.SWAP_IN, recoveredSwapIn.getType());
+        assertEquals("swap-in-location", recoveredSwapIn.getSwapLocation());
+        assertEquals(flowFile.getAttributes(), recoveredSwapIn.getFlowFileRecord().getAttributes());
+
+        final SerializedRepositoryRecord recoveredDelete = serde.deserializeRecord(dataInputStream, serde.getVersion());
+        assertEquals(RepositoryRecordType.DELETE, recoveredDelete.getType());
+        assertEquals(flowFile.getId(), recoveredDelete.getFlowFileRecord().getId());
+    }
+
+    private DataInputStream createDataInputStream() throws IOException {
+        dataOutputStream.flush();
+        return new DataInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+    }
+
+    private StandardRepositoryRecord createCreateFlowFileRecord(final Map<String, String> attributes) {
+        final StandardRepositoryRecord standardRepositoryRecord = new StandardRepositoryRecord(flowFileQueue);
+        final StandardFlowFileRecord.Builder flowFileRecordBuilder = new StandardFlowFileRecord.Builder().id(1L);
+        flowFileRecordBuilder.addAttributes(attributes);
+        standardRepositoryRecord.setWorking(flowFileRecordBuilder.build(), false);
+        return standardRepositoryRecord;
+    }
+
+    private FlowFileQueue createMockQueue() {
+        final FlowFileQueue queue = mock(FlowFileQueue.class);
+        when(queue.getIdentifier()).thenReturn(TEST_QUEUE_IDENTIFIER);
+        return queue;
+    }
+}
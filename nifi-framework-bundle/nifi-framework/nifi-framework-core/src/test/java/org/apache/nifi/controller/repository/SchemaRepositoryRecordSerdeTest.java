@@ -30,12 +30,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.apache.nifi.controller.repository.RepositoryRecordType.SWAP_IN;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -245,6 +248,51 @@ public class SchemaRepositoryRecordSerdeTest {
         assertEquals(SWAP_IN, repositoryRecord.getType());
     }
 
+    @Test
+    public void testV4RoundTripCreateWithInlineContent() throws IOException {
+        schemaRepositoryRecordSerde.writeHeader(dataOutputStream);
+        final byte[] content = "Hello".getBytes(StandardCharsets.UTF_8);
+        schemaRepositoryRecordSerde.serializeRecord(new LiveSerializedRepositoryRecord(createInlineContentFlowFileRecord(content)), dataOutputStream);
+
+        DataInputStream dataInputStream = createDataInputStream();
+        schemaRepositoryRecordSerde.readHeader(dataInputStream);
+        SerializedRepositoryRecord repositoryRecord = schemaRepositoryRecordSerde.deserializeRecord(dataInputStream, 4);
+        final FlowFileRecord flowFile = repositoryRecord.getFlowFileRecord();
+        assertArrayEquals(content, flowFile.getInlineContent());
+        assertEquals(content.length, flowFile.getSize());
+        assertNull(flowFile.getContentClaim());
+    }
+
+    @Test
+    public void testV4RoundTripSwapInWithInlineContent() throws IOException {
+        schemaRepositoryRecordSerde.writeHeader(dataOutputStream);
+        final byte[] content = "Hello".getBytes(StandardCharsets.UTF_8);
+        StandardRepositoryRecord record = createInlineContentFlowFileRecord(content);
+        record.setSwapLocation("fake", SWAP_IN);
+        schemaRepositoryRecordSerde.serializeRecord(new LiveSerializedRepositoryRecord(record), dataOutputStream);
+
+        DataInputStream dataInputStream = createDataInputStream();
+        schemaRepositoryRecordSerde.readHeader(dataInputStream);
+        SerializedRepositoryRecord repositoryRecord = schemaRepositoryRecordSerde.deserializeRecord(dataInputStream, 4);
+        assertEquals(SWAP_IN, repositoryRecord.getType());
+        assertArrayEquals(content, repositoryRecord.getFlowFileRecord().getInlineContent());
+    }
+
+    @Test
+    public void testV3CreateHasNoInlineContent() throws IOException {
+        RepositoryRecordSchema.REPOSITORY_RECORD_SCHEMA_V3.writeTo(dataOutputStream);
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("testName", "testValue");
+        schemaRepositoryRecordSerde.serializeRecord(new LiveSerializedRepositoryRecord(createCreateFlowFileRecord(attributes)), dataOutputStream,
+                RepositoryRecordSchema.CREATE_OR_UPDATE_SCHEMA_V2, RepositoryRecordSchema.REPOSITORY_RECORD_SCHEMA_V3);
+
+        DataInputStream dataInputStream = createDataInputStream();
+        schemaRepositoryRecordSerde.readHeader(dataInputStream);
+        SerializedRepositoryRecord repositoryRecord = schemaRepositoryRecordSerde.deserializeRecord(dataInputStream, 3);
+        assertEquals(attributes, repositoryRecord.getFlowFileRecord().getAttributes());
+        assertNull(repositoryRecord.getFlowFileRecord().getInlineContent());
+    }
+
     private DataInputStream createDataInputStream() throws IOException {
         dataOutputStream.flush();
         return new DataInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
@@ -258,6 +306,15 @@ public class SchemaRepositoryRecordSerdeTest {
         return standardRepositoryRecord;
     }
 
+    private StandardRepositoryRecord createInlineContentFlowFileRecord(final byte[] content) {
+        StandardRepositoryRecord standardRepositoryRecord = new StandardRepositoryRecord(flowFileQueue);
+        StandardFlowFileRecord.Builder flowFileRecordBuilder = new StandardFlowFileRecord.Builder();
+        flowFileRecordBuilder.addAttribute("testName", "testValue");
+        flowFileRecordBuilder.inlineContent(content);
+        standardRepositoryRecord.setWorking(flowFileRecordBuilder.build(), false);
+        return standardRepositoryRecord;
+    }
+
     private FlowFileQueue createMockQueue(String identifier) {
         FlowFileQueue flowFileQueue = mock(FlowFileQueue.class);
         when(flowFileQueue.getIdentifier()).thenReturn(identifier);
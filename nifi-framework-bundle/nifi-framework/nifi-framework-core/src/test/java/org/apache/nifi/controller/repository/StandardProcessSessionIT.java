@@ -65,6 +65,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -78,6 +79,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -114,6 +117,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.notNull;
 import static org.mockito.Mockito.doThrow;
@@ -604,6 +608,105 @@ public class StandardProcessSessionIT {
         assertArrayEquals("2".getBytes(StandardCharsets.UTF_8), readContents(ff2));
     }
 
+    @Test
+    public void testWriteUnderInlineContentLimit() throws IOException {
+        session = createInlineContentSession(16);
+        final byte[] content = "Hello".getBytes(StandardCharsets.UTF_8);
+
+        FlowFile flowFile = session.create();
+        flowFile = session.write(flowFile, out -> out.write(content));
+
+        final FlowFileRecord flowFileRecord = (FlowFileRecord) flowFile;
+        assertArrayEquals(content, flowFileRecord.getInlineContent());
+        assertNull(flowFileRecord.getContentClaim());
+        assertEquals(content.length, flowFile.getSize());
+        assertArrayEquals(content, readContents(flowFile));
+
+        session.transfer(flowFile, new Relationship.Builder().name("A").build());
+        session.commit();
+        assertTrue(contentRepo.getExistingClaims().isEmpty());
+    }
+
+    @Test
+    public void testWriteOverInlineContentLimit() throws IOException {
+        session = createInlineContentSession(16);
+        final byte[] content = "0123456789012345678901234567890123456789".getBytes(StandardCharsets.UTF_8);
+
+        FlowFile flowFile = session.create();
+        flowFile = session.write(flowFile, out -> {
+            // Write in small pieces so that the limit is exceeded part way through the content that has been buffered
+            for (int i = 0; i < content.length; i += 5) {
+                out.write(content, i, 5);
+            }
+        });
+
+        final FlowFileRecord flowFileRecord = (FlowFileRecord) flowFile;
+        assertNull(flowFileRecord.getInlineContent());
+        assertNotNull(flowFileRecord.getContentClaim());
+        assertEquals(content.length, flowFile.getSize());
+        assertArrayEquals(content, readContents(flowFile));
+
+        session.transfer(flowFile, new Relationship.Builder().name("A").build());
+        session.commit();
+        assertEquals(Collections.singleton(flowFileRecord.getContentClaim()), contentRepo.getExistingClaims());
+    }
+
+    @Test
+    public void testCloneSliceOfInlineContent() throws IOException {
+        session = createInlineContentSession(16);
+
+        FlowFile flowFile = session.create();
+        flowFile = session.write(flowFile, out -> out.write("0123456789".getBytes(StandardCharsets.UTF_8)));
+
+        final FlowFile slice = session.clone(flowFile, 2, 5);
+        assertEquals(5, slice.getSize());
+        assertArrayEquals("23456".getBytes(StandardCharsets.UTF_8), ((FlowFileRecord) slice).getInlineContent());
+        assertArrayEquals("23456".getBytes(StandardCharsets.UTF_8), readContents(slice));
+        assertArrayEquals("0123456789".getBytes(StandardCharsets.UTF_8), readContents(flowFile));
+    }
+
+    @Test
+    public void testAppendToInlineContent() throws IOException {
+        session = createInlineContentSession(16);
+
+        FlowFile flowFile = session.create();
+        flowFile = session.write(flowFile, out -> out.write("Hello".getBytes(StandardCharsets.UTF_8)));
+        flowFile = session.append(flowFile, out -> out.write(", World".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(12, flowFile.getSize());
+        assertNull(((FlowFileRecord) flowFile).getInlineContent());
+        assertArrayEquals("Hello, World".getBytes(StandardCharsets.UTF_8), readContents(flowFile));
+    }
+
+    @Test
+    public void testMergeAndExportInlineContent(@TempDir final Path tempDir) throws IOException {
+        session = createInlineContentSession(16);
+
+        FlowFile first = session.create();
+        first = session.write(first, out -> out.write("abc".getBytes(StandardCharsets.UTF_8)));
+        FlowFile second = session.create();
+        second = session.write(second, out -> out.write("def".getBytes(StandardCharsets.UTF_8)));
+
+        FlowFile merged = session.create();
+        merged = session.merge(List.of(first, second), merged);
+        assertArrayEquals("abcdef".getBytes(StandardCharsets.UTF_8), readContents(merged));
+
+        final ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        session.exportTo(first, exported);
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), exported.toByteArray());
+
+        final Path exportedFile = tempDir.resolve("exported");
+        session.exportTo(first, exportedFile, false);
+        session.exportTo(second, exportedFile, true);
+        assertArrayEquals("abcdef".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(exportedFile));
+    }
+
+    private StandardProcessSession createInlineContentSession(final int maxInlineContentBytes) {
+        final StandardRepositoryContext inlineContext = new StandardRepositoryContext(connectable, new AtomicLong(0L), contentRepo, flowFileRepo, flowFileEventRepository,
+            counterRepository, componentMetricReporter, provenanceRepo, stateManager, 50_000L, maxInlineContentBytes);
+        return new StandardProcessSession(inlineContext, () -> false, new NopPerformanceTracker());
+    }
+
     private byte[] readContents(final FlowFile flowFile) throws IOException {
         try (final InputStream in = session.read(flowFile);
              final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
@@ -1959,6 +2062,134 @@ public class StandardProcessSessionIT {
         assertEquals(7, flowFiles.size());
     }
 
+    @Test
+    public void testPrefetchedFlowFilesReturnedToQueueOnCommit() {
+        enqueueFlowFiles(10);
+
+        // The first two calls poll a single FlowFile; the third polls a batch and holds the remainder of the batch in the session
+        for (int i = 0; i < 3; i++) {
+            final FlowFile flowFile = session.get();
+            assertEquals(String.valueOf(i), flowFile.getAttribute("index"));
+            session.remove(flowFile);
+        }
+
+        session.commit();
+
+        verify(flowFileQueue).requeue(argThat(flowFiles -> flowFiles.size() == 3));
+        assertEquals(7, flowFileQueue.size().getObjectCount());
+        assertFalse(flowFileQueue.isUnacknowledgedFlowFile());
+        assertQueuedIndices(3, 10);
+    }
+
+    @Test
+    public void testPrefetchedFlowFilesReturnedToQueueOnRollback() {
+        enqueueFlowFiles(10);
+
+        for (int i = 0; i < 3; i++) {
+            final FlowFile flowFile = session.get();
+            assertEquals(String.valueOf(i), flowFile.getAttribute("index"));
+        }
+
+        session.rollback();
+
+        assertEquals(10, flowFileQueue.size().getObjectCount());
+        assertFalse(flowFileQueue.isUnacknowledgedFlowFile());
+        assertQueuedIndices(0, 10);
+    }
+
+    @Test
+    public void testRollbackPreservesQueuedOrder() {
+        enqueueFlowFiles(10);
+
+        // Modify the FlowFiles in the reverse of the order in which they were received; they must still be returned to the queue in queued order
+        final List<FlowFile> flowFiles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            flowFiles.add(session.get());
+        }
+        Collections.reverse(flowFiles);
+        for (final FlowFile flowFile : flowFiles) {
+            session.putAttribute(flowFile, "modified", "true");
+        }
+
+        session.rollback();
+
+        assertEquals(10, flowFileQueue.size().getObjectCount());
+        assertQueuedIndices(0, 10);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPrefetchPollsThroughConnection() {
+        enqueueFlowFiles(50);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(String.valueOf(i), session.get().getAttribute("index"));
+        }
+
+        // Batches are polled through the Connection rather than directly from its queue, and never hold more than a handful of FlowFiles
+        final Connection connection = connectable.getIncomingConnections().getFirst();
+        verify(connection, Mockito.atLeastOnce()).poll(any(FlowFileFilter.class), any(Set.class));
+        verify(flowFileQueue, Mockito.never()).poll(Mockito.anyInt(), any(Set.class), any(PollStrategy.class));
+        assertTrue(countActiveFlowFiles() >= 50 - 20 - 8);
+
+        session.rollback();
+        assertQueuedIndices(0, 50);
+    }
+
+    @Test
+    public void testReleasePrefetchedFlowFilesKeepsSessionOpen() {
+        enqueueFlowFiles(10);
+
+        for (int i = 0; i < 3; i++) {
+            session.get();
+        }
+
+        // The FlowFiles that were polled but not handed out are available to other tasks, while those handed out still belong to the session
+        session.releasePrefetchedFlowFiles();
+        assertEquals(7, countActiveFlowFiles());
+
+        final FlowFile flowFile = session.get();
+        assertEquals("3", flowFile.getAttribute("index"));
+
+        session.rollback();
+        assertQueuedIndices(0, 10);
+    }
+
+    private int countActiveFlowFiles() {
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        final List<FlowFileRecord> active = new ArrayList<>();
+        FlowFileRecord flowFile;
+        while ((flowFile = flowFileQueue.poll(expired)) != null) {
+            active.add(flowFile);
+        }
+
+        flowFileQueue.requeue(active);
+        flowFileQueue.acknowledge(active);
+        return active.size();
+    }
+
+    private void enqueueFlowFiles(final int count) {
+        final long queuedTime = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder()
+                    .id(i)
+                    .addAttribute("uuid", "000000000000-0000-0000-0000-0000000" + i)
+                    .addAttribute("index", String.valueOf(i))
+                    .lastQueued(queuedTime, i)
+                    .build();
+            flowFileQueue.put(flowFile);
+        }
+    }
+
+    private void assertQueuedIndices(final int startInclusive, final int endExclusive) {
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        for (int i = startInclusive; i < endExclusive; i++) {
+            final FlowFileRecord flowFile = flowFileQueue.poll(expired);
+            assertEquals(String.valueOf(i), flowFile.getAttribute("index"));
+        }
+        assertNull(flowFileQueue.poll(expired));
+    }
+
     @Test
     public void testBatchQueuedHaveSameQueuedTime() throws InterruptedException {
         for (int i = 0; i < 100; i++) {
@@ -2288,6 +2519,36 @@ public class StandardProcessSessionIT {
         assertEquals(4, transientClaims.size());
     }
 
+    @Test
+    public void testCommitReplacesContentClaimsWithIdenticalContent() throws IOException {
+        contentRepo.setDeduplicate(true);
+
+        final byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+        final FlowFile first = session.write(session.create(), out -> out.write(content));
+        final FlowFile second = session.write(session.create(), out -> out.write(content));
+        final FlowFile other = session.write(session.create(), out -> out.write("world".getBytes(StandardCharsets.UTF_8)));
+        final ContentClaim secondClaim = ((FlowFileRecord) second).getContentClaim();
+
+        session.transfer(List.of(first, second, other), new Relationship.Builder().name("success").build());
+        session.commit();
+
+        final Map<String, RepositoryRecord> repoUpdates = flowFileRepo.getUpdates().stream()
+            .collect(Collectors.toMap(record -> record.getCurrent().getAttribute(CoreAttributes.UUID.key()), record -> record));
+        final RepositoryRecord firstRecord = repoUpdates.get(first.getAttribute(CoreAttributes.UUID.key()));
+        final RepositoryRecord secondRecord = repoUpdates.get(second.getAttribute(CoreAttributes.UUID.key()));
+        final RepositoryRecord otherRecord = repoUpdates.get(other.getAttribute(CoreAttributes.UUID.key()));
+
+        assertEquals(firstRecord.getCurrentClaim(), secondRecord.getCurrentClaim());
+        assertNotEquals(firstRecord.getCurrentClaim(), otherRecord.getCurrentClaim());
+        assertEquals(List.of(secondClaim), secondRecord.getTransientClaims());
+        assertEquals(2, contentRepo.getClaimantCount(firstRecord.getCurrentClaim()));
+        assertEquals(0, contentRepo.getClaimantCount(secondClaim));
+
+        try (final InputStream in = contentRepo.read(secondRecord.getCurrentClaim())) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
     @Test
     public void testUpdateFlowFileModifiedMultipleTimesHasTransientClaimsOnCommit() {
         flowFileQueue.put(new MockFlowFileRecord(1L));
@@ -3200,6 +3461,8 @@ public class StandardProcessSessionIT {
         private final AtomicLong claimsRemoved = new AtomicLong(0L);
         private ResourceClaimManager claimManager;
         private boolean disableRead = false;
+        private boolean deduplicate = false;
+        private final Map<ByteBuffer, ContentClaim> claimsByContent = new HashMap<>();
 
         private final ConcurrentMap<ContentClaim, AtomicInteger> claimantCounts = new ConcurrentHashMap<>();
 
@@ -3274,6 +3537,32 @@ public class StandardProcessSessionIT {
             return claimsRemoved.get();
         }
 
+        public void setDeduplicate(final boolean deduplicate) {
+            this.deduplicate = deduplicate;
+        }
+
+        @Override
+        public ContentClaim deduplicate(final ContentClaim claim) {
+            if (!deduplicate) {
+                return claim;
+            }
+
+            final ByteBuffer content;
+            try {
+                content = ByteBuffer.wrap(Files.readAllBytes(getPath(claim)));
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            final ContentClaim existing = claimsByContent.putIfAbsent(content, claim);
+            if (existing == null || existing.equals(claim)) {
+                return claim;
+            }
+
+            incrementClaimaintCount(existing);
+            return existing;
+        }
+
         @Override
         public long getContainerCapacity(String containerName) {
             return 0;
@@ -38,12 +38,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -66,6 +68,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -630,6 +634,44 @@ public class TestFileSystemRepository {
         assertArrayEquals(doubleExpected, Files.readAllBytes(outPath));
     }
 
+    @Test
+    public void testTransferToChannel() throws IOException {
+        // Write two claims to the same Resource Claim so that the second one starts at a non-zero offset
+        final ContentClaim firstClaim = writeContent("first".getBytes(StandardCharsets.UTF_8));
+        final ContentClaim claim = writeContent("Hello, World!".getBytes(StandardCharsets.UTF_8));
+        assertEquals(firstClaim.getResourceClaim(), claim.getResourceClaim());
+        assertEquals(5, claim.getOffset());
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        assertEquals(13, repository.transferTo(claim, 0, 13, Channels.newChannel(baos)));
+        assertEquals("Hello, World!", baos.toString(StandardCharsets.UTF_8));
+
+        baos.reset();
+        assertEquals(5, repository.transferTo(claim, 7, 5, Channels.newChannel(baos)));
+        assertEquals("World", baos.toString(StandardCharsets.UTF_8));
+
+        // The transfer never extends past the end of the claim
+        baos.reset();
+        assertEquals(6, repository.transferTo(claim, 7, 100, Channels.newChannel(baos)));
+        assertEquals("World!", baos.toString(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> repository.transferTo(claim, 14, 1, Channels.newChannel(baos)));
+    }
+
+    @Test
+    public void testExportToFileWithOffset() throws IOException {
+        final ContentClaim claim = writeContent("Hello, World!".getBytes(StandardCharsets.UTF_8));
+        final Path outPath = tempDir.resolve("testExportToFileWithOffset");
+
+        assertEquals(5, repository.exportTo(claim, outPath, false, 7, 5));
+        assertEquals("World", Files.readString(outPath));
+
+        assertEquals(5, repository.exportTo(claim, outPath, true, 0, 5));
+        assertEquals("WorldHello", Files.readString(outPath));
+
+        assertThrows(EOFException.class, () -> repository.exportTo(claim, outPath, false, 7, 10));
+    }
+
     @Test
     public void testSize() throws IOException {
         final ContentClaim claim = repository.create(true);
@@ -1304,4 +1346,184 @@ public class TestFileSystemRepository {
         assertFalse(largeClaim.isTruncationCandidate(),
                 "Truncation candidate should not be set when truncation is disabled");
     }
+
+    @Test
+    public void testDeduplicateSharesReferencedClaimWithIdenticalContent() throws IOException {
+        recreateRepositoryWithPropertyOverrides(Map.of(
+                NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", rootFile.toString(),
+                NiFiProperties.CONTENT_REPOSITORY_DEDUPLICATION_ENABLED, "true",
+                NiFiProperties.CONTENT_REPOSITORY_DEDUPLICATION_MIN_SIZE, "1 KB"));
+
+        final byte[] content = new byte[(int) maxClaimLength + 1024];
+        new Random().nextBytes(content);
+
+        final ContentClaim firstClaim = writeContent(content);
+        assertSame(firstClaim, repository.deduplicate(firstClaim));
+
+        final ContentClaim secondClaim = writeContent(content);
+        assertNotSame(firstClaim.getResourceClaim(), secondClaim.getResourceClaim());
+        assertSame(firstClaim, repository.deduplicate(secondClaim));
+        assertEquals(2, repository.getClaimantCount(firstClaim));
+        assertEquals(1, repository.getClaimantCount(secondClaim));
+
+        final byte[] otherContent = content.clone();
+        otherContent[0]++;
+        final ContentClaim otherClaim = writeContent(otherContent);
+        assertSame(otherClaim, repository.deduplicate(otherClaim));
+
+        final ContentClaim smallClaim = writeContent(new byte[100]);
+        final ContentClaim identicalSmallClaim = writeContent(new byte[100]);
+        assertSame(smallClaim, repository.deduplicate(smallClaim));
+        assertSame(identicalSmallClaim, repository.deduplicate(identicalSmallClaim));
+    }
+
+    @Test
+    public void testDeduplicateDoesNotShareUnreferencedClaim() throws IOException {
+        recreateRepositoryWithPropertyOverrides(Map.of(
+                NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", rootFile.toString(),
+                NiFiProperties.CONTENT_REPOSITORY_DEDUPLICATION_ENABLED, "true",
+                NiFiProperties.CONTENT_REPOSITORY_DEDUPLICATION_MIN_SIZE, "1 KB"));
+
+        final byte[] content = new byte[(int) maxClaimLength + 1024];
+        new Random().nextBytes(content);
+
+        final ContentClaim firstClaim = writeContent(content);
+        assertSame(firstClaim, repository.deduplicate(firstClaim));
+        assertEquals(0, repository.decrementClaimantCount(firstClaim));
+
+        final ContentClaim secondClaim = writeContent(content);
+        assertSame(secondClaim, repository.deduplicate(secondClaim));
+        assertEquals(0, repository.getClaimantCount(firstClaim));
+    }
+
+    @Test
+    public void testContentNotHashedWhenDeduplicationDisabled() throws IOException {
+        final ContentClaim claim = writeContent(new byte[(int) maxClaimLength + 1024]);
+        assertNull(((StandardContentClaim) claim).getContentDigest());
+        assertSame(claim, repository.deduplicate(claim));
+    }
+
+    private ContentClaim writeContent(final byte[] content) throws IOException {
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(content);
+        }
+        return claim;
+    }
+
+    @Test
+    public void testMoveClaimsToColdTierKeepsContentReadable() throws IOException {
+        final Path coldRoot = tempDir.resolve("cold_content_repository");
+        recreateRepositoryWithPropertyOverrides(Map.of(
+                NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", rootFile.toString(),
+                NiFiProperties.REPOSITORY_CONTENT_COLD_PREFIX + "default", coldRoot.toString(),
+                NiFiProperties.CONTENT_REPOSITORY_COLD_AGE_THRESHOLD, "0 secs"));
+
+        final byte[] content = new byte[(int) maxClaimLength + 1024];
+        new Random().nextBytes(content);
+        final ContentClaim claim = writeContent(content);
+        final ContentClaim writableClaim = writeContent(new byte[100]);
+
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        final Path hotPath = rootFile.resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+        final Path coldPath = coldRoot.resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+        assertTrue(Files.exists(hotPath));
+
+        repository.moveClaimsToColdTier("default");
+
+        assertFalse(Files.exists(hotPath));
+        assertTrue(Files.exists(coldPath));
+        assertTrue(repository.isAccessible(claim));
+        assertEquals(content.length, repository.size(resourceClaim));
+        try (final InputStream in = repository.read(claim)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+
+        // A Resource Claim that may still be written to stays on the hot tier
+        final ResourceClaim writableResourceClaim = writableClaim.getResourceClaim();
+        assertTrue(Files.exists(rootFile.resolve(writableResourceClaim.getSection()).resolve(writableResourceClaim.getId())));
+        assertEquals(1, repository.getActiveResourceClaims("default").stream().filter(resourceClaim::equals).count());
+
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertTrue(repository.remove(claim));
+        assertFalse(Files.exists(coldPath));
+    }
+
+    @Test
+    public void testArchiveDeletesContentOnColdTier() throws IOException {
+        final Path coldRoot = tempDir.resolve("cold_content_repository");
+        recreateRepositoryWithPropertyOverrides(Map.of(
+                NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", rootFile.toString(),
+                NiFiProperties.REPOSITORY_CONTENT_COLD_PREFIX + "default", coldRoot.toString(),
+                NiFiProperties.CONTENT_REPOSITORY_COLD_AGE_THRESHOLD, "0 secs",
+                NiFiProperties.CONTENT_ARCHIVE_ENABLED, "true",
+                NiFiProperties.CONTENT_ARCHIVE_MAX_USAGE_PERCENTAGE, "90%"));
+
+        final ContentClaim claim = writeContent(new byte[(int) maxClaimLength + 1024]);
+        repository.moveClaimsToColdTier("default");
+
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        final Path coldPath = coldRoot.resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+        assertTrue(Files.exists(coldPath));
+
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertFalse(repository.archive(resourceClaim));
+        assertFalse(Files.exists(coldPath));
+        assertFalse(Files.exists(rootFile.resolve(resourceClaim.getSection()).resolve(FileSystemRepository.ARCHIVE_DIR_NAME).resolve(resourceClaim.getId())));
+    }
+
+    @Test
+    public void testColdTierRequiresKnownContainer() {
+        assertThrows(RuntimeException.class, () -> recreateRepositoryWithPropertyOverrides(Map.of(
+                NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", rootFile.toString(),
+                NiFiProperties.REPOSITORY_CONTENT_COLD_PREFIX + "other", tempDir.resolve("cold_content_repository").toString())));
+    }
+
+    @Test
+    @Timeout(30)
+    public void testConcurrentWritesWithAlwaysSync() throws IOException, InterruptedException {
+        recreateRepositoryWithPropertyOverrides(Map.of(
+                NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", rootFile.toString(),
+                "nifi.content.repository.always.sync", "true"));
+
+        final int threadCount = 8;
+        final int claimsPerThread = 200;
+        final List<List<ContentClaim>> claims = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < threadCount; i++) {
+            final int threadIndex = i;
+            final List<ContentClaim> threadClaims = new ArrayList<>();
+            claims.add(threadClaims);
+
+            final Thread thread = new Thread(() -> {
+                try {
+                    for (int j = 0; j < claimsPerThread; j++) {
+                        final ContentClaim claim = repository.create(false);
+                        try (final OutputStream out = repository.write(claim)) {
+                            out.write((threadIndex + "-" + j).getBytes(StandardCharsets.UTF_8));
+                        }
+                        threadClaims.add(claim);
+                    }
+                } catch (final Throwable t) {
+                    failures.add(t);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty(), () -> "Writing content failed: " + failures);
+        for (int i = 0; i < threadCount; i++) {
+            for (int j = 0; j < claimsPerThread; j++) {
+                try (final InputStream in = repository.read(claims.get(i).get(j))) {
+                    assertEquals(i + "-" + j, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
 }
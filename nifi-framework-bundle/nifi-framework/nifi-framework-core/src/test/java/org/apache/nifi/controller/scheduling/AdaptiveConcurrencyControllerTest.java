@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
+import org.apache.nifi.controller.tasks.InvocationResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdaptiveConcurrencyControllerTest {
+    private static final int MAX_CONCURRENT_TASKS = 4;
+    private static final int MIN_CONCURRENT_TASKS = 2;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicInteger limit = new AtomicInteger();
+    private ProcessorNode processorNode;
+    private AdaptiveConcurrencyController controller;
+
+    @BeforeEach
+    void setup() {
+        processorNode = mock(ProcessorNode.class);
+        when(processorNode.getMaxConcurrentTasks()).thenReturn(MAX_CONCURRENT_TASKS);
+        when(processorNode.getConcurrentTaskLimit()).thenAnswer(invocation -> limit.get() < 1 ? MAX_CONCURRENT_TASKS : Math.min(limit.get(), MAX_CONCURRENT_TASKS));
+        doAnswer(invocation -> {
+            limit.set(invocation.getArgument(0));
+            return null;
+        }).when(processorNode).setConcurrentTaskLimit(anyInt());
+        when(processorNode.hasIncomingConnection()).thenReturn(false);
+
+        final LifecycleState lifecycleState = new LifecycleState("processor");
+        lifecycleState.setScheduled(true);
+
+        // Use an interval that never elapses so that windows are only evaluated when the test says so
+        controller = new AdaptiveConcurrencyController(processorNode, lifecycleState, MIN_CONCURRENT_TASKS, Long.MAX_VALUE);
+    }
+
+    @Test
+    void testStartsAtConfiguredConcurrentTasks() {
+        assertEquals(MAX_CONCURRENT_TASKS, processorNode.getConcurrentTaskLimit());
+        assertTrue(controller.isTaskEnabled(MAX_CONCURRENT_TASKS - 1));
+    }
+
+    @Test
+    void testLowersLimitWhenMostTriggersFindNoWork() {
+        for (int i = 0; i < 10; i++) {
+            controller.onTrigger(InvocationResult.yield("No work to do"));
+        }
+        controller.evaluate(WINDOW_NANOS);
+
+        assertEquals(MAX_CONCURRENT_TASKS - 1, processorNode.getConcurrentTaskLimit());
+        assertFalse(controller.isTaskEnabled(MAX_CONCURRENT_TASKS - 1));
+    }
+
+    @Test
+    void testNeverLowersLimitBelowMinimum() {
+        processorNode.setConcurrentTaskLimit(MIN_CONCURRENT_TASKS);
+
+        for (int i = 0; i < 10; i++) {
+            controller.onTrigger(InvocationResult.yield("No work to do"));
+        }
+        controller.evaluate(WINDOW_NANOS);
+
+        assertEquals(MIN_CONCURRENT_TASKS, processorNode.getConcurrentTaskLimit());
+    }
+
+    @Test
+    void testRaisesLimitWhenAllTasksBusy() {
+        processorNode.setConcurrentTaskLimit(MIN_CONCURRENT_TASKS);
+
+        runBusyWindow(MIN_CONCURRENT_TASKS, 1000, WINDOW_NANOS);
+
+        assertEquals(MIN_CONCURRENT_TASKS + 1, processorNode.getConcurrentTaskLimit());
+        assertTrue(controller.isTaskEnabled(MIN_CONCURRENT_TASKS));
+    }
+
+    @Test
+    void testLowersLimitWhenAddedTaskOnlyAddsContention() {
+        processorNode.setConcurrentTaskLimit(MIN_CONCURRENT_TASKS);
+        runBusyWindow(MIN_CONCURRENT_TASKS, 1000, WINDOW_NANOS);
+        assertEquals(MIN_CONCURRENT_TASKS + 1, processorNode.getConcurrentTaskLimit());
+
+        // The added task kept every task busy but spent its time waiting rather than processing more FlowFiles
+        runBusyWindow(MIN_CONCURRENT_TASKS + 1, 1000, WINDOW_NANOS / 10);
+
+        assertEquals(MIN_CONCURRENT_TASKS, processorNode.getConcurrentTaskLimit());
+    }
+
+    @Test
+    void testStopRemovesLimit() {
+        processorNode.setConcurrentTaskLimit(MIN_CONCURRENT_TASKS);
+        controller.stop();
+
+        assertEquals(0, limit.get());
+        assertEquals(MAX_CONCURRENT_TASKS, processorNode.getConcurrentTaskLimit());
+    }
+
+    private void runBusyWindow(final int tasks, final int flowFiles, final long cpuNanos) {
+        for (int i = 0; i < tasks; i++) {
+            final StandardFlowFileEvent event = new StandardFlowFileEvent();
+            event.setProcessingNanos(WINDOW_NANOS);
+            event.setCpuNanoseconds(cpuNanos);
+            event.setFlowFilesIn(flowFiles / tasks);
+            controller.onTaskCompleted(event);
+            controller.onTrigger(InvocationResult.DO_NOT_YIELD);
+        }
+
+        controller.evaluate(WINDOW_NANOS);
+    }
+}
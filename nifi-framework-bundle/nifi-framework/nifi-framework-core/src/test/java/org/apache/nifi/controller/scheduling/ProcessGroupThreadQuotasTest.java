@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.scheduling.ProcessGroupThreadQuotas.Quota;
+import org.apache.nifi.groups.ProcessGroup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProcessGroupThreadQuotasTest {
+    private static final String ROOT_GROUP_ID = "root";
+    private static final String TENANT_GROUP_ID = "tenant";
+    private static final String TEAM_GROUP_ID = "team";
+    private static final String UNLIMITED_GROUP_ID = "unlimited";
+
+    private ProcessGroup rootGroup;
+    private ProcessGroup tenantGroup;
+    private ProcessGroup teamGroup;
+    private ProcessGroup unlimitedGroup;
+
+    @BeforeEach
+    void setup() {
+        rootGroup = createGroup(ROOT_GROUP_ID, null);
+        tenantGroup = createGroup(TENANT_GROUP_ID, rootGroup);
+        teamGroup = createGroup(TEAM_GROUP_ID, tenantGroup);
+        unlimitedGroup = createGroup(UNLIMITED_GROUP_ID, rootGroup);
+    }
+
+    @Test
+    void testEmpty() {
+        final ProcessGroupThreadQuotas quotas = new ProcessGroupThreadQuotas(Collections.emptyMap());
+
+        assertTrue(quotas.isEmpty());
+        assertNull(quotas.getQuota(createComponent(teamGroup)));
+        assertTrue(quotas.getThreadWaitMillis().isEmpty());
+    }
+
+    @Test
+    void testGetQuotaFromNearestLimitedAncestor() {
+        final ProcessGroupThreadQuotas quotas = new ProcessGroupThreadQuotas(Map.of(TENANT_GROUP_ID, 4));
+
+        final Quota quota = quotas.getQuota(createComponent(teamGroup));
+        assertEquals(TENANT_GROUP_ID, quota.getGroupId());
+        assertEquals(4, quota.getMaxThreads());
+        assertSame(quota, quotas.getQuota(createComponent(tenantGroup)));
+
+        assertNull(quotas.getQuota(createComponent(unlimitedGroup)));
+        assertNull(quotas.getQuota(createComponent(rootGroup)));
+    }
+
+    @Test
+    void testGetQuotaPrefersNestedGroup() {
+        final ProcessGroupThreadQuotas quotas = new ProcessGroupThreadQuotas(Map.of(TENANT_GROUP_ID, 4, TEAM_GROUP_ID, 1));
+
+        assertEquals(TEAM_GROUP_ID, quotas.getQuota(createComponent(teamGroup)).getGroupId());
+        assertEquals(TENANT_GROUP_ID, quotas.getQuota(createComponent(tenantGroup)).getGroupId());
+    }
+
+    @Test
+    void testTryAcquireDeniedWhenExhaustedUntilReleased() {
+        final ProcessGroupThreadQuotas quotas = new ProcessGroupThreadQuotas(Map.of(TENANT_GROUP_ID, 2));
+        final Quota quota = quotas.getQuota(createComponent(teamGroup));
+
+        assertTrue(quota.tryAcquire());
+        assertTrue(quota.tryAcquire());
+        assertEquals(2, quota.getActiveThreads());
+        assertFalse(quota.tryAcquire());
+
+        quota.release();
+        assertEquals(1, quota.getActiveThreads());
+        assertTrue(quota.tryAcquire());
+        assertFalse(quota.tryAcquire());
+
+        quota.release();
+        quota.release();
+        assertEquals(0, quota.getActiveThreads());
+    }
+
+    @Test
+    void testThreadWaitRecordedPerGroup() {
+        final ProcessGroupThreadQuotas quotas = new ProcessGroupThreadQuotas(Map.of(TENANT_GROUP_ID, 1, UNLIMITED_GROUP_ID, 1));
+        final Quota quota = quotas.getQuota(createComponent(teamGroup));
+
+        quota.recordThreadWait(TimeUnit.MILLISECONDS.toNanos(15));
+        quota.recordThreadWait(TimeUnit.MILLISECONDS.toNanos(5));
+        // Non-positive durations, as seen if the clock does not advance, are ignored
+        quota.recordThreadWait(0L);
+        quota.recordThreadWait(-1L);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), quota.getThreadWaitNanos());
+        assertEquals(Map.of(TENANT_GROUP_ID, 20L, UNLIMITED_GROUP_ID, 0L), quotas.getThreadWaitMillis());
+    }
+
+    private ProcessGroup createGroup(final String id, final ProcessGroup parent) {
+        final ProcessGroup group = mock(ProcessGroup.class);
+        when(group.getIdentifier()).thenReturn(id);
+        when(group.getParent()).thenReturn(parent);
+        return group;
+    }
+
+    private Connectable createComponent(final ProcessGroup group) {
+        final Connectable connectable = mock(Connectable.class);
+        when(connectable.getProcessGroup()).thenReturn(group);
+        return connectable;
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.components.state.StateManagerProvider;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.connectable.Funnel;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.GarbageCollectionLog;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.RepositoryContext;
+import org.apache.nifi.controller.scheduling.ProcessGroupThreadQuotas.Quota;
+import org.apache.nifi.controller.status.FlowFileAvailability;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TimerDrivenSchedulingAgentTest {
+
+    private static final String VIRTUAL_THREAD_TYPE = "org.apache.nifi.processors.standard.InvokeHTTP";
+
+    private static final String VIRTUAL_THREAD_SIMPLE_TYPE = "PutSFTP";
+
+    private static final String GROUP_ID = "tenant";
+
+    private static final long BORED_YIELD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long MAX_BORED_YIELD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Mock
+    private FlowController flowController;
+
+    @Mock
+    private FlowEngine flowEngine;
+
+    @Mock
+    private FlowEngine virtualThreadEngine;
+
+    @Mock
+    private RepositoryContextFactory repositoryContextFactory;
+
+    @Mock
+    private ProcessorNode processorNode;
+
+    @Mock
+    private Funnel funnel;
+
+    @Mock
+    private FlowFileQueue incomingQueue;
+
+    @Mock
+    private ScheduledFuture<?> future;
+
+    private TimerDrivenSchedulingAgent schedulingAgent;
+
+    @BeforeEach
+    void setSchedulingAgent() {
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties("",
+            Map.of(NiFiProperties.VIRTUAL_THREAD_PROCESSOR_TYPES, VIRTUAL_THREAD_TYPE + ", " + VIRTUAL_THREAD_SIMPLE_TYPE));
+        schedulingAgent = new TimerDrivenSchedulingAgent(flowController, flowEngine, virtualThreadEngine, repositoryContextFactory, nifiProperties,
+            new ProcessGroupThreadQuotas(Collections.emptyMap()));
+    }
+
+    @Test
+    void testGetFlowEngineByCanonicalClassName() {
+        when(processorNode.getCanonicalClassName()).thenReturn(VIRTUAL_THREAD_TYPE);
+
+        assertSame(virtualThreadEngine, schedulingAgent.getFlowEngine(processorNode));
+    }
+
+    @Test
+    void testGetFlowEngineBySimpleType() {
+        when(processorNode.getCanonicalClassName()).thenReturn("org.apache.nifi.processors.standard.PutSFTP");
+        when(processorNode.getComponentType()).thenReturn(VIRTUAL_THREAD_SIMPLE_TYPE);
+
+        assertSame(virtualThreadEngine, schedulingAgent.getFlowEngine(processorNode));
+    }
+
+    @Test
+    void testGetFlowEngineUnlistedProcessor() {
+        when(processorNode.getCanonicalClassName()).thenReturn("org.apache.nifi.processors.standard.GenerateFlowFile");
+        when(processorNode.getComponentType()).thenReturn("GenerateFlowFile");
+
+        assertSame(flowEngine, schedulingAgent.getFlowEngine(processorNode));
+    }
+
+    @Test
+    void testGetFlowEngineNonProcessor() {
+        assertSame(flowEngine, schedulingAgent.getFlowEngine(funnel));
+    }
+
+    @Test
+    void testGetFlowEngineWithoutVirtualThreadEngine() {
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties("", Map.of(NiFiProperties.VIRTUAL_THREAD_PROCESSOR_TYPES, VIRTUAL_THREAD_TYPE));
+        final TimerDrivenSchedulingAgent agent = new TimerDrivenSchedulingAgent(flowController, flowEngine, null, repositoryContextFactory, nifiProperties,
+            new ProcessGroupThreadQuotas(Collections.emptyMap()));
+        lenient().when(processorNode.getCanonicalClassName()).thenReturn(VIRTUAL_THREAD_TYPE);
+
+        assertSame(flowEngine, agent.getFlowEngine(processorNode));
+    }
+
+    @Test
+    void testIncrementMaxThreadCountVirtualThreadProcessor() {
+        when(processorNode.getCanonicalClassName()).thenReturn(VIRTUAL_THREAD_TYPE);
+        when(virtualThreadEngine.getCorePoolSize()).thenReturn(8);
+
+        schedulingAgent.incrementMaxThreadCount(processorNode, 1);
+
+        verify(virtualThreadEngine).setCorePoolSize(9);
+        verify(flowEngine, never()).setCorePoolSize(anyInt());
+    }
+
+    @Test
+    void testIncrementMaxThreadCountVirtualThreadProcessorNeverBelowOne() {
+        when(processorNode.getCanonicalClassName()).thenReturn(VIRTUAL_THREAD_TYPE);
+        when(virtualThreadEngine.getCorePoolSize()).thenReturn(1);
+
+        schedulingAgent.incrementMaxThreadCount(processorNode, -1);
+
+        verify(virtualThreadEngine).setCorePoolSize(1);
+    }
+
+    @Test
+    void testIncrementMaxThreadCountPlatformThreadComponent() {
+        when(flowEngine.getCorePoolSize()).thenReturn(10);
+
+        schedulingAgent.incrementMaxThreadCount(funnel, 1);
+
+        verify(flowEngine).setCorePoolSize(11);
+        verify(virtualThreadEngine, never()).setCorePoolSize(anyInt());
+    }
+
+    @Test
+    void testTriggerWaitsForProcessGroupThread() {
+        final ProcessGroupThreadQuotas threadQuotas = new ProcessGroupThreadQuotas(Map.of(GROUP_ID, 1));
+        final TimerDrivenSchedulingAgent agent = new TimerDrivenSchedulingAgent(flowController, flowEngine, null, repositoryContextFactory,
+            NiFiProperties.createBasicNiFiProperties("", Collections.emptyMap()), threadQuotas);
+
+        final ProcessGroup processGroup = mock(ProcessGroup.class);
+        when(processGroup.getIdentifier()).thenReturn(GROUP_ID);
+        when(funnel.getProcessGroup()).thenReturn(processGroup);
+        when(funnel.getIdentifier()).thenReturn("funnel");
+        when(funnel.getConnectableType()).thenReturn(ConnectableType.FUNNEL);
+        when(funnel.getMaxConcurrentTasks()).thenReturn(1);
+        when(flowController.getStateManagerProvider()).thenReturn(mock(StateManagerProvider.class));
+        when(flowController.getGarbageCollectionLog()).thenReturn(mock(GarbageCollectionLog.class));
+
+        when(future.cancel(false)).thenReturn(true);
+        doReturn(future).when(flowEngine).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        final LifecycleState lifecycleState = new LifecycleState("funnel");
+        lifecycleState.setScheduled(true);
+        agent.doSchedule(funnel, lifecycleState);
+
+        final ArgumentCaptor<Runnable> triggerCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(flowEngine).scheduleWithFixedDelay(triggerCaptor.capture(), eq(0L), anyLong(), eq(TimeUnit.NANOSECONDS));
+        final Runnable trigger = triggerCaptor.getValue();
+
+        // With the group's only thread in use, the trigger gives its thread back and is rescheduled after the bored yield duration
+        final Quota quota = threadQuotas.getQuota(funnel);
+        assertTrue(quota.tryAcquire());
+        trigger.run();
+
+        verify(flowEngine).scheduleWithFixedDelay(eq(trigger), eq(BORED_YIELD_NANOS), anyLong(), eq(TimeUnit.NANOSECONDS));
+        verify(funnel, never()).hasIncomingConnection();
+        assertEquals(1, quota.getActiveThreads());
+        assertEquals(0L, quota.getThreadWaitNanos());
+
+        // Once the thread is given back, the trigger runs the component, records how long it waited, and releases its thread
+        quota.release();
+        trigger.run();
+
+        verify(funnel, atLeastOnce()).hasIncomingConnection();
+        assertEquals(0, quota.getActiveThreads());
+        assertTrue(quota.getThreadWaitNanos() > 0L);
+    }
+
+    @Test
+    void testFlowFileQueuedTriggersAwaitingTask() {
+        final TimerDrivenSchedulingAgent agent = createWorkAwareAgent();
+        mockIncomingConnection(FlowFileAvailability.ACTIVE_QUEUE_EMPTY);
+        final Runnable trigger = schedule(agent, new LifecycleState("funnel"));
+
+        // With no FlowFile queued, the task waits for a signal for up to the maximum bored yield duration
+        trigger.run();
+        verify(flowEngine).scheduleWithFixedDelay(eq(trigger), eq(MAX_BORED_YIELD_NANOS), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        agent.onFlowFilesQueued(incomingQueue);
+        verify(flowEngine, times(2)).scheduleWithFixedDelay(eq(trigger), eq(0L), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        // The task is no longer waiting, so a second signal does not trigger it again
+        agent.onFlowFilesQueued(incomingQueue);
+        verify(flowEngine, times(2)).scheduleWithFixedDelay(eq(trigger), eq(0L), anyLong(), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    void testBackPressureReleasedTriggersAwaitingTask() {
+        final TimerDrivenSchedulingAgent agent = createWorkAwareAgent();
+        final Connection outgoingConnection = mockIncomingConnection(FlowFileAvailability.FLOWFILE_AVAILABLE);
+        final FlowFileQueue outgoingQueue = mock(FlowFileQueue.class);
+        when(outgoingConnection.getFlowFileQueue()).thenReturn(outgoingQueue);
+        when(outgoingQueue.isFull()).thenReturn(true);
+        when(funnel.getRelationships()).thenReturn(Set.of(Relationship.ANONYMOUS));
+        final RepositoryContext repositoryContext = mock(RepositoryContext.class);
+        when(repositoryContextFactory.newProcessContext(eq(funnel), any())).thenReturn(repositoryContext);
+        when(repositoryContext.isRelationshipAvailabilitySatisfied(1)).thenReturn(false);
+        final Runnable trigger = schedule(agent, new LifecycleState("funnel"));
+
+        trigger.run();
+        verify(flowEngine).scheduleWithFixedDelay(eq(trigger), eq(MAX_BORED_YIELD_NANOS), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        // Data arriving does not help a task that is waiting for space downstream
+        agent.onFlowFilesQueued(incomingQueue);
+        verify(flowEngine, times(1)).scheduleWithFixedDelay(eq(trigger), eq(0L), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        agent.onBackPressureReleased(outgoingQueue);
+        verify(flowEngine, times(2)).scheduleWithFixedDelay(eq(trigger), eq(0L), anyLong(), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    void testSignalWhileRunningDoesNotTriggerTaskConcurrently() throws InterruptedException {
+        final TimerDrivenSchedulingAgent agent = createWorkAwareAgent();
+        mockIncomingConnection(FlowFileAvailability.ACTIVE_QUEUE_EMPTY);
+
+        final AtomicBoolean blockRunning = new AtomicBoolean(false);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(funnel.hasIncomingConnection()).thenAnswer(invocation -> {
+            if (blockRunning.get()) {
+                running.countDown();
+                release.await();
+            }
+            return true;
+        });
+
+        final Runnable trigger = schedule(agent, new LifecycleState("funnel"));
+        trigger.run();
+
+        // The future waiting for the maximum bored yield duration fires and the task runs
+        blockRunning.set(true);
+        final Thread runningThread = new Thread(trigger);
+        runningThread.start();
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        // Neither a signal nor another future firing for the same task may run it again while it is running
+        agent.onFlowFilesQueued(incomingQueue);
+        trigger.run();
+
+        release.countDown();
+        runningThread.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(runningThread.isAlive());
+
+        // Each of the two runs checks for incoming connections twice
+        verify(funnel, times(4)).hasIncomingConnection();
+        verify(flowEngine, times(1)).scheduleWithFixedDelay(eq(trigger), eq(0L), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        // Once the task has finished running and is waiting again, a signal triggers it
+        agent.onFlowFilesQueued(incomingQueue);
+        verify(flowEngine, times(2)).scheduleWithFixedDelay(eq(trigger), eq(0L), anyLong(), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    void testSignalAfterUnscheduleDoesNotTriggerTask() {
+        final TimerDrivenSchedulingAgent agent = createWorkAwareAgent();
+        mockIncomingConnection(FlowFileAvailability.ACTIVE_QUEUE_EMPTY);
+        final LifecycleState lifecycleState = new LifecycleState("funnel");
+        final Runnable trigger = schedule(agent, lifecycleState);
+
+        trigger.run();
+
+        lifecycleState.setScheduled(false);
+        agent.doUnschedule(funnel, lifecycleState);
+        agent.onFlowFilesQueued(incomingQueue);
+
+        verify(flowEngine, times(1)).scheduleWithFixedDelay(eq(trigger), eq(0L), anyLong(), eq(TimeUnit.NANOSECONDS));
+    }
+
+    private TimerDrivenSchedulingAgent createWorkAwareAgent() {
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties("", Map.of(NiFiProperties.BORED_YIELD_WORK_AWARE, "true"));
+        return new TimerDrivenSchedulingAgent(flowController, flowEngine, null, repositoryContextFactory, nifiProperties,
+            new ProcessGroupThreadQuotas(Collections.emptyMap()));
+    }
+
+    /**
+     * Connects the funnel to an upstream component through the incoming queue and to a downstream component
+     *
+     * @return the outgoing connection
+     */
+    private Connection mockIncomingConnection(final FlowFileAvailability availability) {
+        final Connection incomingConnection = mock(Connection.class);
+        when(incomingConnection.getSource()).thenReturn(mock(Connectable.class));
+        when(incomingConnection.getFlowFileQueue()).thenReturn(incomingQueue);
+        when(incomingQueue.getFlowFileAvailability()).thenReturn(availability);
+        when(funnel.getIncomingConnections()).thenReturn(List.of(incomingConnection));
+        lenient().when(funnel.hasIncomingConnection()).thenReturn(true);
+
+        final Connection outgoingConnection = mock(Connection.class);
+        when(funnel.getConnections()).thenReturn(Set.of(outgoingConnection));
+        when(funnel.getConnectableType()).thenReturn(ConnectableType.FUNNEL);
+        return outgoingConnection;
+    }
+
+    private Runnable schedule(final TimerDrivenSchedulingAgent agent, final LifecycleState lifecycleState) {
+        when(funnel.getIdentifier()).thenReturn("funnel");
+        when(funnel.getMaxConcurrentTasks()).thenReturn(1);
+        when(flowController.getStateManagerProvider()).thenReturn(mock(StateManagerProvider.class));
+        when(flowController.getGarbageCollectionLog()).thenReturn(mock(GarbageCollectionLog.class));
+        lenient().when(future.cancel(false)).thenReturn(true);
+        doReturn(future).when(flowEngine).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        lifecycleState.setScheduled(true);
+        agent.doSchedule(funnel, lifecycleState);
+
+        final ArgumentCaptor<Runnable> triggerCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(flowEngine).scheduleWithFixedDelay(triggerCaptor.capture(), eq(0L), anyLong(), eq(TimeUnit.NANOSECONDS));
+        return triggerCaptor.getValue();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.swap;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.flowfile.FlowFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestColumnarSwapSerializerDeserializer {
+    private static final String SWAP_LOCATION = "target/testRoundTrip.swap";
+
+    private ResourceClaimManager resourceClaimManager;
+    private FlowFileQueue flowFileQueue;
+
+    @BeforeEach
+    public void setup() {
+        MockFlowFile.resetIdGenerator();
+        resourceClaimManager = new StandardResourceClaimManager();
+        flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeSummary() throws IOException {
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        long size = 0L;
+        final ContentClaim firstClaim = MockFlowFile.createContentClaim("id", resourceClaimManager);
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("i", String.valueOf(i));
+            final FlowFileRecord ff = i < 2 ? new MockFlowFile(attrs, i, firstClaim) : new MockFlowFile(attrs, i, resourceClaimManager);
+            toSwap.add(ff);
+            size += i;
+        }
+
+        final byte[] serialized = serialize(new ColumnarSwapSerializer(), toSwap);
+
+        final SwapSummary swapSummary;
+        try (final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            swapSummary = new ColumnarSwapDeserializer().getSwapSummary(dis, SWAP_LOCATION, resourceClaimManager);
+        }
+
+        assertEquals(10000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(size, swapSummary.getQueueSize().getByteCount());
+        assertEquals(9999, swapSummary.getMaxFlowFileId().intValue());
+
+        final List<ResourceClaim> resourceClaims = swapSummary.getResourceClaims();
+        assertEquals(10000, resourceClaims.size());
+        assertFalse(resourceClaims.stream().anyMatch(claim -> claim == null));
+        assertEquals(2, resourceClaims.stream().filter(claim -> claim.getId().equals("id")).collect(Collectors.counting()).intValue());
+
+        final Set<ResourceClaim> uniqueClaims = new HashSet<>(resourceClaims);
+        assertEquals(9999, uniqueClaims.size());
+
+        assertEquals((Long) toSwap.stream().mapToLong(FlowFile::getLastQueueDate).sum(), swapSummary.getTotalLastQueueDate());
+        assertEquals((Long) toSwap.stream().mapToLong(FlowFile::getLastQueueDate).min().getAsLong(), swapSummary.getMinLastQueueDate());
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeFullSwapFile() throws IOException {
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("path", "./");
+        long size = 0L;
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("i", String.valueOf(i));
+            final FlowFileRecord ff = i % 3 == 0 ? new MockFlowFile(attrs, i, (ContentClaim) null) : new MockFlowFile(attrs, i, resourceClaimManager);
+            toSwap.add(ff);
+            size += i;
+        }
+
+        final byte[] serialized = serialize(new ColumnarSwapSerializer(), toSwap);
+
+        final SwapContents contents;
+        try (final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            contents = new ColumnarSwapDeserializer().deserializeFlowFiles(dis, SWAP_LOCATION, flowFileQueue, resourceClaimManager);
+        }
+
+        final SwapSummary swapSummary = contents.getSummary();
+        assertEquals(10000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(size, swapSummary.getQueueSize().getByteCount());
+        assertEquals(9999, swapSummary.getMaxFlowFileId().intValue());
+        assertEquals(6666, swapSummary.getResourceClaims().size());
+
+        assertEquals(10000, contents.getFlowFiles().size());
+
+        int counter = 0;
+        for (final FlowFileRecord flowFile : contents.getFlowFiles()) {
+            final FlowFileRecord original = toSwap.get(counter);
+            final int i = counter++;
+            assertEquals(i, flowFile.getId());
+            assertEquals(original.getAttributes(), flowFile.getAttributes());
+            assertEquals(i, flowFile.getSize());
+            assertEquals(original.getEntryDate(), flowFile.getEntryDate());
+            assertEquals(original.getLastQueueDate(), flowFile.getLastQueueDate());
+
+            if (i % 3 == 0) {
+                assertNull(flowFile.getContentClaim());
+            } else {
+                assertEquals(original.getContentClaim().getResourceClaim(), flowFile.getContentClaim().getResourceClaim());
+                assertEquals(original.getContentClaim().getOffset(), flowFile.getContentClaim().getOffset());
+                assertEquals(original.getContentClaimOffset(), flowFile.getContentClaimOffset());
+            }
+        }
+    }
+
+    @Test
+    public void testSmallerThanSchemaSwapFile() throws IOException {
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("filename", "data.json");
+        attrs.put("mime.type", "application/json");
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("i", String.valueOf(i));
+            toSwap.add(new MockFlowFile(attrs, i, resourceClaimManager));
+        }
+
+        final byte[] columnar = serialize(new ColumnarSwapSerializer(), toSwap);
+        final byte[] schema = serialize(new SchemaSwapSerializer(), toSwap);
+        assertTrue(columnar.length * 3 < schema.length, "Columnar swap file was " + columnar.length + " bytes but Schema swap file was " + schema.length + " bytes");
+    }
+
+    @Test
+    public void testRoundTripInlineContent() throws IOException {
+        final List<FlowFileRecord> toSwap = new ArrayList<>(100);
+        final Map<String, String> attrs = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            attrs.put("i", String.valueOf(i));
+            if (i % 2 == 0) {
+                toSwap.add(new StandardFlowFileRecord.Builder()
+                    .id(i)
+                    .addAttributes(attrs)
+                    .inlineContent(("content-" + i).getBytes(StandardCharsets.UTF_8))
+                    .build());
+            } else {
+                toSwap.add(new MockFlowFile(attrs, i, resourceClaimManager));
+            }
+        }
+
+        final byte[] serialized = serialize(new ColumnarSwapSerializer(), toSwap);
+
+        final SwapContents contents;
+        try (final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            contents = new ColumnarSwapDeserializer().deserializeFlowFiles(dis, SWAP_LOCATION, flowFileQueue, resourceClaimManager);
+        }
+
+        assertEquals(50, contents.getSummary().getResourceClaims().size());
+        assertEquals(100, contents.getFlowFiles().size());
+
+        int counter = 0;
+        for (final FlowFileRecord flowFile : contents.getFlowFiles()) {
+            final FlowFileRecord original = toSwap.get(counter++);
+            assertEquals(original.getSize(), flowFile.getSize());
+            assertArrayEquals(original.getInlineContent(), flowFile.getInlineContent());
+            if (original.getInlineContent() != null) {
+                assertNull(flowFile.getContentClaim());
+            } else {
+                assertEquals(original.getContentClaim().getResourceClaim(), flowFile.getContentClaim().getResourceClaim());
+            }
+        }
+    }
+
+    private byte[] serialize(final SwapSerializer serializer, final List<FlowFileRecord> toSwap) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serializeFlowFiles(toSwap, flowFileQueue, SWAP_LOCATION, baos);
+        return baos.toByteArray();
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.nifi.controller.swap;
 
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
 import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapSummary;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
@@ -36,6 +37,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -43,6 +46,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -53,8 +57,10 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class TestSchemaSwapSerializerDeserializer {
 
@@ -169,6 +175,53 @@ public class TestSchemaSwapSerializerDeserializer {
         }
     }
 
+    @Test
+    public void testRoundTripInlineContent() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(100);
+        final Map<String, String> attrs = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            attrs.put("i", String.valueOf(i));
+            if (i % 2 == 0) {
+                toSwap.add(new StandardFlowFileRecord.Builder()
+                    .id(i)
+                    .addAttributes(attrs)
+                    .inlineContent(("content-" + i).getBytes(StandardCharsets.UTF_8))
+                    .build());
+            } else {
+                toSwap.add(new MockFlowFile(attrs, i, resourceClaimManager));
+            }
+        }
+
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final String swapLocation = "target/testRoundTripInlineContent.swap";
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new SchemaSwapSerializer().serializeFlowFiles(toSwap, flowFileQueue, swapLocation, baos);
+
+        final SwapContents contents;
+        try (final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            contents = new SchemaSwapDeserializer().deserializeFlowFiles(dis, swapLocation, flowFileQueue, resourceClaimManager);
+        }
+
+        assertEquals(100, contents.getFlowFiles().size());
+
+        int counter = 0;
+        for (final FlowFileRecord flowFile : contents.getFlowFiles()) {
+            final FlowFileRecord original = toSwap.get(counter++);
+            assertEquals(original.getAttribute("i"), flowFile.getAttribute("i"));
+            assertEquals(original.getSize(), flowFile.getSize());
+            assertArrayEquals(original.getInlineContent(), flowFile.getInlineContent());
+            if (original.getInlineContent() != null) {
+                assertNull(flowFile.getContentClaim());
+            } else {
+                assertEquals(original.getContentClaim().getResourceClaim(), flowFile.getContentClaim().getResourceClaim());
+            }
+        }
+    }
+
     @Test
     @EnabledIfSystemProperty(named = "nifi.test.performance", matches = "true",
             disabledReason = "For manual testing, in order to ensure that changes do not negatively impact performance")
@@ -25,47 +25,88 @@ import org.apache.nifi.connectable.Funnel;
 import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.controller.GarbageCollectionLog;
 import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.ScheduledState;
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.repository.FlowFileEventRepository;
 import org.apache.nifi.controller.repository.RepositoryContext;
+import org.apache.nifi.controller.repository.StandardProcessSession;
 import org.apache.nifi.controller.repository.StandardRepositoryContext;
+import org.apache.nifi.controller.repository.metrics.DelegatingPerformanceTracker;
+import org.apache.nifi.controller.repository.metrics.PerformanceTracker;
 import org.apache.nifi.controller.scheduling.LifecycleState;
 import org.apache.nifi.controller.scheduling.RepositoryContextFactory;
 import org.apache.nifi.controller.scheduling.SchedulingAgent;
 import org.apache.nifi.controller.status.FlowFileAvailability;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.Processor;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TestConnectableTask {
 
     private ConnectableTask createTask(final Connectable connectable) {
+        final LifecycleState scheduleState = new LifecycleState(connectable.getIdentifier());
+
+        return new ConnectableTask(Mockito.mock(SchedulingAgent.class), connectable,
+                createFlowController(1), createContextFactory(), scheduleState);
+    }
+
+    private BatchingConnectableTask createBatchingTask(final ProcessorNode procNode, final int microBatchSize) {
+        final LifecycleState scheduleState = new LifecycleState(procNode.getIdentifier());
+
+        return new BatchingConnectableTask(procNode, createFlowController(microBatchSize), createContextFactory(), scheduleState);
+    }
+
+    private FlowController createFlowController(final int microBatchSize) {
         final FlowController flowController = Mockito.mock(FlowController.class);
         Mockito.when(flowController.getStateManagerProvider()).thenReturn(Mockito.mock(StateManagerProvider.class));
+        when(flowController.getGarbageCollectionLog()).thenReturn(mock(GarbageCollectionLog.class));
+        when(flowController.getProcessorMicroBatchSize()).thenReturn(microBatchSize);
+        return flowController;
+    }
 
+    private RepositoryContextFactory createContextFactory() {
         final RepositoryContext repoContext = Mockito.mock(StandardRepositoryContext.class);
         Mockito.when(repoContext.getFlowFileEventRepository()).thenReturn(Mockito.mock(FlowFileEventRepository.class));
 
-        when(flowController.getGarbageCollectionLog()).thenReturn(mock(GarbageCollectionLog.class));
-
         final RepositoryContextFactory contextFactory = Mockito.mock(RepositoryContextFactory.class);
         Mockito.when(contextFactory.newProcessContext(Mockito.any(Connectable.class), Mockito.any(AtomicLong.class))).thenReturn(repoContext);
+        return contextFactory;
+    }
 
-        final LifecycleState scheduleState = new LifecycleState(connectable.getIdentifier());
-
-        return new ConnectableTask(Mockito.mock(SchedulingAgent.class), connectable,
-                flowController, contextFactory, scheduleState);
+    private ProcessorNode createBatchingProcessor() {
+        final ProcessorNode procNode = Mockito.mock(ProcessorNode.class);
+        when(procNode.getIdentifier()).thenReturn("batching-processor");
+        when(procNode.getRunnableComponent()).thenReturn(Mockito.mock(Processor.class));
+        when(procNode.isSessionBatchingSupported()).thenReturn(true);
+        when(procNode.getScheduledState()).thenReturn(ScheduledState.RUNNING);
+        when(procNode.hasIncomingConnection()).thenReturn(false);
+        return procNode;
     }
 
     @Test
@@ -108,7 +149,9 @@ public class TestConnectableTask {
         when(emptyConnection.getFlowFileQueue()).thenReturn(flowFileQueue);
         when(procNode.getIncomingConnections()).thenReturn(Collections.singletonList(emptyConnection));
 
-        assertTrue(task.invoke().isYield());
+        final InvocationResult noWorkResult = task.invoke();
+        assertTrue(noWorkResult.isYield());
+        assertEquals(InvocationResult.AwaitedCondition.INCOMING_DATA, noWorkResult.getAwaitedCondition());
 
         // test when the queue has data
         final Connection nonEmptyConnection = Mockito.mock(Connection.class);
@@ -128,8 +171,11 @@ public class TestConnectableTask {
         Mockito.when(funnel.getIdentifier()).thenReturn("funnel-1");
 
         final ConnectableTask task = createTask(funnel);
-        assertTrue(task.invoke().isYield(),
+        final InvocationResult noIncomingConnectionResult = task.invoke();
+        assertTrue(noIncomingConnectionResult.isYield(),
                 "If there is no incoming connection, it should be yielded.");
+        assertNull(noIncomingConnectionResult.getAwaitedCondition(),
+                "If there is no incoming connection, queuing data cannot give it work to do.");
 
         // Test with only a single connection that is self-looping and empty.
         // Actually, this self-loop input can not be created for Funnels using NiFi API because an outer layer check condition does not allow it.
@@ -183,4 +229,192 @@ public class TestConnectableTask {
                 "When a Funnel has both incoming and outgoing connections and FlowFiles to process," +
                         " then it should be executed.");
     }
+
+    @Test
+    public void testPooledSessionReusedAfterCommitSucceeds() {
+        final ProcessorNode procNode = createBatchingProcessor();
+        final BatchingConnectableTask task = createBatchingTask(procNode, 2);
+
+        task.invoke();
+        task.invoke();
+
+        assertEquals(1, task.getSessions().size());
+        verify(task.getSessions().get(0), times(2)).commitAsync(any(Runnable.class), any());
+    }
+
+    @Test
+    public void testPooledSessionNotReusedUntilCommitCompletes() {
+        final ProcessorNode procNode = createBatchingProcessor();
+        final BatchingConnectableTask task = createBatchingTask(procNode, 2);
+        task.setCompleteCommits(false);
+
+        // The first session's commit has not yet completed, so it must not be handed to the next task
+        task.invoke();
+        task.invoke();
+        assertEquals(2, task.getSessions().size());
+
+        task.completePendingCommits();
+        task.setCompleteCommits(true);
+        task.invoke();
+        assertEquals(2, task.getSessions().size());
+    }
+
+    @Test
+    public void testSessionNotReusedAfterCommitFails() {
+        final ProcessorNode procNode = createBatchingProcessor();
+        final BatchingConnectableTask task = createBatchingTask(procNode, 2);
+        task.setCommitFails(true);
+
+        assertThrows(RuntimeException.class, task::invoke);
+        assertEquals(1, task.getSessions().size());
+
+        task.setCommitFails(false);
+        task.invoke();
+        assertEquals(2, task.getSessions().size());
+
+        task.invoke();
+        assertEquals(2, task.getSessions().size());
+    }
+
+    @Test
+    public void testMicroBatchStopsAtMicroBatchSize() {
+        final ProcessorNode procNode = createBatchingProcessor();
+        final BatchingConnectableTask task = createBatchingTask(procNode, 3);
+
+        assertFalse(task.invoke().isYield());
+
+        verify(procNode, times(3)).onTrigger(any(ProcessContext.class), any(ProcessSessionFactory.class));
+        verify(task.getSessions().get(0), times(1)).commitAsync(any(Runnable.class), any());
+    }
+
+    @Test
+    public void testMicroBatchStopsWhenNoWorkToDo() {
+        final ProcessorNode procNode = createBatchingProcessor();
+
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        when(queue.getFlowFileAvailability()).thenReturn(FlowFileAvailability.FLOWFILE_AVAILABLE, FlowFileAvailability.ACTIVE_QUEUE_EMPTY);
+
+        final Connection incomingConnection = Mockito.mock(Connection.class);
+        when(incomingConnection.getSource()).thenReturn(Mockito.mock(ProcessorNode.class));
+        when(incomingConnection.getDestination()).thenReturn(procNode);
+        when(incomingConnection.getFlowFileQueue()).thenReturn(queue);
+
+        when(procNode.hasIncomingConnection()).thenReturn(true);
+        when(procNode.getIncomingConnections()).thenReturn(Collections.singletonList(incomingConnection));
+
+        final BatchingConnectableTask task = createBatchingTask(procNode, 10);
+        assertFalse(task.invoke().isYield());
+
+        verify(procNode, times(1)).onTrigger(any(ProcessContext.class), any(ProcessSessionFactory.class));
+        verify(task.getSessions().get(0), times(1)).commitAsync(any(Runnable.class), any());
+    }
+
+    @Test
+    public void testMicroBatchStopsWhenBackPressureEngaged() {
+        final ProcessorNode procNode = createBatchingProcessor();
+
+        final FlowFileQueue fullQueue = Mockito.mock(FlowFileQueue.class);
+        when(fullQueue.isFull()).thenReturn(true);
+        when(fullQueue.getFlowFileAvailability()).thenReturn(FlowFileAvailability.FLOWFILE_AVAILABLE);
+
+        final Connection selfLoopingConnection = Mockito.mock(Connection.class);
+        when(selfLoopingConnection.getSource()).thenReturn(procNode);
+        when(selfLoopingConnection.getDestination()).thenReturn(procNode);
+        when(selfLoopingConnection.getFlowFileQueue()).thenReturn(fullQueue);
+
+        when(procNode.hasIncomingConnection()).thenReturn(true);
+        when(procNode.getIncomingConnections()).thenReturn(Collections.singletonList(selfLoopingConnection));
+
+        final BatchingConnectableTask task = createBatchingTask(procNode, 10);
+        assertFalse(task.invoke().isYield());
+
+        verify(procNode, times(1)).onTrigger(any(ProcessContext.class), any(ProcessSessionFactory.class));
+    }
+
+    @Test
+    public void testPerformanceTrackerDelegateSwitchedForEachTask() {
+        final ProcessorNode procNode = createBatchingProcessor();
+        final BatchingConnectableTask task = createBatchingTask(procNode, 2);
+
+        final List<PerformanceTracker> delegates = new ArrayList<>();
+        doAnswer(invocation -> {
+            delegates.add(task.getPerformanceTrackers().get(0).getDelegate());
+            return null;
+        }).when(procNode).onTrigger(any(ProcessContext.class), any(ProcessSessionFactory.class));
+
+        task.invoke();
+        task.invoke();
+
+        assertEquals(1, task.getPerformanceTrackers().size());
+        assertEquals(4, delegates.size());
+        assertNotNull(delegates.get(0));
+        assertSame(delegates.get(0), delegates.get(1));
+        assertSame(delegates.get(2), delegates.get(3));
+        assertNotSame(delegates.get(0), delegates.get(2));
+    }
+
+    /**
+     * Creates mock sessions for batched triggers so that the outcome of each session commit can be controlled
+     */
+    private static class BatchingConnectableTask extends ConnectableTask {
+        private final List<StandardProcessSession> sessions = new ArrayList<>();
+        private final List<DelegatingPerformanceTracker> performanceTrackers = new ArrayList<>();
+        private final List<Runnable> pendingCommits = new ArrayList<>();
+        private boolean completeCommits = true;
+        private boolean commitFails = false;
+
+        BatchingConnectableTask(final ProcessorNode procNode, final FlowController flowController, final RepositoryContextFactory contextFactory,
+                                final LifecycleState lifecycleState) {
+            super(Mockito.mock(SchedulingAgent.class), procNode, flowController, contextFactory, lifecycleState);
+        }
+
+        @Override
+        StandardProcessSession createBatchSession(final PerformanceTracker performanceTracker) {
+            performanceTrackers.add((DelegatingPerformanceTracker) performanceTracker);
+
+            final StandardProcessSession session = Mockito.mock(StandardProcessSession.class);
+            doAnswer(invocation -> {
+                final Runnable onSuccess = invocation.getArgument(0);
+                final Consumer<Throwable> onFailure = invocation.getArgument(1);
+
+                // Mirror StandardProcessSession, which notifies the failure callback and then rethrows
+                if (commitFails) {
+                    final RuntimeException failure = new RuntimeException("Intentional commit failure");
+                    onFailure.accept(failure);
+                    throw failure;
+                }
+
+                if (completeCommits) {
+                    onSuccess.run();
+                } else {
+                    pendingCommits.add(onSuccess);
+                }
+                return null;
+            }).when(session).commitAsync(any(Runnable.class), any());
+
+            sessions.add(session);
+            return session;
+        }
+
+        List<StandardProcessSession> getSessions() {
+            return sessions;
+        }
+
+        List<DelegatingPerformanceTracker> getPerformanceTrackers() {
+            return performanceTrackers;
+        }
+
+        void setCompleteCommits(final boolean completeCommits) {
+            this.completeCommits = completeCommits;
+        }
+
+        void setCommitFails(final boolean commitFails) {
+            this.commitFails = commitFails;
+        }
+
+        void completePendingCommits() {
+            pendingCommits.forEach(Runnable::run);
+            pendingCommits.clear();
+        }
+    }
 }
@@ -17,6 +17,7 @@
 
 package org.apache.nifi.controller.status.history;
 
+import org.apache.nifi.controller.status.AdaptiveProcessorStatus;
 import org.apache.nifi.controller.status.ProcessingPerformanceStatus;
 import org.apache.nifi.controller.status.ProcessorStatus;
 import org.apache.nifi.controller.status.history.MetricDescriptor.Formatter;
@@ -285,6 +286,15 @@ public enum ProcessorStatusDescriptor {
                 },
             processingPercentage(GARBAGE_COLLECTION_MILLIS.getDescriptor()),
             true
+    ),
+
+    ADAPTIVE_CONCURRENT_TASKS(
+            "adaptiveConcurrentTasks",
+            "Adaptive Concurrent Tasks",
+            "The number of concurrent tasks that the framework allowed this Processor to run, if its concurrent tasks are adapted to its workload. " +
+            "Note, this metric is only available if the `nifi.processor.adaptive.concurrent.tasks.enabled` property is set to `true`.",
+            Formatter.COUNT,
+                status -> status instanceof AdaptiveProcessorStatus adaptiveStatus ? (long) adaptiveStatus.getConcurrentTaskLimit() : 0L
     );
 
     private static long nanosToMillis(final ProcessorStatus procStatus, final Function<ProcessingPerformanceStatus, Long> metricTransform) {
@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.controller.status.history;
 
+import org.apache.nifi.controller.status.AdaptiveProcessorStatus;
 import org.apache.nifi.controller.status.ProcessorStatus;
 import org.junit.jupiter.api.Test;
 
@@ -66,6 +67,17 @@ class ProcessorStatusDescriptorTest {
         assertEquals(MINIMUM_METRIC_PERCENTAGE_EXPECTED, reduced);
     }
 
+    @Test
+    void testAdaptiveConcurrentTasks() {
+        final ValueMapper<ProcessorStatus> valueFunction = ProcessorStatusDescriptor.ADAPTIVE_CONCURRENT_TASKS.getDescriptor().getValueFunction();
+
+        final AdaptiveProcessorStatus adaptiveStatus = new AdaptiveProcessorStatus();
+        adaptiveStatus.setConcurrentTaskLimit(3);
+        assertEquals(3L, valueFunction.getValue(adaptiveStatus));
+
+        assertEquals(ZERO, valueFunction.getValue(new ProcessorStatus()));
+    }
+
     private StatusSnapshot getStatusSnapshot(final long taskNanoseconds) {
         final StatusSnapshot statusSnapshot = mock(StatusSnapshot.class);
         when(statusSnapshot.getStatusMetric(eq(METRIC_DESCRIPTOR.getDescriptor()))).thenReturn(METRIC_MILLISECONDS);
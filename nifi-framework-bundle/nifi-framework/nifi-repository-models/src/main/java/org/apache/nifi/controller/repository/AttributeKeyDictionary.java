@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A JVM-wide dictionary of FlowFile attribute keys. Most FlowFiles use attribute keys from a small set, so interning keys through this
+ * dictionary allows all FlowFiles to share a single String instance for each key. Each key is also assigned a position in the order in
+ * which it was first seen, which allows serializers to write a compact reference to a key rather than the key itself.
+ * </p>
+ *
+ * <p>
+ * The dictionary never removes keys, because serializers refer to keys by position, so the number of keys that it holds is bounded.
+ * To keep keys that are unique to a single FlowFile, such as keys containing an identifier, from filling the dictionary before the
+ * common keys are seen, a key is only added once it has been seen {@link #ADMISSION_THRESHOLD} times. Until then, and once the
+ * dictionary is full, keys that are not already present are returned as-is.
+ * </p>
+ *
+ * <p>
+ * Occurrences of keys that have not yet been added are counted in a bounded set of candidates. When the set of candidates is full, it
+ * is cleared, so keys that are seen rarely do not accumulate, while keys that are seen often are counted again quickly.
+ * </p>
+ */
+public final class AttributeKeyDictionary {
+    static final int MAX_KEYS = 4096;
+    static final int ADMISSION_THRESHOLD = 3;
+    static final int MAX_CANDIDATES = MAX_KEYS * 4;
+
+    private static final ConcurrentMap<String, String> internedKeys = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, AtomicInteger> candidateCounts = new ConcurrentHashMap<>();
+    private static volatile String[] orderedKeys = new String[0];
+
+    static {
+        for (final CoreAttributes coreAttribute : CoreAttributes.values()) {
+            register(coreAttribute.key());
+        }
+    }
+
+    private AttributeKeyDictionary() {
+    }
+
+    /**
+     * @param key the attribute key
+     * @return the canonical instance of the given key, or the key itself if the key has not been seen often enough to be added or the
+     *         dictionary is full
+     */
+    public static String intern(final String key) {
+        final String interned = internedKeys.get(key);
+        if (interned != null) {
+            return interned;
+        }
+
+        if (orderedKeys.length >= MAX_KEYS || !isAdmitted(key)) {
+            return key;
+        }
+
+        return register(key);
+    }
+
+    /**
+     * @return the keys in the dictionary, in the order in which they were added. Keys are only ever appended, so the list returned by an
+     *         earlier call is always a prefix of the list returned by a later call.
+     */
+    public static List<String> getKeys() {
+        return List.of(orderedKeys);
+    }
+
+    private static boolean isAdmitted(final String key) {
+        AtomicInteger count = candidateCounts.get(key);
+        if (count == null) {
+            if (candidateCounts.size() >= MAX_CANDIDATES) {
+                candidateCounts.clear();
+            }
+            count = candidateCounts.computeIfAbsent(key, k -> new AtomicInteger());
+        }
+
+        return count.incrementAndGet() >= ADMISSION_THRESHOLD;
+    }
+
+    private static synchronized String register(final String key) {
+        final String interned = internedKeys.get(key);
+        if (interned != null) {
+            return interned;
+        }
+
+        final String[] keys = orderedKeys;
+        if (keys.length >= MAX_KEYS) {
+            return key;
+        }
+
+        final String[] updatedKeys = Arrays.copyOf(keys, keys.length + 1);
+        updatedKeys[keys.length] = key;
+        orderedKeys = updatedKeys;
+        internedKeys.put(key, key);
+        candidateCounts.remove(key);
+        return key;
+    }
+}
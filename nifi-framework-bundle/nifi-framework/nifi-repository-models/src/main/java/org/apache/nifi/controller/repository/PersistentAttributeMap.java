@@ -0,0 +1,528 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.repository;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>
+ * An immutable Map of FlowFile attributes that is implemented as a hash array mapped trie. Adding or removing an attribute creates a new
+ * map that copies only the path from the root of the trie to the changed entry and shares everything else with the original map.
+ * This allows a FlowFile that is derived from another FlowFile, such as a child or a FlowFile whose attribute was updated, to share
+ * nearly all of the memory that is used to hold its attributes with the original, rather than copying the entire map.
+ * </p>
+ *
+ * <p>
+ * Neither keys nor values may be <code>null</code>. Any method that would modify the map throws an {@link UnsupportedOperationException}.
+ * </p>
+ *
+ * <b>Immutable - Thread Safe</b>
+ */
+public final class PersistentAttributeMap extends AbstractMap<String, String> {
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final int HASH_BITS = 32;
+
+    private static final PersistentAttributeMap EMPTY = new PersistentAttributeMap(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+    private Set<Entry<String, String>> entrySet;
+
+    private PersistentAttributeMap(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return a map that contains no attributes
+     */
+    public static PersistentAttributeMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a map that contains the same attributes as the given map, ignoring any <code>null</code> key or value. If the given
+     * map is already a PersistentAttributeMap, it is returned as-is.
+     *
+     * @param attributes the attributes to copy
+     * @return a map that contains the given attributes
+     */
+    public static PersistentAttributeMap copyOf(final Map<String, String> attributes) {
+        if (attributes instanceof final PersistentAttributeMap persistentAttributeMap) {
+            return persistentAttributeMap;
+        }
+
+        PersistentAttributeMap map = EMPTY;
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                map = map.with(entry.getKey(), entry.getValue());
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @param key the attribute key
+     * @param value the attribute value
+     * @return a map that contains all of the attributes of this map as well as the given attribute, replacing any existing value for the key
+     */
+    public PersistentAttributeMap with(final String key, final String value) {
+        Objects.requireNonNull(key, "Attribute key is required");
+        Objects.requireNonNull(value, "Attribute value is required");
+
+        final Change change = new Change();
+        final Node updatedRoot = root.put(key, value, hash(key), 0, change);
+        if (updatedRoot == root) {
+            return this;
+        }
+
+        return new PersistentAttributeMap(updatedRoot, change.added ? size + 1 : size);
+    }
+
+    /**
+     * @param key the attribute key
+     * @return a map that contains all of the attributes of this map except for the given attribute
+     */
+    public PersistentAttributeMap without(final String key) {
+        if (key == null) {
+            return this;
+        }
+
+        final Node updatedRoot = root.remove(key, hash(key), 0);
+        if (updatedRoot == root) {
+            return this;
+        }
+
+        return size == 1 ? EMPTY : new PersistentAttributeMap(updatedRoot, size - 1);
+    }
+
+    @Override
+    public String get(final Object key) {
+        if (!(key instanceof final String stringKey)) {
+            return null;
+        }
+
+        return root.find(stringKey, hash(stringKey), 0);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new EntryIterator(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        return entrySet;
+    }
+
+    private static int hash(final String key) {
+        final int hashCode = key.hashCode();
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private static int bitFor(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    private static final class Change {
+        private boolean added;
+    }
+
+    private abstract static class Node {
+        abstract String find(String key, int hash, int shift);
+
+        abstract Node put(String key, String value, int hash, int shift, Change change);
+
+        abstract Node remove(String key, int hash, int shift);
+
+        abstract int entryCount();
+
+        abstract int childCount();
+
+        abstract String keyAt(int index);
+
+        abstract String valueAt(int index);
+
+        abstract Node childAt(int index);
+    }
+
+    /**
+     * A node that holds up to 32 entries and children, indexed by 5 bits of the hash. Entries are stored inline as alternating keys and
+     * values at the start of the content array and are followed by the children, so that no space is needed for unused slots.
+     */
+    private static final class BitmapNode extends Node {
+        private static final BitmapNode EMPTY = new BitmapNode(0, 0, new Object[0]);
+
+        private final int entryMap;
+        private final int childMap;
+        private final Object[] content;
+
+        private BitmapNode(final int entryMap, final int childMap, final Object[] content) {
+            this.entryMap = entryMap;
+            this.childMap = childMap;
+            this.content = content;
+        }
+
+        @Override
+        String find(final String key, final int hash, final int shift) {
+            final int bit = bitFor(hash, shift);
+            if ((entryMap & bit) != 0) {
+                final int index = entryIndex(bit);
+                return key.equals(content[2 * index]) ? (String) content[2 * index + 1] : null;
+            }
+            if ((childMap & bit) != 0) {
+                return child(bit).find(key, hash, shift + BITS_PER_LEVEL);
+            }
+            return null;
+        }
+
+        @Override
+        Node put(final String key, final String value, final int hash, final int shift, final Change change) {
+            final int bit = bitFor(hash, shift);
+            if ((entryMap & bit) != 0) {
+                final int index = entryIndex(bit);
+                final String existingKey = (String) content[2 * index];
+                final String existingValue = (String) content[2 * index + 1];
+                if (key.equals(existingKey)) {
+                    if (value.equals(existingValue)) {
+                        return this;
+                    }
+
+                    final Object[] updatedContent = content.clone();
+                    updatedContent[2 * index + 1] = value;
+                    return new BitmapNode(entryMap, childMap, updatedContent);
+                }
+
+                change.added = true;
+                final Node merged = merge(existingKey, existingValue, hash(existingKey), key, value, hash, shift + BITS_PER_LEVEL);
+                return replaceEntryWithChild(bit, merged);
+            }
+
+            if ((childMap & bit) != 0) {
+                final Node child = child(bit);
+                final Node updatedChild = child.put(key, value, hash, shift + BITS_PER_LEVEL, change);
+                return updatedChild == child ? this : withChild(bit, updatedChild);
+            }
+
+            change.added = true;
+            return insertEntry(bit, key, value);
+        }
+
+        @Override
+        Node remove(final String key, final int hash, final int shift) {
+            final int bit = bitFor(hash, shift);
+            if ((entryMap & bit) != 0) {
+                final int index = entryIndex(bit);
+                return key.equals(content[2 * index]) ? removeEntry(bit) : this;
+            }
+
+            if ((childMap & bit) != 0) {
+                final Node child = child(bit);
+                final Node updatedChild = child.remove(key, hash, shift + BITS_PER_LEVEL);
+                if (updatedChild == child) {
+                    return this;
+                }
+
+                // A child that is left with a single entry is folded back into this node so that the trie stays as shallow as possible
+                if (updatedChild.entryCount() == 1 && updatedChild.childCount() == 0) {
+                    return replaceChildWithEntry(bit, updatedChild.keyAt(0), updatedChild.valueAt(0));
+                }
+                return withChild(bit, updatedChild);
+            }
+
+            return this;
+        }
+
+        @Override
+        int entryCount() {
+            return Integer.bitCount(entryMap);
+        }
+
+        @Override
+        int childCount() {
+            return Integer.bitCount(childMap);
+        }
+
+        @Override
+        String keyAt(final int index) {
+            return (String) content[2 * index];
+        }
+
+        @Override
+        String valueAt(final int index) {
+            return (String) content[2 * index + 1];
+        }
+
+        @Override
+        Node childAt(final int index) {
+            return (Node) content[content.length - 1 - index];
+        }
+
+        private int entryIndex(final int bit) {
+            return Integer.bitCount(entryMap & (bit - 1));
+        }
+
+        private int childContentIndex(final int bit) {
+            // Children are stored in reverse order at the end of the content array
+            return content.length - 1 - Integer.bitCount(childMap & (bit - 1));
+        }
+
+        private Node child(final int bit) {
+            return (Node) content[childContentIndex(bit)];
+        }
+
+        private BitmapNode withChild(final int bit, final Node child) {
+            final Object[] updatedContent = content.clone();
+            updatedContent[childContentIndex(bit)] = child;
+            return new BitmapNode(entryMap, childMap, updatedContent);
+        }
+
+        private BitmapNode insertEntry(final int bit, final String key, final String value) {
+            final int position = 2 * entryIndex(bit);
+            final Object[] updatedContent = new Object[content.length + 2];
+            System.arraycopy(content, 0, updatedContent, 0, position);
+            updatedContent[position] = key;
+            updatedContent[position + 1] = value;
+            System.arraycopy(content, position, updatedContent, position + 2, content.length - position);
+            return new BitmapNode(entryMap | bit, childMap, updatedContent);
+        }
+
+        private BitmapNode removeEntry(final int bit) {
+            final int position = 2 * entryIndex(bit);
+            final Object[] updatedContent = new Object[content.length - 2];
+            System.arraycopy(content, 0, updatedContent, 0, position);
+            System.arraycopy(content, position + 2, updatedContent, position, content.length - position - 2);
+            return new BitmapNode(entryMap ^ bit, childMap, updatedContent);
+        }
+
+        private BitmapNode replaceEntryWithChild(final int bit, final Node child) {
+            final int entryPosition = 2 * entryIndex(bit);
+            final int childPosition = childContentIndex(bit);
+
+            // Remove the key and value, which shifts everything after them left by 2 slots, then insert the child.
+            // The child's position is computed relative to the original array, before the bit was added to the child map.
+            final Object[] updatedContent = new Object[content.length - 1];
+            System.arraycopy(content, 0, updatedContent, 0, entryPosition);
+            System.arraycopy(content, entryPosition + 2, updatedContent, entryPosition, childPosition - 1 - entryPosition);
+            updatedContent[childPosition - 1] = child;
+            System.arraycopy(content, childPosition + 1, updatedContent, childPosition, content.length - childPosition - 1);
+            return new BitmapNode(entryMap ^ bit, childMap | bit, updatedContent);
+        }
+
+        private BitmapNode replaceChildWithEntry(final int bit, final String key, final String value) {
+            final int childPosition = childContentIndex(bit);
+            final int entryPosition = 2 * Integer.bitCount(entryMap & (bit - 1));
+
+            final Object[] updatedContent = new Object[content.length + 1];
+            System.arraycopy(content, 0, updatedContent, 0, entryPosition);
+            updatedContent[entryPosition] = key;
+            updatedContent[entryPosition + 1] = value;
+            System.arraycopy(content, entryPosition, updatedContent, entryPosition + 2, childPosition - entryPosition);
+            System.arraycopy(content, childPosition + 1, updatedContent, childPosition + 2, content.length - childPosition - 1);
+            return new BitmapNode(entryMap | bit, childMap ^ bit, updatedContent);
+        }
+
+        private static Node merge(final String key1, final String value1, final int hash1, final String key2, final String value2, final int hash2, final int shift) {
+            if (shift >= HASH_BITS) {
+                return new CollisionNode(new String[] {key1, key2}, new String[] {value1, value2});
+            }
+
+            final int bit1 = bitFor(hash1, shift);
+            final int bit2 = bitFor(hash2, shift);
+            if (bit1 == bit2) {
+                final Node child = merge(key1, value1, hash1, key2, value2, hash2, shift + BITS_PER_LEVEL);
+                return new BitmapNode(0, bit1, new Object[] {child});
+            }
+
+            final Object[] content = Integer.compareUnsigned(bit1, bit2) < 0
+                ? new Object[] {key1, value1, key2, value2}
+                : new Object[] {key2, value2, key1, value1};
+            return new BitmapNode(bit1 | bit2, 0, content);
+        }
+    }
+
+    /**
+     * A node that holds entries whose keys have the same hash
+     */
+    private static final class CollisionNode extends Node {
+        private final String[] keys;
+        private final String[] values;
+
+        private CollisionNode(final String[] keys, final String[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        String find(final String key, final int hash, final int shift) {
+            final int index = indexOf(key);
+            return index < 0 ? null : values[index];
+        }
+
+        @Override
+        Node put(final String key, final String value, final int hash, final int shift, final Change change) {
+            final int index = indexOf(key);
+            if (index >= 0) {
+                if (value.equals(values[index])) {
+                    return this;
+                }
+
+                final String[] updatedValues = values.clone();
+                updatedValues[index] = value;
+                return new CollisionNode(keys, updatedValues);
+            }
+
+            change.added = true;
+            final String[] updatedKeys = Arrays.copyOf(keys, keys.length + 1);
+            final String[] updatedValues = Arrays.copyOf(values, values.length + 1);
+            updatedKeys[keys.length] = key;
+            updatedValues[values.length] = value;
+            return new CollisionNode(updatedKeys, updatedValues);
+        }
+
+        @Override
+        Node remove(final String key, final int hash, final int shift) {
+            final int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+
+            final String[] updatedKeys = new String[keys.length - 1];
+            final String[] updatedValues = new String[values.length - 1];
+            System.arraycopy(keys, 0, updatedKeys, 0, index);
+            System.arraycopy(keys, index + 1, updatedKeys, index, keys.length - index - 1);
+            System.arraycopy(values, 0, updatedValues, 0, index);
+            System.arraycopy(values, index + 1, updatedValues, index, values.length - index - 1);
+            return new CollisionNode(updatedKeys, updatedValues);
+        }
+
+        @Override
+        int entryCount() {
+            return keys.length;
+        }
+
+        @Override
+        int childCount() {
+            return 0;
+        }
+
+        @Override
+        String keyAt(final int index) {
+            return keys[index];
+        }
+
+        @Override
+        String valueAt(final int index) {
+            return values[index];
+        }
+
+        @Override
+        Node childAt(final int index) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        private int indexOf(final String key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class EntryIterator implements Iterator<Entry<String, String>> {
+        private final Deque<Node> pendingNodes = new ArrayDeque<>();
+        private Node currentNode;
+        private int entryIndex;
+
+        private EntryIterator(final Node root) {
+            currentNode = root;
+            entryIndex = 0;
+            pushChildren(root);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return currentNode != null;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (currentNode == null) {
+                throw new NoSuchElementException();
+            }
+
+            final Entry<String, String> entry = new SimpleImmutableEntry<>(currentNode.keyAt(entryIndex), currentNode.valueAt(entryIndex));
+            entryIndex++;
+            advance();
+            return entry;
+        }
+
+        private void advance() {
+            while (currentNode != null && entryIndex >= currentNode.entryCount()) {
+                currentNode = pendingNodes.poll();
+                entryIndex = 0;
+                if (currentNode != null) {
+                    pushChildren(currentNode);
+                }
+            }
+        }
+
+        private void pushChildren(final Node node) {
+            for (int i = 0; i < node.childCount(); i++) {
+                pendingNodes.push(node.childAt(i));
+            }
+        }
+    }
+}
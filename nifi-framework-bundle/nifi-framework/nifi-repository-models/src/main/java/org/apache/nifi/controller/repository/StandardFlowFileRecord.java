@@ -24,10 +24,9 @@ import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -37,6 +36,16 @@ import java.util.regex.Pattern;
  * A flow file is a logical notion of an item in a flow with its associated attributes and identity which can be used as a reference for its actual content.
  * </p>
  *
+ * <p>
+ * Attributes are held in a {@link PersistentAttributeMap}, so a FlowFile that is built from another FlowFile shares the memory used by all
+ * of the attributes that it did not change, and attribute keys are interned through the {@link AttributeKeyDictionary}.
+ * </p>
+ *
+ * <p>
+ * Small content may be held in the record itself (see {@link #getInlineContent()}) rather than in a {@link ContentClaim}. Setting a
+ * Content Claim on the {@link Builder} discards any inline content, and vice versa.
+ * </p>
+ *
  * <b>Immutable - Thread Safe</b>
  *
  */
@@ -48,15 +57,16 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
     private final long lineageStartIndex;
     private final long size;
     private final long penaltyExpirationMs;
-    private final Map<String, String> attributes;
+    private final PersistentAttributeMap attributes;
     private final ContentClaim claim;
     private final long claimOffset;
+    private final byte[] inlineContent;
     private final long lastQueueDate;
     private final long queueDateIndex;
 
     private StandardFlowFileRecord(final Builder builder) {
         this.id = builder.bId;
-        this.attributes = builder.bAttributes == null ? Collections.emptyMap() : builder.bAttributes;
+        this.attributes = builder.bAttributes;
         this.entryDate = builder.bEntryDate;
         this.lineageStartDate = builder.bLineageStartDate;
         this.lineageStartIndex = builder.bLineageStartIndex;
@@ -64,6 +74,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         this.size = builder.bSize;
         this.claim = builder.bClaim;
         this.claimOffset = builder.bClaimOffset;
+        this.inlineContent = builder.bInlineContent;
         this.lastQueueDate = builder.bLastQueueDate;
         this.queueDateIndex = builder.bQueueDateIndex;
     }
@@ -105,7 +116,8 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
     @Override
     public Map<String, String> getAttributes() {
-        return Collections.unmodifiableMap(this.attributes);
+        // The map is immutable, so there is no need to wrap it in an unmodifiable view
+        return this.attributes;
     }
 
     @Override
@@ -118,6 +130,11 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         return this.claimOffset;
     }
 
+    @Override
+    public byte[] getInlineContent() {
+        return this.inlineContent;
+    }
+
     @Override
     public long getLineageStartIndex() {
         return lineageStartIndex;
@@ -157,7 +174,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
     public String toString() {
         final ToStringBuilder builder = new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE);
         builder.append("uuid", getAttribute(CoreAttributes.UUID.key()));
-        builder.append("claim", claim == null ? "" : claim.toString());
+        builder.append("claim", claim == null ? (inlineContent == null ? "" : "inline") : claim.toString());
         builder.append("offset", claimOffset);
         builder.append("name", getAttribute(CoreAttributes.FILENAME.key())).append("size", size);
         return builder.toString();
@@ -179,10 +196,10 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         private long bSize = 0L;
         private ContentClaim bClaim = null;
         private long bClaimOffset = 0L;
+        private byte[] bInlineContent = null;
         private long bLastQueueDate = System.currentTimeMillis();
         private long bQueueDateIndex = 0L;
-        private Map<String, String> bAttributes;
-        private boolean bAttributesCopied = false;
+        private PersistentAttributeMap bAttributes = PersistentAttributeMap.empty();
 
         public Builder id(final long id) {
             bId = id;
@@ -212,39 +229,34 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
             return this;
         }
 
-        private Map<String, String> initializeAttributes() {
-            if (bAttributes == null) {
-                bAttributes = new HashMap<>();
-                bAttributesCopied = true;
-            } else if (!bAttributesCopied) {
-                bAttributes = new HashMap<>(bAttributes);
-                bAttributesCopied = true;
-            }
-
-            return bAttributes;
-        }
-
         public Builder addAttribute(final String key, final String value) {
             if (key != null && value != null) {
-                initializeAttributes().put(FlowFile.KeyValidator.validateKey(key), value);
+                bAttributes = bAttributes.with(AttributeKeyDictionary.intern(FlowFile.KeyValidator.validateKey(key)), value);
             }
             return this;
         }
 
         public Builder addAttributes(final Map<String, String> attributes) {
-            final Map<String, String> initializedAttributes = initializeAttributes();
-
             if (null != attributes) {
+                // Keys of a PersistentAttributeMap were validated when they were added, so an empty builder can share the map as-is
+                if (bAttributes.isEmpty() && attributes instanceof final PersistentAttributeMap persistentAttributeMap) {
+                    bAttributes = persistentAttributeMap;
+                    return this;
+                }
+
                 for (final String key : attributes.keySet()) {
                     FlowFile.KeyValidator.validateKey(key);
                 }
+
+                PersistentAttributeMap updatedAttributes = bAttributes;
                 for (final Map.Entry<String, String> entry : attributes.entrySet()) {
                     final String key = entry.getKey();
                     final String value = entry.getValue();
                     if (key != null && value != null) {
-                        initializedAttributes.put(key, value);
+                        updatedAttributes = updatedAttributes.with(AttributeKeyDictionary.intern(key), value);
                     }
                 }
+                bAttributes = updatedAttributes;
             }
             return this;
         }
@@ -256,7 +268,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
                         continue;
                     }
 
-                    initializeAttributes().remove(key);
+                    bAttributes = bAttributes.without(key);
                 }
             }
             return this;
@@ -269,7 +281,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
                         continue;
                     }
 
-                    initializeAttributes().remove(key);
+                    bAttributes = bAttributes.without(key);
                 }
             }
             return this;
@@ -277,24 +289,43 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
         public Builder removeAttributes(final Pattern keyPattern) {
             if (keyPattern != null) {
-                final Iterator<String> iterator = initializeAttributes().keySet().iterator();
-                while (iterator.hasNext()) {
-                    final String key = iterator.next();
-
+                final List<String> keysToRemove = new ArrayList<>();
+                for (final String key : bAttributes.keySet()) {
                     if (CoreAttributes.UUID.key().equals(key)) {
                         continue;
                     }
 
                     if (keyPattern.matcher(key).matches()) {
-                        iterator.remove();
+                        keysToRemove.add(key);
                     }
                 }
+
+                for (final String key : keysToRemove) {
+                    bAttributes = bAttributes.without(key);
+                }
             }
             return this;
         }
 
         public Builder contentClaim(final ContentClaim claim) {
             this.bClaim = claim;
+            this.bInlineContent = null;
+            return this;
+        }
+
+        /**
+         * Holds the given content in the FlowFile record itself rather than in a Content Claim. This clears any Content Claim
+         * and Content Claim offset and sets the size of the FlowFile to the length of the content. The array is not copied,
+         * so it must not be modified after it is provided.
+         *
+         * @param content the content of the FlowFile
+         * @return this builder
+         */
+        public Builder inlineContent(final byte[] content) {
+            this.bClaim = null;
+            this.bClaimOffset = 0L;
+            this.bSize = content == null ? 0L : content.length;
+            this.bInlineContent = content == null || content.length == 0 ? null : content;
             return this;
         }
 
@@ -320,15 +351,13 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
             bLineageIdentifiers.clear();
             bPenaltyExpirationMs = specFlowFile.getPenaltyExpirationMillis();
             bSize = specFlowFile.getSize();
-            // If this is a StandardFlowFileRecord, access the attributes map directly. Do not use the
-            // getAttributes() method, because that will wrap the original in an UnmodifiableMap. As a result,
-            // a Processor that continually calls session.append() for instance will have a FlowFile whose attributes
-            // Map is wrapped thousands of times until it hits a StackOverflowError. We want the getter to return
-            // UnmodifiableMap, though, so that Processors cannot directly modify that Map.
-            bAttributes = specFlowFile instanceof StandardFlowFileRecord ? ((StandardFlowFileRecord) specFlowFile).attributes : specFlowFile.getAttributes();
-            bAttributesCopied = false;
+            // If this is a StandardFlowFileRecord, share its attributes map directly. Because the map is persistent, any
+            // attribute that is added or removed creates a new map that shares all unchanged attributes with the original.
+            bAttributes = specFlowFile instanceof StandardFlowFileRecord ? ((StandardFlowFileRecord) specFlowFile).attributes
+                : PersistentAttributeMap.copyOf(specFlowFile.getAttributes());
             bClaim = specFlowFile.getContentClaim();
             bClaimOffset = specFlowFile.getContentClaimOffset();
+            bInlineContent = specFlowFile.getInlineContent();
             bLastQueueDate = specFlowFile.getLastQueueDate();
             bQueueDateIndex = specFlowFile.getQueueDateIndex();
 
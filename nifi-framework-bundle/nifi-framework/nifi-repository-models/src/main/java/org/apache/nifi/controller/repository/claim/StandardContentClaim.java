@@ -30,6 +30,7 @@ public final class StandardContentClaim implements ContentClaim, Comparable<Cont
     private final long offset;
     private volatile long length;
     private volatile boolean truncationCandidate;
+    private volatile byte[] contentDigest;
 
     public StandardContentClaim(final ResourceClaim resourceClaim, final long offset) {
         this.resourceClaim = resourceClaim;
@@ -50,6 +51,23 @@ public final class StandardContentClaim implements ContentClaim, Comparable<Cont
         return truncationCandidate;
     }
 
+    /**
+     * Sets the digest of the content that was written to this claim, so that the Content Repository can find other claims with the same content.
+     * The digest is needed only until the Content Repository has deduplicated the claim, and may be cleared by setting it to <code>null</code>.
+     *
+     * @param contentDigest the digest of the claim's content, or <code>null</code> if not known
+     */
+    public void setContentDigest(final byte[] contentDigest) {
+        this.contentDigest = contentDigest;
+    }
+
+    /**
+     * @return the digest of the content that was written to this claim, or <code>null</code> if not known
+     */
+    public byte[] getContentDigest() {
+        return contentDigest;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -143,6 +143,24 @@ public class StandardResourceClaimManager implements ResourceClaimManager {
         }
     }
 
+    @Override
+    public int incrementClaimantCountIfReferenced(final ResourceClaim claim) {
+        if (claim == null) {
+            return 0;
+        }
+
+        synchronized (claim) {
+            final ClaimCount counter = claimantCounts.get(claim);
+            if (counter == null || counter.getCount().get() <= 0) {
+                return 0;
+            }
+
+            final int newClaimantCount = counter.getCount().incrementAndGet();
+            logger.debug("Incrementing claimant count for referenced claim {} to {}", claim, newClaimantCount);
+            return newClaimantCount;
+        }
+    }
+
     @Override
     public void markDestructable(final ResourceClaim claim) {
         if (claim == null) {
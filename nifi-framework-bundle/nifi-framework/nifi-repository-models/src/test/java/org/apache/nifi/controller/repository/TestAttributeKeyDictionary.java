@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestAttributeKeyDictionary {
+
+    @Test
+    public void testCoreAttributesInterned() {
+        final String key = CoreAttributes.FILENAME.key();
+        assertSame(key, AttributeKeyDictionary.intern(new String(key)));
+    }
+
+    @Test
+    public void testKeyInternedOnceSeenEnough() {
+        final String key = "frequent." + UUID.randomUUID();
+
+        for (int i = 1; i < AttributeKeyDictionary.ADMISSION_THRESHOLD; i++) {
+            final String occurrence = new String(key);
+            assertSame(occurrence, AttributeKeyDictionary.intern(occurrence));
+        }
+        assertFalse(AttributeKeyDictionary.getKeys().contains(key));
+
+        final String interned = AttributeKeyDictionary.intern(new String(key));
+        assertTrue(AttributeKeyDictionary.getKeys().contains(key));
+        assertSame(interned, AttributeKeyDictionary.intern(new String(key)));
+    }
+
+    @Test
+    public void testCommonKeysInternedAfterUniqueKeys() {
+        final String prefix = "unique." + UUID.randomUUID() + ".";
+        final int uniqueKeyCount = AttributeKeyDictionary.MAX_KEYS * 2;
+        for (int i = 0; i < uniqueKeyCount; i++) {
+            AttributeKeyDictionary.intern(prefix + i);
+        }
+
+        final List<String> keys = AttributeKeyDictionary.getKeys();
+        assertTrue(keys.stream().noneMatch(key -> key.startsWith(prefix)));
+
+        final String commonKey = "common." + UUID.randomUUID();
+        for (int i = 0; i < AttributeKeyDictionary.ADMISSION_THRESHOLD; i++) {
+            AttributeKeyDictionary.intern(new String(commonKey));
+        }
+
+        final String occurrence = new String(commonKey);
+        final String interned = AttributeKeyDictionary.intern(occurrence);
+        assertNotSame(occurrence, interned);
+        assertSame(interned, AttributeKeyDictionary.intern(new String(commonKey)));
+    }
+}
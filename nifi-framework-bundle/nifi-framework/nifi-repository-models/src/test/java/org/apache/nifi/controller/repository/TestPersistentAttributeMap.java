@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestPersistentAttributeMap {
+
+    @Test
+    public void testWithAndWithoutLeaveOriginalUnchanged() {
+        final PersistentAttributeMap original = PersistentAttributeMap.empty().with("a", "1").with("b", "2");
+        final PersistentAttributeMap updated = original.with("a", "3").with("c", "4").without("b");
+
+        assertEquals(Map.of("a", "1", "b", "2"), original);
+        assertEquals(Map.of("a", "3", "c", "4"), updated);
+        assertNull(updated.get("b"));
+        assertFalse(updated.containsKey("b"));
+    }
+
+    @Test
+    public void testUnchangedMapIsShared() {
+        final PersistentAttributeMap map = PersistentAttributeMap.empty().with("a", "1");
+
+        assertSame(map, map.with("a", "1"));
+        assertSame(map, map.without("b"));
+        assertSame(map, PersistentAttributeMap.copyOf(map));
+        assertTrue(PersistentAttributeMap.empty().without("a").isEmpty());
+    }
+
+    @Test
+    public void testCopyOf() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("a", "1");
+        attributes.put("b", null);
+
+        assertEquals(Map.of("a", "1"), PersistentAttributeMap.copyOf(attributes));
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        final Random random = new Random(1L);
+        final Map<String, String> expected = new HashMap<>();
+        PersistentAttributeMap map = PersistentAttributeMap.empty();
+
+        // "Aa" and "BB" have the same hash code, so keys built from them exercise hash collisions
+        final String[] prefixes = {"Aa", "BB", "key-"};
+        for (int i = 0; i < 20_000; i++) {
+            final String key = prefixes[random.nextInt(prefixes.length)] + random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.without(key);
+            } else {
+                final String value = String.valueOf(random.nextInt());
+                expected.put(key, value);
+                map = map.with(key, value);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+}
@@ -111,6 +111,18 @@ public class NiFiMetricsRegistry extends AbstractMetricsRegistry {
                 .labelNames("instance", "component_type", "component_name", "component_id", "parent_id")
                 .register(registry));
 
+        nameToGaugeMap.put("THREAD_WAIT_DURATION",  Gauge.build()
+                .name("nifi_thread_wait_duration")
+                .help("Total number of milliseconds that components in the Process Group have waited for a thread because the group's thread budget was exhausted")
+                .labelNames("instance", "component_type", "component_name", "component_id", "parent_id")
+                .register(registry));
+
+        nameToGaugeMap.put("ADAPTIVE_CONCURRENT_TASKS",  Gauge.build()
+                .name("nifi_adaptive_concurrent_tasks")
+                .help("Number of concurrent tasks that the framework currently allows the Processor to run when adaptive concurrent tasks are enabled")
+                .labelNames("instance", "component_type", "component_name", "component_id", "parent_id")
+                .register(registry));
+
         nameToGaugeMap.put("SIZE_CONTENT_OUTPUT_TOTAL",  Gauge.build()
                 .name("nifi_size_content_output_total")
                 .help("Total size of content output by the component")
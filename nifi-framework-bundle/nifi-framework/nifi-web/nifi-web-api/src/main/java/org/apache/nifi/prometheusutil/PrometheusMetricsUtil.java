@@ -510,6 +510,45 @@ public class PrometheusMetricsUtil {
         return clusterMetricsRegistry.getRegistry();
     }
 
+    public static CollectorRegistry createThreadWaitMetrics(final NiFiMetricsRegistry nifiMetricsRegistry, final ProcessGroupStatus status, final Map<String, Long> threadWaitMillis,
+                                                            final String instId, final String parentProcessGroupId, final String compType) {
+        final String instanceId = StringUtils.isEmpty(instId) ? DEFAULT_LABEL_STRING : instId;
+        final String parentPGId = StringUtils.isEmpty(parentProcessGroupId) ? DEFAULT_LABEL_STRING : parentProcessGroupId;
+        final String componentType = StringUtils.isEmpty(compType) ? DEFAULT_LABEL_STRING : compType;
+        final String componentId = StringUtils.isEmpty(status.getId()) ? DEFAULT_LABEL_STRING : status.getId();
+        final String componentName = StringUtils.isEmpty(status.getName()) ? DEFAULT_LABEL_STRING : status.getName();
+
+        // Only Process Groups that have a thread budget are reported
+        final Long waitMillis = threadWaitMillis.get(status.getId());
+        if (waitMillis != null) {
+            nifiMetricsRegistry.setDataPoint(waitMillis, "THREAD_WAIT_DURATION", instanceId, componentType, componentName, componentId, parentPGId);
+        }
+
+        status.getProcessGroupStatus().forEach((childGroupStatus) -> createThreadWaitMetrics(nifiMetricsRegistry, childGroupStatus, threadWaitMillis, instanceId, componentId, "ProcessGroup"));
+        return nifiMetricsRegistry.getRegistry();
+    }
+
+    public static CollectorRegistry createAdaptiveConcurrentTasksMetrics(final NiFiMetricsRegistry nifiMetricsRegistry, final ProcessGroupStatus status,
+                                                                         final Map<String, Integer> concurrentTaskLimits, final String instId) {
+        final String instanceId = StringUtils.isEmpty(instId) ? DEFAULT_LABEL_STRING : instId;
+
+        // Only Processors whose concurrent tasks are currently being adapted are reported
+        for (final ProcessorStatus processorStatus : status.getProcessorStatus()) {
+            final Integer limit = concurrentTaskLimits.get(processorStatus.getId());
+            if (limit == null) {
+                continue;
+            }
+
+            final String procComponentId = StringUtils.isEmpty(processorStatus.getId()) ? DEFAULT_LABEL_STRING : processorStatus.getId();
+            final String procComponentName = StringUtils.isEmpty(processorStatus.getName()) ? DEFAULT_LABEL_STRING : processorStatus.getName();
+            final String parentId = StringUtils.isEmpty(processorStatus.getGroupId()) ? DEFAULT_LABEL_STRING : processorStatus.getGroupId();
+            nifiMetricsRegistry.setDataPoint(limit, "ADAPTIVE_CONCURRENT_TASKS", instanceId, "Processor", procComponentName, procComponentId, parentId);
+        }
+
+        status.getProcessGroupStatus().forEach((childGroupStatus) -> createAdaptiveConcurrentTasksMetrics(nifiMetricsRegistry, childGroupStatus, concurrentTaskLimits, instanceId));
+        return nifiMetricsRegistry.getRegistry();
+    }
+
     public static CollectorRegistry createStorageUsageMetrics(final NiFiMetricsRegistry nifiMetricsRegistry, final StorageUsage flowFileRepositoryUsage,
                                                               final Map<String, StorageUsage> contentRepositoryUsage, final Map<String, StorageUsage> provenanceRepositoryUsage,
                                                               final String instanceId, final String componentType, final String componentName, final String componentId, final String parentId) {
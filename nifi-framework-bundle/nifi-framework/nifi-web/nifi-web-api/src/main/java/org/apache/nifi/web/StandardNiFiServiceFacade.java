@@ -7701,6 +7701,18 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
         nifiMetricsRegistry.setDataPoint(aggregateEvent.getBytesReceived(), "TOTAL_BYTES_RECEIVED",
                 instanceId, ROOT_PROCESS_GROUP, rootPGName, rootPGId, "");
 
+        // Add the time spent waiting for a thread in Process Groups that have a thread budget
+        final Map<String, Long> threadWaitMillis = controllerFacade.getProcessGroupThreadWaitMillis();
+        if (!threadWaitMillis.isEmpty()) {
+            PrometheusMetricsUtil.createThreadWaitMetrics(nifiMetricsRegistry, rootPGStatus, threadWaitMillis, instanceId, "", ROOT_PROCESS_GROUP);
+        }
+
+        // Add the current concurrent task limit of Processors whose concurrent tasks are adapted to their workload
+        final Map<String, Integer> concurrentTaskLimits = controllerFacade.getAdaptiveConcurrentTaskLimits();
+        if (!concurrentTaskLimits.isEmpty()) {
+            PrometheusMetricsUtil.createAdaptiveConcurrentTasksMetrics(nifiMetricsRegistry, rootPGStatus, concurrentTaskLimits, instanceId);
+        }
+
         //Add version info metrics to NiFi metrics
         PrometheusMetricsUtil.createVersionInfoMetrics(versionInfoRegistry, instanceId);
         //Add FlowFile repository, content repository and provenance repository usage to NiFi metrics
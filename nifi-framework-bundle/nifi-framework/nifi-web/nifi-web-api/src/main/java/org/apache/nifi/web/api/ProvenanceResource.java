@@ -44,6 +44,7 @@ import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageRequestDTO;
+import org.apache.nifi.web.api.dto.provenance.lineage.LineageRequestDTO.LineageRequestType;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageResultsDTO;
 import org.apache.nifi.web.api.entity.ComponentEntity;
 import org.apache.nifi.web.api.entity.LineageEntity;
@@ -440,6 +441,18 @@ public class ProvenanceResource extends ApplicationResource {
                 break;
         }
 
+        if (Boolean.TRUE.equals(requestDto.getStreaming())) {
+            if (requestDto.getLineageRequestType() != LineageRequestType.FLOWFILE || requestDto.getUuid() == null) {
+                throw new IllegalArgumentException("A streaming lineage request must be of type FLOWFILE and must specify the flowfile uuid.");
+            }
+            if (requestDto.getMaxDepth() != null && requestDto.getMaxDepth() < 0) {
+                throw new IllegalArgumentException("The maximum depth of a streaming lineage request cannot be negative.");
+            }
+            if (requestDto.getMaxNodes() != null && requestDto.getMaxNodes() < 1) {
+                throw new IllegalArgumentException("The maximum number of nodes of a streaming lineage request must be positive.");
+            }
+        }
+
         // replicate if cluster manager
         if (isReplicateRequest()) {
             if (requestDto.getClusterNodeId() == null) {
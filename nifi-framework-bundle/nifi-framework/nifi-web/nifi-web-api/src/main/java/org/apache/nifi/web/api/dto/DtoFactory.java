@@ -163,6 +163,7 @@ import org.apache.nifi.parameter.ParameterReferenceManager;
 import org.apache.nifi.parameter.ParameterSensitivity;
 import org.apache.nifi.processor.Processor;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.provenance.StandardLineageResult;
 import org.apache.nifi.provenance.lineage.ComputeLineageResult;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.lineage.LineageEdge;
@@ -3655,22 +3656,25 @@ public final class DtoFactory {
         final List<LineageNode> nodes = results.getNodes();
         final List<LineageEdge> edges = results.getEdges();
 
+        // create the node dto's; a streaming lineage publishes its nodes before it is finished
         final List<ProvenanceNodeDTO> nodeDtos = new ArrayList<>();
-        if (results.isFinished()) {
-            // create the node dto's
-            for (final LineageNode node : nodes) {
-                switch (node.getNodeType()) {
-                    case FLOWFILE_NODE:
-                        nodeDtos.add(createFlowFileNodeDTO(node));
-                        break;
-                    case PROVENANCE_EVENT_NODE:
-                        nodeDtos.add(createProvenanceEventNodeDTO((ProvenanceEventLineageNode) node));
-                        break;
-                }
+        for (final LineageNode node : nodes) {
+            switch (node.getNodeType()) {
+                case FLOWFILE_NODE:
+                    nodeDtos.add(createFlowFileNodeDTO(node));
+                    break;
+                case PROVENANCE_EVENT_NODE:
+                    nodeDtos.add(createProvenanceEventNodeDTO((ProvenanceEventLineageNode) node));
+                    break;
             }
         }
         resultsDto.setNodes(nodeDtos);
 
+        // indicate whether the repository did not record all of the events of the lineage
+        if (results instanceof final StandardLineageResult standardLineageResult) {
+            resultsDto.setIncomplete(standardLineageResult.isIncomplete());
+        }
+
         // include any errors
         if (results.getError() != null) {
             final Set<String> errors = new HashSet<>();
@@ -4045,6 +4049,9 @@ public final class DtoFactory {
         dto.setSwapByteCount(swapSize.getByteCount());
         dto.setSwapFlowFileCount(swapSize.getObjectCount());
         dto.setSwapFiles(queueDiagnostics.getSwapFileCount());
+        dto.setSwapInCount(queueDiagnostics.getSwapInCount());
+        dto.setSwapInStallCount(queueDiagnostics.getSwapInStallCount());
+        dto.setSwapInMillis(TimeUnit.NANOSECONDS.toMillis(queueDiagnostics.getSwapInNanos()));
 
         dto.setTotalByteCount(activeSize.getByteCount() + inFlightSize.getByteCount() + swapSize.getByteCount());
         dto.setTotalFlowFileCount(activeSize.getObjectCount() + inFlightSize.getObjectCount() + swapSize.getObjectCount());
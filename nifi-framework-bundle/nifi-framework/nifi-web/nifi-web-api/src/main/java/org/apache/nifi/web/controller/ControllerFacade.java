@@ -174,6 +174,8 @@ public class ControllerFacade implements Authorizable {
     private static final Logger logger = LoggerFactory.getLogger(ControllerFacade.class);
 
     private static final int MAX_REPLAY_EVENT_COUNT = 10;
+    private static final int DEFAULT_STREAMING_LINEAGE_DEPTH = 25;
+    private static final int DEFAULT_STREAMING_LINEAGE_NODES = 5000;
 
     // nifi components
     private FlowController flowController;
@@ -1434,7 +1436,12 @@ public class ControllerFacade implements Authorizable {
         final ComputeLineageSubmission result;
 
         if (LineageRequestType.FLOWFILE.equals(requestDto.getLineageRequestType())) {
-            if (requestDto.getUuid() != null) {
+            if (requestDto.getUuid() != null && Boolean.TRUE.equals(requestDto.getStreaming())) {
+                // expand the lineage one generation at a time so that partial results are available while it is computed
+                final int maxDepth = requestDto.getMaxDepth() == null ? DEFAULT_STREAMING_LINEAGE_DEPTH : requestDto.getMaxDepth();
+                final int maxNodes = requestDto.getMaxNodes() == null ? DEFAULT_STREAMING_LINEAGE_NODES : requestDto.getMaxNodes();
+                result = provenanceRepository.submitStreamingLineageComputation(requestDto.getUuid(), maxDepth, maxNodes, NiFiUserUtils.getNiFiUser());
+            } else if (requestDto.getUuid() != null) {
                 // submit uuid if it is specified
                 result = provenanceRepository.submitLineageComputation(requestDto.getUuid(), NiFiUserUtils.getNiFiUser());
             } else {
@@ -2080,6 +2087,32 @@ public class ControllerFacade implements Authorizable {
         return flowController.getEventAccess().getFlowFileRepositoryStorageUsage();
     }
 
+    /**
+     * Returns the total time that components have waited for a thread in each Process Group that has a thread budget
+     *
+     * @return the map of Process Group identifier to wait time in milliseconds
+     */
+    public Map<String, Long> getProcessGroupThreadWaitMillis() {
+        return flowController.getProcessGroupThreadQuotas().getThreadWaitMillis();
+    }
+
+    /**
+     * Returns the number of concurrent tasks that each Processor is currently allowed to run, for the Processors whose concurrent tasks are being adapted
+     * to their workload and that the current user is authorized to read
+     *
+     * @return the map of Processor identifier to concurrent task limit
+     */
+    public Map<String, Integer> getAdaptiveConcurrentTaskLimits() {
+        final NiFiUser user = NiFiUserUtils.getNiFiUser();
+        final Map<String, Integer> limits = new HashMap<>();
+        for (final ProcessorNode procNode : flowController.getFlowManager().findAllProcessors(ProcessorNode::isConcurrentTaskLimited)) {
+            if (procNode.isAuthorized(authorizer, RequestAction.READ, user)) {
+                limits.put(procNode.getIdentifier(), procNode.getConcurrentTaskLimit());
+            }
+        }
+        return limits;
+    }
+
     public VersionedReportingTaskImporter createReportingTaskImporter() {
         return new StandardVersionedReportingTaskImporter(flowController);
     }
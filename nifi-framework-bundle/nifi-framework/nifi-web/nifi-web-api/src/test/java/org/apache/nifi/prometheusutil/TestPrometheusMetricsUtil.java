@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.prometheusutil;
+
+import io.prometheus.client.CollectorRegistry;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TestPrometheusMetricsUtil {
+    private static final String INSTANCE_ID = "instance-1";
+    private static final String ROOT_GROUP_ID = "root-group";
+    private static final String CHILD_GROUP_ID = "child-group";
+    private static final String[] LABEL_NAMES = {"instance", "component_type", "component_name", "component_id", "parent_id"};
+
+    @Test
+    void testAdaptiveConcurrentTasksReportedForLimitedProcessors() {
+        final ProcessGroupStatus rootGroupStatus = createGroupStatus(ROOT_GROUP_ID, "Root");
+        rootGroupStatus.setProcessorStatus(List.of(createProcessorStatus("root-processor", ROOT_GROUP_ID)));
+
+        final ProcessGroupStatus childGroupStatus = createGroupStatus(CHILD_GROUP_ID, "Child");
+        childGroupStatus.setProcessorStatus(List.of(createProcessorStatus("limited-processor", CHILD_GROUP_ID)));
+        rootGroupStatus.setProcessGroupStatus(List.of(childGroupStatus));
+
+        final NiFiMetricsRegistry metricsRegistry = new NiFiMetricsRegistry();
+        final CollectorRegistry registry = PrometheusMetricsUtil.createAdaptiveConcurrentTasksMetrics(metricsRegistry, rootGroupStatus,
+            Map.of("limited-processor", 3), INSTANCE_ID);
+
+        assertEquals(3D, registry.getSampleValue("nifi_adaptive_concurrent_tasks", LABEL_NAMES,
+            new String[] {INSTANCE_ID, "Processor", "limited-processor", "limited-processor", CHILD_GROUP_ID}));
+        assertNull(registry.getSampleValue("nifi_adaptive_concurrent_tasks", LABEL_NAMES,
+            new String[] {INSTANCE_ID, "Processor", "root-processor", "root-processor", ROOT_GROUP_ID}));
+    }
+
+    @Test
+    void testThreadWaitDurationReportedForGroupsWithThreadBudget() {
+        final ProcessGroupStatus rootGroupStatus = createGroupStatus(ROOT_GROUP_ID, "Root");
+        final ProcessGroupStatus childGroupStatus = createGroupStatus(CHILD_GROUP_ID, "Child");
+        rootGroupStatus.setProcessGroupStatus(List.of(childGroupStatus));
+
+        final NiFiMetricsRegistry metricsRegistry = new NiFiMetricsRegistry();
+        final CollectorRegistry registry = PrometheusMetricsUtil.createThreadWaitMetrics(metricsRegistry, rootGroupStatus, Map.of(CHILD_GROUP_ID, 250L),
+            INSTANCE_ID, "", "RootProcessGroup");
+
+        assertEquals(250D, registry.getSampleValue("nifi_thread_wait_duration", LABEL_NAMES,
+            new String[] {INSTANCE_ID, "ProcessGroup", "Child", CHILD_GROUP_ID, ROOT_GROUP_ID}));
+        assertNull(registry.getSampleValue("nifi_thread_wait_duration", LABEL_NAMES,
+            new String[] {INSTANCE_ID, "RootProcessGroup", "Root", ROOT_GROUP_ID, ""}));
+    }
+
+    private ProcessGroupStatus createGroupStatus(final String id, final String name) {
+        final ProcessGroupStatus status = new ProcessGroupStatus();
+        status.setId(id);
+        status.setName(name);
+        status.setProcessorStatus(Collections.emptyList());
+        status.setProcessGroupStatus(Collections.emptyList());
+        return status;
+    }
+
+    private ProcessorStatus createProcessorStatus(final String id, final String groupId) {
+        final ProcessorStatus status = new ProcessorStatus();
+        status.setId(id);
+        status.setName(id);
+        status.setGroupId(groupId);
+        return status;
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.nifi.c2.protocol.component.api.RuntimeManifest;
 import org.apache.nifi.connectable.Connectable;
 import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
 import org.apache.nifi.controller.flow.FlowManager;
 import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.controller.status.RemoteProcessGroupStatus;
@@ -60,6 +61,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -119,6 +121,26 @@ public class ControllerFacadeTest {
         SecurityContextHolder.getContext().setAuthentication(new NiFiAuthenticationToken(new NiFiUserDetails(user)));
     }
 
+    @Test
+    public void testGetAdaptiveConcurrentTaskLimitsOnlyAuthorizedProcessors() {
+        final Authorizer authorizer = mock(Authorizer.class);
+        final ProcessorNode authorizedProcessor = mock(ProcessorNode.class);
+        when(authorizedProcessor.getIdentifier()).thenReturn("authorized");
+        when(authorizedProcessor.getConcurrentTaskLimit()).thenReturn(2);
+        when(authorizedProcessor.isAuthorized(eq(authorizer), eq(RequestAction.READ), any(NiFiUser.class))).thenReturn(true);
+        final ProcessorNode unauthorizedProcessor = mock(ProcessorNode.class);
+        when(unauthorizedProcessor.isAuthorized(eq(authorizer), eq(RequestAction.READ), any(NiFiUser.class))).thenReturn(false);
+
+        final FlowManager flowManager = mock(FlowManager.class);
+        when(flowManager.findAllProcessors(any())).thenReturn(Set.of(authorizedProcessor, unauthorizedProcessor));
+        final FlowController flowController = mock(FlowController.class);
+        when(flowController.getFlowManager()).thenReturn(flowManager);
+        controllerFacade.setFlowController(flowController);
+        controllerFacade.setAuthorizer(authorizer);
+
+        assertEquals(Map.of("authorized", 2), controllerFacade.getAdaptiveConcurrentTaskLimits());
+    }
+
     @Test
     public void testSearchConnectorDelegatesSearchQueryParserWithConnectorProcessGroupAsRootAndActive() {
         when(searchQueryParser.parse(eq(SEARCH_TERM), any(NiFiUser.class), eq(connectorProcessGroup), eq(connectorProcessGroup))).thenReturn(searchQuery);